@@ -83,6 +83,8 @@ import com.firebirdberlin.nightdream.ui.SidePanel;
 import com.firebirdberlin.nightdream.ui.SleepTimerDialogFragment;
 import com.firebirdberlin.nightdream.ui.StopBackgroundServiceDialogFragment;
 import com.firebirdberlin.nightdream.util.DevicePolicyWrapper;
+import com.firebirdberlin.nightdream.util.LifecycleTasks;
+import com.firebirdberlin.nightdream.util.TaskScheduler;
 import com.firebirdberlin.nightdream.viewmodels.BatteryReferenceViewModel;
 import com.firebirdberlin.openweathermapapi.OpenWeatherMapApi;
 import com.firebirdberlin.openweathermapapi.models.City;
@@ -101,8 +103,7 @@ import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class NightDreamActivity extends BillingHelperActivity
@@ -358,8 +359,14 @@ public class NightDreamActivity extends BillingHelperActivity
         devicePolicyWrapper = new DevicePolicyWrapper(this);
         mGestureDetector = new GestureDetector(this, mSimpleOnGestureListener);
 
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        executor.execute(this::initTextToSpeech);
+        LifecycleTasks.cancelOnDestroy(this);
+        try {
+            TaskScheduler.getInstance().submit(
+                    TaskScheduler.Lane.IO, null, this, this::initTextToSpeech
+            );
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Task rejected: the IO queue is full. Text to speech is not available.");
+        }
 
         if ("samsung".equalsIgnoreCase(android.os.Build.MANUFACTURER)
                 && android.os.Build.VERSION.SDK_INT >= 36) {
@@ -475,18 +482,24 @@ public class NightDreamActivity extends BillingHelperActivity
             });
 
             if (mySettings.getWeatherAutoLocationEnabled() && hasPermission(Manifest.permission.ACCESS_COARSE_LOCATION)) {
-                ExecutorService executor = Executors.newSingleThreadExecutor();
                 Handler handler = new Handler(Looper.getMainLooper());
-                executor.execute(() -> {
-                    getLastKnownLocation();
-                    handler.post(() -> {
-                        if (hasPermission(Manifest.permission.ACCESS_COARSE_LOCATION)) {
-                            locationManager.requestLocationUpdates(
-                                    LocationManager.NETWORK_PROVIDER, 15 * 60000, 10000, locationListener
-                            );
-                        }
+                Runnable requestLocationUpdates = () -> {
+                    if (hasPermission(Manifest.permission.ACCESS_COARSE_LOCATION)) {
+                        locationManager.requestLocationUpdates(
+                                LocationManager.NETWORK_PROVIDER, 15 * 60000, 10000, locationListener
+                        );
+                    }
+                };
+                try {
+                    TaskScheduler.getInstance().submit(TaskScheduler.Lane.IO, null, this, () -> {
+                        getLastKnownLocation();
+                        handler.post(requestLocationUpdates);
                     });
-                });
+                } catch (RejectedExecutionException e) {
+                    // the last known location is skipped, the updates deliver a new one
+                    Log.w(TAG, "Task rejected: the IO queue is full.");
+                    requestLocationUpdates.run();
+                }
             }
 
             if (mySettings.shallShowWeather()) {
@@ -61,7 +61,6 @@ import com.android.volley.VolleyError;
 import com.android.volley.toolbox.ImageLoader;
 import com.android.volley.toolbox.Volley;
 import com.firebirdberlin.nightdream.Config;
-import com.firebirdberlin.nightdream.HttpStatusCheckTask;
 import com.firebirdberlin.nightdream.NightDreamActivity;
 import com.firebirdberlin.nightdream.R;
 import com.firebirdberlin.nightdream.Settings;
@@ -69,10 +68,7 @@ import com.firebirdberlin.nightdream.Utility;
 import com.firebirdberlin.nightdream.events.OnSleepTimeChanged;
 import com.firebirdberlin.nightdream.models.SimpleTime;
 import com.firebirdberlin.nightdream.repositories.VibrationHandler;
-import com.firebirdberlin.radiostreamapi.PlaylistParser;
-import com.firebirdberlin.radiostreamapi.PlaylistRequestTask;
 import com.firebirdberlin.radiostreamapi.models.FavoriteRadioStations;
-import com.firebirdberlin.radiostreamapi.models.PlaylistInfo;
 import com.firebirdberlin.radiostreamapi.models.RadioStation;
 import com.google.android.gms.cast.MediaInfo;
 import com.google.android.gms.cast.MediaLoadRequestData;
@@ -83,8 +79,8 @@ import com.google.android.gms.common.images.WebImage;
 
 import org.greenrobot.eventbus.Subscribe;
 
-public class RadioStreamService extends Service implements HttpStatusCheckTask.AsyncResponse,
-        PlaylistRequestTask.AsyncResponse {
+public class RadioStreamService extends Service
+        implements StreamUrlResolver.ResolveTask.AsyncResponse {
 
     protected static final int NOTIFY_ID = 1337;
     private static final String TAG = "RadioStreamService";
@@ -115,8 +111,9 @@ public class RadioStreamService extends Service implements HttpStatusCheckTask.A
     private SimpleTime alarmTime = null;
     private float currentVolume = 0.f;
     private int currentStreamVolume = -1;
-    private HttpStatusCheckTask statusCheckTask = null;
-    private PlaylistRequestTask resolveStreamUrlTask = null;
+    private StreamUrlResolver.ResolveTask resolveStreamUrlTask = null;
+    private final DefaultHttpDataSource.Factory httpDataSourceFactory =
+            new DefaultHttpDataSource.Factory();
     private final Runnable fadeOut = new Runnable() {
         @Override
         public void run() {
@@ -447,36 +444,51 @@ public class RadioStreamService extends Service implements HttpStatusCheckTask.A
                 }
             }
         }
-        if (PlaylistParser.isPlaylistUrl(streamURL)) {
-            resolveStreamUrlTask = new PlaylistRequestTask(this);
-            resolveStreamUrlTask.execute(streamURL);
+
+        if (resolveStreamUrlTask != null) {
+            resolveStreamUrlTask.cancel(false);
+            resolveStreamUrlTask = null;
+        }
+        String resolvedUrl = StreamUrlResolver.getCached(streamURL);
+        if (resolvedUrl != null) {
+            onStreamUrlResolved(resolvedUrl);
         } else {
-            statusCheckTask = new HttpStatusCheckTask(this);
-            statusCheckTask.execute(streamURL);
+            resolveStreamUrlTask = new StreamUrlResolver.ResolveTask(this);
+            resolveStreamUrlTask.execute(streamURL);
         }
     }
 
-    @Override
-    public void onPlaylistRequestFinished(PlaylistInfo result) {
-        if (result != null && result.valid) {
-            statusCheckTask = new HttpStatusCheckTask(this);
-            statusCheckTask.execute(result.streamUrl);
+    /**
+     * Resolves the neighbours of the current station in the background, so that skipping to
+     * the next or the previous station does not wait for the network.
+     */
+    private void prefetchNeighbourStations() {
+        if (streamingMode != StreamingMode.RADIO || radioStationIndex < 0) {
             return;
         }
-
-        if (alarmIsRunning) {
-            startFallbackAlarm();
+        FavoriteRadioStations stations = settings.getFavoriteRadioStations();
+        if (stations == null) {
+            return;
+        }
+        int[] neighbours = {
+                stations.nextAvailableIndex(radioStationIndex),
+                stations.previousAvailableIndex(radioStationIndex)
+        };
+        for (int index : neighbours) {
+            RadioStation station = (index > -1) ? stations.get(index) : null;
+            if (station != null) {
+                StreamUrlResolver.prefetch(station.stream);
+            }
         }
-
-        Toast.makeText(this, getString(R.string.radio_stream_failure), Toast.LENGTH_SHORT).show();
-        stopSelf();
     }
 
     @Override
-    public void onStatusCheckFinished(HttpStatusCheckTask.HttpStatusCheckResult checkResult) {
-        if (checkResult != null && checkResult.isSuccess()) {
-            streamURL = checkResult.url;
+    public void onStreamUrlResolved(String resolvedUrl) {
+        resolveStreamUrlTask = null;
+        if (resolvedUrl != null) {
+            streamURL = resolvedUrl;
             playStream();
+            prefetchNeighbourStations();
             return;
         }
 
@@ -494,12 +506,8 @@ public class RadioStreamService extends Service implements HttpStatusCheckTask.A
         Utility.unregisterEventBus(this);
         sleepTimeInMillis = 0L;
 
-        if (statusCheckTask != null) {
-            statusCheckTask.cancel(true);
-        }
-
         if (resolveStreamUrlTask != null) {
-            resolveStreamUrlTask.cancel(true);
+            resolveStreamUrlTask.cancel(false);
         }
 
         if (streamingMode == StreamingMode.ALARM) {
@@ -561,23 +569,15 @@ public class RadioStreamService extends Service implements HttpStatusCheckTask.A
     private void playStream() {
         Log.i(TAG, "playStream() " + streamURL);
 
-        stopPlaying();
+        handler.removeCallbacks(fadeIn);
+        handler.removeCallbacks(fadeOut);
+        if (vibrator != null) {
+            vibrator.stopVibration();
+        }
 
         if (exoPlayer == null) {
             Log.d(TAG, "init exoPlayer");
-            DefaultHttpDataSource.Factory httpDataSourceFactory = new DefaultHttpDataSource.Factory();
-            MediaSource mediaSource;
-            if (streamURL.endsWith("m3u8")) {
-                mediaSource = new HlsMediaSource.Factory(httpDataSourceFactory)
-                        .createMediaSource(MediaItem.fromUri(streamURL));
-            } else {
-                mediaSource = new ProgressiveMediaSource.Factory(httpDataSourceFactory)
-                        .createMediaSource(MediaItem.fromUri(streamURL));
-            }
-
             exoPlayer = new ExoPlayer.Builder(getApplicationContext()).build();
-            exoPlayer.setMediaSource(mediaSource);
-            exoPlayer.prepare();
 
             exoPlayer.addListener(new Player.Listener() {
                 @Override
@@ -618,6 +618,9 @@ public class RadioStreamService extends Service implements HttpStatusCheckTask.A
                 @Override
                 public void onPlayerError(@NonNull PlaybackException error) {
                     Log.e(TAG, "Exoplayer Error: " + error.getMessage());
+                    if (radioStation != null) {
+                        StreamUrlResolver.invalidate(radioStation.stream);
+                    }
                     updateNotification(error.getMessage());
                     if (alarmIsRunning) {
                         Log.d(TAG, "stopself");
@@ -641,13 +644,28 @@ public class RadioStreamService extends Service implements HttpStatusCheckTask.A
                     }
                 }
             });
-
-            Log.d(TAG, "exoPlayer.play()");
-            exoPlayer.setVolume(0);
-            exoPlayer.setPlayWhenReady(true);
             enableMediaSession();
-            exoPlayer.play();
+        } else {
+            // the player is reused when switching the station
+            exoPlayer.stop();
+        }
+
+        exoPlayer.setMediaSource(createMediaSource(streamURL));
+        exoPlayer.prepare();
+
+        Log.d(TAG, "exoPlayer.play()");
+        exoPlayer.setVolume(0);
+        exoPlayer.setPlayWhenReady(true);
+        exoPlayer.play();
+    }
+
+    private MediaSource createMediaSource(String url) {
+        if (url.endsWith("m3u8")) {
+            return new HlsMediaSource.Factory(httpDataSourceFactory)
+                    .createMediaSource(MediaItem.fromUri(url));
         }
+        return new ProgressiveMediaSource.Factory(httpDataSourceFactory)
+                .createMediaSource(MediaItem.fromUri(url));
     }
 
     private void handleStateChange(int state) {
@@ -25,6 +25,7 @@ import android.util.Log;
 
 import com.firebirdberlin.AvmAhaApi.models.AvmAhaDevice;
 import com.firebirdberlin.AvmAhaApi.models.AvmCredentials;
+import com.firebirdberlin.nightdream.util.TaskScheduler;
 
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
@@ -43,8 +44,7 @@ import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 
 public class AvmAhaRequestTask {
@@ -74,46 +74,57 @@ public class AvmAhaRequestTask {
     }
 
     public void fetchDeviceList() {
-        ExecutorService executor = Executors.newSingleThreadExecutor();
         Handler handler = new Handler(Looper.getMainLooper());
-        executor.execute(() -> { //background thread
-            if (!sessionIsValid()) login();
-            List<AvmAhaDevice> devices = getDeviceList();
-            handler.post(() -> { // main thread
-                if (errorMessage != null) {
-                    delegate.onAhaConnectionError(errorMessage);
-                } else {
-                    delegate.onAhaDeviceListReceived(devices);
-                }
+        try {
+            TaskScheduler.getInstance().submit(TaskScheduler.Lane.IO, () -> { //background thread
+                if (!sessionIsValid()) login();
+                List<AvmAhaDevice> devices = getDeviceList();
+                handler.post(() -> { // main thread
+                    if (errorMessage != null) {
+                        delegate.onAhaConnectionError(errorMessage);
+                    } else {
+                        delegate.onAhaDeviceListReceived(devices);
+                    }
+                });
             });
-        });
-        // No explicit shutdown for this single-use executor, as per common patterns for short-lived tasks.
-        // If this task were to be reused, consider a more robust lifecycle management.
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Task rejected: the IO queue is full.", e);
+            handler.post(() -> delegate.onAhaConnectionError(e.toString()));
+        }
     }
 
     public void setSimpleOnOff(AvmAhaDevice device, String newState) {
-        ExecutorService executor = Executors.newSingleThreadExecutor();
         Handler handler = new Handler(Looper.getMainLooper());
-        executor.execute(() -> { // background thread
-            if (!sessionIsValid()) login();
-            boolean result = toggleBulb(device.ain, newState);
-            Log.i(TAG, "new_state: " + result);
-            if (result) {
-                device.state = newState;
-            }
-            handler.post(() -> { // main thread
-                delegate.onAhaDeviceStateChanged(device);
+        try {
+            TaskScheduler.getInstance().submit(TaskScheduler.Lane.IO, () -> { // background thread
+                if (!sessionIsValid()) login();
+                boolean result = toggleBulb(device.ain, newState);
+                Log.i(TAG, "new_state: " + result);
+                if (result) {
+                    device.state = newState;
+                }
+                handler.post(() -> { // main thread
+                    delegate.onAhaDeviceStateChanged(device);
+                });
             });
-        });
-        // No explicit shutdown for this single-use executor.
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Task rejected: the IO queue is full.", e);
+            handler.post(() -> delegate.onAhaDeviceStateChanged(device));
+        }
     }
 
     public void closeSession() {
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        executor.execute(() -> { // background thread
-            if (sessionIsValid()) logout();
-        });
-        // No explicit shutdown for this single-use executor.
+        try {
+            // a single logout is enough, even if several views close the session
+            TaskScheduler.getInstance().submit(
+                    TaskScheduler.Lane.IO, "avm-aha-logout", null,
+                    () -> { // background thread
+                        if (sessionIsValid()) logout();
+                    }
+            );
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Task rejected: the IO queue is full.", e);
+        }
     }
 
 
@@ -0,0 +1,311 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * File based HTTP cache.
+ * <p>
+ * It needs no Context, the network state is supplied by a ConnectivityCheck. Apart from
+ * android.util.Log, which is stubbed in unit tests, it only uses java.net and java.io.
+ * <p>
+ * Response bodies are streamed into the cache directory. The validators of a response (ETag and
+ * Last-Modified) are stored next to the body, so that an expired entry is revalidated with a
+ * conditional request and only downloaded again if it has changed. Concurrent requests for the
+ * same entry share a single fetch.
+ */
+public class HttpCache {
+    private static final String TAG = "HttpCache";
+
+    private final static int READ_TIMEOUT = 10000;
+    private final static int CONNECT_TIMEOUT = 10000;
+    private final static long UNSUCCESSFUL_ATTEMPT_TIMEOUT = 1000 * 60 * 10; // 10 Minutes
+    private final static String META_URL = "url";
+    private final static String META_ETAG = "etag";
+    private final static String META_LAST_MODIFIED = "last-modified";
+    private final static String META_CONTENT_TIMESTAMP = "content-timestamp";
+
+    private static final ConcurrentHashMap<String, FutureTask<File>> inFlight =
+            new ConcurrentHashMap<>();
+
+    private final File cacheBaseDir;
+    private final String userAgent;
+    private ConnectivityCheck connectivityCheck = null;
+    private long cacheExpirationTimeMillis = 1000 * 60 * 60 * 24;
+
+    public HttpCache(File cacheBaseDir, String userAgent) {
+        this.cacheBaseDir = cacheBaseDir;
+        this.userAgent = userAgent;
+        if (!this.cacheBaseDir.exists()) {
+            this.cacheBaseDir.mkdirs();
+        }
+    }
+
+    public void setConnectivityCheck(ConnectivityCheck connectivityCheck) {
+        this.connectivityCheck = connectivityCheck;
+    }
+
+    public void setCacheExpirationTimeMillis(long cacheExpirationTimeMillis) {
+        this.cacheExpirationTimeMillis = cacheExpirationTimeMillis;
+    }
+
+    File getCacheFile(String urlString) {
+        return new File(cacheBaseDir, String.valueOf(urlString.hashCode()));
+    }
+
+    private File getMetaFile(File cacheFile) {
+        return new File(cacheFile.getPath() + ".meta");
+    }
+
+    private File getLockFile(File cacheFile) {
+        return new File(cacheFile.getPath() + ".lock~");
+    }
+
+    /**
+     * Returns the cache file which holds the response body for the url. Expired or overridden
+     * entries are fetched or revalidated first.
+     *
+     * @return the cache file or null if no valid response is available
+     */
+    public File get(final String urlString, boolean overrideCache) {
+        final File cacheFile = getCacheFile(urlString);
+        if (!overrideCache && isFresh(urlString, cacheFile)) {
+            Log.d(TAG, "Returning from cache for " + urlString);
+            return cacheFile;
+        }
+
+        final String key = cacheFile.getAbsolutePath();
+        FutureTask<File> task = new FutureTask<>(() -> fetch(urlString, cacheFile));
+        FutureTask<File> running = inFlight.putIfAbsent(key, task);
+        if (running == null) {
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+            running = task;
+        } else {
+            Log.d(TAG, "Joining request in flight for " + urlString);
+        }
+
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "request failed for " + urlString, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the time when the body of the cached response was downloaded. Responses which were
+     * revalidated keep their time, so callers can skip processing an unchanged body.
+     *
+     * @return the time in milliseconds or 0 if nothing is cached for the url
+     */
+    public long getContentTimestamp(String urlString) {
+        File cacheFile = getCacheFile(urlString);
+        if (!cacheFile.exists()) {
+            return 0L;
+        }
+        Properties meta = readMeta(cacheFile);
+        if (!urlString.equals(meta.getProperty(META_URL, urlString))) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(meta.getProperty(META_CONTENT_TIMESTAMP, "0"));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    private boolean isFresh(String urlString, File cacheFile) {
+        if (!cacheFile.exists()
+                || cacheFile.lastModified() <= System.currentTimeMillis() - cacheExpirationTimeMillis) {
+            return false;
+        }
+        // different urls may share a hash code
+        Properties meta = readMeta(cacheFile);
+        String url = meta.getProperty(META_URL);
+        return url == null || url.equals(urlString);
+    }
+
+    private File fetch(String urlString, File cacheFile) {
+        long now = System.currentTimeMillis();
+        File lockFile = getLockFile(cacheFile);
+
+        // for unsuccessful attempts we need to block execution for a certain amount of time
+        if (lockFile.exists() && lockFile.lastModified() > now - UNSUCCESSFUL_ATTEMPT_TIMEOUT) {
+            Log.i(TAG, "Network access is locked for " + urlString);
+            return null;
+        }
+
+        if (connectivityCheck != null && !connectivityCheck.hasNetworkConnection()) {
+            Log.i(TAG, "no network connection");
+            return null;
+        }
+
+        createLockFile(lockFile);
+
+        Properties meta = cacheFile.exists() ? readMeta(cacheFile) : new Properties();
+        if (!urlString.equals(meta.getProperty(META_URL, urlString))) {
+            meta = new Properties();
+        }
+
+        Log.i(TAG, "requesting " + urlString);
+        HttpURLConnection urlConnection = null;
+        try {
+            URL url = new URL(urlString);
+            urlConnection = (HttpURLConnection) url.openConnection();
+            urlConnection.setRequestProperty("User-Agent", userAgent);
+            urlConnection.setRequestProperty("Accept-Encoding", "gzip");
+            if (cacheFile.exists()) {
+                String etag = meta.getProperty(META_ETAG);
+                String lastModified = meta.getProperty(META_LAST_MODIFIED);
+                if (etag != null) {
+                    urlConnection.setRequestProperty("If-None-Match", etag);
+                }
+                if (lastModified != null) {
+                    urlConnection.setRequestProperty("If-Modified-Since", lastModified);
+                }
+            }
+            urlConnection.setConnectTimeout(CONNECT_TIMEOUT);
+            urlConnection.setReadTimeout(READ_TIMEOUT);
+            int responseCode = urlConnection.getResponseCode();
+            Log.i(TAG, "responseCode: " + responseCode + " for " + urlString);
+
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cacheFile.exists()) {
+                cacheFile.setLastModified(now);
+                lockFile.delete();
+                return cacheFile;
+            }
+            if (responseCode == HttpURLConnection.HTTP_OK) {
+                InputStream in = urlConnection.getInputStream();
+                if ("gzip".equalsIgnoreCase(urlConnection.getContentEncoding())) {
+                    in = new GZIPInputStream(in);
+                }
+                if (!storeCacheFile(cacheFile, in)) {
+                    return null;
+                }
+                Properties newMeta = new Properties();
+                newMeta.setProperty(META_URL, urlString);
+                newMeta.setProperty(META_CONTENT_TIMESTAMP, String.valueOf(now));
+                String etag = urlConnection.getHeaderField("ETag");
+                String lastModified = urlConnection.getHeaderField("Last-Modified");
+                if (etag != null) newMeta.setProperty(META_ETAG, etag);
+                if (lastModified != null) newMeta.setProperty(META_LAST_MODIFIED, lastModified);
+                writeMeta(cacheFile, newMeta);
+                lockFile.delete();
+                return cacheFile;
+            }
+        } catch (SocketTimeoutException e) {
+            Log.e(TAG, "Http Timeout for " + urlString);
+        } catch (UnknownHostException e) {
+            Log.e(TAG, "Unknown host for " + urlString);
+        } catch (IOException e) {
+            Log.e(TAG, Log.getStackTraceString(e), e);
+        } finally {
+            if (urlConnection != null) {
+                urlConnection.disconnect();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Streams the body into a temporary file which replaces the cache file when complete.
+     */
+    private static boolean storeCacheFile(File cacheFile, InputStream in) {
+        File tmpFile = new File(cacheFile.getPath() + ".tmp");
+        byte[] buffer = new byte[8192];
+        try (InputStream input = in; OutputStream out = new FileOutputStream(tmpFile)) {
+            int count;
+            while ((count = input.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot store " + cacheFile, e);
+            tmpFile.delete();
+            return false;
+        }
+        if (!tmpFile.renameTo(cacheFile)) {
+            cacheFile.delete();
+            if (!tmpFile.renameTo(cacheFile)) {
+                tmpFile.delete();
+                return false;
+            }
+        }
+        Log.i(TAG, cacheFile + " stored");
+        return true;
+    }
+
+    private Properties readMeta(File cacheFile) {
+        Properties meta = new Properties();
+        File metaFile = getMetaFile(cacheFile);
+        if (metaFile.exists()) {
+            try (InputStream in = new FileInputStream(metaFile)) {
+                meta.load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                metaFile.delete();
+            }
+        }
+        return meta;
+    }
+
+    private void writeMeta(File cacheFile, Properties meta) {
+        File metaFile = getMetaFile(cacheFile);
+        try (OutputStream out = new FileOutputStream(metaFile)) {
+            meta.store(out, null);
+        } catch (IOException e) {
+            metaFile.delete();
+        }
+    }
+
+    private static void createLockFile(File lockFile) {
+        long now = System.currentTimeMillis();
+        Log.i(TAG, "lockFile: " + lockFile.getName() + " " + now);
+        try (OutputStream out = new FileOutputStream(lockFile)) {
+            out.write(String.valueOf(now).getBytes());
+        } catch (IOException e) {
+            lockFile.delete();
+        }
+    }
+
+    public interface ConnectivityCheck {
+        boolean hasNetworkConnection();
+    }
+}
@@ -23,13 +23,12 @@ import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 
 import com.firebirdberlin.HttpReader;
 import com.firebirdberlin.nightdream.PollenExposure;
 import com.firebirdberlin.nightdream.Utility;
+import com.firebirdberlin.nightdream.util.TaskScheduler;
 import com.firebirdberlin.openweathermapapi.GeocoderApi;
 import com.firebirdberlin.openweathermapapi.apimodels.Weather;
 import com.firebirdberlin.openweathermapapi.models.City;
@@ -38,7 +37,6 @@ import com.firebirdberlin.openweathermapapi.models.WeatherEntry;
 public class PollenExposureRequestTask {
 
     private static final String TAG = "PollenExposureRequestTask";
-    private static final ExecutorService executorService = Executors.newFixedThreadPool(4);
     private static final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
 
     private final AsyncResponse delegate;
@@ -51,7 +49,7 @@ public class PollenExposureRequestTask {
 
     public void execute(WeatherEntry weatherEntry) {
         try {
-            executorService.execute(() -> {
+            TaskScheduler.getInstance().submit(TaskScheduler.Lane.IO, () -> {
                 City city = GeocoderApi.findCityByCoordinates(context, weatherEntry.lat, weatherEntry.lon);
                 if (city == null || !"DE".equals(city.countryCode) || Utility.isEmpty(city.postalCode)) {
                     mainThreadHandler.post(() -> delegate.onRequestFinished(null));
@@ -91,7 +89,7 @@ public class PollenExposureRequestTask {
                 mainThreadHandler.post(() -> delegate.onRequestFinished(finalPollen));
             });
         } catch (RejectedExecutionException e) {
-            Log.e(TAG, "Task rejected: Executor service may be shutting down or overloaded.", e);
+            Log.e(TAG, "Task rejected: the IO queue is full.", e);
             mainThreadHandler.post(() -> delegate.onRequestError(new Exception("Search task rejected. The service may be unavailable.")));
         }
     }
@@ -100,9 +98,4 @@ public class PollenExposureRequestTask {
         void onRequestFinished(PollenExposure result);
         void onRequestError(Exception exception);
     }
-
-    public static void shutdownExecutor() {
-        Log.i(TAG, "Shutting down ExecutorService...");
-        executorService.shutdown();
-    }
 }
@@ -23,18 +23,13 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.BitmapShader;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.ColorFilter;
-import android.graphics.ComposeShader;
 import android.graphics.LightingColorFilter;
 import android.graphics.LinearGradient;
-import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Path;
-import android.graphics.PorterDuff;
 import android.graphics.Rect;
 import android.graphics.Shader;
 import android.graphics.SweepGradient;
@@ -45,8 +40,10 @@ import android.view.View;
 
 import com.firebirdberlin.nightdream.models.AnalogClockConfig;
 import com.firebirdberlin.nightdream.models.FontCache;
+import com.firebirdberlin.nightdream.models.TextureCache;
 
 import java.util.Calendar;
+import java.util.TimeZone;
 
 
 public class CustomAnalogClock extends View {
@@ -94,6 +91,20 @@ public class CustomAnalogClock extends View {
 
     AnalogClockConfig config;
 
+    /**
+     * The static parts of the face (ticks, digits, outer circle) are rendered once into this
+     * layer. It is rebuilt only if size, style, colors or the typeface change.
+     */
+    private Bitmap dialBitmap = null;
+    private Canvas dialCanvas = null;
+    private boolean dialDirty = true;
+    private final Rect textBounds = new Rect();
+    private final Path handPath = new Path();
+    private final Calendar now = Calendar.getInstance();
+    private Shader backgroundArcShader = null;
+    private Shader handArcShader = null;
+    private Shader handTextureShader = null;
+
     private Handler handler;
     private Runnable update = new Runnable() {
         @Override
@@ -104,7 +115,7 @@ public class CustomAnalogClock extends View {
                 return;
             }
             long now = System.currentTimeMillis();
-            long delta = 1000 - now / 1000 * 1000;
+            long delta = 1000 - now % 1000;
             handler.postDelayed(update, delta);
         }
     };
@@ -159,18 +170,36 @@ public class CustomAnalogClock extends View {
         if (handler != null) {
             handler.removeCallbacks(update);
         }
+        releaseDial();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        invalidateDial();
+    }
+
+    private void invalidateDial() {
+        dialDirty = true;
+        invalidate();
+    }
+
+    private void releaseDial() {
+        dialBitmap = null;
+        dialCanvas = null;
+        dialDirty = true;
     }
 
     public void setPrimaryColor(int color) {
         customColor = color;
         customColorFilter = new LightingColorFilter(color, 1);
-        invalidate();
+        invalidateDial();
     }
 
     public void setSecondaryColor(int color) {
         customSecondaryColor = color;
         secondaryColorFilter = new LightingColorFilter(color, 1);
-        invalidate();
+        invalidateDial();
     }
 
     public void setStyle(AnalogClockConfig.Style style, boolean allow_second_hand) {
@@ -178,6 +207,7 @@ public class CustomAnalogClock extends View {
         config.showSecondHand = allow_second_hand && config.showSecondHand;
         this.typeface = FontCache.get(context, config.fontUri);
         this.boldTypeface = Typeface.create(typeface, Typeface.BOLD);
+        invalidateDial();
     }
 
     public void setStyle(AnalogClockConfig.Style style) {
@@ -185,14 +215,13 @@ public class CustomAnalogClock extends View {
     }
 
     public void onDraw(Canvas canvas) {
-        centerX = getWidth() / 2;
-        centerY = getHeight() / 2;
-        radius = getWidth() / 2 - 20;
+        if (config == null || getWidth() <= 0 || getHeight() <= 0) return;
 
-        paint.setAntiAlias(true);
-        paint.setColor(Color.WHITE);
+        if (dialDirty || dialBitmap == null) {
+            renderDial();
+        }
 
-        Calendar now = Calendar.getInstance();
+        now.setTimeInMillis(System.currentTimeMillis());
         int hour = now.get(Calendar.HOUR);
         int min = now.get(Calendar.MINUTE);
         int sec = now.get(Calendar.SECOND);
@@ -212,13 +241,59 @@ public class CustomAnalogClock extends View {
 
         drawBackgroundArc(canvas, centerX, centerY, radius, min_angle);
 
+        canvas.drawBitmap(dialBitmap, 0, 0, null);
+
+        // restore the paint state the hands expect after the dial has been drawn
+        paint.setColor(Color.WHITE);
+        paint.setColorFilter(secondaryColorFilter);
+        paint.setShader(null);
+        drawHands(canvas, centerX, centerY, radius, hour_angle, min_angle, sec_angle);
+    }
+
+    private void renderDial() {
+        int width = getWidth();
+        int height = getHeight();
+        if (dialBitmap == null || dialBitmap.getWidth() != width || dialBitmap.getHeight() != height) {
+            releaseDial();
+            dialBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            dialCanvas = new Canvas(dialBitmap);
+        }
+        dialBitmap.eraseColor(Color.TRANSPARENT);
+
+        centerX = width / 2;
+        centerY = height / 2;
+        radius = width / 2 - 20;
+
+        paint.setAntiAlias(true);
+        paint.setAlpha(255);
+        paint.setColor(Color.WHITE);
+
+        prepareShaders();
+
         applyGoldShader(paint, centerX, centerY, radius);
         applyShader(paint, centerX, centerY, radius);
-        drawOuterCircle(canvas);
-        drawTicks(canvas, centerX, centerY, radius);
-        drawHourDigits(canvas, centerX, centerY, radius);
+        drawOuterCircle(dialCanvas);
+        drawTicks(dialCanvas, centerX, centerY, radius);
+        drawHourDigits(dialCanvas, centerX, centerY, radius);
+        paint.setShader(null);
 
-        drawHands(canvas, centerX, centerY, radius, hour_angle, min_angle, sec_angle);
+        dialDirty = false;
+    }
+
+    /**
+     * Creates the shaders which are used on every tick. They only depend on the dial geometry
+     * and the style.
+     */
+    private void prepareShaders() {
+        final int[] colors = {Color.TRANSPARENT, Color.WHITE};
+        backgroundArcShader = new SweepGradient(centerX, centerY, colors, new float[]{0.5f, 1.f});
+        handArcShader = new SweepGradient(centerX, centerY, colors, new float[]{0.2f, 1.f});
+        handTextureShader = null;
+        if (isTextureDecoration()) {
+            handTextureShader = TextureCache.getTextureShader(
+                    context, getTextureResId(), getTextureSize(), Color.WHITE
+            );
+        }
     }
 
     private void drawHands(Canvas canvas, float centerX, float centerY, int radius,
@@ -282,13 +357,13 @@ public class CustomAnalogClock extends View {
     private void drawHandTriangle(Canvas canvas, Paint paint, float centerX, float centerY, int length, int width) {
         int halfWidth = width / 2;
 
-        Path path = new Path();
-        path.moveTo(centerX, centerY - halfWidth);
-        path.lineTo(centerX + length, centerY);
-        path.lineTo(centerX, centerY + halfWidth);
-        path.lineTo(centerX, centerY - halfWidth);
-        path.close();
-        canvas.drawPath(path, paint);
+        handPath.rewind();
+        handPath.moveTo(centerX, centerY - halfWidth);
+        handPath.lineTo(centerX + length, centerY);
+        handPath.lineTo(centerX, centerY + halfWidth);
+        handPath.lineTo(centerX, centerY - halfWidth);
+        handPath.close();
+        canvas.drawPath(handPath, paint);
     }
 
     private void drawHandBar(Canvas canvas, Paint paint, float centerX, float centerY, int length, int width) {
@@ -300,10 +375,7 @@ public class CustomAnalogClock extends View {
         canvas.save();
         paint.setStyle(Paint.Style.STROKE);
         paint.setStrokeWidth(width);
-        final int[] colors = {Color.TRANSPARENT, Color.WHITE};
-        final float[] positions = {0.2f, 1.f};
-        Shader gradient = new SweepGradient(centerX, centerY, colors, positions);
-        paint.setShader(gradient);
+        paint.setShader(handArcShader);
         canvas.drawCircle(centerX, centerY, length, paint);
         paint.setShader(null);
         canvas.restore();
@@ -340,15 +412,10 @@ public class CustomAnalogClock extends View {
         canvas.save();
         paint.setAlpha(70);
         paint.setColorFilter(customColorFilter);
-        final int[] colors = {Color.TRANSPARENT, Color.WHITE};
-        final float[] positions = {0.5f, 1.f};
-        Shader gradient = new SweepGradient(centerX, centerY, colors, positions);
-        float rotate = (float) radiansToDegrees(angle);
-        Matrix gradientMatrix = new Matrix();
-        gradientMatrix.preRotate(rotate, centerX, centerY);
-        gradient.setLocalMatrix(gradientMatrix);
-
-        paint.setShader(gradient);
+        // the circle is rotation invariant, so rotating the canvas rotates only the gradient
+        canvas.rotate((float) radiansToDegrees(angle), centerX, centerY);
+
+        paint.setShader(backgroundArcShader);
         paint.setStyle(Paint.Style.FILL_AND_STROKE);
         canvas.drawCircle(centerX, centerY, config.handLengthMinutes * radius, paint);
         paint.setShader(null);
@@ -380,52 +447,38 @@ public class CustomAnalogClock extends View {
         );
     }
 
-    private void applyGoldShader(Paint paint, float centerX, float centerY, int radius) {
-        if (!isTextureDecoration()) return;
-
-        int resID = R.drawable.gold;
+    private int getTextureResId() {
         switch (config.decoration) {
-            case GOLD:
-                resID = R.drawable.gold;
-                break;
             case COPPER:
-                resID = R.drawable.copper;
-                break;
+                return R.drawable.copper;
             case RUST:
-                resID = R.drawable.rust;
-                break;
+                return R.drawable.rust;
+            case GOLD:
+            default:
+                return R.drawable.gold;
         }
-        Bitmap bitmap = BitmapFactory.decodeResource(getResources(), resID);
-        BitmapShader shader = new BitmapShader(bitmap, Shader.TileMode.REPEAT, Shader.TileMode.REPEAT);
-        int light = Color.parseColor("#FFFFFF");
-        int dark = Color.parseColor("#BBBBBB");
-        int colors[] = {light, dark, light, dark, light};
-        float positions[] = {0.15f, 0.25f, 0.55f, 0.65f, 0.9f};
+    }
+
+    private int getTextureSize() {
+        return Math.max(getWidth(), getHeight());
+    }
+
+    private void applyGoldShader(Paint paint, float centerX, float centerY, int radius) {
+        if (!isTextureDecoration()) return;
+
         int x1 = (int) (centerX - radius), y1 = (int) (centerY - radius);
         int x2 = (int) (centerX + radius), y2 = (int) (centerY + radius);
-        Shader shader2 = new LinearGradient(x1, y1, x2, y2, colors, positions, Shader.TileMode.MIRROR);
-        ComposeShader composed = new ComposeShader(shader, shader2, PorterDuff.Mode.MULTIPLY);
-        paint.setShader(composed);
+        paint.setShader(
+                TextureCache.getMetallicShader(
+                        context, getTextureResId(), getTextureSize(), Color.WHITE, x1, y1, x2, y2
+                )
+        );
     }
 
     private void applyPureTexture(Paint paint) {
         if (!isTextureDecoration()) return;
 
-        int resID = R.drawable.gold;
-        switch (config.decoration) {
-            case GOLD:
-                resID = R.drawable.gold;
-                break;
-            case COPPER:
-                resID = R.drawable.copper;
-                break;
-            case RUST:
-                resID = R.drawable.rust;
-                break;
-        }
-        Bitmap bitmap = BitmapFactory.decodeResource(getResources(), resID);
-        BitmapShader shader = new BitmapShader(bitmap, Shader.TileMode.REPEAT, Shader.TileMode.REPEAT);
-        paint.setShader(shader);
+        paint.setShader(handTextureShader);
     }
 
     private void drawOuterCircle(Canvas canvas) {
@@ -518,10 +571,9 @@ public class CustomAnalogClock extends View {
             // Determine the text size
             // - For the width measureText returns more exact results than textbounds
             // - For the height using getTextBounds is ok
-            Rect bounds = new Rect();
-            paint.getTextBounds(currentHourText, 0, currentHourText.length(), bounds);
+            paint.getTextBounds(currentHourText, 0, currentHourText.length(), textBounds);
             final float textWidth = paint.measureText(currentHourText, 0, currentHourText.length());
-            final float textHeight = bounds.height();
+            final float textHeight = textBounds.height();
 
             // find a position for the digits which does not interfere with the ticks
             final float distanceDigitCenterToBorder =
@@ -620,12 +672,17 @@ public class CustomAnalogClock extends View {
 
     void setTimeTick() {
         timeReceiver = new TimeReceiver();
-        context.registerReceiver(timeReceiver, new IntentFilter(Intent.ACTION_TIME_TICK));
+        IntentFilter filter = new IntentFilter(Intent.ACTION_TIME_TICK);
+        filter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+        context.registerReceiver(timeReceiver, filter);
     }
 
     class TimeReceiver extends BroadcastReceiver {
         @Override
-        public void onReceive(Context context, Intent arg1) {
+        public void onReceive(Context context, Intent intent) {
+            if (Intent.ACTION_TIMEZONE_CHANGED.equals(intent.getAction())) {
+                now.setTimeZone(TimeZone.getDefault());
+            }
             invalidate();
         }
     }
@@ -30,17 +30,20 @@ import android.graphics.Paint;
 import android.os.Handler;
 import android.provider.Settings;
 import android.text.Spannable;
-import android.text.SpannableString;
+import android.text.SpannableStringBuilder;
 import android.text.format.DateFormat;
 import android.text.style.ForegroundColorSpan;
-import android.text.style.RelativeSizeSpan; // Add this import
+import android.text.style.RelativeSizeSpan;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.Gravity;
 import android.view.View;
 import android.widget.LinearLayout;
 
+import androidx.annotation.NonNull;
+
 import com.firebirdberlin.nightdream.ui.AutoAdjustTextView;
+import com.firebirdberlin.nightdream.util.CompiledTimeFormat;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
@@ -67,6 +70,17 @@ public class CustomDigitalClock extends AutoAdjustTextView {
 
     private final Runnable update = this::updateTextView;
 
+    // buffers of the tick pipeline, reused for every update
+    private CompiledTimeFormat compiledFormat = null;
+    private char[] timeBuffer = new char[16];
+    private char[] displayBuffer = new char[16];
+    private final CharArraySequence displayText = new CharArraySequence(displayBuffer);
+    private final SpannableStringBuilder spannable = new SpannableStringBuilder();
+    private final RelativeSizeSpan secondSizeSpan = new RelativeSizeSpan(0.5f);
+    private ForegroundColorSpan hourSpan = null;
+    private ForegroundColorSpan minuteSpan = null;
+    private ForegroundColorSpan secondSpan = null;
+
     public CustomDigitalClock(Context context) {
         super(context);
         this.context = context;
@@ -99,26 +113,18 @@ public class CustomDigitalClock extends AutoAdjustTextView {
         // https://stackoverflow.com/questions/6253528/font-size-too-large-to-fit-in-cache
         setLayerType(View.LAYER_TYPE_SOFTWARE, null);
 
+        // do not copy the spannable in setText(), it is modified in place on each tick
+        setSpannableFactory(new Spannable.Factory() {
+            @Override
+            public Spannable newSpannable(CharSequence source) {
+                return (source == spannable) ? spannable : super.newSpannable(source);
+            }
+        });
+
         setFormat();
         setClickable(false);
     }
 
-    /**
-     * Splits a time string into segments based on the colon delimiter.
-     * For example, "12:34:56" would become ["12", "34", "56"].
-     * "12:34 PM" would become ["12", "34 PM"].
-     *
-     * @param timeString The time string to split.
-     * @return An array of strings, where each string is a segment of the time string.
-     */
-    public String[] splitTimeStringByColon(String timeString) {
-        if (timeString == null) {
-            return new String[0]; // Return an empty array for null input
-        }
-        // The split method takes a regular expression. ":" is not a special regex character here.
-        return timeString.split(":");
-    }
-
     protected void updateTextView() {
         if (mCalendar == null) {
             mCalendar = Calendar.getInstance();
@@ -133,70 +139,43 @@ public class CustomDigitalClock extends AutoAdjustTextView {
             }
         }
 
-        String currentTimeString = simpleDateFormat.format(mCalendar.getTime());
-        if (currentTimeString.contains(":")) {
-            hourColor = (hourColor == -1) ? primaryColor : hourColor;
-            minuteColor = (minuteColor == -1) ? primaryColor : minuteColor;
-            secondColor = (secondColor == -1) ? primaryColor : secondColor;
-
-            String hourStr = "";
-            String minuteStr = "";
-            String secondStr = "";
-
-            // Split the current time string into segments
-            String[] timeSegments = splitTimeStringByColon(currentTimeString);
-            if (timeSegments.length > 0) {
-                hourStr = timeSegments[0];
-            }
-            if (timeSegments.length > 1) {
-                minuteStr = timeSegments[1];
-            }
-            if (timeSegments.length > 2) {
-                secondStr = " " + timeSegments[2];
-            }
-            String divider = ":";
-            SpannableString spannableString = new SpannableString(
-                    hourStr + divider + minuteStr + secondStr
-            );
-
-            // Calculate span start and end for coloring based on the assigned strings
-            int hourStart = -1, hourEnd = -1;
-            if (!hourStr.isEmpty()) {
-                hourStart = 0;
-                hourEnd = hourStart + hourStr.length();
-            }
+        int length = formatTime();
+        if (capitalize && length > 0) {
+            timeBuffer[0] = Character.toUpperCase(timeBuffer[0]);
+        }
 
-            int minuteStart = -1, minuteEnd = -1;
-            // Search for minute after the hour segment, or from the beginning if hour wasn't found
-            if (!minuteStr.isEmpty()) {
-                minuteStart = hourEnd + divider.length();
-                minuteEnd = minuteStart + minuteStr.length();
-            }
-            int secondStart = -1, secondEnd = -1;
-            // Only search for seconds if the format includes ":ss" and secondStr is not empty.
-            // Search after the minute segment, or hour, or from the beginning.
-            if (mFormat.contains(":ss") && !secondStr.isEmpty()) {
-                secondStart = minuteEnd;
-                secondEnd = secondStart + secondStr.length();
-            }
-            // Apply colors if they are set and the component is present
-            if (hourColor != -1 && hourStart != -1) {
-                spannableString.setSpan(new ForegroundColorSpan(hourColor), hourStart, hourEnd, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+        // colon separated segments: hour:minute[:second]
+        int firstColon = indexOf(timeBuffer, ':', 0, length);
+        if (firstColon >= 0) {
+            int secondColon = indexOf(timeBuffer, ':', firstColon + 1, length);
+            int minuteEnd = (secondColon >= 0) ? secondColon : length;
+            int secondEnd = length;
+            if (secondColon >= 0) {
+                int thirdColon = indexOf(timeBuffer, ':', secondColon + 1, length);
+                secondEnd = (thirdColon >= 0) ? thirdColon : length;
             }
-            if (minuteColor != -1 && minuteStart != -1) {
-                spannableString.setSpan(new ForegroundColorSpan(minuteColor), minuteStart, minuteEnd, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-            }
-            if (secondColor != -1 && secondStart != -1) {
-                spannableString.setSpan(new ForegroundColorSpan(secondColor), secondStart, secondEnd, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-                spannableString.setSpan(new RelativeSizeSpan(0.5f), secondStart, secondEnd, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+            boolean hasSeconds = secondColon >= 0 && secondEnd > secondColon + 1;
+
+            // the seconds are separated by a space instead of a colon
+            int pos = 0;
+            ensureDisplayCapacity(length);
+            System.arraycopy(timeBuffer, 0, displayBuffer, 0, minuteEnd);
+            pos += minuteEnd;
+            if (hasSeconds) {
+                displayBuffer[pos++] = ' ';
+                int secondLength = secondEnd - secondColon - 1;
+                System.arraycopy(timeBuffer, secondColon + 1, displayBuffer, pos, secondLength);
+                pos += secondLength;
             }
 
-            if (!spannableString.equals(getText())){
-                setText(spannableString);
-            }
+            int hourStart = (firstColon > 0) ? 0 : -1;
+            int minuteStart = (minuteEnd > firstColon + 1) ? firstColon + 1 : -1;
+            int secondStart = (hasSeconds && mFormat.contains(":ss")) ? minuteEnd : -1;
+            updateSpannable(pos, hourStart, firstColon, minuteStart, minuteEnd, secondStart, pos);
         } else {
-            if (getText() == null || !getText().toString().equals(currentTimeString)){
-                setText(currentTimeString);
+            if (spannable == getText()
+                    || !contentEquals(getText(), timeBuffer, length)) {
+                setText(new String(timeBuffer, 0, length));
             }
         }
 
@@ -212,6 +191,124 @@ public class CustomDigitalClock extends AutoAdjustTextView {
         }
     }
 
+    /**
+     * Formats the current time into timeBuffer.
+     *
+     * @return the number of chars written
+     */
+    private int formatTime() {
+        if (compiledFormat != null) {
+            return compiledFormat.format(mCalendar, timeBuffer);
+        }
+        String text = simpleDateFormat.format(mCalendar.getTime());
+        if (timeBuffer.length < text.length()) {
+            timeBuffer = new char[text.length()];
+        }
+        text.getChars(0, text.length(), timeBuffer, 0);
+        return text.length();
+    }
+
+    private void ensureDisplayCapacity(int length) {
+        if (displayBuffer.length < length) {
+            displayBuffer = new char[length];
+            displayText.buffer = displayBuffer;
+        }
+    }
+
+    /**
+     * Updates the reused spannable in place. The text is only replaced in the range that
+     * actually changed, which lets the text view re-render just this region. The spans are
+     * reused and only moved if their ranges changed.
+     */
+    private void updateSpannable(int length, int hourStart, int hourEnd,
+                                 int minuteStart, int minuteEnd,
+                                 int secondStart, int secondEnd) {
+        displayText.length = length;
+        boolean isCurrentText = (spannable == getText());
+
+        if (!isCurrentText) {
+            spannable.clearSpans();
+            spannable.replace(0, spannable.length(), displayText, 0, length);
+        } else if (spannable.length() == length) {
+            int first = 0;
+            while (first < length && spannable.charAt(first) == displayBuffer[first]) {
+                first++;
+            }
+            if (first < length) {
+                int last = length - 1;
+                while (last > first && spannable.charAt(last) == displayBuffer[last]) {
+                    last--;
+                }
+                spannable.replace(first, last + 1, displayText, first, last + 1);
+            }
+        } else {
+            spannable.replace(0, spannable.length(), displayText, 0, length);
+        }
+
+        hourSpan = updateColorSpan(hourSpan, resolveColor(hourColor), hourStart, hourEnd);
+        minuteSpan = updateColorSpan(minuteSpan, resolveColor(minuteColor), minuteStart, minuteEnd);
+        secondSpan = updateColorSpan(secondSpan, resolveColor(secondColor), secondStart, secondEnd);
+        updateSpan(secondSizeSpan, secondStart, secondEnd);
+
+        if (!isCurrentText) {
+            // the spannable factory hands out the instance itself, so later edits are rendered
+            setText(spannable, BufferType.SPANNABLE);
+        }
+    }
+
+    private int resolveColor(int color) {
+        return (color == -1) ? primaryColor : color;
+    }
+
+    private ForegroundColorSpan updateColorSpan(ForegroundColorSpan span, int color,
+                                                int start, int end) {
+        if (color == -1 || start == -1) {
+            if (span != null) {
+                spannable.removeSpan(span);
+            }
+            return span;
+        }
+        if (span == null || span.getForegroundColor() != color) {
+            if (span != null) {
+                spannable.removeSpan(span);
+            }
+            span = new ForegroundColorSpan(color);
+        }
+        updateSpan(span, start, end);
+        return span;
+    }
+
+    private void updateSpan(Object span, int start, int end) {
+        if (start == -1) {
+            spannable.removeSpan(span);
+            return;
+        }
+        if (spannable.getSpanStart(span) != start || spannable.getSpanEnd(span) != end) {
+            spannable.setSpan(span, start, end, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
+    }
+
+    private static int indexOf(char[] buffer, char c, int from, int length) {
+        for (int i = from; i < length; i++) {
+            if (buffer[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean contentEquals(CharSequence text, char[] buffer, int length) {
+        if (text == null || text.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) != buffer[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public void onAttachedToWindow() {
         super.onAttachedToWindow();
@@ -265,6 +362,10 @@ public class CustomDigitalClock extends AutoAdjustTextView {
             mFormat = m12;
         }
         simpleDateFormat = new SimpleDateFormat(mFormat);
+        compiledFormat = CompiledTimeFormat.compile(mFormat);
+        if (compiledFormat != null && timeBuffer.length < compiledFormat.getMaxLength()) {
+            timeBuffer = new char[compiledFormat.getMaxLength()];
+        }
 
         setSampleTime();
         updateTextView();
@@ -356,32 +457,43 @@ public class CustomDigitalClock extends AutoAdjustTextView {
         updateTextView();
     }
 
-    @Override
-    public void invalidate() {
-        if (capitalize) {
-            String text = capitalize(getText().toString());
-            setText(text);
+    class TimeReceiver extends BroadcastReceiver {
+        @Override
+        public void onReceive(Context context, Intent arg1) {
+            updateTextView();
         }
-        super.invalidate();
     }
 
-    private String capitalize(String input) {
-        if (input == null) {
-            return null;
+    /**
+     * A CharSequence view of a char buffer which is used to copy chars into the spannable.
+     */
+    private static class CharArraySequence implements CharSequence {
+        char[] buffer;
+        int length = 0;
+
+        CharArraySequence(char[] buffer) {
+            this.buffer = buffer;
         }
-        if (input.length() > 1) {
-            return input.substring(0, 1).toUpperCase() + input.substring(1);
-        } else if (!input.isEmpty()) {
-            return input.substring(0, 1).toUpperCase();
+
+        @Override
+        public int length() {
+            return length;
         }
 
-        return input;
-    }
+        @Override
+        public char charAt(int index) {
+            return buffer[index];
+        }
 
-    class TimeReceiver extends BroadcastReceiver {
         @Override
-        public void onReceive(Context context, Intent arg1) {
-            updateTextView();
+        public CharSequence subSequence(int start, int end) {
+            return new String(buffer, start, end - start);
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return new String(buffer, 0, length);
         }
     }
 
@@ -31,25 +31,63 @@ import com.firebirdberlin.nightdream.models.SimpleTime;
 import org.greenrobot.eventbus.EventBus;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeSet;
+
+/**
+ * Access to the alarm entries.
+ * <p>
+ * All instances share one database connection in write ahead logging mode, which is kept open
+ * for the lifetime of the process. The next occurrence of each active alarm is kept in an
+ * in-memory index ordered by time, which is maintained by all write operations. The index is
+ * rebuilt if the time zone changed or the clock was set back.
+ */
 public class DataSource {
 
-    private SQLiteDBHelper mDBHelper;
+    private static SQLiteDBHelper sharedDBHelper = null;
+    private static SQLiteDatabase sharedDatabase = null;
+
+    private static final Object indexLock = new Object();
+    // on equal times the alarm with the higher id rings first
+    private static final TreeSet<IndexEntry> nextAlarmIndex = new TreeSet<>(
+            (a, b) -> (a.time != b.time) ? Long.compare(a.time, b.time) : Long.compare(b.id, a.id)
+    );
+    private static final Map<Long, IndexEntry> indexEntries = new HashMap<>();
+    private static boolean indexValid = false;
+    private static String indexTimeZoneId = null;
+    // the latest time the index was advanced to, a clock set back before it invalidates the index
+    private static long indexReference = 0L;
+
+    private final Context context;
     private SQLiteDatabase db = null;
 
     public DataSource(Context context) {
-        mDBHelper = new SQLiteDBHelper(context);
+        this.context = context.getApplicationContext();
     }
 
     public void open() throws SQLException {
         if (db == null) {
-            db = mDBHelper.getWritableDatabase();
+            db = getSharedDatabase(context);
         }
     }
 
+    /**
+     * The shared connection is not closed, it is reused by the next DataSource.
+     */
     public void close() {
-        mDBHelper.close();
+        db = null;
+    }
+
+    private static synchronized SQLiteDatabase getSharedDatabase(Context context) {
+        if (sharedDatabase == null || !sharedDatabase.isOpen()) {
+            sharedDBHelper = new SQLiteDBHelper(context);
+            sharedDBHelper.setWriteAheadLoggingEnabled(true);
+            sharedDatabase = sharedDBHelper.getWritableDatabase();
+        }
+        return sharedDatabase;
     }
 
     public SimpleTime save(SimpleTime time) {
@@ -69,6 +107,7 @@ public class DataSource {
         if (db == null) return null;
         long new_id = db.insert(SQLiteDBHelper.AlarmEntry.TABLE_NAME, null, values);
         time.id = new_id;
+        reindex(new_id);
         return time;
     }
 
@@ -79,6 +118,7 @@ public class DataSource {
         String[] selectionArgs = {String.valueOf(time.id)};
 
         db.update(SQLiteDBHelper.AlarmEntry.TABLE_NAME, values, selection, selectionArgs);
+        reindex(time.id);
         if (raise_event) {
             EventBus.getDefault().post(new OnAlarmEntryChanged(time));
         }
@@ -109,6 +149,7 @@ public class DataSource {
         String[] selectionArgs = {String.valueOf(time.id)};
 
         db.delete(SQLiteDBHelper.AlarmEntry.TABLE_NAME, selection, selectionArgs);
+        reindex(time.id);
         EventBus.getDefault().post(new OnAlarmEntryDeleted(time));
     }
 
@@ -121,6 +162,7 @@ public class DataSource {
 
         db.update(SQLiteDBHelper.AlarmEntry.TABLE_NAME, values, selection, selectionArgs);
         SimpleTime time = getAlarmEntry(alarmTimeId);
+        updateIndex(alarmTimeId, time);
         if (time != null) {
             EventBus.getDefault().post(new OnAlarmEntryChanged(time));
         }
@@ -133,11 +175,77 @@ public class DataSource {
         String[] selectionArgs = {String.valueOf(id), "0", "1"};
 
         db.delete(SQLiteDBHelper.AlarmEntry.TABLE_NAME, selection, selectionArgs);
+        reindex(id);
     }
 
     public SimpleTime getNextAlarmToSchedule() {
-        List<SimpleTime> entries = getAlarms();
-        return SimpleTime.getNextFromList(entries);
+        long id;
+        synchronized (indexLock) {
+            final long now = System.currentTimeMillis();
+            final TimeZone timeZone = TimeZone.getDefault();
+            if (!indexValid
+                    || now < indexReference
+                    || !timeZone.getID().equals(indexTimeZoneId)) {
+                rebuildIndex(now, timeZone);
+            }
+            indexReference = now;
+            // occurrences which have passed are moved to their next occurrence
+            while (!nextAlarmIndex.isEmpty() && nextAlarmIndex.first().time < now) {
+                IndexEntry entry = nextAlarmIndex.pollFirst();
+                entry.time = entry.alarm.getNextAlarmMillis(now, timeZone);
+                nextAlarmIndex.add(entry);
+            }
+            if (nextAlarmIndex.isEmpty()) {
+                return null;
+            }
+            id = nextAlarmIndex.first().id;
+        }
+        // callers may modify the result, so it is read from the database
+        return getAlarmEntry(id);
+    }
+
+    private void rebuildIndex(long now, TimeZone timeZone) {
+        nextAlarmIndex.clear();
+        indexEntries.clear();
+        for (SimpleTime time : getAlarms()) {
+            if (time.isActive) {
+                IndexEntry entry = new IndexEntry(time, time.getNextAlarmMillis(now, timeZone));
+                nextAlarmIndex.add(entry);
+                indexEntries.put(entry.id, entry);
+            }
+        }
+        indexValid = true;
+        indexReference = now;
+        indexTimeZoneId = timeZone.getID();
+    }
+
+    private void reindex(long id) {
+        updateIndex(id, getAlarmEntry(id));
+    }
+
+    /**
+     * Replaces the index entry of an alarm by the stored state.
+     *
+     * @param time the stored alarm or null if it was deleted
+     */
+    private void updateIndex(long id, SimpleTime time) {
+        synchronized (indexLock) {
+            if (!indexValid) {
+                // the next lookup builds the index
+                return;
+            }
+            IndexEntry entry = indexEntries.remove(id);
+            if (entry != null) {
+                nextAlarmIndex.remove(entry);
+            }
+            if (time != null && time.isActive) {
+                long reference = Math.max(indexReference, System.currentTimeMillis());
+                TimeZone timeZone = TimeZone.getTimeZone(indexTimeZoneId);
+                entry = new IndexEntry(time, time.getNextAlarmMillis(reference, timeZone));
+                nextAlarmIndex.add(entry);
+                indexEntries.put(id, entry);
+            }
+        }
     }
 
     public List<SimpleTime> getAlarms() {
@@ -155,10 +263,12 @@ public class DataSource {
         String where = SQLiteDBHelper.AlarmEntry._ID + " = ? ";
         String[] whereArgs = {String.valueOf(id)};
         Cursor cursor = getQueryCursor(where, whereArgs);
+        SimpleTime time = null;
         if (cursor.moveToFirst()) {
-            return cursorToSimpleTime(cursor);
+            time = cursorToSimpleTime(cursor);
         }
-        return null;
+        cursor.close();
+        return time;
     }
 
     private Cursor getQueryCursor(String where, String[] whereArgs) {
@@ -201,5 +311,20 @@ public class DataSource {
 
     public void dropData() {
         db.execSQL("delete from " + SQLiteDBHelper.AlarmEntry.TABLE_NAME + ";");
+        synchronized (indexLock) {
+            indexValid = false;
+        }
+    }
+
+    private static class IndexEntry {
+        final long id;
+        final SimpleTime alarm;
+        long time;
+
+        IndexEntry(SimpleTime alarm, long time) {
+            this.id = alarm.id;
+            this.alarm = alarm;
+            this.time = time;
+        }
     }
 }
@@ -28,6 +28,8 @@ import android.widget.Toast;
 import androidx.core.content.ContextCompat;
 import androidx.core.content.FileProvider;
 
+import com.firebirdberlin.nightdream.util.TaskScheduler;
+
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -40,93 +42,98 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.TimeZone;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 public class ExportPreferences {
     public static final String TAG = "ExportPreferences";
     private static final String exportFile = "nightclock_preferences_export_%s.json";
     private final Context context;
-    private final Executor backgroundExecutor;
     private final Executor mainExecutor;
 
     public ExportPreferences(Context context) {
         this.context = context;
-        this.backgroundExecutor = Executors.newSingleThreadExecutor();
         this.mainExecutor = ContextCompat.getMainExecutor(context);
     }
 
     public void executeExport() {
         mainExecutor.execute(() -> Toast.makeText(context, "Starting Export", Toast.LENGTH_LONG).show());
 
-        backgroundExecutor.execute(() -> {
-            File exportPath = new File(context.getFilesDir(), "export");
-            if (!exportPath.exists()) {
-                boolean mkdirsResult = exportPath.mkdirs();
-                Log.d(TAG, "Created Directory for export: " + mkdirsResult);
-            }
+        try {
+            TaskScheduler.getInstance().submit(TaskScheduler.Lane.IO, this::export);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Task rejected: the IO queue is full.");
+            mainExecutor.execute(() -> Toast.makeText(context, "Export failed.", Toast.LENGTH_LONG).show());
+        }
+    }
 
-            // delete old exports
-            File[] oldFiles = exportPath.listFiles();
-            if (oldFiles != null) {
-                for (File oldFile : oldFiles) {
-                    if (oldFile.isFile() && oldFile.getName().startsWith("nightclock_preferences_export")) {
-                        oldFile.delete();
-                        Log.d(TAG, "Old files deleted: " + oldFile);
-                    }
+    private void export() {
+        File exportPath = new File(context.getFilesDir(), "export");
+        if (!exportPath.exists()) {
+            boolean mkdirsResult = exportPath.mkdirs();
+            Log.d(TAG, "Created Directory for export: " + mkdirsResult);
+        }
+
+        // delete old exports
+        File[] oldFiles = exportPath.listFiles();
+        if (oldFiles != null) {
+            for (File oldFile : oldFiles) {
+                if (oldFile.isFile() && oldFile.getName().startsWith("nightclock_preferences_export")) {
+                    oldFile.delete();
+                    Log.d(TAG, "Old files deleted: " + oldFile);
                 }
             }
-
-            // Generate a file name
-            long currentTime = System.currentTimeMillis();
-            String exportDate = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.getDefault()).format(new Date(currentTime));
-            String exportFileName = String.format(exportFile, exportDate);
-
-            // Create a new file
-            File newFile = new File(exportPath, exportFileName);
-
-            try {
-                // Start writing
-                FileOutputStream outputStream = new FileOutputStream(newFile);
-                outputStream.write("{\n\n".getBytes());
-
-                // Device info
-                outputStream.write("\"device\": ".getBytes());
-
-                JSONObject json = new JSONObject();
-                json.put("Version", BuildConfig.VERSION_CODE);
-                json.put("SDK", Build.VERSION.SDK_INT);
-                json.put("Product", Build.PRODUCT);
-                json.put("Manufacturer", Build.MANUFACTURER);
-                json.put("Model", Build.MODEL);
-                json.put("Device", Build.DEVICE);
-                json.put("Display", Build.DISPLAY);
-                json.put("Timezone", TimeZone.getDefault().getID());
-                json.put("Offset", TimeZone.getDefault().getOffset(System.currentTimeMillis()));
-                json.put("ExportTime", System.currentTimeMillis());
-
-                Map<String, ?> allSP = context.getSharedPreferences(Settings.PREFS_KEY, 0).getAll();
-                for (Map.Entry<String, ?> entry : allSP.entrySet()) {
-                    json.put(entry.getKey(), entry.getValue().toString());
-                }
-
-                outputStream.write(json.toString().getBytes());
-                outputStream.write("\n\n}".getBytes());
-                outputStream.close();
-
-                // On success, run on main thread to share
-                mainExecutor.execute(() -> {
-                    Uri contentUri = FileProvider.getUriForFile(context, context.getApplicationContext().getPackageName() + ".fileprovider", newFile);
-                    Intent share = new Intent(Intent.ACTION_SEND);
-                    share.setType("text/plain");
-                    share.putExtra(Intent.EXTRA_STREAM, contentUri);
-                    context.startActivity(Intent.createChooser(share, "Export"));
-                });
-
-            } catch (JSONException | IOException ex) {
-                // On failure, run on main thread to show toast
-                mainExecutor.execute(() -> Toast.makeText(context, "Export failed.", Toast.LENGTH_LONG).show());
-                Log.e(TAG, "Export failed", ex);
+        }
+
+        // Generate a file name
+        long currentTime = System.currentTimeMillis();
+        String exportDate = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.getDefault()).format(new Date(currentTime));
+        String exportFileName = String.format(exportFile, exportDate);
+
+        // Create a new file
+        File newFile = new File(exportPath, exportFileName);
+
+        try {
+            // Start writing
+            FileOutputStream outputStream = new FileOutputStream(newFile);
+            outputStream.write("{\n\n".getBytes());
+
+            // Device info
+            outputStream.write("\"device\": ".getBytes());
+
+            JSONObject json = new JSONObject();
+            json.put("Version", BuildConfig.VERSION_CODE);
+            json.put("SDK", Build.VERSION.SDK_INT);
+            json.put("Product", Build.PRODUCT);
+            json.put("Manufacturer", Build.MANUFACTURER);
+            json.put("Model", Build.MODEL);
+            json.put("Device", Build.DEVICE);
+            json.put("Display", Build.DISPLAY);
+            json.put("Timezone", TimeZone.getDefault().getID());
+            json.put("Offset", TimeZone.getDefault().getOffset(System.currentTimeMillis()));
+            json.put("ExportTime", System.currentTimeMillis());
+
+            Map<String, ?> allSP = context.getSharedPreferences(Settings.PREFS_KEY, 0).getAll();
+            for (Map.Entry<String, ?> entry : allSP.entrySet()) {
+                json.put(entry.getKey(), entry.getValue().toString());
             }
-        });
+
+            outputStream.write(json.toString().getBytes());
+            outputStream.write("\n\n}".getBytes());
+            outputStream.close();
+
+            // On success, run on main thread to share
+            mainExecutor.execute(() -> {
+                Uri contentUri = FileProvider.getUriForFile(context, context.getApplicationContext().getPackageName() + ".fileprovider", newFile);
+                Intent share = new Intent(Intent.ACTION_SEND);
+                share.setType("text/plain");
+                share.putExtra(Intent.EXTRA_STREAM, contentUri);
+                context.startActivity(Intent.createChooser(share, "Export"));
+            });
+
+        } catch (JSONException | IOException ex) {
+            // On failure, run on main thread to show toast
+            mainExecutor.execute(() -> Toast.makeText(context, "Export failed.", Toast.LENGTH_LONG).show());
+            Log.e(TAG, "Export failed", ex);
+        }
     }
-}
\ No newline at end of file
+}
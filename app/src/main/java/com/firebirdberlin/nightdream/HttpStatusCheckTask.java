@@ -18,17 +18,22 @@
 
 package com.firebirdberlin.nightdream;
 
-import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
+import com.firebirdberlin.nightdream.util.TaskScheduler;
+
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
-public class HttpStatusCheckTask extends AsyncTask<String, Void, HttpStatusCheckTask.HttpStatusCheckResult> {
+public class HttpStatusCheckTask {
     private static String TAG = "NightDream.HttpStatusCheckTask";
+    private static final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
     private static int MAX_NUM_REDIRECTS = 5;
     private static int READ_TIMEOUT = 10000;
     private static int CONNECT_TIMEOUT = 10000;
@@ -56,50 +61,66 @@ public class HttpStatusCheckTask extends AsyncTask<String, Void, HttpStatusCheck
     }
 
     private AsyncResponse delegate = null;
-    private int numRedirects = 0;
-    private String latestURL = "";
-    private int responseCode = 0;
-    private Map<String, List<String>> responseHeaders;
 
     public HttpStatusCheckTask(AsyncResponse listener) {
         this.delegate = listener;
     }
 
-    @Override
-    protected HttpStatusCheckTask.HttpStatusCheckResult doInBackground(String... urls) {
+    public void execute(String... urls) {
         String url = urls[0];
-        numRedirects = 0;
-        responseCode = 0;
         try {
-            getFinalURL(new URL(url));
+            TaskScheduler.getInstance().submit(TaskScheduler.Lane.IO, () -> {
+                HttpStatusCheckTask.HttpStatusCheckResult result = check(url);
+                mainThreadHandler.post(() -> delegate.onStatusCheckFinished(result));
+            });
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Task rejected", e);
+            mainThreadHandler.post(() -> delegate.onStatusCheckFinished(null));
+        }
+    }
+
+    /**
+     * Follows the redirects of the url on the calling thread.
+     */
+    public static HttpStatusCheckTask.HttpStatusCheckResult check(String url) {
+        Checker checker = new Checker();
+        try {
+            checker.getFinalURL(new URL(url));
         } catch (Exception e) {
             Log.e(TAG, Log.getStackTraceString(e));
             e.printStackTrace();
         }
         //return responseCode == HttpURLConnection.HTTP_OK;
-        return new HttpStatusCheckTask.HttpStatusCheckResult(latestURL, responseCode, responseHeaders, numRedirects);
+        return new HttpStatusCheckTask.HttpStatusCheckResult(
+                checker.latestURL, checker.responseCode, checker.responseHeaders, checker.numRedirects
+        );
     }
 
-    @Override
-    protected void onPostExecute(HttpStatusCheckTask.HttpStatusCheckResult result) {
-        delegate.onStatusCheckFinished(result);
-    }
+    private static class Checker {
+        private int numRedirects = 0;
+        private String latestURL = "";
+        private int responseCode = 0;
+        private Map<String, List<String>> responseHeaders;
 
-    private void getFinalURL(URL url) throws IOException {
-        Log.i(TAG, String.format("Checking URL %s", url.toString()));
-        HttpURLConnection con = (HttpURLConnection) url.openConnection();
-        con.setInstanceFollowRedirects(false);
-        con.setConnectTimeout(CONNECT_TIMEOUT);
-        con.setReadTimeout(READ_TIMEOUT);
-        responseCode = con.getResponseCode();
-        responseHeaders = con.getHeaderFields();
-        latestURL = url.toString();
-        if (numRedirects < MAX_NUM_REDIRECTS &&
-                (responseCode == HttpURLConnection.HTTP_MOVED_PERM ||
-                    responseCode == HttpURLConnection.HTTP_MOVED_TEMP)) {
-            numRedirects++;
-            String redirectUrl = con.getHeaderField("Location");
-            getFinalURL(new URL(redirectUrl));
+        private void getFinalURL(URL url) throws IOException {
+            Log.i(TAG, String.format("Checking URL %s", url.toString()));
+            HttpURLConnection con = (HttpURLConnection) url.openConnection();
+            con.setInstanceFollowRedirects(false);
+            con.setConnectTimeout(CONNECT_TIMEOUT);
+            con.setReadTimeout(READ_TIMEOUT);
+            responseCode = con.getResponseCode();
+            responseHeaders = con.getHeaderFields();
+            latestURL = url.toString();
+            if (numRedirects < MAX_NUM_REDIRECTS &&
+                    (responseCode == HttpURLConnection.HTTP_MOVED_PERM ||
+                        responseCode == HttpURLConnection.HTTP_MOVED_TEMP)) {
+                numRedirects++;
+                String redirectUrl = con.getHeaderField("Location");
+                con.disconnect();
+                getFinalURL(new URL(redirectUrl));
+            } else {
+                con.disconnect();
+            }
         }
     }
 }
@@ -20,6 +20,7 @@ package com.firebirdberlin.nightdream;
 
 import com.firebirdberlin.nightdream.events.OnLightSensorValueTimeout;
 import com.firebirdberlin.nightdream.events.OnNewLightSensorValue;
+import com.firebirdberlin.nightdream.util.LightLevelFilter;
 
 import android.content.Context;
 import android.hardware.Sensor;
@@ -27,21 +28,34 @@ import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.util.Log;
 import org.greenrobot.eventbus.EventBus;
 
+/**
+ * Reports the ambient light level.
+ * <p>
+ * Sensor events are batched by the sensor hub where supported and collected without touching
+ * the handler. Every 10 seconds the collected values are averaged, a new value is only posted
+ * if it differs noticeably from the last one. If the sensor stays silent for 15 seconds the
+ * last value is posted as a timeout.
+ */
 public class LightSensorEventListener implements SensorEventListener {
 
     private static final String TAG = "LightSensorEventListener";
+    private static final long MEAN_INTERVAL_MILLIS = 10000;
+    private static final long TIMEOUT_MILLIS = 15000;
+    private static final int MAX_REPORT_LATENCY_US = 5000000;
     final private Handler handler = new Handler();
     private boolean isRegistered = false;
     private boolean pending = false;
+    private boolean timeoutPosted = false;
     private final EventBus bus;
-    private float ambient_mean = 0.f;
+    private final LightLevelFilter filter = new LightLevelFilter(64, 0.05f, 0.2f);
     private float last_value = -1.f;
+    private long lastEventTime = 0L;
     private Sensor lightSensor = null;
     private final SensorManager mSensorManager;
-    public int count = 0;
 
 
     public LightSensorEventListener(Context context){
@@ -61,18 +75,14 @@ public class LightSensorEventListener implements SensorEventListener {
     @Override
     public void onSensorChanged(SensorEvent event) {
         if (event.sensor.getType() == Sensor.TYPE_LIGHT) {
+            last_value = event.values[0];
+            lastEventTime = SystemClock.uptimeMillis();
+            timeoutPosted = false;
+            filter.add(last_value);
             if (!pending) {
-                handler.postDelayed(calculateMeanValue, 10000);
+                pending = true;
+                handler.postDelayed(calculateMeanValue, MEAN_INTERVAL_MILLIS);
             }
-
-            // triggers handler if no change occurs within the next 15s
-            removeCallbacks(sensorTimeout); // stop other instances
-            handler.postDelayed(sensorTimeout, 15000);// start timer
-
-            pending = true;
-            last_value = event.values[0];
-            ambient_mean += event.values[0];
-            count += 1;
         }
     }
 
@@ -90,15 +100,22 @@ public class LightSensorEventListener implements SensorEventListener {
         Log.d(TAG, "Brightness Sensor Max Range: " + lightSensor.getMaximumRange());
         Log.d(TAG, "Brightness Sensor Name: " + lightSensor.getName());
         Log.d(TAG, "Brightness Sensor Vendor: " + lightSensor.getVendor());
-        boolean success = mSensorManager.registerListener(this, lightSensor, SensorManager.SENSOR_DELAY_NORMAL);
+        Log.d(TAG, "Brightness Sensor FIFO: " + lightSensor.getFifoMaxEventCount());
+        // events are delivered in batches if the sensor has a FIFO, otherwise immediately
+        boolean success = mSensorManager.registerListener(
+                this, lightSensor, SensorManager.SENSOR_DELAY_NORMAL, MAX_REPORT_LATENCY_US
+        );
         if (success) {
             isRegistered = true;
             // Remove any pending callbacks before posting new ones to avoid duplicate events
             removeCallbacks(calculateMeanValue);
             removeCallbacks(sensorTimeout);
             pending = false; // Reset pending state on re-registration
+            filter.reset();
             // The calculateMeanValue runnable will be posted by onSensorChanged when the first event arrives.
-            handler.postDelayed(sensorTimeout, 15000);// start timer
+            lastEventTime = SystemClock.uptimeMillis();
+            timeoutPosted = false;
+            handler.postDelayed(sensorTimeout, TIMEOUT_MILLIS);// start timer
         }
     }
 
@@ -107,6 +124,8 @@ public class LightSensorEventListener implements SensorEventListener {
             removeCallbacks(sensorTimeout); // stop other instances
             removeCallbacks(calculateMeanValue);
             mSensorManager.unregisterListener(this);
+            isRegistered = false;
+            pending = false;
         } else {
             Log.e(TAG, "Cannot unregister listener: SensorManager is null.");
         }
@@ -122,18 +141,27 @@ public class LightSensorEventListener implements SensorEventListener {
         @Override
         public void run() {
             pending = false;
-            if (count == 0) return;
-            ambient_mean /= (float) count;
-            bus.post(new OnNewLightSensorValue(ambient_mean, count));
-            count = 0;
-            ambient_mean = 0.f;
+            if (filter.evaluate()) {
+                bus.post(new OnNewLightSensorValue(filter.getMean(), filter.getCount()));
+            }
+            // check for a timeout after the last event
+            removeCallbacks(sensorTimeout);
+            long delay = lastEventTime + TIMEOUT_MILLIS - SystemClock.uptimeMillis();
+            handler.postDelayed(sensorTimeout, Math.max(0L, delay));
         }
     };
 
     private final Runnable sensorTimeout = new Runnable() {
         @Override
         public void run() {
+            // the timer is started again when the next mean value is calculated
+            if (pending || timeoutPosted) return;
+            if (SystemClock.uptimeMillis() - lastEventTime < TIMEOUT_MILLIS) return;
+            timeoutPosted = true;
+            if (last_value >= 0.f) {
+                filter.setReportedValue(last_value);
+            }
             bus.post(new OnLightSensorValueTimeout(last_value));
         }
     };
-}
\ No newline at end of file
+}
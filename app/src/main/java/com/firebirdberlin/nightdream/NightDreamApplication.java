@@ -24,10 +24,8 @@ import android.content.Context;
 import android.content.res.Configuration;
 import android.util.Log;
 
+import com.firebirdberlin.nightdream.models.TextureCache;
 import com.firebirdberlin.nightdream.widget.ClockWidgetProvider;
-import com.firebirdberlin.openweathermapapi.CityRequestManager;
-import com.firebirdberlin.openweathermapapi.ForecastRequestTask;
-import com.firebirdberlin.openweathermapapi.ForecastRequestTaskToday;
 
 /**
  * A global Application instance which notifies widgets to update its content on orientation
@@ -51,6 +49,12 @@ public class NightDreamApplication extends Application {
         notifyClockWidgets();
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        TextureCache.onTrimMemory(level);
+    }
+
     /**
      * Notify widget that a configuration change event occurred.
      */
@@ -58,12 +62,4 @@ public class NightDreamApplication extends Application {
         // update all widget instances via intent
         ClockWidgetProvider.updateAllWidgets(this);
     }
-
-     @Override
-     public void onTerminate() {
-         super.onTerminate();
-         CityRequestManager.shutdownExecutor();
-         ForecastRequestTask.shutdownExecutor();
-         ForecastRequestTaskToday.shutdownExecutor();
-     }
 }
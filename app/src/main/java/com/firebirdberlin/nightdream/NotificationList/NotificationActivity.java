@@ -68,6 +68,15 @@ public class NotificationActivity extends AppCompatActivity {
                     notificationList.replace(notifications, packageName);
                 }
                 adapter.updateDataSet(oldNotificationList, notificationList);
+            } else if (intent.hasExtra("changedNotifications")) {
+                List<Notification> changed = intent.getParcelableArrayListExtra("changedNotifications");
+                List<String> removedKeys = intent.getStringArrayListExtra("removedNotificationKeys");
+
+                NotificationList oldNotificationList = new NotificationList(
+                        notificationList.getNotifications()
+                );
+                notificationList.update(changed, removedKeys, packageName);
+                adapter.updateDataSet(oldNotificationList, notificationList);
             }
         }
     };
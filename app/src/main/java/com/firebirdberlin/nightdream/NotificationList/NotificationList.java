@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 
 public class NotificationList {
@@ -97,7 +98,42 @@ public class NotificationList {
                 this.notifications.add(n);
             }
         }
+        sortByPostTime();
+    }
+
+    /**
+     * Applies the changes published by the notification listener.
+     *
+     * @param changed     notifications which were added or updated
+     * @param removedKeys keys of the removed notifications
+     */
+    public void update(List<Notification> changed, List<String> removedKeys, String packageName) {
+        HashSet<String> keys = new HashSet<>();
+        if (removedKeys != null) {
+            keys.addAll(removedKeys);
+            selectedNotificationKeys.removeAll(removedKeys);
+        }
+        if (changed != null) {
+            for (Notification n : changed) {
+                keys.add(n.getNotificationKey());
+            }
+        }
+        for (Iterator<Notification> iterator = notifications.iterator(); iterator.hasNext(); ) {
+            if (keys.contains(iterator.next().getNotificationKey())) {
+                iterator.remove();
+            }
+        }
+        if (changed != null) {
+            for (Notification n : changed) {
+                if (shallShowNotification(n, packageName)) {
+                    this.notifications.add(n);
+                }
+            }
+        }
+        sortByPostTime();
+    }
 
+    private void sortByPostTime() {
         //sorting time descending order
         Collections.sort(this.notifications, new Comparator<Notification>() {
             @Override
@@ -58,6 +58,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Settings {
     public static final String PREFS_KEY = "NightDream preferences";
@@ -214,22 +215,97 @@ public class Settings {
         reload();
     }
 
-    public String getString(String key) {
-        return settings.getString(key, null);
+    private static Settings snapshot = null;
+    private static SharedPreferences observedPreferences = null;
+    private static final List<KeyedListener> settingsChangedListeners = new CopyOnWriteArrayList<>();
+    // SharedPreferences references its listeners weakly, this keeps ours alive
+    private static final SharedPreferences.OnSharedPreferenceChangeListener preferenceChangeListener =
+            (sharedPreferences, key) -> {
+                synchronized (Settings.class) {
+                    snapshot = null;
+                }
+                for (KeyedListener entry : settingsChangedListeners) {
+                    if (entry.keys == null || key == null || entry.keys.contains(key)) {
+                        entry.listener.onSettingsChanged(key);
+                    }
+                }
+            };
+    private static String decodedWeatherJson = null;
+    private static WeatherEntry decodedWeatherEntry = null;
+    private static String decodedRadioStationsJson = null;
+    private static FavoriteRadioStations decodedRadioStations = null;
+
+    /**
+     * Returns a process wide settings instance which is shared by all callers. It is created
+     * once and rebuilt lazily after a preference was changed, so it is cheap to call from
+     * receivers, workers and widget updates.
+     * <p>
+     * The snapshot must be treated as read-only. Its fields must not be assigned, changes have
+     * to be written to the preferences (e.g. via the setters), which invalidates the snapshot.
+     */
+    public static synchronized Settings getSnapshot(Context context) {
+        Context appContext = context.getApplicationContext();
+        if (appContext == null) {
+            appContext = context;
+        }
+        observePreferences(appContext);
+        if (snapshot == null) {
+            snapshot = new Settings(appContext);
+        }
+        return snapshot;
+    }
+
+    private static void observePreferences(Context appContext) {
+        if (observedPreferences == null) {
+            observedPreferences = appContext.getSharedPreferences(PREFS_KEY, 0);
+            observedPreferences.registerOnSharedPreferenceChangeListener(preferenceChangeListener);
+        }
+    }
+
+    /**
+     * Registers a listener which is called on the main thread when one of the given preference
+     * keys changes.
+     *
+     * @param keys the keys to observe or null for all keys
+     */
+    public static void addOnSettingsChangedListener(
+            Context context, Set<String> keys, OnSettingsChangedListener listener
+    ) {
+        synchronized (Settings.class) {
+            Context appContext = context.getApplicationContext();
+            observePreferences(appContext != null ? appContext : context);
+        }
+        Set<String> observedKeys = (keys == null) ? null : new HashSet<>(keys);
+        settingsChangedListeners.add(new KeyedListener(observedKeys, listener));
     }
 
-    private static FavoriteRadioStations getFavoriteRadioStations(SharedPreferences preferences) {
-        String json = preferences.getString(FAVORITE_RADIO_STATIONS_KEY, null);
-        if (json != null) {
-            try {
-                FavoriteRadioStations stations = FavoriteRadioStations.fromJson(json);
-                return stations;
-            } catch (JSONException e) {
-                Log.e(TAG, "error converting json to FavoriteRadioStations", e);
+    public static void removeOnSettingsChangedListener(OnSettingsChangedListener listener) {
+        for (KeyedListener entry : settingsChangedListeners) {
+            if (entry.listener == listener) {
+                settingsChangedListeners.remove(entry);
             }
         }
-        return new FavoriteRadioStations();
+    }
+
+    public interface OnSettingsChangedListener {
+        /**
+         * @param key the changed key or null if the preferences were cleared
+         */
+        void onSettingsChanged(String key);
+    }
+
+    private static class KeyedListener {
+        final Set<String> keys;
+        final OnSettingsChangedListener listener;
 
+        KeyedListener(Set<String> keys, OnSettingsChangedListener listener) {
+            this.keys = keys;
+            this.listener = listener;
+        }
+    }
+
+    public String getString(String key) {
+        return settings.getString(key, null);
     }
 
     static void setFavoriteWeatherLocations(Context context, List<City> cities) {
@@ -1272,6 +1348,18 @@ public class Settings {
         location_lat = location.getLatitude();
         location_time = location.getTime();
         location_provider = location.getProvider();
+        saveLocation(settings, location);
+    }
+
+    /**
+     * Writes the location to the preferences without creating a settings instance.
+     */
+    public static void saveLocation(Context context, Location location) {
+        if (location == null) return;
+        saveLocation(context.getSharedPreferences(PREFS_KEY, 0), location);
+    }
+
+    private static void saveLocation(SharedPreferences settings, Location location) {
         SharedPreferences.Editor prefEditor = settings.edit();
         prefEditor.putLong("location_lon", Double.doubleToRawLongBits(location.getLongitude()));
         prefEditor.putLong("location_lat", Double.doubleToRawLongBits(location.getLatitude()));
@@ -1316,10 +1404,24 @@ public class Settings {
         prefEditor.apply();
     }
 
+    /**
+     * The decoded entry is cached until the stored json changes. It is shared and must not be
+     * modified. Expired entries are not returned.
+     */
     public WeatherEntry getWeatherEntry() {
         String json = settings.getString("weather_json", null);
+        synchronized (Settings.class) {
+            if (json != null && json.equals(decodedWeatherJson)) {
+                // the validity depends on the current time
+                return decodedWeatherEntry.isValid() ? decodedWeatherEntry : new WeatherEntry();
+            }
+        }
         WeatherEntry entry = WeatherEntry.fromJson(json);
         if (entry != null && entry.isValid()) {
+            synchronized (Settings.class) {
+                decodedWeatherJson = json;
+                decodedWeatherEntry = entry;
+            }
             return entry;
         }
         return new WeatherEntry();
@@ -1327,6 +1429,18 @@ public class Settings {
 
     public void setWeatherEntry(WeatherEntry entry) {
         this.weatherEntry = entry;
+        saveWeatherEntry(settings, entry);
+    }
+
+    /**
+     * Writes the weather entry to the preferences without changing a settings instance, e.g.
+     * the shared snapshot, which is rebuilt afterwards.
+     */
+    public static void saveWeatherEntry(Context context, WeatherEntry entry) {
+        saveWeatherEntry(context.getSharedPreferences(PREFS_KEY, 0), entry);
+    }
+
+    private static void saveWeatherEntry(SharedPreferences settings, WeatherEntry entry) {
         SharedPreferences.Editor prefEditor = settings.edit();
         prefEditor.putString("weather_json", entry.toJson());
         prefEditor.apply();
@@ -1352,8 +1466,30 @@ public class Settings {
         return station;
     }
 
+    /**
+     * Returns a copy of the favorite stations. The decoded json is cached until it changes.
+     */
     public FavoriteRadioStations getFavoriteRadioStations() {
-        return getFavoriteRadioStations(settings);
+        String json = settings.getString(FAVORITE_RADIO_STATIONS_KEY, null);
+        if (json == null) {
+            return new FavoriteRadioStations();
+        }
+        synchronized (Settings.class) {
+            if (json.equals(decodedRadioStationsJson)) {
+                return decodedRadioStations.copy();
+            }
+        }
+        try {
+            FavoriteRadioStations stations = FavoriteRadioStations.fromJson(json);
+            synchronized (Settings.class) {
+                decodedRadioStationsJson = json;
+                decodedRadioStations = stations;
+            }
+            return stations.copy();
+        } catch (JSONException e) {
+            Log.e(TAG, "error converting json to FavoriteRadioStations", e);
+        }
+        return new FavoriteRadioStations();
     }
 
     private void setFavoriteRadioStations(FavoriteRadioStations stations) {
@@ -1368,7 +1504,7 @@ public class Settings {
     }
 
     public void persistFavoriteRadioStation(RadioStation station, int stationIndex) {
-        FavoriteRadioStations stations = getFavoriteRadioStations(settings);
+        FavoriteRadioStations stations = getFavoriteRadioStations();
         stations.set(stationIndex, station);
         setFavoriteRadioStations(stations);
     }
@@ -35,27 +35,42 @@
 package com.firebirdberlin.nightdream;
 
 import android.content.Context;
+import android.media.AudioFormat;
+import android.media.AudioRecord;
 import android.media.MediaRecorder;
 import android.os.Handler;
 import android.util.Log;
 
 import com.firebirdberlin.nightdream.events.OnNewAmbientNoiseValue;
+import com.firebirdberlin.nightdream.util.AmplitudeMeter;
 
 import org.greenrobot.eventbus.EventBus;
 
-import java.io.File;
-import java.io.IOException;
-
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Measures the ambient noise level from raw PCM samples of the microphone.
+ * <p>
+ * The samples are read into a reused buffer and analyzed on the fly, nothing is encoded or
+ * written to storage.
+ */
 public class SoundMeter {
     static final private double EMA_FILTER = 0.6;
+    static final private int DEFAULT_SAMPLE_RATE = 8000;
+    static final private int DEFAULT_WINDOW_MILLIS = 100;
     static String TAG = "SoundMeter";
-    private MediaRecorder mRecorder = null;
-    private double mEMA = 0.0;
+    private AudioRecord mRecord = null;
+    private Thread readerThread = null;
+    // cleared by stop(), each recording has its own flag
+    private AtomicBoolean recording = null;
+    private short[] buffer = null;
+    private AmplitudeMeter meter = null;
     private boolean debug = true;
     final private Handler handler = new Handler();
     private int interval = 60000;
-    private boolean running = false;
+    private int sampleRate = DEFAULT_SAMPLE_RATE;
+    private int windowMillis = DEFAULT_WINDOW_MILLIS;
+    private volatile boolean running = false;
     private Context context;
 
 
@@ -64,112 +79,151 @@ public class SoundMeter {
         if (debug) Log.d(TAG,"SoundMeter()");
     }
 
+    /**
+     * Takes effect with the next start().
+     */
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Sets the duration of the windows whose peaks are averaged. Takes effect with the next
+     * start().
+     */
+    public void setWindowMillis(int windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
     public boolean start() {
-        if (mRecorder == null) {
-            File file = new File(context.getCacheDir(), "audio.mp3");
+        if (mRecord != null) {
+            return running;
+        }
+        int minBufferSize = AudioRecord.getMinBufferSize(
+                sampleRate, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT
+        );
+        if (minBufferSize <= 0) {
+            if (debug) Log.e(TAG, " > sample rate not supported: " + sampleRate);
+            return false;
+        }
+        int windowSize = Math.max(1, sampleRate * windowMillis / 1000);
+        int bufferSize = Math.max(minBufferSize / 2, windowSize);
+        // the reader of the last recording may still be writing into the old buffer
+        if (buffer == null || buffer.length != bufferSize
+                || (readerThread != null && readerThread.isAlive())) {
+            buffer = new short[bufferSize];
+        }
+        if (meter == null || meter.getWindowSize() != windowSize) {
+            meter = new AmplitudeMeter(windowSize, EMA_FILTER);
+        }
 
-            try {
-                mRecorder = new MediaRecorder();
-                mRecorder.setAudioSource(MediaRecorder.AudioSource.MIC);
-                mRecorder.setOutputFormat(MediaRecorder.OutputFormat.THREE_GPP);
-                mRecorder.setAudioEncoder(MediaRecorder.AudioEncoder.AMR_NB);
-                mRecorder.setOutputFile(file.getAbsolutePath());
-                mRecorder.setOnErrorListener(errorListener);
-                mRecorder.setOnInfoListener(infoListener);
-            } catch (RuntimeException e) {
-                // on Android 11 setAudioSource fails with a RuntimeException ... is it always failing ?
-                e.printStackTrace();
+        try {
+            mRecord = new AudioRecord(
+                    MediaRecorder.AudioSource.MIC, sampleRate, AudioFormat.CHANNEL_IN_MONO,
+                    AudioFormat.ENCODING_PCM_16BIT, Math.max(minBufferSize, 2 * bufferSize)
+            );
+            if (mRecord.getState() != AudioRecord.STATE_INITIALIZED) {
+                if (debug) Log.e(TAG, " > AudioRecord could not be initialized");
                 this.release();
                 return false;
             }
-        }
-        try{
-            mRecorder.prepare();
-        }catch (IOException e) {
-            if (debug) Log.e(TAG," > IOEXCEPTION, when preparing SoundMeter: " + e.toString());
-            this.release();
-            return false;
-        } catch (IllegalStateException e) {
-            if (debug) Log.e(TAG," > IllegalStateException, when preparing SoundMeter: " + e.toString());
+            mRecord.startRecording();
+        } catch (RuntimeException e) {
+            // e.g. a SecurityException without the permission to record audio
+            if (debug) Log.e(TAG," > Exception, when starting SoundMeter: " + e.toString());
             this.release();
             return false;
         }
-
-        try{
-            mRecorder.start();
-            mRecorder.getMaxAmplitude(); // init
-            mEMA = 0.0;
-        } catch (IllegalStateException e) {
-            if (debug) Log.e(TAG," > IllegalStateException, when starting SoundMeter: " + e.toString());
+        if (mRecord.getRecordingState() != AudioRecord.RECORDSTATE_RECORDING) {
+            if (debug) Log.e(TAG, " > the microphone is in use");
             this.release();
             return false;
         }
 
+        synchronized (this) {
+            meter.reset();
+        }
         running = true;
+        final AudioRecord record = mRecord;
+        final short[] samples = buffer;
+        final AtomicBoolean active = new AtomicBoolean(true);
+        recording = active;
+        readerThread = new Thread(() -> readSamples(record, samples, active), TAG);
+        readerThread.start();
         return true;
     }
 
-    public void stop() {
-        if (mRecorder != null) {
-            try{
-                mRecorder.stop();
-            } catch (IllegalStateException e) {
-                if (debug) Log.e(TAG,"Error, when stopping SoundMeter: " + e.toString());
-            } catch (RuntimeException e) {
-                if (debug) Log.e(TAG,"RuntimeException when stopping SoundMeter: " + e.toString());
+    private void readSamples(AudioRecord record, short[] samples, AtomicBoolean active) {
+        try {
+            while (active.get()) {
+                int count = record.read(samples, 0, samples.length);
+                if (count < 0) {
+                    if (debug) Log.e(TAG, "Error reading samples: " + count);
+                    break;
+                }
+                synchronized (this) {
+                    // the meter may belong to the next recording already
+                    if (!active.get()) break;
+                    meter.process(samples, 0, count);
+                }
             }
-
-            mRecorder.reset();
-
-            try{
-                mRecorder.release();
-            } catch (Exception e) {
-                if (debug) Log.e(TAG,"Error, when releasing SoundMeter: " +e.toString());
+        } finally {
+            // the recording is released by the thread which reads from it
+            try {
+                record.stop();
+            } catch (IllegalStateException e) {
+                if (debug) Log.e(TAG, "Error, when stopping SoundMeter: " + e.toString());
             }
-            mRecorder = null;
+            record.release();
         }
+    }
 
+    /**
+     * Signals the reader thread, which stops and releases the recording after the current
+     * window. The caller does not wait for it.
+     */
+    public void stop() {
         running = false;
+        if (recording != null) {
+            recording.set(false);
+            recording = null;
+        } else if (mRecord != null) {
+            // there is no reader, e.g. the recording could not be started
+            mRecord.release();
+        }
+        mRecord = null;
     }
 
     public void release() {
         removeCallbacks(listenToAmbientNoise);
         stop();
-        if (mRecorder != null) {
-            mRecorder.reset();
-            mRecorder.release();
-            mRecorder = null;
-        }
-
     }
 
-    public double getAmplitude() {
-        if (mRecorder != null){
-            return  (mRecorder.getMaxAmplitude());
-        } else {
+    /**
+     * @return the max. amplitude since the last call, in the range of
+     * MediaRecorder.getMaxAmplitude(), or -1 if the meter is not running
+     */
+    public synchronized double getAmplitude() {
+        if (mRecord == null || meter == null) {
             return -1.0;
         }
+        int peak = meter.getPeak();
+        meter.resetPeak();
+        return peak;
     }
 
-    public double getAmplitudeEMA() {
-        double amp = getAmplitude();
-        mEMA = EMA_FILTER * amp + (1.0 - EMA_FILTER) * mEMA;
-        return mEMA;
+    /**
+     * @return the moving average of the peak amplitudes of the windows
+     */
+    public synchronized double getAmplitudeEMA() {
+        return (meter != null) ? meter.getPeakEMA() : 0.0;
     }
 
-    private MediaRecorder.OnErrorListener errorListener = new MediaRecorder.OnErrorListener() {
-        @Override
-        public void onError(MediaRecorder mr, int what, int extra) {
-            Log.e(TAG,"Error: " + what + ", " + extra);
-        }
-    };
-
-    private MediaRecorder.OnInfoListener infoListener = new MediaRecorder.OnInfoListener() {
-        @Override
-        public void onInfo(MediaRecorder mr, int what, int extra) {
-            Log.e(TAG,"Warning: " + what + ", " + extra);
-        }
-    };
+    /**
+     * @return the RMS amplitude since the last call of getAmplitude()
+     */
+    public synchronized double getRmsAmplitude() {
+        return (meter != null) ? meter.getRms() : 0.0;
+    }
 
     public void startMeasurement(int interval_millis) {
         this.interval = interval_millis;
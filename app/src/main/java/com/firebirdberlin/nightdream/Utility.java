@@ -91,7 +91,6 @@ import org.greenrobot.eventbus.EventBus;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileDescriptor;
-import java.io.FileFilter;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -101,14 +100,12 @@ import java.nio.file.Files;
 import java.text.DateFormat;
 import java.text.DateFormatSymbols;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
-import java.util.Stack;
 import java.util.concurrent.TimeUnit;
 
 public class Utility {
@@ -937,34 +934,6 @@ public class Utility {
         return (ActivityManagerCompat.isLowRamDevice(activityManager));
     }
 
-    public static ArrayList<File> listFiles(File path, final String fileEnding) {
-        FileFilter fileFilter = path1 -> {
-            if (path1.isDirectory() && !path1.getName().startsWith(".")) return true;
-            if (fileEnding != null) {
-                return path1.isFile() && path1.getName().toLowerCase().endsWith(fileEnding);
-            } else {
-                return path1.isFile();
-            }
-        };
-        Stack<File> dirs = new Stack<>();
-        if (path.isDirectory()) dirs.push(path);
-        ArrayList<File> results = new ArrayList<>();
-        while (dirs.size() > 0) {
-            File dir = dirs.pop();
-            File[] files = dir.listFiles(fileFilter);
-            if (files != null) {
-                for (File file : files) {
-                    if (file.isDirectory() && !file.getName().startsWith(".")) {
-                        dirs.push(file);
-                    } else if (file.isFile()) {
-                        results.add(file);
-                    }
-                }
-            }
-        }
-        return results;
-    }
-
     public static int getCameraPhotoOrientation(File imageFile) {
         try {
             ExifInterface exif = new ExifInterface(imageFile.getAbsolutePath());
@@ -985,7 +954,7 @@ public class Utility {
         return 0;
     }
 
-    private static int getCameraPhotoOrientation(ExifInterface exif) {
+    public static int getCameraPhotoOrientation(ExifInterface exif) {
         int rotate = 0;
         int orientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
 
@@ -27,6 +27,7 @@ import android.location.Location;
 import android.location.LocationListener;
 import android.location.LocationManager;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -86,6 +87,8 @@ public class WeatherForecastActivity
     private WeatherForecastTabAdapter adapter;
     private TabLayout tabLayout;
     private ViewPager viewPager;
+    private long createdAt = 0L;
+    private boolean forecastDrawn = false;
 
     private LocationManager locationManager = null;
     private final LocationListener locationListener = new LocationListener() {
@@ -125,6 +128,7 @@ public class WeatherForecastActivity
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         Log.d(TAG, "onCreate");
+        createdAt = SystemClock.uptimeMillis();
         AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_YES);
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_weather_forecast);
@@ -234,6 +238,19 @@ public class WeatherForecastActivity
 
     }
 
+    /**
+     * Called by the forecast tab after the first rows were laid out. The time to the first
+     * frame with forecast data is logged once per activity instance.
+     */
+    void onForecastDrawn() {
+        if (forecastDrawn || isFinishing()) {
+            return;
+        }
+        forecastDrawn = true;
+        Log.i(TAG, "forecast drawn after " + (SystemClock.uptimeMillis() - createdAt) + " ms");
+        reportFullyDrawn();
+    }
+
     @Override
     public void onRequestError(Exception exception) {
         Log.e(TAG, "onRequestError", exception);
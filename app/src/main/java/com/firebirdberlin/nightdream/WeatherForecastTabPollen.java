@@ -20,119 +20,89 @@ package com.firebirdberlin.nightdream;
 
 import android.content.Context;
 import android.content.res.Resources;
-import android.graphics.PorterDuff;
-import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.util.Log;
-import android.util.TypedValue;
-import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ImageView;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 
-import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.RecyclerView;
 
-import com.firebirdberlin.nightdream.ui.PollenForecastLayout;
-import com.firebirdberlin.openweathermapapi.GeocoderApi;
+import com.firebirdberlin.nightdream.ui.PollenForecastAdapter;
 import com.firebirdberlin.openweathermapapi.models.City;
 
-import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public class WeatherForecastTabPollen extends Fragment {
 
     final static String TAG = "ForecastTabPollen";
-    private final int[] colorResId = new int[]{
-            R.color.grey,
-            R.color.material_light_green,
-            R.color.material_yellow,
-            R.color.material_amber,
-            R.color.material_orange,
-            R.color.material_purple,
-            R.color.material_red
-    };
-    private LinearLayout scrollViewLayout = null;
+    private final PollenForecastAdapter adapter = new PollenForecastAdapter();
+    private RecyclerView recyclerView = null;
+    private TextView emptyView = null;
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
-        return inflater.inflate(R.layout.activity_weather_forecast_scrollview, container, false);
+        return inflater.inflate(R.layout.activity_weather_forecast_list, container, false);
     }
 
     @Override
     public void onViewCreated(View view, Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
-        scrollViewLayout = view.findViewById(R.id.scroll_view_layout);
+        recyclerView = view.findViewById(R.id.recycler_view);
+        recyclerView.setAdapter(adapter);
+        emptyView = view.findViewById(R.id.empty_view);
+        emptyView.setText(R.string.showPollenNoData);
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        recyclerView = null;
+        emptyView = null;
     }
 
     public void onRequestFinished(City city, PollenExposure result) {
         Log.d(TAG, "addPollen - onRequestFinished");
-        scrollViewLayout.removeAllViews();
         Context context = getContext();
-        if (context == null) {
+        if (context == null || recyclerView == null) {
             return;
         }
 
+        List<PollenForecastAdapter.Item> items = new ArrayList<>();
         if (city == null || !"DE".equals(city.countryCode) || Utility.isEmpty(city.postalCode)
                 || result == null) {
             Log.d(TAG, "addPollen - city: " + ((city == null) ? "null" : city.toJson()));
-
-            TextView textView = new TextView(context);
-            textView.setGravity(Gravity.CENTER);
-            textView.setTextSize(TypedValue.COMPLEX_UNIT_SP, 26);
-            textView.setPadding(10, 10, 10, 10);
-            textView.setText(getString(R.string.showPollenNoData));
-            scrollViewLayout.addView(textView);
         } else {
             Resources res = context.getResources();
+            String packageName = context.getPackageName();
             for (Map<String, String> map : result.getPollenList()) {
                 for (Map.Entry<String, String> entrySet : map.entrySet()) {
-                    String icon = "ic_" + entrySet.getKey();
+                    String key = entrySet.getKey();
                     String value = entrySet.getValue();
-                    int resID = res.getIdentifier(icon, "drawable", context.getPackageName());
-
-                    if (resID == 0) {
+                    int resID = res.getIdentifier("ic_" + key, "drawable", packageName);
+                    if (resID == 0 || value == null || value.isEmpty()) {
                         continue;
                     }
-
-                    Drawable herbDrawable = ContextCompat.getDrawable(context, resID);
-
-                    int pollenKeyId = 0;
-                    String pollenKey = "pollen_" + entrySet.getKey();
-                    Log.d(TAG, "pollenkey: " + pollenKey);
-                    Class resString = R.string.class;
-                    Field field;
-                    try {
-                        field = resString.getField(pollenKey);
-                        pollenKeyId = field.getInt(null);
-                    } catch (NoSuchFieldException | IllegalAccessException e) {
-                        e.printStackTrace();
-                    }
+                    int pollenKeyId = res.getIdentifier("pollen_" + key, "string", packageName);
                     Log.d(TAG, "pollenKeyId: " + pollenKeyId);
 
-                    if (herbDrawable != null && value != null) {
+                    try {
                         // the index may be "0-1", "1-2"
-                        value = value.substring(value.length() - 1);
-                        int index = Integer.parseInt(value);
-                        index = Math.max(0, index);
-                        index = Math.min(6, index);
-                        int col = getContext().getColor(colorResId[index]);
-                        herbDrawable.setColorFilter(col, PorterDuff.Mode.SRC_ATOP);
-                        ImageView herb = new ImageView(context);
-                        herb.setImageDrawable(herbDrawable);
-
-                        PollenForecastLayout pollenLayout = new PollenForecastLayout(context);
-                        pollenLayout.setImage(herbDrawable);
-                        pollenLayout.setPollenText(context.getString(pollenKeyId));
-                        pollenLayout.setPollenStressLevel(index);
-
-                        scrollViewLayout.addView(pollenLayout);
+                        int index = Integer.parseInt(value.substring(value.length() - 1));
+                        items.add(new PollenForecastAdapter.Item(key, resID, pollenKeyId, index));
+                    } catch (NumberFormatException e) {
+                        Log.w(TAG, "invalid pollen index " + value);
                     }
                 }
             }
         }
+
+        emptyView.setVisibility(items.isEmpty() ? View.VISIBLE : View.GONE);
+        recyclerView.setVisibility(items.isEmpty() ? View.GONE : View.VISIBLE);
+        adapter.submitList(items);
     }
 }
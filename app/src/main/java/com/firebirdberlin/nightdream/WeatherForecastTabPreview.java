@@ -21,32 +21,28 @@ package com.firebirdberlin.nightdream;
 import android.content.Context;
 import android.graphics.PorterDuff;
 import android.graphics.PorterDuffColorFilter;
-import android.graphics.Typeface;
 import android.graphics.drawable.Drawable;
-import android.os.Build;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.LinearLayout;
-import android.widget.ScrollView;
 import android.widget.TextView;
 
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.RecyclerView;
 
-import com.firebirdberlin.nightdream.ui.WeatherForecastLayout;
+import com.firebirdberlin.nightdream.ui.WeatherForecastAdapter;
 import com.firebirdberlin.openweathermapapi.models.WeatherEntry;
 
-import java.text.DateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
 
 public class WeatherForecastTabPreview extends Fragment {
     private Context context;
-    private LinearLayout scrollViewLayout = null;
+    private final WeatherForecastAdapter adapter = new WeatherForecastAdapter();
     private Settings settings;
     final static String TAG = "WeatherForeTabPreview";
 
@@ -92,7 +88,9 @@ public class WeatherForecastTabPreview extends Fragment {
         upgradeNow.setBackgroundColor(color);
         upgradeNow.setTextColor(textColor);
 
-        this.scrollViewLayout = view.findViewById(R.id.scroll_view_layout);
+        RecyclerView recyclerView = view.findViewById(R.id.recycler_view);
+        // the preview may have been submitted before the view was created
+        recyclerView.setAdapter(adapter);
     }
 
     public void setupForecastPreview(Settings settings) {
@@ -142,46 +140,9 @@ public class WeatherForecastTabPreview extends Fragment {
         Log.d(TAG, "addWeatherEntries");
         Log.d(TAG, String.format(" > got %d entries", entries.size()));
 
-        if (context != null) {
-            String timeFormat = settings.getFullTimeFormat();
-
-            int day = -1;
-            long now = System.currentTimeMillis();
-            for (WeatherEntry entry : entries) {
-                if (entry.timestamp * 1000 < now - 600000) {
-                    continue;
-                }
-                TextView dateView = new TextView(context);
-                if (Build.VERSION.SDK_INT >= 23) {
-                    dateView.setTextAppearance(android.R.style.TextAppearance_Medium);
-                    if (getActivity() != null) {
-                        dateView.setTextColor(getActivity().getResources().getColor(R.color.blue, null));
-                    }
-                } else {
-                    dateView.setTextAppearance(context, android.R.style.TextAppearance_Medium);
-                    if (getActivity() != null) {
-                        dateView.setTextColor(getActivity().getResources().getColor(R.color.blue));
-                    }
-                }
-                dateView.setTypeface(null, Typeface.BOLD);
-
-                Calendar mCalendar = Calendar.getInstance();
-                mCalendar.setTimeInMillis(entry.timestamp * 1000);
-                if (day != mCalendar.get(Calendar.DAY_OF_MONTH)) {
-                    day = mCalendar.get(Calendar.DAY_OF_MONTH);
-                    DateFormat sdf = DateFormat.getDateInstance(DateFormat.FULL);
-                    String text = sdf.format(mCalendar.getTime());
-                    dateView.setText(text);
-                    scrollViewLayout.addView(dateView);
-                }
-
-                WeatherForecastLayout layout = new WeatherForecastLayout(context);
-                layout.setTimeFormat(timeFormat);
-                layout.setTemperature(true, settings.temperatureUnit);
-                layout.setWindSpeed(true, settings.speedUnit);
-                layout.update(entry);
-                scrollViewLayout.addView(layout);
-            }
+        if (settings != null) {
+            adapter.setFormat(settings.getFullTimeFormat(), settings.temperatureUnit, settings.speedUnit);
+            adapter.submitList(WeatherForecastAdapter.buildItems(entries, System.currentTimeMillis()));
         }
     }
 
@@ -18,106 +18,66 @@
 
 package com.firebirdberlin.nightdream;
 
-import android.content.Context;
-import android.graphics.Typeface;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.LinearLayout;
-import android.widget.ScrollView;
-import android.widget.TextView;
 
 import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.RecyclerView;
 
-import com.firebirdberlin.nightdream.ui.WeatherForecastLayout;
+import com.firebirdberlin.nightdream.ui.WeatherForecastAdapter;
 import com.firebirdberlin.openweathermapapi.models.WeatherEntry;
 
-import java.text.DateFormat;
-import java.util.Calendar;
 import java.util.List;
 
 public class WeatherForecastTabWeather extends Fragment {
     final static String TAG = "WeatherForeTabWeather";
-    private LinearLayout scrollViewLayout = null;
-    private ScrollView scrollView = null;
-    private Context context;
+    private final WeatherForecastAdapter adapter = new WeatherForecastAdapter();
+    private RecyclerView recyclerView = null;
     private int fadeDuration = 2000;
 
-    @Override
-    public void onAttach(Context context) {
-        super.onAttach(context);
-        this.context = context;
-    }
-
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
-        return inflater.inflate(R.layout.activity_weather_forecast_scrollview, container, false);
+        return inflater.inflate(R.layout.activity_weather_forecast_list, container, false);
     }
 
     @Override
     public void onViewCreated(View view, Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
-        scrollViewLayout = view.findViewById(R.id.scroll_view_layout);
-        scrollView = view.findViewById(R.id.scroll_view);
+        recyclerView = view.findViewById(R.id.recycler_view);
+        recyclerView.setAdapter(adapter);
     }
 
-    private void hide() {
-        // avoid flickering during build
-        scrollView.setAlpha(0);
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        recyclerView = null;
     }
 
     public void onRequestFinished(List<WeatherEntry> entries, Settings settings) {
         Log.d(TAG, "onRequestFinished() List<WeatherEntry>");
-        hide();
-
-        scrollViewLayout.removeAllViews();
-        addWeatherEntries(entries, settings);
-    }
-
-    private void addWeatherEntries(List<WeatherEntry> entries, Settings settings) {
-        Log.d(TAG, "addWeatherEntries");
         Log.d(TAG, String.format(" > got %d entries", entries.size()));
+        if (recyclerView == null) {
+            return;
+        }
 
-        if (context != null) {
-            String timeFormat = settings.getFullTimeFormat();
-
-            int day = -1;
-            long now = System.currentTimeMillis();
-            for (WeatherEntry entry : entries) {
-                if (entry.timestamp * 1000 < now - 600000) {
-                    continue;
-                }
-                TextView dateView = new TextView(context);
-                dateView.setTextAppearance(android.R.style.TextAppearance_Medium);
-                if (getActivity() != null) {
-                    dateView.setTextColor(getActivity().getResources().getColor(R.color.blue, null));
-                }
-                dateView.setTypeface(null, Typeface.BOLD);
-
-                Calendar mCalendar = Calendar.getInstance();
-                mCalendar.setTimeInMillis(entry.timestamp * 1000);
-                if (day != mCalendar.get(Calendar.DAY_OF_MONTH)) {
-                    day = mCalendar.get(Calendar.DAY_OF_MONTH);
-                    DateFormat sdf = DateFormat.getDateInstance(DateFormat.FULL);
-                    String text = sdf.format(mCalendar.getTime());
-                    dateView.setText(text);
-                    scrollViewLayout.addView(dateView);
-                }
-
-                WeatherForecastLayout layout = new WeatherForecastLayout(context);
-                layout.setTimeFormat(timeFormat);
-                layout.setTemperature(true, settings.temperatureUnit);
-                layout.setWindSpeed(true, settings.speedUnit);
-                layout.update(entry);
-                scrollViewLayout.addView(layout);
-            }
-
-            // avoid flickering of the UI
-            scrollView.animate().setDuration(fadeDuration).alpha(1);
+        adapter.setFormat(settings.getFullTimeFormat(), settings.temperatureUnit, settings.speedUnit);
+        List<WeatherForecastAdapter.Item> items =
+                WeatherForecastAdapter.buildItems(entries, System.currentTimeMillis());
+        if (adapter.getItemCount() == 0) {
+            // avoid flickering during build, updates are animated by the list
+            recyclerView.setAlpha(0);
+            recyclerView.animate().setDuration(fadeDuration).alpha(1);
             fadeDuration = 1000;
         }
+        adapter.submitList(items, () -> {
+            if (recyclerView != null && !items.isEmpty()
+                    && getActivity() instanceof WeatherForecastActivity) {
+                WeatherForecastActivity activity = (WeatherForecastActivity) getActivity();
+                recyclerView.post(activity::onForecastDrawn);
+            }
+        });
     }
-
 }
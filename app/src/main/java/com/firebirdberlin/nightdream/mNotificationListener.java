@@ -39,10 +39,14 @@ import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Parcelable;
+import android.os.SystemClock;
 import android.service.notification.NotificationListenerService;
 import android.service.notification.StatusBarNotification;
 import android.util.Log;
+import android.util.LruCache;
 
 import androidx.annotation.RequiresApi;
 import androidx.core.app.NotificationCompat;
@@ -54,19 +58,41 @@ import com.firebirdberlin.nightdream.NotificationList.NotificationApp;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 public class mNotificationListener extends NotificationListenerService {
 
     public static boolean running = false;
     private static final String STAG = "mNotificationListener";
     private final String TAG = this.getClass().getSimpleName();
-    private final List<com.firebirdberlin.nightdream.NotificationList.Notification> notifications = new ArrayList<>();
-    private final List<NotificationApp> notificationApps = new ArrayList<>();
+    // min. time between two broadcasts of the notification model
+    private static final long PUBLISH_INTERVAL_MILLIS = 500;
+    // icon bitmaps by package and icon resource, shared by all notifications of an app
+    private static final LruCache<String, Bitmap> iconCache = new LruCache<>(64);
+    // the notifications shown in the app, keyed by StatusBarNotification.getKey()
+    private final LinkedHashMap<String, ModelEntry> model = new LinkedHashMap<>();
+    private final HashSet<String> changedKeys = new HashSet<>();
+    private final HashSet<String> removedKeys = new HashSet<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private boolean modelValid = false;
+    private int modelImportance = -1;
+    private boolean publishPending = false;
+    private long lastPublishTime = 0L;
     int minNotificationImportance = 2;
     private NLServiceReceiver nlServiceReceiver;
 
+    private final Runnable publishRunnable = new Runnable() {
+        @Override
+        public void run() {
+            publishPending = false;
+            publishChanges();
+        }
+    };
+
     public static void requestNotificationList(Context context) {
         Log.d("mNotificationListener", "requestNotificationList()");
         Intent i = new Intent(Config.ACTION_NOTIFICATION_LISTENER);
@@ -118,10 +144,17 @@ public class mNotificationListener extends NotificationListenerService {
         running = true;
     }
 
+    @Override
+    public void onListenerConnected() {
+        super.onListenerConnected();
+        modelValid = false;
+    }
+
     @Override
     public void onDestroy() {
         super.onDestroy();
         running = false;
+        handler.removeCallbacks(publishRunnable);
         Log.i(TAG, "**********  Notification listener STOPPED");
         LocalBroadcastManager.getInstance(this).unregisterReceiver(nlServiceReceiver);
     }
@@ -132,30 +165,55 @@ public class mNotificationListener extends NotificationListenerService {
 
         Log.i(TAG, "++++ notification posted ++++");
         logNotification(sbn);
-        if (shallIgnoreNotification(sbn)) return;
+        if (shallIgnoreNotification(sbn)) {
+            // an update may turn a shown notification into an ignored one
+            if (sbn != null && model.remove(sbn.getKey()) != null) {
+                markRemoved(sbn.getKey());
+            }
+            return;
+        }
 
         Intent i = getIntentForBroadCast(sbn);
         if (i != null) {
-            i.setAction(Config.ACTION_NOTIFICATION_LISTENER);
-            i.putExtra("action", "added_preview");
-            LocalBroadcastManager.getInstance(this).sendBroadcast(i);
+            Intent preview = new Intent(i);
+            preview.setAction(Config.ACTION_NOTIFICATION_LISTENER);
+            preview.putExtra("action", "added_preview");
+            LocalBroadcastManager.getInstance(this).sendBroadcast(preview);
+
+            if (isMediaStyle(sbn)) {
+                Intent media = new Intent(i);
+                media.setAction(Config.ACTION_NOTIFICATION_LISTENER);
+                media.putExtra("action", "added_media");
+                LocalBroadcastManager.getInstance(this).sendBroadcast(media);
+            } else if (!modelValid || modelImportance != minNotificationImportance) {
+                // publishes the complete list including this notification
+                listNotifications();
+            } else {
+                model.put(sbn.getKey(), new ModelEntry(getApplicationContext(), i));
+                changedKeys.add(sbn.getKey());
+                removedKeys.remove(sbn.getKey());
+                schedulePublish();
+            }
         }
 
-        listNotifications();
-
         if (!Utility.isScreenOn(this)) {
             conditionallyStartActivity();
         }
     }
 
-    private boolean shallIgnoreNotification(StatusBarNotification sbn) {
+    private static boolean isMediaStyle(StatusBarNotification sbn) {
+        Notification notification = sbn.getNotification();
+        if (notification == null) return false;
+        CharSequence template = notification.extras.getCharSequence("android.template");
+        return template != null && template.toString().contains("MediaStyle");
+    }
 
+    private boolean shallIgnoreNotification(StatusBarNotification sbn) {
+        if (sbn == null) return true;
         Notification notification = sbn.getNotification();
         if (notification == null) return true;
 
-        Bundle extras = notification.extras;
-        String template = (String) extras.getCharSequence("android.template");
-        if (template != null && template.contains("MediaStyle")) {
+        if (isMediaStyle(sbn)) {
             Log.w(TAG, "MediaStyle notification found");
             return false;
         }
@@ -210,22 +268,38 @@ public class mNotificationListener extends NotificationListenerService {
     public void onNotificationRemoved(StatusBarNotification sbn) {
         Log.i(TAG, "++++ notification removed ++++");
         logNotification(sbn);
+        if (sbn == null) return;
 
-        listNotifications();
+        if (model.remove(sbn.getKey()) != null) {
+            markRemoved(sbn.getKey());
+        }
 
-        Intent i = getIntentForBroadCast(sbn);
-        if (i != null) {
-            String template = (String) i.getSerializableExtra("template");
-            if (template != null) {
-                if (template.contains("MediaStyle")) {
-                    i.setAction(Config.ACTION_NOTIFICATION_LISTENER);
-                    i.putExtra("action", "removed_media");
-                    LocalBroadcastManager.getInstance(this).sendBroadcast(i);
-                }
-            }
+        if (isMediaStyle(sbn)) {
+            Intent i = new Intent(Config.ACTION_NOTIFICATION_LISTENER);
+            i.putExtra("action", "removed_media");
+            i.putExtra("packageName", sbn.getPackageName());
+            i.putExtra("key", sbn.getKey());
+            i.putExtra("template", "MediaStyle");
+            LocalBroadcastManager.getInstance(this).sendBroadcast(i);
         }
     }
 
+    private void markRemoved(String key) {
+        changedKeys.remove(key);
+        removedKeys.add(key);
+        schedulePublish();
+    }
+
+    /**
+     * Bursts of notification events are published at most once per PUBLISH_INTERVAL_MILLIS.
+     */
+    private void schedulePublish() {
+        if (publishPending) return;
+        publishPending = true;
+        long delay = lastPublishTime + PUBLISH_INTERVAL_MILLIS - SystemClock.elapsedRealtime();
+        handler.postDelayed(publishRunnable, Math.max(0L, delay));
+    }
+
     private void deleteNotification(ArrayList<String> delete) {
         Log.d(TAG, "deleteNotification");
 
@@ -247,12 +321,18 @@ public class mNotificationListener extends NotificationListenerService {
         }
     }
 
-    private void listNotifications() {
+    /**
+     * Rebuilds the model from the active notifications. This is only needed when the listener
+     * (re)connects or the importance setting changed, afterwards the model is updated
+     * incrementally by onNotificationPosted() and onNotificationRemoved().
+     */
+    private void rebuildModel() {
         minNotificationImportance = Settings.getMinNotificationImportance(this);
-        notifications.clear();
-        notificationApps.clear();
+        modelImportance = minNotificationImportance;
+        model.clear();
+        changedKeys.clear();
+        removedKeys.clear();
 
-        clearNotificationUI();
         StatusBarNotification[] notificationList = null;
         try {
             notificationList = mNotificationListener.this.getActiveNotifications();
@@ -261,6 +341,7 @@ public class mNotificationListener extends NotificationListenerService {
         }
 
         if (notificationList == null) return;
+        modelValid = true;
 
         for (StatusBarNotification sbn : notificationList) {
             Notification notification = sbn.getNotification();
@@ -276,44 +357,85 @@ public class mNotificationListener extends NotificationListenerService {
             if (i == null) {
                 continue;
             }
-            String template = (String) i.getSerializableExtra("template");
-            if (template == null) {
-                continue;
-            }
-            if (template.contains("MediaStyle")) {
+            if (isMediaStyle(sbn)) {
                 i.setAction(Config.ACTION_NOTIFICATION_LISTENER);
                 i.putExtra("action", "added_media");
                 LocalBroadcastManager.getInstance(this).sendBroadcast(i);
                 continue;
             }
-            notifications.add(
-                    new com.firebirdberlin.nightdream.NotificationList.Notification(
-                            getApplicationContext(), i
-                    )
-            );
-
-            String applicationName = i.getStringExtra("applicationName");
-            boolean addApp = true;
-            for (NotificationApp app : notificationApps) {
-                addApp = addApp && !app.getName().equals(applicationName);
-                if (app.getName().equals(applicationName)) {
-                    if (app.getPostTimestamp() < sbn.getPostTime()) {
-                        app.setPostTimestamp(sbn.getPostTime());
-                    }
-                }
-            }
-            if (addApp) {
-                notificationApps.add(new NotificationApp(i));
-            }
+            model.put(sbn.getKey(), new ModelEntry(getApplicationContext(), i));
+        }
+    }
 
+    /**
+     * Sends the complete model, e.g. when a view requests the list.
+     */
+    private void listNotifications() {
+        if (!modelValid || modelImportance != Settings.getMinNotificationImportance(this)) {
+            rebuildModel();
         }
+        handler.removeCallbacks(publishRunnable);
+        publishPending = false;
+        changedKeys.clear();
+        removedKeys.clear();
+        lastPublishTime = SystemClock.elapsedRealtime();
+
+        Intent intentList = new Intent("Notification.Action.notificationList");
+        intentList.putParcelableArrayListExtra("notifications", getNotifications(model.keySet()));
+        LocalBroadcastManager.getInstance(this).sendBroadcast(intentList);
+
+        publishNotificationApps();
+    }
+
+    /**
+     * Sends the notifications which were added, updated or removed since the last broadcast.
+     */
+    private void publishChanges() {
+        if (changedKeys.isEmpty() && removedKeys.isEmpty()) return;
+        lastPublishTime = SystemClock.elapsedRealtime();
+
         Intent intentList = new Intent("Notification.Action.notificationList");
-        intentList.putParcelableArrayListExtra("notifications", (ArrayList<? extends Parcelable>) notifications);
+        intentList.putParcelableArrayListExtra("changedNotifications", getNotifications(changedKeys));
+        intentList.putStringArrayListExtra("removedNotificationKeys", new ArrayList<>(removedKeys));
         LocalBroadcastManager.getInstance(this).sendBroadcast(intentList);
+        changedKeys.clear();
+        removedKeys.clear();
+
+        publishNotificationApps();
+    }
+
+    private ArrayList<com.firebirdberlin.nightdream.NotificationList.Notification> getNotifications(
+            Iterable<String> keys
+    ) {
+        ArrayList<com.firebirdberlin.nightdream.NotificationList.Notification> result = new ArrayList<>();
+        for (String key : keys) {
+            ModelEntry entry = model.get(key);
+            if (entry != null) {
+                result.add(entry.notification);
+            }
+        }
+        return result;
+    }
+
+    private void publishNotificationApps() {
+        // one entry per app with the time of its latest notification
+        Map<String, NotificationApp> apps = new LinkedHashMap<>();
+        for (ModelEntry entry : model.values()) {
+            String applicationName = entry.intent.getStringExtra("applicationName");
+            long postTimestamp = entry.intent.getLongExtra("postTimestamp", 0L);
+            NotificationApp app = apps.get(applicationName);
+            if (app == null) {
+                apps.put(applicationName, new NotificationApp(entry.intent));
+            } else if (app.getPostTimestamp() < postTimestamp) {
+                app.setPostTimestamp(postTimestamp);
+            }
+        }
 
         Intent intentAppsList = new Intent(Config.ACTION_NOTIFICATION_APPS_LISTENER);
         intentAppsList.putExtra("action", "scan");
-        intentAppsList.putParcelableArrayListExtra("notificationApps", (ArrayList<? extends Parcelable>) notificationApps);
+        intentAppsList.putParcelableArrayListExtra(
+                "notificationApps", new ArrayList<Parcelable>(apps.values())
+        );
         LocalBroadcastManager.getInstance(this).sendBroadcast(intentAppsList);
     }
 
@@ -456,12 +578,31 @@ public class mNotificationListener extends NotificationListenerService {
         return intent;
     }
 
+    /**
+     * Converts the icon to a bitmap. Resource icons are cached by package and resource id, since
+     * every notification of an app usually uses the same ones.
+     */
+    private static Bitmap getIconBitmap(Context context, String packageName, Icon icon) {
+        if (icon == null) return null;
+        String key = null;
+        if (icon.getType() == Icon.TYPE_RESOURCE) {
+            key = packageName + ":" + icon.getResPackage() + ":" + icon.getResId();
+            Bitmap bitmap = iconCache.get(key);
+            if (bitmap != null) {
+                return bitmap;
+            }
+        }
+        Bitmap bitmap = drawableToBitMap(icon.loadDrawable(context));
+        if (key != null && bitmap != null) {
+            iconCache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
     private Bitmap getSmallIconBitmap(Context context, StatusBarNotification sbn) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
             Notification notification = sbn.getNotification();
-            Icon icon = notification.getSmallIcon();
-            if (icon == null) return null;
-            return drawableToBitMap(icon.loadDrawable(context));
+            return getIconBitmap(context, sbn.getPackageName(), notification.getSmallIcon());
         } else {
             // Deprecated EXTRA_SMALL_ICON usage
             return drawableToBitMap(
@@ -540,12 +681,6 @@ public class mNotificationListener extends NotificationListenerService {
         //Log.d(TAG, notification.toString());
     }
 
-    private void clearNotificationUI() {
-        Intent i = new Intent(Config.ACTION_NOTIFICATION_LISTENER);
-        i.putExtra("action", "clear");
-        LocalBroadcastManager.getInstance(this).sendBroadcast(i);
-    }
-
     private String getApplicationLabel(String packageName) {
         final PackageManager pm = getApplicationContext().getPackageManager();
         ApplicationInfo ai;
@@ -565,7 +700,7 @@ public class mNotificationListener extends NotificationListenerService {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
             Icon largeIcon = notification.getLargeIcon();
             if (largeIcon != null) {
-                return drawableToBitMap(largeIcon.loadDrawable(context));
+                return getIconBitmap(context, sbn.getPackageName(), largeIcon);
             }
         } else {
             Bundle extras = notification.extras;
@@ -580,6 +715,18 @@ public class mNotificationListener extends NotificationListenerService {
         return null;
     }
 
+    private static class ModelEntry {
+        final com.firebirdberlin.nightdream.NotificationList.Notification notification;
+        final Intent intent;
+
+        ModelEntry(Context context, Intent intent) {
+            this.intent = intent;
+            this.notification = new com.firebirdberlin.nightdream.NotificationList.Notification(
+                    context, intent
+            );
+        }
+    }
+
     class NLServiceReceiver extends BroadcastReceiver {
 
         @Override
@@ -19,41 +19,204 @@
 package com.firebirdberlin.nightdream.models;
 
 import android.content.Context;
+import android.content.res.AssetFileDescriptor;
 import android.graphics.Typeface;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
+import android.util.LruCache;
 
-import java.util.Hashtable;
+import com.firebirdberlin.nightdream.util.TaskScheduler;
 
-public class FontCache {
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
-    private static Hashtable<String, Typeface> fontCache = new Hashtable<>();
+/**
+ * Process wide cache for typefaces loaded from the assets or from font files.
+ * <p>
+ * The cache is bounded by the size of the font files. Fonts which fail to load are remembered
+ * until the file changes, so that a broken file is not parsed again on every request. Fonts
+ * which are about to be shown can be loaded in the background with preload().
+ */
+public class FontCache {
 
     private static final String TAG = "FontCache";
+    private static final String ASSET_PATH = "file:///android_asset/";
+    private static final int MAX_BYTES = 4 * 1024 * 1024;
+    // weight of fonts whose size is unknown, e.g. compressed assets
+    private static final int DEFAULT_WEIGHT = 128 * 1024;
+    private static final int MAX_FAILURES = 64;
+
+    private static final LruCache<String, Entry> fontCache = new LruCache<String, Entry>(MAX_BYTES) {
+        @Override
+        protected int sizeOf(String key, Entry entry) {
+            return entry.weight;
+        }
+    };
+    // the signature of the file when loading failed
+    private static final LruCache<String, Long> failures = new LruCache<>(MAX_FAILURES);
+    private static final Map<String, List<OnFontLoadedListener>> pending = new HashMap<>();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public interface OnFontLoadedListener {
+        /**
+         * Called on the main thread. The typeface is null if the font could not be loaded.
+         */
+        void onFontLoaded(String name, Typeface typeface);
+    }
+
+    private static class Entry {
+        final Typeface typeface;
+        final int weight;
+
+        Entry(Typeface typeface, int weight) {
+            this.typeface = typeface;
+            this.weight = weight;
+        }
+    }
 
+    /**
+     * Returns the typeface and loads it on the calling thread if it is not cached.
+     */
     public static Typeface get(Context context, String name) {
-        final String cacheKey = name.replace("file:///android_asset/", "");
-        Typeface tf = fontCache.get(cacheKey);
-        if (tf == null) {
-            //Log.d(TAG, "cache miss: cacheKey=" +  cacheKey);
-            final String ASSET_PATH = "file:///android_asset/";
+        if (name == null) return null;
+        final String cacheKey = cacheKey(name);
+        Entry entry = fontCache.get(cacheKey);
+        if (entry != null) {
+            return entry.typeface;
+        }
+        return load(context, cacheKey);
+    }
+
+    /**
+     * @return the typeface or null if it is not loaded yet
+     */
+    public static Typeface getIfCached(String name) {
+        if (name == null) return null;
+        Entry entry = fontCache.get(cacheKey(name));
+        return (entry != null) ? entry.typeface : null;
+    }
 
-            if (name.contains(ASSET_PATH)) {
-                name = name.replace(ASSET_PATH, "");
+    /**
+     * Loads the typeface on a background thread. The listener is called immediately if the font
+     * is cached or known to be broken.
+     *
+     * @param listener may be null
+     */
+    public static void preload(Context context, final String name, final OnFontLoadedListener listener) {
+        if (name == null) return;
+        final String cacheKey = cacheKey(name);
+        Entry entry = fontCache.get(cacheKey);
+        if (entry != null || isKnownFailure(cacheKey)) {
+            if (listener != null) {
+                listener.onFontLoaded(name, (entry != null) ? entry.typeface : null);
             }
+            return;
+        }
 
-            try {
-                if (name.startsWith("file://")) {
-                    tf = Typeface.createFromFile(name.replace("file://", ""));
-                } else {
-                    tf = Typeface.createFromAsset(context.getAssets(), name);
-                }
-            } catch (RuntimeException e) {
-                e.printStackTrace();
-                return null;
+        synchronized (pending) {
+            List<OnFontLoadedListener> listeners = pending.get(cacheKey);
+            if (listeners != null) {
+                if (listener != null) listeners.add(listener);
+                return;
             }
-            Log.d(TAG, "cache put: cacheKey=" + cacheKey + " value=" + (tf != null ? tf.toString() : "null"));
-            fontCache.put(cacheKey, tf);
+            listeners = new ArrayList<>();
+            if (listener != null) listeners.add(listener);
+            pending.put(cacheKey, listeners);
+        }
+
+        final Context appContext = context.getApplicationContext();
+        try {
+            TaskScheduler.getInstance().submit(TaskScheduler.Lane.IO, () -> {
+                Typeface typeface = get(appContext, name);
+                notifyListeners(cacheKey, name, typeface);
+            });
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Task rejected: the IO queue is full.");
+            synchronized (pending) {
+                pending.remove(cacheKey);
+            }
+        }
+    }
+
+    private static void notifyListeners(String cacheKey, final String name, final Typeface typeface) {
+        final List<OnFontLoadedListener> listeners;
+        synchronized (pending) {
+            listeners = pending.remove(cacheKey);
         }
+        if (listeners == null || listeners.isEmpty()) {
+            return;
+        }
+        mainHandler.post(() -> {
+            for (OnFontLoadedListener listener : listeners) {
+                listener.onFontLoaded(name, typeface);
+            }
+        });
+    }
+
+    private static Typeface load(Context context, String cacheKey) {
+        long signature = signature(cacheKey);
+        Long failed = failures.get(cacheKey);
+        if (failed != null && failed == signature) {
+            return null;
+        }
+
+        Typeface tf = null;
+        try {
+            if (cacheKey.startsWith("file://")) {
+                tf = Typeface.createFromFile(cacheKey.replace("file://", ""));
+            } else {
+                tf = Typeface.createFromAsset(context.getAssets(), cacheKey);
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "could not load " + cacheKey, e);
+        }
+        if (tf == null) {
+            failures.put(cacheKey, signature);
+            return null;
+        }
+
+        int weight = weight(context, cacheKey);
+        Log.d(TAG, "cache put: cacheKey=" + cacheKey + " (" + weight + " bytes)");
+        fontCache.put(cacheKey, new Entry(tf, weight));
+        failures.remove(cacheKey);
         return tf;
     }
-}
\ No newline at end of file
+
+    private static boolean isKnownFailure(String cacheKey) {
+        Long failed = failures.get(cacheKey);
+        return failed != null && failed == signature(cacheKey);
+    }
+
+    private static String cacheKey(String name) {
+        return name.replace(ASSET_PATH, "");
+    }
+
+    // assets do not change, files may be replaced by the user
+    private static long signature(String cacheKey) {
+        if (!cacheKey.startsWith("file://")) {
+            return 0L;
+        }
+        File file = new File(cacheKey.replace("file://", ""));
+        return file.lastModified() * 31 + file.length();
+    }
+
+    private static int weight(Context context, String cacheKey) {
+        long length = 0;
+        if (cacheKey.startsWith("file://")) {
+            length = new File(cacheKey.replace("file://", "")).length();
+        } else {
+            try (AssetFileDescriptor fd = context.getAssets().openFd(cacheKey)) {
+                length = fd.getLength();
+            } catch (IOException e) {
+                // compressed assets cannot be opened as file descriptor
+            }
+        }
+        return (length > 0) ? (int) Math.min(length, MAX_BYTES) : DEFAULT_WEIGHT;
+    }
+}
@@ -18,17 +18,29 @@
 
 package com.firebirdberlin.nightdream.models;
 
+import java.util.Objects;
+
 public class RssFeedItem {
+    private final String guid;
     private final String title;
     private final String link;
     private final String pubDate;
 
     public RssFeedItem(String title, String link, String pubDate) {
+        this(null, title, link, pubDate);
+    }
+
+    public RssFeedItem(String guid, String title, String link, String pubDate) {
+        this.guid = guid;
         this.title = title;
         this.link = link;
         this.pubDate = pubDate;
     }
 
+    public String getGuid() {
+        return guid;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -40,4 +52,30 @@ public class RssFeedItem {
     public String getPubDate() {
         return pubDate;
     }
+
+    /**
+     * Identifies the item across feeds. Items without a guid are identified by their link or
+     * title.
+     */
+    public String getKey() {
+        if (guid != null && !guid.isEmpty()) return guid;
+        if (link != null && !link.isEmpty()) return link;
+        return title;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RssFeedItem that = (RssFeedItem) o;
+        return Objects.equals(guid, that.guid)
+                && Objects.equals(title, that.title)
+                && Objects.equals(link, that.link)
+                && Objects.equals(pubDate, that.pubDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(guid, title, link, pubDate);
+    }
 }
@@ -25,12 +25,10 @@ import android.os.Bundle;
 import com.firebirdberlin.nightdream.R;
 
 import java.text.DateFormatSymbols;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
-import java.util.Collections;
 import java.util.List;
-import java.util.TreeMap;
+import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
 public class SimpleTime {
@@ -46,6 +44,8 @@ public class SimpleTime {
             Calendar.THURSDAY, Calendar.FRIDAY, Calendar.SATURDAY
     );
 
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
     public long id = -1L;
     public int hour = 0;
     public int min = 0;
@@ -115,18 +115,20 @@ public class SimpleTime {
     }
 
     static SimpleTime getNextFromList(List<SimpleTime> entries, Calendar reference) {
-        TreeMap<Calendar, SimpleTime> map = new TreeMap<>();
+        final long referenceMillis = reference.getTimeInMillis();
+        final TimeZone timeZone = reference.getTimeZone();
+        SimpleTime next = null;
+        long nextMillis = Long.MAX_VALUE;
         for (SimpleTime t : entries) {
-            Calendar time = t.getNextAlarmTime(reference);
-            if (t.isActive && time != null) {
-                map.put(time, t);
+            if (!t.isActive) continue;
+            long time = t.getNextAlarmMillis(referenceMillis, timeZone);
+            // on equal times the later entry wins
+            if (time <= nextMillis) {
+                nextMillis = time;
+                next = t;
             }
         }
-
-        if (map.size() > 0) {
-            return map.firstEntry().getValue();
-        }
-        return null;
+        return next;
     }
 
     public int toMinutes() {
@@ -161,21 +163,94 @@ public class SimpleTime {
     }
 
     public Calendar getCalendar(Calendar reference) {
+        Calendar cal = Calendar.getInstance(reference.getTimeZone());
+        cal.setTimeInMillis(getNextAlarmMillis(reference.getTimeInMillis(), reference.getTimeZone()));
+        return cal;
+    }
+
+    /**
+     * Returns the time of the next alarm at or after the reference time. The computation works
+     * on day numbers and the weekday bit mask, no Calendar objects are created.
+     * <p>
+     * If nextEventAfter is set, a one time alarm is not raised before that day and a recurring
+     * alarm is raised only after that time.
+     */
+    public long getNextAlarmMillis(long reference, TimeZone timeZone) {
         if (!isRecurring()) {
-            Calendar cal = initCalendar(reference);
+            long day = localDay(reference, timeZone);
+            long result = atLocalDay(day, timeZone, reference);
             if (nextEventAfter != null) {
-                Calendar next = initCalendar(nextEventAfter);
-                if (next.after(cal)) {
-                    cal = next;
+                long nextDay = localDay(nextEventAfter, timeZone);
+                long next = atLocalDay(nextDay, timeZone);
+                if (next > result) {
+                    result = next;
+                    day = nextDay;
                 }
             }
-            if (cal.before(reference)) {
-                cal.add(Calendar.DATE, 1);
+            if (result < reference) {
+                result = atLocalDay(day + 1, timeZone);
             }
-            return cal;
-        } else {
-            return getNextRecurringAlarmTime(reference);
+            return result;
         }
+
+        // Usually the reference refers to 'now'. Events shall not be raised in the past.
+        final boolean strict = nextEventAfter != null && nextEventAfter >= reference;
+        final long start = strict ? nextEventAfter : reference;
+        final long firstDay = localDay(start, timeZone);
+        // a whole week plus today, in case today's alarm time has passed
+        for (long day = firstDay; day <= firstDay + 7; day++) {
+            if (!hasDay(dayOfWeek(day))) continue;
+            long time = atLocalDay(day, timeZone, strict ? start + 1 : start);
+            if (strict ? time > start : time >= start) {
+                return time;
+            }
+        }
+        return atLocalDay(firstDay + 7, timeZone);
+    }
+
+    /**
+     * @return the number of local days since 1970-01-01
+     */
+    private static long localDay(long millis, TimeZone timeZone) {
+        return Math.floorDiv(millis + timeZone.getOffset(millis), DAY_MILLIS);
+    }
+
+    /**
+     * @return the day of week of a local day number, Calendar.SUNDAY ... Calendar.SATURDAY
+     */
+    private static int dayOfWeek(long localDay) {
+        // 1970-01-01 was a thursday
+        return (int) Math.floorMod(localDay + 4, 7L) + 1;
+    }
+
+    private long atLocalDay(long localDay, TimeZone timeZone) {
+        return atLocalDay(localDay, timeZone, Long.MIN_VALUE);
+    }
+
+    /**
+     * @param notBefore if the local time exists twice, the first occurrence at or after this time
+     *                  is preferred
+     * @return the UTC time of the alarm time on the given local day
+     */
+    private long atLocalDay(long localDay, TimeZone timeZone, long notBefore) {
+        long local = localDay * DAY_MILLIS + TimeUnit.MINUTES.toMillis(toMinutes());
+        // the offsets in effect some hours before and after, they differ around DST changes
+        long approx = local - timeZone.getRawOffset();
+        int offsetBefore = timeZone.getOffset(approx - TimeUnit.HOURS.toMillis(6));
+        int offsetAfter = timeZone.getOffset(approx + TimeUnit.HOURS.toMillis(6));
+        long before = local - offsetBefore;
+        long after = local - offsetAfter;
+        boolean beforeValid = timeZone.getOffset(before) == offsetBefore;
+        boolean afterValid = timeZone.getOffset(after) == offsetAfter;
+        if (beforeValid && afterValid) {
+            // the local time exists twice
+            long first = Math.min(before, after);
+            return (first >= notBefore) ? first : Math.max(before, after);
+        } else if (afterValid) {
+            return after;
+        }
+        // if the local time falls into a gap it is moved forward
+        return before;
     }
 
     public Bundle toBundle() {
@@ -224,48 +299,6 @@ public class SimpleTime {
         return recurringDays != 0;
     }
 
-    private Calendar getNextRecurringAlarmTime(Calendar reference) {
-        List<Long> times = new ArrayList<>();
-        Calendar firstEventTime = null;
-        if (nextEventAfter != null) {
-            firstEventTime = Calendar.getInstance();
-            firstEventTime.setTimeInMillis(nextEventAfter);
-        }
-        for (Integer day : SimpleTime.DAYS) {
-            if (hasDay(day)) {
-                Calendar cal = null;
-                if (firstEventTime != null) {
-                    cal = initCalendar(firstEventTime);
-                    cal.set(Calendar.DAY_OF_WEEK, day);
-                    if (!cal.after(firstEventTime)) {
-                        cal.add(Calendar.DATE, 7);
-                    }
-
-                    if (!cal.after(reference)) {
-                        cal = null;
-                    }
-                }
-
-                if (cal == null) {
-                    cal = initCalendar(reference);
-                    cal.set(Calendar.DAY_OF_WEEK, day);
-                    // Usually the reference date refers to 'now'. Events shall not be raised in
-                    // the past
-                    if (cal.before(reference)) {
-                        cal.add(Calendar.DATE, 7);
-                    }
-                }
-                times.add(cal.getTimeInMillis());
-            }
-        }
-
-        Collections.sort(times);
-
-        Calendar result = Calendar.getInstance();
-        result.setTimeInMillis(times.get(0));
-        return result;
-    }
-
     public boolean hasDay(int day) {
         // map the day to the corresponding bit flag
         int flag = 1 << (day - 1);
@@ -0,0 +1,181 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.models;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ComposeShader;
+import android.graphics.LightingColorFilter;
+import android.graphics.LinearGradient;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.Shader;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.util.Locale;
+
+/**
+ * Process wide cache for decoded texture resources (e.g. the gold, copper and rust finishes of
+ * the analog clock) and the shaders built from them.
+ * <p>
+ * Entries are keyed by resource id, target size and tint. The returned bitmaps are immutable and
+ * shared, callers must neither modify nor recycle them.
+ */
+public class TextureCache {
+
+    private static final String TAG = "TextureCache";
+
+    private static final int MAX_SHADERS = 16;
+
+    private static final LruCache<String, Bitmap> textures =
+            new LruCache<String, Bitmap>(getMaxTextureBytes()) {
+                @Override
+                protected int sizeOf(String key, Bitmap bitmap) {
+                    return bitmap.getAllocationByteCount();
+                }
+            };
+
+    private static final LruCache<String, Shader> shaders = new LruCache<>(MAX_SHADERS);
+
+    private static int getMaxTextureBytes() {
+        long maxMemory = Runtime.getRuntime().maxMemory();
+        return (int) Math.min(maxMemory / 16, 16 * 1024 * 1024);
+    }
+
+    /**
+     * Returns the decoded texture. If the texture is larger than targetSize x targetSize only the
+     * top left region is kept. This is all that is visible of a repeating shader which starts in
+     * the top left corner of a view of that size.
+     *
+     * @param targetSize max. width and height of the texture in pixels, 0 for no limit
+     * @param tint       color which is multiplied with the texture, Color.WHITE for none
+     */
+    public static Bitmap getTexture(Context context, int resId, int targetSize, int tint) {
+        final String key = textureKey(resId, targetSize, tint);
+        Bitmap bitmap = textures.get(key);
+        if (bitmap != null) {
+            return bitmap;
+        }
+
+        bitmap = BitmapFactory.decodeResource(context.getResources(), resId);
+        if (bitmap == null) {
+            return null;
+        }
+
+        if (targetSize > 0 && (bitmap.getWidth() > targetSize || bitmap.getHeight() > targetSize)) {
+            int width = Math.min(bitmap.getWidth(), targetSize);
+            int height = Math.min(bitmap.getHeight(), targetSize);
+            Bitmap cropped = Bitmap.createBitmap(bitmap, 0, 0, width, height);
+            if (cropped != bitmap) {
+                bitmap.recycle();
+            }
+            bitmap = cropped;
+        }
+
+        if (tint != Color.WHITE) {
+            Bitmap tinted = Bitmap.createBitmap(
+                    bitmap.getWidth(), bitmap.getHeight(), Bitmap.Config.ARGB_8888
+            );
+            Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+            paint.setColorFilter(new LightingColorFilter(tint, 0));
+            new Canvas(tinted).drawBitmap(bitmap, 0, 0, paint);
+            bitmap.recycle();
+            bitmap = tinted.copy(Bitmap.Config.ARGB_8888, false);
+            tinted.recycle();
+        } else if (bitmap.isMutable()) {
+            Bitmap immutable = bitmap.copy(bitmap.getConfig(), false);
+            bitmap.recycle();
+            bitmap = immutable;
+        }
+
+        Log.d(TAG, "cache put: " + key + " (" + bitmap.getAllocationByteCount() + " bytes)");
+        textures.put(key, bitmap);
+        return bitmap;
+    }
+
+    /**
+     * Returns a repeating shader of the texture.
+     */
+    public static Shader getTextureShader(Context context, int resId, int targetSize, int tint) {
+        final String key = "texture:" + textureKey(resId, targetSize, tint);
+        Shader shader = shaders.get(key);
+        if (shader != null) {
+            return shader;
+        }
+        Bitmap bitmap = getTexture(context, resId, targetSize, tint);
+        if (bitmap == null) {
+            return null;
+        }
+        shader = new BitmapShader(bitmap, Shader.TileMode.REPEAT, Shader.TileMode.REPEAT);
+        shaders.put(key, shader);
+        return shader;
+    }
+
+    /**
+     * Returns the texture shader composed with a diagonal light/dark gradient which lets the
+     * texture look like polished metal. The gradient spans the rectangle (x1, y1) - (x2, y2).
+     */
+    public static Shader getMetallicShader(Context context, int resId, int targetSize, int tint,
+                                           int x1, int y1, int x2, int y2) {
+        final String key = String.format(
+                Locale.US, "metallic:%s:%d:%d:%d:%d",
+                textureKey(resId, targetSize, tint), x1, y1, x2, y2
+        );
+        Shader shader = shaders.get(key);
+        if (shader != null) {
+            return shader;
+        }
+        Shader texture = getTextureShader(context, resId, targetSize, tint);
+        if (texture == null) {
+            return null;
+        }
+        int light = Color.parseColor("#FFFFFF");
+        int dark = Color.parseColor("#BBBBBB");
+        int[] colors = {light, dark, light, dark, light};
+        float[] positions = {0.15f, 0.25f, 0.55f, 0.65f, 0.9f};
+        Shader gradient = new LinearGradient(x1, y1, x2, y2, colors, positions, Shader.TileMode.MIRROR);
+        shader = new ComposeShader(texture, gradient, PorterDuff.Mode.MULTIPLY);
+        shaders.put(key, shader);
+        return shader;
+    }
+
+    /**
+     * Releases cached entries depending on the memory pressure signalled by the system. Shared
+     * bitmaps are only dropped from the cache, not recycled, since views may still draw them.
+     */
+    public static void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            Log.d(TAG, "evicting all textures, level=" + level);
+            shaders.evictAll();
+            textures.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            textures.trimToSize(textures.maxSize() / 2);
+        }
+    }
+
+    private static String textureKey(int resId, int targetSize, int tint) {
+        return resId + ":" + targetSize + ":" + Integer.toHexString(tint);
+    }
+}
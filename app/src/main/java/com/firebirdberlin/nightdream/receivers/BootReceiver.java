@@ -41,7 +41,7 @@ public class BootReceiver extends BroadcastReceiver {
 
         SqliteIntentService.scheduleAlarm(context);
 
-        Settings settings = new Settings(context);
+        Settings settings = Settings.getSnapshot(context);
         ScreenWatcherService.conditionallyStart(context, settings);
     }
 }
@@ -103,7 +103,7 @@ public class PowerConnectionReceiver extends BroadcastReceiver {
                 context, PENDING_INTENT_START_APP, alarmIntent
         );
 
-        Settings settings = new Settings(context);
+        Settings settings = Settings.getSnapshot(context);
         if (settings.isScheduledAutoStartEnabled()) {
             // The autostart feature is replaced by a new version which has a separate setting
             // in the preferences. Thus, the old autostart is deactivated when the new one is
@@ -118,7 +118,7 @@ public class PowerConnectionReceiver extends BroadcastReceiver {
     }
 
     public static void conditionallyStartApp(final Context context, final String action) {
-        Settings settings = new Settings(context);
+        Settings settings = Settings.getSnapshot(context);
 
         if (settings.isScheduledAutoStartEnabled() && Intent.ACTION_BOOT_COMPLETED.equals(action)) {
             return;
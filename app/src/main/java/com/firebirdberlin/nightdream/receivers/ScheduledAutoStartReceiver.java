@@ -98,7 +98,7 @@ public class ScheduledAutoStartReceiver extends BroadcastReceiver {
                 context, PENDING_INTENT_START_APP, intent
         );
 
-        Settings settings = new Settings(context);
+        Settings settings = Settings.getSnapshot(context);
         SimpleTime startTime = new SimpleTime(settings.scheduledAutoStartTimeRangeStartInMinutes);
         Calendar start = startTime.getCalendar();
 
@@ -110,7 +110,7 @@ public class ScheduledAutoStartReceiver extends BroadcastReceiver {
     }
 
     public static void conditionallyStartApp(final Context context) {
-        Settings settings = new Settings(context);
+        Settings settings = Settings.getSnapshot(context);
         if (shallAutostart(context, settings)) {
             final SensorManager mSensorManager = (SensorManager)
                     context.getSystemService(Context.SENSOR_SERVICE);
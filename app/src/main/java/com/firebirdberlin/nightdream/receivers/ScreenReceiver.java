@@ -98,7 +98,7 @@ public class ScreenReceiver extends BroadcastReceiver {
     }
 
     private static void conditionallyActivateAlwaysOn(Context context, boolean turnScreenOn) {
-        Settings settings = new Settings(context);
+        Settings settings = Settings.getSnapshot(context);
         if (shallActivateStandby(context, settings)) {
             Log.i(TAG, "conditionallyActivateAlwaysOn(): Activating standby mode");
             NightDreamActivity.start(context, "start standby mode");
@@ -211,7 +211,7 @@ public class ScreenReceiver extends BroadcastReceiver {
     public void onReceive(Context context, Intent intent) {
         String action = intent.getAction();
         Log.d(TAG, "onReceive " + ((action != null) ? action : "null"));
-        Settings settings = new Settings(context);
+        Settings settings = Settings.getSnapshot(context);
         if (intent.getAction().equals(Intent.ACTION_SCREEN_OFF)) {
             isScreenUp = false;
             deviceIsCovered = false;
@@ -167,7 +167,7 @@ public class WakeUpReceiver extends BroadcastReceiver {
     }
 
     private void buildNotification(Context context) {
-        Settings settings = new Settings(context);
+        Settings settings = Settings.getSnapshot(context);
         String text = dateAsString(settings.getTimeFormat());
         String textActionSnooze = context.getString(R.string.action_snooze);
         String textActionStop = context.getString(R.string.action_stop);
@@ -107,7 +107,7 @@ public class DownloadWeatherService extends Worker {
     @Override
     public Result doWork() {
         Log.d(TAG, "doWork()");
-        Settings settings = new Settings(getApplicationContext());
+        Settings settings = Settings.getSnapshot(getApplicationContext());
 
         City city = settings.getCityForWeather();
         Settings.WeatherProvider weatherProvider = settings.getWeatherProvider();
@@ -148,7 +148,8 @@ public class DownloadWeatherService extends Worker {
         }
 
         if (entry != null && entry.isValid()) {
-            settings.setWeatherEntry(entry);
+            // the snapshot is shared and read-only
+            Settings.saveWeatherEntry(getApplicationContext(), entry);
             ScreenWatcherService.updateNotification(getApplicationContext(), entry, settings.temperatureUnit);
             Log.d(TAG, "Download finished.");
 
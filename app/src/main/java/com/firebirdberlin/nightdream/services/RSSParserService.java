@@ -27,24 +27,40 @@ import androidx.lifecycle.MutableLiveData;
 import androidx.work.Worker;
 import androidx.work.WorkerParameters;
 
+import com.firebirdberlin.HttpReader;
 import com.firebirdberlin.nightdream.R;
 import com.firebirdberlin.nightdream.Settings;
 import com.firebirdberlin.nightdream.models.RssFeedItem;
+import com.firebirdberlin.nightdream.util.TaskScheduler;
 
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 
+/**
+ * Fetches the configured RSS feeds in parallel.
+ * <p>
+ * Several feeds may be entered separated by white space or ';'. Each feed is revalidated with a
+ * conditional request. If the response did not change, the items parsed last time are reused.
+ * The items of all feeds are merged and deduplicated by their guid.
+ */
 public class RSSParserService extends Worker {
     private static final String TAG = "RSSParserService";
-    private String urlString = "https://www.tagesschau.de/xml/rss2/";
-//    private String urlString = "https://www.rbb24.de/index.xml/feed=rss.xml";
+    private static final String CACHE_DIR = "rss";
     public static MutableLiveData<List<RssFeedItem>> articleListLive = new MutableLiveData<>();
+    private static RssFeedStore store = null;
+    private static List<RssFeedItem> lastItems = null;
 
     public RSSParserService(@NonNull Context context, @NonNull WorkerParameters params) {
         super(context, params);
@@ -56,8 +72,8 @@ public class RSSParserService extends Worker {
         Log.d(TAG, "doWork()");
 
         Settings settings = new Settings(getApplicationContext());
-        String url = settings.rssURL;
-        if (url.isEmpty()) {
+        List<String> urls = splitUrls(settings.rssURL);
+        if (urls.isEmpty()) {
             List<RssFeedItem> rssItems = new ArrayList<>();
             RssFeedItem rssItem = new RssFeedItem(
                     getApplicationContext().getResources().getString(R.string.rss_url_error),
@@ -65,30 +81,112 @@ public class RSSParserService extends Worker {
                     ""
             );
             rssItems.add(rssItem);
-            articleListLive.postValue(rssItems);
+            post(rssItems);
             return Result.success();
         }
 
-        articleListLive.postValue(fetchRssFeedItems(url));
+        post(fetchRssFeedItems(urls));
 
         return Result.success();
     }
 
-    private List<RssFeedItem> fetchRssFeedItems(String urlString) {
-        try {
-            InputStream stream = new URL(urlString).openStream();
-            return parse(stream);
-        } catch (IOException | XmlPullParserException e) {
-            Log.e(TAG, "Error parsing RSS feed", e);
-            List<RssFeedItem> rssItems = new ArrayList<>();
+    static List<String> splitUrls(String value) {
+        Set<String> urls = new LinkedHashSet<>();
+        if (value != null) {
+            for (String url : value.trim().split("[\\s;]+")) {
+                if (!url.isEmpty()) {
+                    urls.add(url);
+                }
+            }
+        }
+        return new ArrayList<>(urls);
+    }
+
+    // unchanged feeds do not trigger an update of the ticker
+    private static synchronized void post(List<RssFeedItem> items) {
+        if (items.equals(lastItems)) {
+            Log.d(TAG, "RSS feeds unchanged");
+            return;
+        }
+        lastItems = items;
+        articleListLive.postValue(items);
+    }
+
+    private static synchronized RssFeedStore getStore(Context context) {
+        if (store == null) {
+            store = new RssFeedStore(new File(context.getCacheDir(), CACHE_DIR + "-items"));
+        }
+        return store;
+    }
+
+    private List<RssFeedItem> fetchRssFeedItems(List<String> urls) {
+        final Context context = getApplicationContext();
+        List<TaskScheduler.Task> tasks = new ArrayList<>();
+        final List<List<RssFeedItem>> results = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            results.add(null);
+        }
+        for (int i = 0; i < urls.size(); i++) {
+            final int index = i;
+            final String url = urls.get(i);
+            try {
+                tasks.add(TaskScheduler.getInstance().submit(
+                        TaskScheduler.Lane.IO, () -> results.set(index, fetchFeed(context, url))
+                ));
+            } catch (RejectedExecutionException e) {
+                results.set(index, fetchFeed(context, url));
+            }
+        }
+        for (TaskScheduler.Task task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                Log.e(TAG, "Error fetching RSS feed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // the results are visible after get()
+        List<RssFeedItem> items = RssFeedStore.merge(results);
+        if (items.isEmpty()) {
             RssFeedItem rssItem = new RssFeedItem(
-                    getApplicationContext().getResources().getString(R.string.rss_data_error),
+                    context.getResources().getString(R.string.rss_data_error),
                     "",
                     ""
             );
-            rssItems.add(rssItem);
-            return rssItems;
+            items.add(rssItem);
         }
+        return items;
+    }
+
+    /**
+     * @return the items of the feed, the last known items if it cannot be fetched or null
+     */
+    private List<RssFeedItem> fetchFeed(Context context, String url) {
+        RssFeedStore store = getStore(context);
+        HttpReader reader = new HttpReader(context, CACHE_DIR);
+        File file = reader.readUrlToFile(url, true);
+        if (file == null) {
+            Log.w(TAG, "Cannot fetch " + url);
+            return store.getLast(url);
+        }
+
+        long version = reader.getContentTimestamp(url);
+        List<RssFeedItem> items = store.get(url, version);
+        if (items != null) {
+            Log.d(TAG, "not modified: " + url);
+            return items;
+        }
+        try {
+            items = parse(new BufferedInputStream(new FileInputStream(file)));
+        } catch (IOException | XmlPullParserException | RuntimeException e) {
+            Log.e(TAG, "Error parsing RSS feed " + url, e);
+            return store.getLast(url);
+        }
+        store.put(url, version, items);
+        return items;
     }
 
     private List<RssFeedItem> parse(InputStream in) throws XmlPullParserException, IOException {
@@ -135,6 +233,7 @@ public class RSSParserService extends Worker {
 
     private RssFeedItem readEntry(XmlPullParser parser) throws XmlPullParserException, IOException {
         parser.require(XmlPullParser.START_TAG, null, "item");
+        String guid = null;
         String title = null;
         String link = null;
         String pubDate = null;
@@ -149,11 +248,13 @@ public class RSSParserService extends Worker {
                 link = readLink(parser);
             } else if (name.equals("pubDate")) {
                 pubDate = readPubDate(parser);
+            } else if (name.equals("guid")) {
+                guid = readGuid(parser);
             } else {
                 skip(parser);
             }
         }
-        return new RssFeedItem(title, link, pubDate);
+        return new RssFeedItem(guid, title, link, pubDate);
     }
 
     // Processes title tags in the feed.
@@ -179,6 +280,13 @@ public class RSSParserService extends Worker {
         return pubDate;
     }
 
+    private String readGuid(XmlPullParser parser) throws IOException, XmlPullParserException {
+        parser.require(XmlPullParser.START_TAG, null, "guid");
+        String guid = readText(parser);
+        parser.require(XmlPullParser.END_TAG, null, "guid");
+        return guid;
+    }
+
     // For the tags title and summary, extracts their text values.
     private String readText(XmlPullParser parser) throws IOException, XmlPullParserException {
         String result = "";
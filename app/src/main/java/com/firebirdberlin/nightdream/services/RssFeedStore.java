@@ -0,0 +1,185 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.services;
+
+import com.firebirdberlin.nightdream.models.RssFeedItem;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the parsed items of each RSS feed together with the version of the response they were
+ * parsed from. As long as the version does not change the feed does not need to be parsed again.
+ * The items are kept in memory and persisted in a file per feed.
+ */
+public class RssFeedStore {
+    private static final int MAGIC = 0x4e445253;
+    private static final int VERSION = 1;
+
+    private final File directory;
+    private final Map<String, Feed> feeds = new HashMap<>();
+
+    public RssFeedStore(File directory) {
+        this.directory = directory;
+    }
+
+    private static class Feed {
+        final long version;
+        final List<RssFeedItem> items;
+
+        Feed(long version, List<RssFeedItem> items) {
+            this.version = version;
+            this.items = items;
+        }
+    }
+
+    /**
+     * @param version e.g. the content timestamp of the cached response
+     * @return the items parsed from this version of the feed or null
+     */
+    public synchronized List<RssFeedItem> get(String url, long version) {
+        Feed feed = getFeed(url);
+        return (feed != null && feed.version == version) ? feed.items : null;
+    }
+
+    /**
+     * @return the last items of the feed of any version or null, e.g. if the feed is unreachable
+     */
+    public synchronized List<RssFeedItem> getLast(String url) {
+        Feed feed = getFeed(url);
+        return (feed != null) ? feed.items : null;
+    }
+
+    public synchronized void put(String url, long version, List<RssFeedItem> items) {
+        Feed feed = new Feed(version, Collections.unmodifiableList(new ArrayList<>(items)));
+        feeds.put(url, feed);
+        save(url, feed);
+    }
+
+    /**
+     * Concatenates the items of the feeds. Items which appear in several feeds are kept once,
+     * at their first position.
+     */
+    public static List<RssFeedItem> merge(List<List<RssFeedItem>> feeds) {
+        List<RssFeedItem> merged = new ArrayList<>();
+        Set<String> keys = new HashSet<>();
+        for (List<RssFeedItem> items : feeds) {
+            if (items == null) continue;
+            for (RssFeedItem item : items) {
+                String key = item.getKey();
+                if (key == null || keys.add(key)) {
+                    merged.add(item);
+                }
+            }
+        }
+        return merged;
+    }
+
+    File getFile(String url) {
+        return new File(directory, "feed-" + Integer.toHexString(url.hashCode()) + ".bin");
+    }
+
+    private Feed getFeed(String url) {
+        Feed feed = feeds.get(url);
+        if (feed == null) {
+            feed = load(url);
+            if (feed != null) {
+                feeds.put(url, feed);
+            }
+        }
+        return feed;
+    }
+
+    private Feed load(String url) {
+        File file = getFile(url);
+        if (!file.exists()) return null;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            // different urls may share a hash code
+            if (!url.equals(in.readUTF())) {
+                return null;
+            }
+            long version = in.readLong();
+            int count = in.readInt();
+            List<RssFeedItem> items = new ArrayList<>(Math.max(0, count));
+            for (int i = 0; i < count; i++) {
+                items.add(new RssFeedItem(readString(in), readString(in), readString(in), readString(in)));
+            }
+            return new Feed(version, Collections.unmodifiableList(items));
+        } catch (IOException e) {
+            file.delete();
+            return null;
+        }
+    }
+
+    private void save(String url, Feed feed) {
+        if (!directory.exists() && !directory.mkdirs()) {
+            return;
+        }
+        File file = getFile(url);
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(url);
+            out.writeLong(feed.version);
+            out.writeInt(feed.items.size());
+            for (RssFeedItem item : feed.items) {
+                writeString(out, item.getGuid());
+                writeString(out, item.getTitle());
+                writeString(out, item.getLink());
+                writeString(out, item.getPubDate());
+            }
+        } catch (IOException e) {
+            tmpFile.delete();
+            return;
+        }
+        if (!tmpFile.renameTo(file)) {
+            tmpFile.delete();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
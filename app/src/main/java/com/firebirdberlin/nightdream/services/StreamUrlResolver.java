@@ -0,0 +1,216 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.services;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.firebirdberlin.nightdream.HttpStatusCheckTask;
+import com.firebirdberlin.nightdream.util.TaskScheduler;
+import com.firebirdberlin.radiostreamapi.PlaylistParser;
+import com.firebirdberlin.radiostreamapi.models.PlaylistInfo;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the url of a radio station to the url which can be played.
+ * <p>
+ * Playlists are parsed and redirects are followed. Successful results are cached for some
+ * minutes, so that switching to a recently played or prefetched station starts without any
+ * network round trip. Concurrent requests for the same url share a single resolution.
+ */
+public class StreamUrlResolver {
+    private static final String TAG = "StreamUrlResolver";
+    private static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final ConcurrentHashMap<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, FutureTask<String>> inFlight =
+            new ConcurrentHashMap<>();
+    private static long ttlMillis = DEFAULT_TTL_MILLIS;
+
+    static void setTtlMillis(long ttlMillis) {
+        StreamUrlResolver.ttlMillis = ttlMillis;
+    }
+
+    static void clear() {
+        cache.clear();
+    }
+
+    /**
+     * @return the cached stream url or null if the url was not resolved recently
+     */
+    public static String getCached(String url) {
+        if (url == null) {
+            return null;
+        }
+        CacheEntry entry = cache.get(url);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            cache.remove(url, entry);
+            return null;
+        }
+        return entry.streamUrl;
+    }
+
+    /**
+     * Removes the url from the cache, e.g. if the stream could not be played.
+     */
+    public static void invalidate(String url) {
+        if (url != null) {
+            cache.remove(url);
+        }
+    }
+
+    /**
+     * Resolves the url on the calling thread unless a cached result is available.
+     *
+     * @return the stream url or null if the station cannot be reached
+     */
+    public static String resolve(final String url) {
+        if (url == null || url.isEmpty()) {
+            return null;
+        }
+        String cached = getCached(url);
+        if (cached != null) {
+            Log.d(TAG, "Returning from cache for " + url);
+            return cached;
+        }
+
+        FutureTask<String> task = new FutureTask<>(() -> doResolve(url));
+        FutureTask<String> running = inFlight.putIfAbsent(url, task);
+        if (running == null) {
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(url, task);
+            }
+            running = task;
+        }
+
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Cannot resolve " + url, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * Resolves the url in the background, so that a later request is answered from the cache.
+     */
+    public static void prefetch(final String url) {
+        if (url == null || url.isEmpty() || getCached(url) != null || inFlight.containsKey(url)) {
+            return;
+        }
+        try {
+            TaskScheduler.getInstance().submit(
+                    TaskScheduler.Lane.IO, "resolve:" + url, null, () -> resolve(url)
+            );
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "prefetch rejected: " + url);
+        }
+    }
+
+    private static String doResolve(String url) {
+        String streamUrl = url;
+        if (PlaylistParser.isPlaylistUrl(url)) {
+            PlaylistInfo info = new PlaylistParser().parsePlaylistUrl(url);
+            if (info == null || !info.valid) {
+                return null;
+            }
+            streamUrl = info.streamUrl;
+        }
+
+        HttpStatusCheckTask.HttpStatusCheckResult result = HttpStatusCheckTask.check(streamUrl);
+        if (result == null || !result.isSuccess()) {
+            return null;
+        }
+        cache.put(url, new CacheEntry(result.url, System.currentTimeMillis() + ttlMillis));
+        return result.url;
+    }
+
+    private static class CacheEntry {
+        final String streamUrl;
+        final long expiresAt;
+
+        CacheEntry(String streamUrl, long expiresAt) {
+            this.streamUrl = streamUrl;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Resolves a url in the background and delivers the result on the main thread.
+     */
+    public static class ResolveTask {
+        private static final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+
+        private final AsyncResponse delegate;
+        private volatile boolean cancelled = false;
+        private TaskScheduler.Task task = null;
+
+        public interface AsyncResponse {
+            void onStreamUrlResolved(String streamUrl);
+        }
+
+        public ResolveTask(AsyncResponse listener) {
+            this.delegate = listener;
+        }
+
+        public void execute(String url) {
+            try {
+                // the alarm waits for the result, prefetches stay on the IO lane
+                task = TaskScheduler.getInstance().submit(TaskScheduler.Lane.STREAM, () -> {
+                    String result = resolve(url);
+                    mainThreadHandler.post(() -> {
+                        if (!cancelled) {
+                            delegate.onStreamUrlResolved(result);
+                        }
+                    });
+                });
+            } catch (RejectedExecutionException e) {
+                Log.e(TAG, "Task rejected: " + url, e);
+                mainThreadHandler.post(() -> {
+                    if (!cancelled) {
+                        delegate.onStreamUrlResolved(null);
+                    }
+                });
+            }
+        }
+
+        /**
+         * The result of a cancelled task is not delivered.
+         */
+        public void cancel(boolean mayInterruptIfRunning) {
+            cancelled = true;
+            if (task != null) {
+                task.cancel(mayInterruptIfRunning);
+            }
+        }
+    }
+}
@@ -19,15 +19,11 @@
 package com.firebirdberlin.nightdream.ui;
 
 import android.content.Context;
-import android.content.res.Resources;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.PorterDuff;
 import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
-import android.util.Log;
-
-import androidx.core.content.res.ResourcesCompat;
 
 import com.firebirdberlin.nightdream.ui.background.ImageViewExtended;
 
@@ -35,6 +31,9 @@ public class AnimDigit extends ImageViewExtended {
     private static final String TAG = "AnimDigit";
     private Paint mNumberPaint = new Paint();
     private int number = -1;
+    private DigitDrawablePool pool = null;
+    private Drawable drawable = null;
+    private int drawableResId = 0;
 
     public AnimDigit(Context context) {
         this(context, null);
@@ -51,24 +50,27 @@ public class AnimDigit extends ImageViewExtended {
         mNumberPaint.setColor(Color.BLUE);
     }
 
-    public void setChar(int index) {
-        Log.d(TAG, "setChar: " + index);
+    /**
+     * Digits of the same clock should share a pool.
+     */
+    public void setDrawablePool(DigitDrawablePool pool) {
+        releaseDrawable();
+        this.pool = pool;
+    }
 
+    private DigitDrawablePool getPool() {
+        if (pool == null) {
+            pool = new DigitDrawablePool(getContext());
+        }
+        return pool;
+    }
+
+    public void setChar(int index) {
         this.number = index;
 
         if (index >= 0 && index <= 9) {
-            Resources res = getResources();
-            int resourceId = res.getIdentifier(
-                    "vd_pathmorph_digits_" + index, "drawable",
-                    getContext().getPackageName()
-            );
-            Drawable drawable = ResourcesCompat.getDrawable(
-                    getResources(), resourceId, getContext().getTheme()
-            );
-            if (drawable != null) {
-                drawable.setColorFilter(mNumberPaint.getColor(), PorterDuff.Mode.SRC_ATOP);
-                setImageDrawable(drawable);
-            }
+            showDrawable(DigitDrawablePool.getDigitResId(index));
+            getPool().prepare(index);
         }
         invalidate();
     }
@@ -76,30 +78,45 @@ public class AnimDigit extends ImageViewExtended {
     public void setTextColor(int color) {
         mNumberPaint.setColor(color);
         setColorFilter(color, PorterDuff.Mode.SRC_ATOP);
+        if (drawable != null) {
+            drawable.setColorFilter(color, PorterDuff.Mode.SRC_ATOP);
+        }
         invalidate();
     }
 
     public void start(int index) {
-        Resources res = getResources();
-        int resourceId = res.getIdentifier(
-                "avd_pathmorph_digits_" + number + "_to_" + index, "drawable",
-                getContext().getPackageName()
-        );
+        int resourceId = DigitDrawablePool.getTransitionResId(number, index);
         if (resourceId != 0) {
-            Drawable drawable = ResourcesCompat.getDrawable(
-                    getResources(), resourceId,
-                    getContext().getTheme()
-            );
-            if (drawable != null) {
-                drawable.setColorFilter(mNumberPaint.getColor(), PorterDuff.Mode.SRC_ATOP);
-                setImageDrawable(drawable);
-            }
+            showDrawable(resourceId);
             this.number = index;
             startDrawableAnimation();
+            getPool().prepare(index);
         } else {
             setChar(index);
         }
         invalidate();
     }
 
+    private void showDrawable(int resId) {
+        Drawable next = getPool().obtain(resId);
+        if (next == null) {
+            return;
+        }
+        next.setColorFilter(mNumberPaint.getColor(), PorterDuff.Mode.SRC_ATOP);
+        Drawable previous = drawable;
+        int previousResId = drawableResId;
+        drawable = next;
+        drawableResId = resId;
+        setImageDrawable(next);
+        getPool().recycle(previousResId, previous);
+    }
+
+    private void releaseDrawable() {
+        if (drawable != null && pool != null) {
+            setImageDrawable(null);
+            pool.recycle(drawableResId, drawable);
+            drawable = null;
+            drawableResId = 0;
+        }
+    }
 }
@@ -20,8 +20,6 @@ package com.firebirdberlin.nightdream.ui;
 
 import android.content.Context;
 import android.content.res.TypedArray;
-import android.graphics.Paint;
-import android.graphics.Rect;
 import android.graphics.Typeface;
 import android.util.AttributeSet;
 import android.util.Log;
@@ -30,7 +28,6 @@ import android.util.TypedValue;
 import androidx.appcompat.widget.AppCompatTextView;
 
 import com.firebirdberlin.nightdream.R;
-import com.firebirdberlin.nightdream.Utility;
 import com.firebirdberlin.nightdream.models.FontCache;
 
 
@@ -45,7 +42,7 @@ public class AutoAdjustTextView extends AppCompatTextView {
 
     private String fontPath = null;
     private String sampleText = null;
-    private Rect bounds = null;
+    private TextSizeFitter fitter = null;
 
     public AutoAdjustTextView(Context context) {
         super(context);
@@ -105,15 +102,14 @@ public class AutoAdjustTextView extends AppCompatTextView {
     private int getAdjustedTextSize() {
         if (maxWidth == -1) return -1;
         if (maxFontSizeSp == -1 || minFontSizeSp == -1) return -1;
-        Paint paint = getPaint();
-        for (int size = minFontSizeSp; size <= maxFontSizeSp; size++) {
-            paint.setTextSize(Utility.spToPx(getContext(), size));
-            if (measureText(paint) > maxWidth ||
-                    (maxHeight > -1 && measureTextHeight(paint) > maxHeight)) {
-                return size;
-            }
+        if (fitter == null) {
+            // invalidate() may already be called from the super constructor
+            fitter = new TextSizeFitter();
         }
-        return maxFontSizeSp;
+        String text = (sampleText != null) ? sampleText : getText().toString();
+        return fitter.fit(
+                getContext(), getPaint(), text, minFontSizeSp, maxFontSizeSp, maxWidth, maxHeight
+        );
     }
 
     public void setMaxWidth(int width) {
@@ -133,18 +129,4 @@ public class AutoAdjustTextView extends AppCompatTextView {
     public void setSampleText(String sample) {
         this.sampleText = sample;
     }
-
-    private float measureText(Paint paint) {
-        String text = (sampleText != null) ? sampleText : getText().toString();
-        return paint.measureText(text);
-    }
-
-    private float measureTextHeight(Paint paint) {
-        if (bounds == null) {
-            bounds = new Rect();
-        }
-        String text = (sampleText != null) ? sampleText : getText().toString();
-        paint.getTextBounds(text, 0, text.length(), bounds);
-        return bounds.height();
-    }
 }
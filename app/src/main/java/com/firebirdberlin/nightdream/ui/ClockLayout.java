@@ -109,6 +109,7 @@ public class ClockLayout extends LinearLayout implements OnDateLongClickListener
     private boolean showDivider = true;
     private boolean showWeather = false;
     private boolean showCalendarEvents = false;
+    private CalendarEventLoader.CalendarEvents calendarEvents = null;
     private boolean mirrorText = false;
     private boolean showNotifications = true;
     private int weatherIconSizeFactor = 3;
@@ -200,6 +201,7 @@ public class ClockLayout extends LinearLayout implements OnDateLongClickListener
             calendarView.setRightArrowMask(null);
             calendarView.setDynamicHeightEnabled(true);
             calendarView.setOnDateLongClickListener(this);
+            calendarView.setOnMonthChangedListener((widget, date) -> loadCalendarEvents());
             loadCalendarEvents();
         }
     }
@@ -294,6 +296,9 @@ public class ClockLayout extends LinearLayout implements OnDateLongClickListener
         }
         if (calendarView != null) {
             calendarView.setSelectionColor(color);
+            // the decorators use the primary color
+            calendarEvents = null;
+            loadCalendarEvents();
         }
     }
 
@@ -406,6 +411,7 @@ public class ClockLayout extends LinearLayout implements OnDateLongClickListener
 
     public void showCalendarEvents(boolean on) {
         this.showCalendarEvents = on;
+        loadCalendarEvents();
     }
 
     public void showWeather(boolean on) {
@@ -789,6 +795,8 @@ public class ClockLayout extends LinearLayout implements OnDateLongClickListener
                 int numWeeksInMonth = now.getActualMaximum(Calendar.WEEK_OF_MONTH);
                 int height = calendarView.getTileHeight() * (numWeeksInMonth + 1 + (calendarView.getTopbarVisible() ? 1 : 0));
                 calendarView.getLayoutParams().height = height + 10;
+                // cached until the calendar provider reports a change
+                loadCalendarEvents();
             }
         }
     }
@@ -1061,7 +1069,14 @@ public class ClockLayout extends LinearLayout implements OnDateLongClickListener
             return;
         }
 
-        CalendarEventLoader.CalendarEvents events = CalendarEventLoader.loadEvents(context);
+        CalendarDay month = calendarView.getCurrentDate();
+        CalendarEventLoader.CalendarEvents events = (month != null)
+                ? CalendarEventLoader.loadEvents(context, month)
+                : CalendarEventLoader.loadEvents(context);
+        if (events == calendarEvents) {
+            return;
+        }
+        calendarEvents = events;
         // Calendar event related fields
         // For one-time events
         HashSet<CalendarDay> eventDays = events.oneTimeEvents;
@@ -276,6 +276,8 @@ public class ClockLayoutPreviewPreference extends Preference {
     private WeatherEntry getWeatherEntry(Settings settings) {
         WeatherEntry entry = settings.getWeatherEntry();
         if (!entry.isValid()) {
+            // the entry from the settings is shared with the clock
+            entry = new WeatherEntry();
             entry.setFakeData();
         }
         return entry;
@@ -64,6 +64,8 @@ public class CustomDigitalAnimClock extends LinearLayout {
     private int currentSecondHigh = -1;
     private int currentSecondLow = -1;
     private final Runnable update = this::updateTextView;
+    private DigitDrawablePool drawablePool;
+    private Calendar time = Calendar.getInstance();
     private String mCustom = null;
 
     public CustomDigitalAnimClock(Context context) {
@@ -98,6 +100,19 @@ public class CustomDigitalAnimClock extends LinearLayout {
         mCharLowSecond = findViewById(R.id.charLowSecond);
         secondsLayout = findViewById(R.id.secondsLayout);
         colon = findViewById(R.id.colon);
+
+        drawablePool = new DigitDrawablePool(context);
+        for (AnimDigit digit : getDigits()) {
+            digit.setDrawablePool(drawablePool);
+        }
+    }
+
+    private AnimDigit[] getDigits() {
+        return new AnimDigit[]{
+                mCharHighHour, mCharLowHour,
+                mCharHighMinute, mCharLowMinute,
+                mCharHighSecond, mCharLowSecond
+        };
     }
 
     private void init() {
@@ -106,7 +121,8 @@ public class CustomDigitalAnimClock extends LinearLayout {
     }
 
     private void resume() {
-        Calendar time = Calendar.getInstance();
+        // picks up changes of the time zone
+        time = Calendar.getInstance();
         int hour = time.get(get24HourMode() ? Calendar.HOUR_OF_DAY : Calendar.HOUR);
         int highHour = hour / 10;
         if (!get24HourMode()) {
@@ -165,6 +181,7 @@ public class CustomDigitalAnimClock extends LinearLayout {
         if (handler != null) {
             handler.removeCallbacks(update);
         }
+        drawablePool.clear();
     }
 
     void setTimeTick() {
@@ -222,7 +239,7 @@ public class CustomDigitalAnimClock extends LinearLayout {
     }
 
     protected void updateTextView() {
-        Calendar time = Calendar.getInstance();
+        time.setTimeInMillis(System.currentTimeMillis());
         int hour = time.get(get24HourMode() ? Calendar.HOUR_OF_DAY : Calendar.HOUR);
         int highHour = hour / 10;
         if (!get24HourMode()) {
@@ -278,8 +295,7 @@ public class CustomDigitalAnimClock extends LinearLayout {
                 handler = new Handler();
             }
             handler.removeCallbacks(update);
-            long now = System.currentTimeMillis();
-            long delta = 1000 - now / 1000 * 1000;
+            long delta = 1000 - System.currentTimeMillis() % 1000;
             handler.postDelayed(update, delta);
         } else {
             if (handler != null) {
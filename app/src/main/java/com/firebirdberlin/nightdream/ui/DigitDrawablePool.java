@@ -0,0 +1,183 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.ui;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.drawable.AnimatedVectorDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.SparseArray;
+
+import androidx.core.content.res.ResourcesCompat;
+
+import com.firebirdberlin.nightdream.R;
+
+import java.util.ArrayDeque;
+
+/**
+ * Keeps the vector drawables of AnimDigit ready for reuse.
+ * <p>
+ * The digit transitions are resolved to resource ids once. Drawables which are no longer
+ * displayed are reset and handed out again, and the transitions which may follow next are
+ * inflated while the main thread is idle. A digit change then neither looks up a resource by
+ * name nor parses a vector drawable.
+ */
+public class DigitDrawablePool {
+    private static final int MAX_FREE_PER_RESOURCE = 2;
+    private static final int[] DIGITS = new int[]{
+            R.drawable.vd_pathmorph_digits_0,
+            R.drawable.vd_pathmorph_digits_1,
+            R.drawable.vd_pathmorph_digits_2,
+            R.drawable.vd_pathmorph_digits_3,
+            R.drawable.vd_pathmorph_digits_4,
+            R.drawable.vd_pathmorph_digits_5,
+            R.drawable.vd_pathmorph_digits_6,
+            R.drawable.vd_pathmorph_digits_7,
+            R.drawable.vd_pathmorph_digits_8,
+            R.drawable.vd_pathmorph_digits_9
+    };
+    // 0 if there is no animation between two digits
+    private static final int[][] TRANSITIONS = new int[10][10];
+
+    static {
+        TRANSITIONS[0][1] = R.drawable.avd_pathmorph_digits_0_to_1;
+        TRANSITIONS[1][0] = R.drawable.avd_pathmorph_digits_1_to_0;
+        TRANSITIONS[1][2] = R.drawable.avd_pathmorph_digits_1_to_2;
+        TRANSITIONS[2][0] = R.drawable.avd_pathmorph_digits_2_to_0;
+        TRANSITIONS[2][3] = R.drawable.avd_pathmorph_digits_2_to_3;
+        TRANSITIONS[3][0] = R.drawable.avd_pathmorph_digits_3_to_0;
+        TRANSITIONS[3][4] = R.drawable.avd_pathmorph_digits_3_to_4;
+        TRANSITIONS[4][5] = R.drawable.avd_pathmorph_digits_4_to_5;
+        TRANSITIONS[5][0] = R.drawable.avd_pathmorph_digits_5_to_0;
+        TRANSITIONS[5][6] = R.drawable.avd_pathmorph_digits_5_to_6;
+        TRANSITIONS[6][7] = R.drawable.avd_pathmorph_digits_6_to_7;
+        TRANSITIONS[7][8] = R.drawable.avd_pathmorph_digits_7_to_8;
+        TRANSITIONS[8][9] = R.drawable.avd_pathmorph_digits_8_to_9;
+        TRANSITIONS[9][0] = R.drawable.avd_pathmorph_digits_9_to_0;
+    }
+
+    private final Resources resources;
+    private final Resources.Theme theme;
+    private final SparseArray<ArrayDeque<Drawable>> free = new SparseArray<>();
+    private final ArrayDeque<Integer> pending = new ArrayDeque<>();
+    private boolean idleHandlerAdded = false;
+
+    private final MessageQueue.IdleHandler preloader = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            // one drawable per idle phase, the queue may become busy again
+            Integer resId = pending.poll();
+            if (resId != null && getFreeCount(resId) == 0) {
+                recycle(resId, inflate(resId));
+            }
+            idleHandlerAdded = !pending.isEmpty();
+            return idleHandlerAdded;
+        }
+    };
+
+    public DigitDrawablePool(Context context) {
+        this.resources = context.getResources();
+        this.theme = context.getTheme();
+    }
+
+    /**
+     * @return the resource id of the static digit or 0
+     */
+    static int getDigitResId(int digit) {
+        return (digit >= 0 && digit <= 9) ? DIGITS[digit] : 0;
+    }
+
+    /**
+     * @return the resource id of the animation between two digits or 0
+     */
+    static int getTransitionResId(int from, int to) {
+        if (from < 0 || from > 9 || to < 0 || to > 9) return 0;
+        return TRANSITIONS[from][to];
+    }
+
+    /**
+     * Hands out a drawable which is not displayed elsewhere.
+     */
+    public Drawable obtain(int resId) {
+        ArrayDeque<Drawable> drawables = free.get(resId);
+        Drawable drawable = (drawables != null) ? drawables.poll() : null;
+        return (drawable != null) ? drawable : inflate(resId);
+    }
+
+    /**
+     * Returns a drawable which is no longer displayed.
+     */
+    public void recycle(int resId, Drawable drawable) {
+        if (resId == 0 || drawable == null) return;
+        if (drawable instanceof AnimatedVectorDrawable) {
+            ((AnimatedVectorDrawable) drawable).reset();
+        }
+        ArrayDeque<Drawable> drawables = free.get(resId);
+        if (drawables == null) {
+            drawables = new ArrayDeque<>();
+            free.put(resId, drawables);
+        }
+        if (drawables.size() < MAX_FREE_PER_RESOURCE) {
+            drawables.push(drawable);
+        }
+    }
+
+    /**
+     * Inflates the transitions which may follow the digit when the main thread is idle. A digit
+     * either counts up or falls back to 0.
+     */
+    public void prepare(int digit) {
+        if (digit < 0 || digit > 9) return;
+        enqueue(getTransitionResId(digit, (digit + 1) % 10));
+        enqueue(getTransitionResId(digit, 0));
+        if (!pending.isEmpty() && !idleHandlerAdded) {
+            idleHandlerAdded = true;
+            Looper.getMainLooper().getQueue().addIdleHandler(preloader);
+        }
+    }
+
+    /**
+     * Drops the free drawables and the pending preloads.
+     */
+    public void clear() {
+        free.clear();
+        pending.clear();
+        if (idleHandlerAdded) {
+            Looper.getMainLooper().getQueue().removeIdleHandler(preloader);
+            idleHandlerAdded = false;
+        }
+    }
+
+    private void enqueue(int resId) {
+        if (resId != 0 && getFreeCount(resId) == 0 && !pending.contains(resId)) {
+            pending.add(resId);
+        }
+    }
+
+    private int getFreeCount(int resId) {
+        ArrayDeque<Drawable> drawables = free.get(resId);
+        return (drawables != null) ? drawables.size() : 0;
+    }
+
+    private Drawable inflate(int resId) {
+        return ResourcesCompat.getDrawable(resources, resId, theme);
+    }
+}
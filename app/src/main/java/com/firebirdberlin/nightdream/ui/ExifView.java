@@ -27,6 +27,7 @@ import androidx.exifinterface.media.ExifInterface;
 
 import com.firebirdberlin.nightdream.Utility;
 import com.firebirdberlin.nightdream.databinding.ExifViewBinding;
+import com.firebirdberlin.nightdream.ui.background.SlideshowIndex;
 import com.firebirdberlin.openweathermapapi.GeocoderApi;
 import com.firebirdberlin.openweathermapapi.models.City;
 
@@ -53,6 +54,26 @@ public class ExifView {
             return false;
         }
 
+        try {
+            ExifInterface exif = new ExifInterface(file);
+            SlideshowIndex.Entry entry = readExifData(
+                    exif, new SlideshowIndex.Entry(file.getAbsolutePath(), 0, 0)
+            );
+            return getExifView(mContext, entry, secondaryColor);
+        } catch (IOException e) {
+            Log.e(TAG, "exception: ", e);
+            return false;
+        }
+    }
+
+    /**
+     * Shows the capture date and location of an image which were read by readExifData().
+     */
+    public Boolean getExifView(Context mContext, SlideshowIndex.Entry entry, int secondaryColor) {
+        if (entry == null) {
+            return false;
+        }
+
         try {
             String exifDate = "";
             String exifTime = "";
@@ -61,9 +82,7 @@ public class ExifView {
 
             exifBinding.setExifTextColor(secondaryColor);
 
-            ExifInterface exif = new ExifInterface(file);
-
-            String tagDateTime = exif.getAttribute(ExifInterface.TAG_DATETIME_ORIGINAL);
+            String tagDateTime = entry.dateTime;
             if (tagDateTime != null) {
                 String[] exifDateTime = tagDateTime.split(" ");
                 String[] exifDateSplit = exifDateTime[0].split(":");
@@ -71,14 +90,8 @@ public class ExifView {
                 exifTime = exifDateTime[1];
             }
 
-            String tagGpsLatitude = exif.getAttribute(ExifInterface.TAG_GPS_LATITUDE);
-            String tagGpsLongitude = exif.getAttribute(ExifInterface.TAG_GPS_LONGITUDE);
-            if (tagGpsLatitude != null && tagGpsLongitude != null) {
-                String[] separatedLat = tagGpsLatitude.split(",");
-                String[] separatedLong = tagGpsLongitude.split(",");
-                double lat = convertArcMinToDegrees(separatedLat);
-                double lon = convertArcMinToDegrees(separatedLong);
-                City city = GeocoderApi.findCityByCoordinates(mContext, lat, lon);
+            if (entry.hasLocation()) {
+                City city = GeocoderApi.findCityByCoordinates(mContext, entry.latitude, entry.longitude);
                 if (city != null) {
                     exifCity = city.name;
                     exifCountry = city.countryName;
@@ -91,13 +104,36 @@ public class ExifView {
             exifBinding.setExifCountry(exifCountry);
 
             return true;
-        } catch (IOException | IndexOutOfBoundsException e) {
+        } catch (IndexOutOfBoundsException e) {
             Log.e(TAG, "exception: ", e);
             return false;
         }
     }
 
-    private double convertArcMinToDegrees(String[] separated) {
+    /**
+     * @return a copy of the index entry with the capture date and location from the EXIF data
+     */
+    public static SlideshowIndex.Entry readExifData(ExifInterface exif, SlideshowIndex.Entry entry) {
+        String dateTime = exif.getAttribute(ExifInterface.TAG_DATETIME_ORIGINAL);
+        double latitude = Double.NaN;
+        double longitude = Double.NaN;
+
+        String tagGpsLatitude = exif.getAttribute(ExifInterface.TAG_GPS_LATITUDE);
+        String tagGpsLongitude = exif.getAttribute(ExifInterface.TAG_GPS_LONGITUDE);
+        if (tagGpsLatitude != null && tagGpsLongitude != null) {
+            try {
+                latitude = convertArcMinToDegrees(tagGpsLatitude.split(","));
+                longitude = convertArcMinToDegrees(tagGpsLongitude.split(","));
+            } catch (IndexOutOfBoundsException | NumberFormatException e) {
+                Log.e(TAG, "exception: ", e);
+                latitude = Double.NaN;
+                longitude = Double.NaN;
+            }
+        }
+        return entry.withExifData(dateTime, latitude, longitude);
+    }
+
+    private static double convertArcMinToDegrees(String[] separated) {
         double convert;
         String[] separated2 = separated[2].split("/");
         convert = Double.parseDouble(separated2[0]) / Double.parseDouble(separated2[1]) / 60;
@@ -46,6 +46,8 @@ import java.util.List;
 
 class FontAdapter extends ArrayAdapter<FileUri> {
     public static final String TAG = "FontAdapter";
+    // rows below the visible ones whose fonts are loaded in advance
+    private static final int PRELOAD_AHEAD = 4;
     private Context context = null;
     private int viewId = -1;
     private int selectedPosition = -1;
@@ -65,13 +67,13 @@ class FontAdapter extends ArrayAdapter<FileUri> {
     static class ViewHolder {
         RadioButton button;
         ImageView buttonDelete;
+        Uri uri;
     }
 
     @SuppressLint("ClickableViewAccessibility")
     @NonNull
     @Override
     public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
-        Log.d(TAG, "getView()");
         super.getView(position, convertView, parent);
 
         // holder of the views
@@ -80,7 +82,6 @@ class FontAdapter extends ArrayAdapter<FileUri> {
         final FileUri item = getItem(position);
 
         if (convertView == null) {
-            Log.d(TAG, "getView() convertView == null");
             // create the container ViewHolder
             viewHolder = new ViewHolder();
 
@@ -93,12 +94,11 @@ class FontAdapter extends ArrayAdapter<FileUri> {
             convertView.setTag(viewHolder);
         }else {
             // there is already ViewHolder, reuse it.
-            Log.d(TAG, "getView() convertView");
             viewHolder = (ViewHolder) convertView.getTag();
         }
 
-        Typeface typeface = loadTypefaceForItem(item);
-        viewHolder.button.setTypeface(typeface);
+        bindTypeface(viewHolder, item);
+        preload(position + 1);
         viewHolder.button.setTextSize(TypedValue.COMPLEX_UNIT_SP, 20);
         viewHolder.button.setText(item != null ? item.name : "");
         viewHolder.button.setChecked(position == selectedPosition);
@@ -164,8 +164,40 @@ class FontAdapter extends ArrayAdapter<FileUri> {
     }
 
 
-    private Typeface loadTypefaceForItem(FileUri item) {
-        return FontCache.get(context, item.uri.toString());
+    /**
+     * Uses the cached typeface or shows the row with the default font until the typeface was
+     * loaded in the background.
+     */
+    private void bindTypeface(final ViewHolder viewHolder, FileUri item) {
+        viewHolder.uri = (item != null) ? item.uri : null;
+        if (item == null) {
+            viewHolder.button.setTypeface(Typeface.DEFAULT);
+            return;
+        }
+        String name = item.uri.toString();
+        Typeface typeface = FontCache.getIfCached(name);
+        if (typeface != null) {
+            viewHolder.button.setTypeface(typeface);
+            return;
+        }
+        viewHolder.button.setTypeface(Typeface.DEFAULT);
+        final Uri uri = item.uri;
+        FontCache.preload(context, name, (fontName, loaded) -> {
+            // the row may show another font by now
+            if (loaded != null && uri.equals(viewHolder.uri)) {
+                viewHolder.button.setTypeface(loaded);
+            }
+        });
+    }
+
+    private void preload(int start) {
+        int end = Math.min(getCount(), start + PRELOAD_AHEAD);
+        for (int i = start; i < end; i++) {
+            FileUri item = getItem(i);
+            if (item != null) {
+                FontCache.preload(context, item.uri.toString(), null);
+            }
+        }
     }
 
     public void release() {
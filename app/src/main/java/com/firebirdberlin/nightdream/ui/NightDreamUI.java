@@ -32,7 +32,6 @@ import android.content.pm.ActivityInfo;
 import android.content.res.ColorStateList;
 import android.content.res.Configuration;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Color;
 import android.graphics.Point;
 import android.graphics.PorterDuff;
@@ -44,7 +43,6 @@ import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.GradientDrawable;
 import android.net.Uri;
-import android.os.AsyncTask;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
@@ -77,7 +75,6 @@ import androidx.core.content.ContextCompat;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 
 import com.firebirdberlin.nightdream.Config;
-import com.firebirdberlin.nightdream.Graphics;
 import com.firebirdberlin.nightdream.LightSensorEventListener;
 import com.firebirdberlin.nightdream.R;
 import com.firebirdberlin.nightdream.Settings;
@@ -87,6 +84,10 @@ import com.firebirdberlin.nightdream.events.OnNewLightSensorValue;
 import com.firebirdberlin.nightdream.mAudioManager;
 import com.firebirdberlin.nightdream.services.AlarmHandlerService;
 import com.firebirdberlin.nightdream.ui.background.ImageViewExtended;
+import com.firebirdberlin.nightdream.ui.background.SlideshowIndex;
+import com.firebirdberlin.nightdream.ui.background.SlideshowPrefetcher;
+import com.firebirdberlin.nightdream.util.PixelKernels;
+import com.firebirdberlin.nightdream.util.TaskScheduler;
 import com.firebirdberlin.nightdream.widget.ClockWidgetProvider;
 import com.firebirdberlin.openweathermapapi.models.WeatherEntry;
 import com.google.android.flexbox.FlexboxLayout;
@@ -97,14 +98,15 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Random;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 public class NightDreamUI {
     private static final int SWIPE_MIN_DISTANCE = 120;
     private static final int SWIPE_MAX_OFF_PATH = 250;
     private static final int SWIPE_THRESHOLD_VELOCITY = 200;
     private static final String TAG = "NightDreamUI";
+    private static final int SLIDESHOW_LOOKAHEAD = 2;
+    private static SlideshowIndex slideshowIndex = null;
     final private Handler handler = new Handler();
     final private Drawable colorTransparent = new ColorDrawable(Color.TRANSPARENT);
     final private Drawable colorBlack = new ColorDrawable(Color.BLACK);
@@ -250,8 +252,7 @@ public class NightDreamUI {
         }
     };
     private ArrayList<File> files;
-    private Bitmap preloadBackgroundImage;
-    private File preloadBackgroundImageFile;
+    private SlideshowPrefetcher slideshowPrefetcher = null;
     private LightSensorEventListener lightSensorEventListener = null;
     private float clockLayout_xDelta;
     private float clockLayout_yDelta;
@@ -266,7 +267,7 @@ public class NightDreamUI {
         @Override
         public void run() {
             if (settings.getBackgroundMode() == Settings.BACKGROUND_SLIDESHOW) {
-                if (preloadBackgroundImage == null) {
+                if (!getSlideshowPrefetcher().hasFrame()) {
                     parentLayout.postDelayed(initSlideshowBackground, 500);
                 } else {
                     setupSlideshow();
@@ -646,13 +647,9 @@ public class NightDreamUI {
         setScreenOrientation(settings.screenOrientation);
 
 
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        Handler handler = new Handler(Looper.getMainLooper());
-        executor.execute(() -> { //background thread
-            clockLayoutContainer.post(initClockLayout);
-            //like onPostExecute()
-            handler.post(this::postFadeAnimation);
-        });
+        // nothing runs in the background, both are deferred until after the layout pass
+        clockLayoutContainer.post(initClockLayout);
+        handler.post(this::postFadeAnimation);
 
         initBackground();
         setupAlarmClock();
@@ -667,8 +664,9 @@ public class NightDreamUI {
     private void initBackground() {
         if (mode == 0) return;
 
-        preloadBackgroundImage = null;
-        preloadBackgroundImageFile = null;
+        if (slideshowPrefetcher != null) {
+            slideshowPrefetcher.clear();
+        }
         exifLayoutContainer.setVisibility(View.GONE);
 
         int backgroundMode = settings.getBackgroundMode();
@@ -752,14 +750,15 @@ public class NightDreamUI {
                     Log.d(TAG, "BACKGROUND_SLIDESHOW");
                     loadBackgroundImageFiles();
                     if (files != null && !files.isEmpty()) {
-                        preloadBackgroundImageFile = files.get(new Random().nextInt(files.size()));
-                        AsyncTask<File, Integer, Bitmap> runningTask = new preloadImageFromPath();
-                        runningTask.execute(preloadBackgroundImageFile);
+                        Point display = Utility.getDisplaySize(mContext);
+                        SlideshowPrefetcher prefetcher = getSlideshowPrefetcher();
+                        prefetcher.setFiles(files);
+                        prefetcher.setTargetSize(display.x, display.y);
+                        prefetcher.setFilter(getImageFilterKernel());
+                        prefetcher.start();
                         parentLayout.postDelayed(initSlideshowBackground, 500);
                         handler.post(backgroundChange);
                     } else {
-                        preloadBackgroundImage = null;
-                        preloadBackgroundImageFile = null;
                         setupSlideshow();
                     }
 
@@ -908,25 +907,6 @@ public class NightDreamUI {
         Utility.setIconSize(mContext, nightModeIcon);
     }
 
-    private Drawable loadBackgroundSlideshowImage() {
-        Log.d(TAG, "loadBackgroundSlideshowImage()");
-        if (!settings.hasPermissionReadImages()) {
-            return new ColorDrawable(Color.BLACK);
-        }
-
-        if (files == null || files.isEmpty()) return new ColorDrawable(Color.BLACK);
-
-        File file = files.get(new Random().nextInt(files.size()));
-        preloadBackgroundImageFile = file;
-        Bitmap bitmap = loadImageFromPath(file);
-        bitmap = rescaleBackgroundImage(bitmap);
-        setDominantColorFromBitmap(bitmap);
-        if (bitmap != null) {
-            return new BitmapDrawable(mContext.getResources(), imageFilter(bitmap));
-        }
-        return new ColorDrawable(Color.BLACK);
-    }
-
     private void setImageScale() {
         switch (settings.slideshowStyle) {
             case Settings.SLIDESHOW_STYLE_CENTER:
@@ -948,24 +928,38 @@ public class NightDreamUI {
             return;
         }
 
-        lastAnimationTime = now;
-
-        if (preloadBackgroundImage == null) {
-            bgshape = loadBackgroundSlideshowImage();
+        SlideshowPrefetcher.Frame frame = null;
+        if (files == null || files.isEmpty() || !settings.hasPermissionReadImages()) {
+            bgshape = new ColorDrawable(Color.BLACK);
         } else {
-            bgshape = new BitmapDrawable(mContext.getResources(), preloadBackgroundImage);
-            // TODO determine the dominant color in an AsyncTask
-            setDominantColorFromBitmap(preloadBackgroundImage);
+            frame = getSlideshowPrefetcher().poll();
+            if (frame == null) {
+                // the next image is not ready yet, keep the current one
+                return;
+            }
+            bgshape = new BitmapDrawable(mContext.getResources(), frame.bitmap);
+            if (frame.entry != null && frame.entry.hasColors(settings.background_filter)) {
+                setDominantColorFromEntry(frame.entry);
+            } else {
+                setDominantColorFromBitmap(frame.bitmap);
+            }
         }
+
+        lastAnimationTime = now;
+
         if (settings.background_exif) {
-            getExifInformation(preloadBackgroundImageFile);
+            getExifInformation((frame != null) ? frame.file : null);
         }
 
         activeBackgroundImage = (activeBackgroundImage + 1) % 2;
 
         setImageScale();
 
+        Drawable previous = backgroundImages[activeBackgroundImage].getDrawable();
         backgroundImages[activeBackgroundImage].setImageDrawable(bgshape);
+        if (slideshowPrefetcher != null && previous instanceof BitmapDrawable) {
+            slideshowPrefetcher.recycle(((BitmapDrawable) previous).getBitmap());
+        }
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
             ImageView targetImageView = backgroundImages[activeBackgroundImage];
             if (settings.background_filter == 7) {
@@ -1074,76 +1068,58 @@ public class NightDreamUI {
         parentLayout.bringChildToFront(exifLayoutContainer);
         parentLayout.requestLayout();
         parentLayout.invalidate();
+    }
 
-        if (files != null && settings.getBackgroundMode() == Settings.BACKGROUND_SLIDESHOW && files.size() > 0) {
-            preloadBackgroundImageFile = files.get(new Random().nextInt(files.size()));
-            AsyncTask<File, Integer, Bitmap> runningTask = new preloadImageFromPath();
-            runningTask.execute(preloadBackgroundImageFile);
+    private SlideshowIndex getSlideshowIndex() {
+        synchronized (NightDreamUI.class) {
+            if (slideshowIndex == null) {
+                slideshowIndex = new SlideshowIndex(
+                        new File(mContext.getFilesDir(), "slideshowIndex.bin")
+                );
+            }
+            return slideshowIndex;
         }
     }
 
+    private SlideshowPrefetcher getSlideshowPrefetcher() {
+        if (slideshowPrefetcher == null) {
+            slideshowPrefetcher = new SlideshowPrefetcher(getSlideshowIndex(), SLIDESHOW_LOOKAHEAD);
+            slideshowPrefetcher.setOnFrameDecodedListener(frame -> {
+                if (settings.background_mode_auto_color) {
+                    updatePaletteColors(frame.entry, frame.bitmap);
+                }
+                getSlideshowIndex().save();
+            });
+        }
+        return slideshowPrefetcher;
+    }
+
     private void loadBackgroundImageFiles() {
         File path = new File(mContext.getFilesDir() + "/backgroundImages");
         Log.d(TAG, "path:" + path);
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-            files = Utility.listFiles(path, null);
+            files = getSlideshowIndex().scan(path, null);
         } else {
-            files = Utility.listFiles(path, ".png");
-            files.addAll(Utility.listFiles(path, ".jpg"));
-            files.addAll(Utility.listFiles(path, ".jpeg"));
+            files = getSlideshowIndex().scan(path, new String[]{".png", ".jpg", ".jpeg"});
         }
 
         Log.d(TAG, "success:" + files.toString());
     }
 
-    private Bitmap loadImageFromPath(File file) {
-        Log.d(TAG, "load image from path");
-        String path = file.getAbsolutePath();
-        Point display = Utility.getDisplaySize(mContext);
-        final BitmapFactory.Options options = new BitmapFactory.Options();
-        options.inJustDecodeBounds = true;
-        BitmapFactory.decodeFile(path, options);
-
-        // Calculate inSampleSize
-        options.inSampleSize = Graphics.calculateInSampleSize(options, display.x, display.y);
-        //RGB565 to reduce memory consumption
-        options.inPreferredConfig = Bitmap.Config.RGB_565;
-
-        // Decode bitmap with inSampleSize set
-        options.inJustDecodeBounds = false;
-        Bitmap bitmap = (BitmapFactory.decodeFile(path, options));
-
-        int rotation = Utility.getCameraPhotoOrientation(file);
-        if (rotation != 0) {
-            bitmap = Utility.rotateBitmap(bitmap, rotation);
-        }
-        return bitmap;
-    }
-
-    private Bitmap rescaleBackgroundImage(Bitmap bgimage) {
-        Log.d(TAG, "rescaleBackgroundImage");
-        if (bgimage == null) return null;
-
-        Point display = Utility.getDisplaySize(mContext);
-        int nw = bgimage.getWidth();
-        int nh = bgimage.getHeight();
-        boolean scaling_needed = false;
-        if (bgimage.getHeight() > display.y) {
-            nw = (int) ((display.y / (float) bgimage.getHeight()) * bgimage.getWidth());
-            nh = display.y;
-            scaling_needed = true;
-        }
-
-        if (nw > display.x) {
-            nh = (int) ((display.x / (float) bgimage.getWidth()) * bgimage.getHeight());
-            nw = display.x;
-            scaling_needed = true;
-        }
-
-        if (scaling_needed) {
-            bgimage = Bitmap.createScaledBitmap(bgimage, nw, nh, false);
+    /**
+     * Computes the palette colors of the filtered image if they are not yet in the index.
+     */
+    private void updatePaletteColors(SlideshowIndex.Entry entry, Bitmap bitmap) {
+        if (entry == null || bitmap == null || entry.hasColors(settings.background_filter)) {
+            return;
         }
-        return bgimage;
+        // swatches are opaque, transparent denotes a missing swatch
+        int color = Utility.getVibrantColorFromPalette(bitmap, Color.TRANSPARENT);
+        int colorDark = Utility.getDarkMutedColorFromPalette(bitmap, Color.TRANSPARENT);
+        int filter = settings.background_filter;
+        getSlideshowIndex().update(entry, current -> current.withColors(
+                filter, color != Color.TRANSPARENT, color, colorDark != Color.TRANSPARENT, colorDark
+        ));
     }
 
     private void setDominantColorFromBitmap(Bitmap bitmap) {
@@ -1152,7 +1128,22 @@ public class NightDreamUI {
         if (!settings.background_mode_auto_color) return;
         int defaultColor = (mode == 0) ? settings.clockColorNight : settings.clockColor;
         int color = Utility.getVibrantColorFromPalette(bitmap, defaultColor);
-        vibrantColorDark = Utility.getDarkMutedColorFromPalette(bitmap, Color.BLACK);
+        int colorDark = Utility.getDarkMutedColorFromPalette(bitmap, Color.BLACK);
+        setDominantColor(color, colorDark, defaultColor);
+    }
+
+    private void setDominantColorFromEntry(SlideshowIndex.Entry entry) {
+        Log.d(TAG, "setDominantColorFromEntry");
+
+        if (!settings.background_mode_auto_color) return;
+        int defaultColor = (mode == 0) ? settings.clockColorNight : settings.clockColor;
+        int color = entry.hasVibrantColor ? entry.vibrantColor : defaultColor;
+        int colorDark = entry.hasDarkMutedColor ? entry.darkMutedColor : Color.BLACK;
+        setDominantColor(color, colorDark, defaultColor);
+    }
+
+    private void setDominantColor(int color, int colorDark, int defaultColor) {
+        vibrantColorDark = colorDark;
 
         if (color != defaultColor) {
             vibrantColor = color;
@@ -1202,6 +1193,10 @@ public class NightDreamUI {
         removeCallbacks(fadeClock);
         removeCallbacks(backgroundChange);
         removeCallbacks(zoomIn);
+        TaskScheduler.getInstance().cancel(this);
+        if (slideshowPrefetcher != null) {
+            slideshowPrefetcher.clear();
+        }
     }
 
     public void onDestroy() {
@@ -1740,46 +1735,44 @@ public class NightDreamUI {
         dimScreen(screen_alpha_animation_duration, last_ambient, settings.dim_offset);
     }
 
-    private Bitmap imageFilter(Bitmap bitmap) {
-        if ((settings.background_filter == 1) || (settings.getBackgroundMode() != Settings.BACKGROUND_SLIDESHOW)) {
-            return bitmap;
-        }
-
+    private PixelKernels.Kernel getImageFilterKernel() {
         switch (settings.background_filter) {
             case 2:
-                return Graphics.desaturate(bitmap);
+                return PixelKernels.colorMatrix(PixelKernels.DESATURATE);
             case 3:
-                return Graphics.sepia(bitmap);
+                return PixelKernels.colorMatrix(PixelKernels.SEPIA);
             case 4:
-                return Graphics.invert(bitmap);
+                return PixelKernels.colorMatrix(PixelKernels.INVERT);
             case 5:
-                return Graphics.contrast(bitmap);
+                return PixelKernels.colorMatrix(PixelKernels.CONTRAST);
             case 6:
-                return Graphics.sketch(bitmap);
-            case 7:
-                if (Build.VERSION.SDK_INT <= Build.VERSION_CODES.S) {
-                    // blur has bin mirgrated away from renderscript
-                    // older android versions no longer support blurring the image
-                    return bitmap;
-                }
+                return PixelKernels.SKETCH;
+            default:
+                return null;
         }
-
-        return bitmap.copy(Bitmap.Config.ARGB_8888, true);
     }
 
     private void getExifInformation(File file) {
-        ExecutorService executor = Executors.newSingleThreadExecutor();
         Handler handler = new Handler(Looper.getMainLooper());
-        executor.execute(() -> { //background thread
-            Boolean success = exifView.getExifView(mContext, file, getSecondaryColor());
-            handler.post(() -> { //like onPostExecute()
-                if (success) {
-                    exifLayoutContainer.setVisibility(View.VISIBLE);
-                } else {
-                    exifLayoutContainer.setVisibility(View.GONE);
-                }
+        final SlideshowIndex.Entry entry = getSlideshowIndex().get(file);
+        final int secondaryColor = getSecondaryColor();
+        try {
+            TaskScheduler.getInstance().submit(TaskScheduler.Lane.UI, null, this, () -> { //background thread
+                Boolean success = (entry != null && entry.hasMetadata)
+                        ? exifView.getExifView(mContext, entry, secondaryColor)
+                        : exifView.getExifView(mContext, file, secondaryColor);
+                handler.post(() -> { //like onPostExecute()
+                    if (success) {
+                        exifLayoutContainer.setVisibility(View.VISIBLE);
+                    } else {
+                        exifLayoutContainer.setVisibility(View.GONE);
+                    }
+                });
             });
-        });
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Task rejected: the UI queue is full.");
+            exifLayoutContainer.setVisibility(View.GONE);
+        }
     }
 
     public void weatherDataUpdated(Context context) {
@@ -1790,27 +1783,6 @@ public class NightDreamUI {
         ClockWidgetProvider.updateAllWidgets(context);
     }
 
-    private final class preloadImageFromPath extends AsyncTask<File, Integer, Bitmap> {
-
-        @Override
-        protected Bitmap doInBackground(File... params) {
-            if (files == null || files.isEmpty() || params[0] == null) {
-                return null;
-            } else {
-                return imageFilter(rescaleBackgroundImage(loadImageFromPath(params[0])));
-            }
-        }
-
-        @Override
-        protected void onProgressUpdate(Integer... params) {
-        }
-
-        @Override
-        protected void onPostExecute(Bitmap result) {
-            preloadBackgroundImage = result;
-        }
-    }
-
     class NightDreamBroadcastReceiver extends BroadcastReceiver {
         @Override
         public void onReceive(Context context, Intent intent) {
@@ -0,0 +1,124 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.ui;
+
+import android.content.Context;
+import android.graphics.PorterDuff;
+import android.graphics.drawable.Drawable;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.firebirdberlin.nightdream.R;
+
+/**
+ * Shows one row per pollen type. The pollen name is the stable id of a row.
+ */
+public class PollenForecastAdapter extends ListAdapter<PollenForecastAdapter.Item, PollenForecastAdapter.ViewHolder> {
+    private static final int[] colorResId = new int[]{
+            R.color.grey,
+            R.color.material_light_green,
+            R.color.material_yellow,
+            R.color.material_amber,
+            R.color.material_orange,
+            R.color.material_purple,
+            R.color.material_red
+    };
+
+    private static final DiffUtil.ItemCallback<Item> DIFF_CALLBACK = new DiffUtil.ItemCallback<Item>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+            return oldItem.key.equals(newItem.key);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+            return oldItem.index == newItem.index
+                    && oldItem.drawableResId == newItem.drawableResId
+                    && oldItem.textResId == newItem.textResId;
+        }
+    };
+
+    public PollenForecastAdapter() {
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).key.hashCode();
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        PollenForecastLayout layout = new PollenForecastLayout(parent.getContext());
+        layout.setLayoutParams(
+                new RecyclerView.LayoutParams(
+                        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT
+                )
+        );
+        return new ViewHolder(layout);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        Item item = getItem(position);
+        Context context = holder.layout.getContext();
+        Drawable drawable = ContextCompat.getDrawable(context, item.drawableResId);
+        if (drawable != null) {
+            // the constant state is shared by all drawables of the resource
+            drawable = drawable.mutate();
+            drawable.setColorFilter(context.getColor(colorResId[item.index]), PorterDuff.Mode.SRC_ATOP);
+        }
+        holder.layout.setImage(drawable);
+        holder.layout.setPollenText((item.textResId != 0) ? context.getString(item.textResId) : item.key);
+        holder.layout.setPollenStressLevel(item.index);
+    }
+
+    public static class Item {
+        final String key;
+        final int drawableResId;
+        final int textResId;
+        final int index;
+
+        /**
+         * @param index the stress index, it is clamped to 0..6
+         */
+        public Item(String key, int drawableResId, int textResId, int index) {
+            this.key = key;
+            this.drawableResId = drawableResId;
+            this.textResId = textResId;
+            this.index = Math.min(colorResId.length - 1, Math.max(0, index));
+        }
+    }
+
+    public static class ViewHolder extends RecyclerView.ViewHolder {
+        final PollenForecastLayout layout;
+
+        ViewHolder(PollenForecastLayout layout) {
+            super(layout);
+            this.layout = layout;
+        }
+    }
+}
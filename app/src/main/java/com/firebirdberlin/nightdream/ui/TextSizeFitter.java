@@ -0,0 +1,238 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.ui;
+
+import android.content.Context;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.util.LruCache;
+
+import com.firebirdberlin.nightdream.Utility;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds the smallest font size (in sp) at which a text no longer fits into given bounds.
+ * <p>
+ * The search is a binary search over the allowed font sizes. Results are memoized per text
+ * shape, typeface, paint attributes which change the text width and bounds. Callers should pass a text in which all digits are replaced by
+ * the widest digit (see CustomDigitalClock.getSampleText()), so that a new second or minute
+ * does not cause a re-fit.
+ * <p>
+ * Each instance additionally remembers its last request, so repeated calls with unchanged
+ * inputs are answered without any allocation.
+ */
+public class TextSizeFitter {
+    private static final LruCache<Key, Integer> memo = new LruCache<>(64);
+    // fit() is called from the UI thread and from background renderers like the widget
+    private static final AtomicLong fitCount = new AtomicLong();
+    private static final AtomicLong cacheHitCount = new AtomicLong();
+
+    private final Paint measurePaint = new Paint();
+    private final Rect bounds = new Rect();
+
+    private String lastText = null;
+    private Typeface lastTypeface = null;
+    private float lastLetterSpacing = 0f;
+    private String lastFontFeatureSettings = null;
+    private boolean lastFakeBold = false;
+    private float lastTextSkewX = 0f;
+    private int lastScale = -1;
+    private int lastMinSp = -1;
+    private int lastMaxSp = -1;
+    private int lastMaxWidth = -1;
+    private int lastMaxHeight = -1;
+    private int lastResult = -1;
+
+    /**
+     * @return the number of fits which measured the text
+     */
+    public static long getFitCount() {
+        return fitCount.get();
+    }
+
+    /**
+     * @return the number of fits which were served from the cache
+     */
+    public static long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    public static void clearCache() {
+        memo.evictAll();
+    }
+
+    /**
+     * @param paint     the paint of the view. It is not modified.
+     * @param maxHeight max. height of the text bounds or -1 if the height is not restricted
+     * @return the first font size in sp which exceeds the bounds or maxSp if all sizes fit
+     */
+    public int fit(Context context, Paint paint, String text,
+                   int minSp, int maxSp, int maxWidth, int maxHeight) {
+        if (text == null) {
+            text = "";
+        }
+        // accounts for the display density and the user's font scale
+        final int scale = Utility.spToPx(context, 100);
+        final Typeface typeface = paint.getTypeface();
+        final float letterSpacing = paint.getLetterSpacing();
+        final String fontFeatureSettings = paint.getFontFeatureSettings();
+        final boolean fakeBold = paint.isFakeBoldText();
+        final float textSkewX = paint.getTextSkewX();
+
+        if (lastResult > 0
+                && typeface == lastTypeface
+                && letterSpacing == lastLetterSpacing
+                && Objects.equals(fontFeatureSettings, lastFontFeatureSettings)
+                && fakeBold == lastFakeBold
+                && textSkewX == lastTextSkewX
+                && scale == lastScale
+                && minSp == lastMinSp
+                && maxSp == lastMaxSp
+                && maxWidth == lastMaxWidth
+                && maxHeight == lastMaxHeight
+                && text.equals(lastText)) {
+            cacheHitCount.incrementAndGet();
+            return lastResult;
+        }
+
+        final Key key = new Key(
+                text, typeface, letterSpacing, fontFeatureSettings, fakeBold, textSkewX,
+                scale, minSp, maxSp, maxWidth, maxHeight
+        );
+        Integer cached = memo.get(key);
+        int result;
+        if (cached != null) {
+            cacheHitCount.incrementAndGet();
+            result = cached;
+        } else {
+            fitCount.incrementAndGet();
+            result = search(context, paint, text, minSp, maxSp, maxWidth, maxHeight);
+            memo.put(key, result);
+        }
+
+        lastText = text;
+        lastTypeface = typeface;
+        lastLetterSpacing = letterSpacing;
+        lastFontFeatureSettings = fontFeatureSettings;
+        lastFakeBold = fakeBold;
+        lastTextSkewX = textSkewX;
+        lastScale = scale;
+        lastMinSp = minSp;
+        lastMaxSp = maxSp;
+        lastMaxWidth = maxWidth;
+        lastMaxHeight = maxHeight;
+        lastResult = result;
+        return result;
+    }
+
+    private int search(Context context, Paint paint, String text,
+                       int minSp, int maxSp, int maxWidth, int maxHeight) {
+        measurePaint.set(paint);
+        // the text size grows monotonically, so search the first size which does not fit
+        int low = minSp;
+        int high = maxSp;
+        int result = maxSp;
+        while (low <= high) {
+            int size = (low + high) >>> 1;
+            if (exceedsBounds(context, text, size, maxWidth, maxHeight)) {
+                result = size;
+                high = size - 1;
+            } else {
+                low = size + 1;
+            }
+        }
+        return result;
+    }
+
+    private boolean exceedsBounds(Context context, String text, int sizeSp,
+                                  int maxWidth, int maxHeight) {
+        measurePaint.setTextSize(Utility.spToPx(context, sizeSp));
+        if (measurePaint.measureText(text) > maxWidth) {
+            return true;
+        }
+        if (maxHeight > -1) {
+            measurePaint.getTextBounds(text, 0, text.length(), bounds);
+            return bounds.height() > maxHeight;
+        }
+        return false;
+    }
+
+    /**
+     * The inputs of a fit. Typefaces are compared by reference, equal fonts are shared by the
+     * FontCache.
+     */
+    private static final class Key {
+        final String text;
+        final Typeface typeface;
+        final float letterSpacing;
+        final String fontFeatureSettings;
+        final boolean fakeBold;
+        final float textSkewX;
+        final int scale;
+        final int minSp;
+        final int maxSp;
+        final int maxWidth;
+        final int maxHeight;
+
+        Key(String text, Typeface typeface, float letterSpacing, String fontFeatureSettings,
+            boolean fakeBold, float textSkewX, int scale, int minSp, int maxSp,
+            int maxWidth, int maxHeight) {
+            this.text = text;
+            this.typeface = typeface;
+            this.letterSpacing = letterSpacing;
+            this.fontFeatureSettings = fontFeatureSettings;
+            this.fakeBold = fakeBold;
+            this.textSkewX = textSkewX;
+            this.scale = scale;
+            this.minSp = minSp;
+            this.maxSp = maxSp;
+            this.maxWidth = maxWidth;
+            this.maxHeight = maxHeight;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return typeface == other.typeface
+                    && Float.compare(letterSpacing, other.letterSpacing) == 0
+                    && fakeBold == other.fakeBold
+                    && Float.compare(textSkewX, other.textSkewX) == 0
+                    && scale == other.scale
+                    && minSp == other.minSp
+                    && maxSp == other.maxSp
+                    && maxWidth == other.maxWidth
+                    && maxHeight == other.maxHeight
+                    && text.equals(other.text)
+                    && Objects.equals(fontFeatureSettings, other.fontFeatureSettings);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(
+                    text, System.identityHashCode(typeface), letterSpacing, fontFeatureSettings,
+                    fakeBold, textSkewX, scale, minSp, maxSp, maxWidth, maxHeight
+            );
+        }
+    }
+}
@@ -18,59 +18,88 @@
 
 package com.firebirdberlin.nightdream.ui;
 
-import android.animation.Animator;
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.Intent;
+import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Typeface;
 import android.graphics.drawable.GradientDrawable;
 import android.net.Uri;
 import android.os.Handler;
+import android.text.TextPaint;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.Log;
-import android.view.Gravity;
+import android.util.TypedValue;
+import android.view.Choreographer;
+import android.view.MotionEvent;
 import android.view.View;
-import android.view.ViewGroup;
-import android.view.animation.LinearInterpolator;
 import android.widget.FrameLayout;
 import android.widget.LinearLayout;
-import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.firebirdberlin.nightdream.Utility;
 import com.firebirdberlin.nightdream.models.RssFeedItem;
+import com.firebirdberlin.nightdream.util.TaskScheduler;
 import com.firebirdberlin.nightdream.viewmodels.RSSViewModel;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
-
-//shows text scrolling from right to left
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Shows text scrolling from right to left.
+ * <p>
+ * The headlines are measured once in the background and drawn directly onto the canvas of the
+ * ticker. A single frame callback moves them, only the headlines which are currently visible are
+ * drawn. Their slots are recycled once they left the screen, so the work per frame does not
+ * depend on the number of headlines.
+ */
 public class Ticker extends FrameLayout implements View.OnClickListener {
 
     public static String TAG = "Ticker";
-    private long animationSpeed = 5L;
+    private static final int MAX_HEADLINES = 15;
+    private static final long STATIC_HEADLINE_MILLIS = 10000;
+    private long animationSpeed = 5L; // ms per pixel
     private final List<String> headlines = new ArrayList<>();
     private final List<String> urls = new ArrayList<>();
-    private final Set<View> animatedViews = new HashSet<>();
-    private final Set<Animator> animators = new HashSet<>();
+    // the measured headlines, null while they are measured
+    private List<Line> lines = null;
+    // the visible headlines from left to right
+    private final ArrayDeque<Slot> slots = new ArrayDeque<>();
+    private final ArrayDeque<Slot> freeSlots = new ArrayDeque<>();
+    private final TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint.FontMetrics fontMetrics = new Paint.FontMetrics();
     private int textColor = Color.WHITE;
     private int accentColor = Color.WHITE;
     private int index = -1;
     private final Context context;
     private float textSize = 28.f;
     private boolean running = false;
+    private boolean paused = false;
+    private boolean animationsEnabled = true;
+    private boolean frameCallbackPosted = false;
+    private long lastFrameTimeNanos = 0;
+    private int generation = 0;
+    private String staticText = null;
+    private float staticTextWidth = 0;
+    private float touchX = -1;
     final private Handler handler = new Handler();
 
+    private final Choreographer.FrameCallback frameCallback = this::doFrame;
+    private final Runnable showNextHeadline = this::showNextHeadline;
+
     public Ticker(Context context, AttributeSet attrs) {
         super(context, attrs);
         this.context = context;
+        setWillNotDraw(false);
+        setOnClickListener(this);
 
         GradientDrawable background = new GradientDrawable();
         background.setColor(Color.parseColor("#AA212121"));
@@ -82,6 +111,10 @@ public class Ticker extends FrameLayout implements View.OnClickListener {
         );
         setLayoutParams(params);
 
+        paint.setTypeface(Typeface.DEFAULT);
+        paint.setColor(textColor);
+        paint.setTextSize(getTextSizePx());
+
         RSSViewModel.observe(context, items -> {
             if (items != null) {
                 setHeadlines(items);
@@ -105,23 +138,32 @@ public class Ticker extends FrameLayout implements View.OnClickListener {
         });
     }
 
+    private static class Line {
+        final String text;
+        final String url;
+        final float width;
+
+        Line(String text, String url, float width) {
+            this.text = text;
+            this.url = url;
+            this.width = width;
+        }
+    }
+
+    private static class Slot {
+        int line;
+        float x;
+    }
+
     public void setHeadlines(List<RssFeedItem> items) {
         Log.i(TAG, "setHeadlines()");
         if (items != null && !items.isEmpty()) {
             this.headlines.clear();
             this.urls.clear();
-            Log.d(TAG, "setHeadlines(List<RssFeedItem> articles)");
-            int count = 0;
             for (RssFeedItem item : items) {
-                String title = item.getTitle();
-                String link = item.getLink();
-                String time = item.getPubDate();
-                Log.d(TAG, "rss Date: " + time);
-                Log.d(TAG, "rss Title: " + title);
-                Log.d(TAG, "rss Link: " + link);
-                headlines.add(title);
-                urls.add(link);
-                if (++count >= 15) { // only up to 15 messages
+                headlines.add(item.getTitle());
+                urls.add(item.getLink());
+                if (headlines.size() >= MAX_HEADLINES) {
                     break;
                 }
             }
@@ -131,10 +173,13 @@ public class Ticker extends FrameLayout implements View.OnClickListener {
 
     public void addHeadline(String headline) {
         this.headlines.add(headline);
+        this.urls.add(null);
     }
 
     public void setTextColor(int color) {
         this.textColor = color;
+        paint.setColor(color);
+        invalidate();
     }
 
     public void setBackColor(int color) {
@@ -143,32 +188,17 @@ public class Ticker extends FrameLayout implements View.OnClickListener {
 
     public void setCustomColor(int accentColor, int textColor) {
         this.accentColor = accentColor;
-        this.textColor = textColor;
-
-        updateChildren();
+        setTextColor(textColor);
     }
 
     public void restart() {
         Log.i(TAG, "restart()");
-        removeAllViewsInLayout();
-        requestLayout();
-        invalidate();
         run(true);
     }
 
-    private void updateChildren() {
-        final int childCount = getChildCount();
-        for (int i = 0; i < childCount; i++) {
-            View v = getChildAt(i);
-            if (v instanceof TextView) {
-                ((TextView) v).setTextColor(textColor);
-            }
-        }
-    }
-
     public void setTickerSpeed(Long speed) {
         Log.d(TAG, "setTickerSpeed(): " + speed);
-        if (animationSpeed != speed) {
+        if (speed != null && speed > 0) {
             animationSpeed = speed;
         }
     }
@@ -181,201 +211,261 @@ public class Ticker extends FrameLayout implements View.OnClickListener {
         }
         if (!this.running || restart) {
             this.running = true;
-            launchNext();
+            measure();
         }
     }
 
-    @Override
-    protected void onDetachedFromWindow() {
-        super.onDetachedFromWindow();
-        handler.removeCallbacksAndMessages(null);
-    }
-
     public void pause() {
         Log.d(TAG, "pause()");
-        for (Animator animator: animators) {
-            animator.pause();
-        }
+        paused = true;
+        stop();
     }
+
     public void resume() {
         Log.d(TAG, "resume()");
-        if(Utility.areSystemAnimationsEnabled(context) ) {
-            for (Animator animator: animators) {
-                animator.resume();
-            }
+        paused = false;
+        start();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (running && lines == null) {
+            measure();
         } else {
-            launchNext();
+            start();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        stop();
+        // a pending measurement is repeated when the ticker is attached again
+        if (lines == null) {
+            generation++;
+            TaskScheduler.getInstance().cancel(this);
         }
     }
 
     @Override
-    @SuppressLint("DrawAllocation")
-    protected void onLayout(boolean changed, int l, int t, int r, int b) {
-        Paint textPaint = new Paint();
-        textPaint.setTypeface(Typeface.DEFAULT);
-
-        for (int i = 0; i < getChildCount(); i++) {
-            View child = getChildAt(i);
-            if (child instanceof TextView) {
-                TextView tv = (TextView) child;
-                textPaint.setTextSize(tv.getTextSize());
-                String text = tv.getText().toString();
-                int w = (int) textPaint.measureText(text, 0, text.length());
-                int h = tv.getMeasuredHeight();
-                tv.layout(0, 0, w, h);
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        paint.getFontMetrics(fontMetrics);
+        int height = (int) Math.ceil(fontMetrics.bottom - fontMetrics.top)
+                + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(
+                getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec),
+                resolveSize(Math.max(height, getSuggestedMinimumHeight()), heightMeasureSpec)
+        );
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        if (lines == null || lines.isEmpty()) {
+            return;
+        }
+        int width = getWidth();
+        float baseline = (getHeight() - fontMetrics.descent - fontMetrics.ascent) / 2.f;
+        canvas.save();
+        // the parent does not clip its children
+        canvas.clipRect(0, 0, width, getHeight());
+        if (animationsEnabled) {
+            for (Slot slot : slots) {
+                if (slot.x >= width) break;
+                canvas.drawText(lines.get(slot.line).text, slot.x, baseline, paint);
             }
+        } else if (staticText != null) {
+            float x = Math.max(getPaddingLeft(), (width - staticTextWidth) / 2.f);
+            canvas.drawText(staticText, x, baseline, paint);
         }
+        canvas.restore();
+    }
+
+    @SuppressLint("ClickableViewAccessibility")
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        touchX = event.getX();
+        return super.onTouchEvent(event);
     }
 
     @Override
     public void onClick(View v) {
-        Object tag = v.getTag();
-        if (tag instanceof Integer && context != null) {
-            String url = urls.get(index);
-            if ((url != null) && (!url.isEmpty())) {
-                Intent browserIntent = new Intent(Intent.ACTION_VIEW);
-                browserIntent.setData(Uri.parse(url));
-                context.startActivity(browserIntent);
+        String url = getUrlAt(touchX);
+        if (context != null && url != null && !url.isEmpty()) {
+            Intent browserIntent = new Intent(Intent.ACTION_VIEW);
+            browserIntent.setData(Uri.parse(url));
+            context.startActivity(browserIntent);
+        }
+    }
+
+    private String getUrlAt(float x) {
+        if (lines == null || lines.isEmpty()) {
+            return null;
+        }
+        if (!animationsEnabled) {
+            return (index >= 0) ? lines.get(index).url : null;
+        }
+        for (Slot slot : slots) {
+            if (x >= slot.x && x < slot.x + lines.get(slot.line).width) {
+                return lines.get(slot.line).url;
             }
         }
+        return null;
     }
 
-    private void launchNext() {
-        Log.i(TAG, "launchNext()");
-        boolean animationsEnabled = Utility.areSystemAnimationsEnabled(context);
-        String headline = "";
-        int count = 0;
-        while (headline.isEmpty() && count < headlines.size()) {
-            index = (index + 1) % headlines.size();
-            headline = headlines.get(index).trim();
-            if (animationsEnabled) {
-                headline = " +++ " + headline;
+    private float getTextSizePx() {
+        return TypedValue.applyDimension(
+                TypedValue.COMPLEX_UNIT_SP, textSize, getResources().getDisplayMetrics()
+        );
+    }
+
+    /**
+     * Measures the headlines in the background and starts the ticker afterwards.
+     */
+    private void measure() {
+        stop();
+        recycleSlots();
+        lines = null;
+        staticText = null;
+        index = -1;
+        animationsEnabled = Utility.areSystemAnimationsEnabled(context);
+        paint.setTextSize(getTextSizePx());
+        requestLayout();
+        invalidate();
+
+        final int measureGeneration = ++generation;
+        final boolean prefix = animationsEnabled;
+        final List<String> texts = new ArrayList<>(headlines);
+        final List<String> links = new ArrayList<>(urls);
+        final TextPaint measurePaint = new TextPaint(paint);
+        Runnable work = () -> {
+            List<Line> result = new ArrayList<>();
+            for (int i = 0; i < texts.size(); i++) {
+                String text = texts.get(i);
+                if (text == null || text.trim().isEmpty()) continue;
+                text = (prefix) ? " +++ " + text.trim() : text.trim();
+                String url = (i < links.size()) ? links.get(i) : null;
+                result.add(new Line(text, url, measurePaint.measureText(text)));
             }
-            count++;
+            List<Line> measured = Collections.unmodifiableList(result);
+            handler.post(() -> onMeasured(measureGeneration, measured));
+        };
+        TaskScheduler.getInstance().cancel(this);
+        try {
+            TaskScheduler.getInstance().submit(TaskScheduler.Lane.CPU, null, this, work);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Task rejected: the CPU queue is full.");
+            work.run();
         }
+    }
 
-        TextView tv = getTextView(animationsEnabled, headline);
-        if( Utility.areSystemAnimationsEnabled(context) ) {
-            removeNonAnimatedViews();
-            tv.addOnLayoutChangeListener((v, left, top, right, bottom, oldLeft, oldTop, oldRight, oldBottom) -> {
-                // View\'s dimensions are available only after the layout pass.
-                // Now is the time to start animating it.
-                Log.i(TAG, "addOnLayoutChangeListener");
-                animationStart((TextView) v);
-            });
-        } else {
-            removeAllViews();
-            requestLayout();
-            handler.removeCallbacksAndMessages(null);
-            handler.postDelayed(this::launchNext, 10000);
+    private void onMeasured(int measureGeneration, List<Line> measured) {
+        if (measureGeneration != generation) {
+            return;
         }
-        addView(tv);
+        lines = measured;
+        start();
     }
 
-    private TextView getTextView(boolean animationsEnabled, String headline) {
-        TextView tv = new TextView(getContext());
+    private void start() {
+        if (!running || paused || lines == null || lines.isEmpty() || !isAttachedToWindow()) {
+            return;
+        }
         if (animationsEnabled) {
-            tv.setGravity(Gravity.CENTER_VERTICAL);
-            tv.setWidth(ViewGroup.LayoutParams.MATCH_PARENT);
+            if (!frameCallbackPosted) {
+                frameCallbackPosted = true;
+                lastFrameTimeNanos = 0;
+                Choreographer.getInstance().postFrameCallback(frameCallback);
+            }
+        } else if (staticText == null) {
+            showNextHeadline();
         } else {
-            tv.setGravity(Gravity.CENTER);
-            tv.setSelected(true);
-            tv.setEllipsize(TextUtils.TruncateAt.MARQUEE);
-            tv.setMarqueeRepeatLimit(101);
-            tv.setHorizontallyScrolling(true);
-        }
-        tv.setHeight(ViewGroup.LayoutParams.WRAP_CONTENT);
-        tv.setOnClickListener(this);
-        tv.setSingleLine(true);
-        tv.setTag(index);
-        tv.setTextColor(this.textColor);
-        tv.setTextSize(this.textSize);
-        if (!headline.isEmpty()) {
-            tv.setText(headline);
+            handler.removeCallbacks(showNextHeadline);
+            handler.postDelayed(showNextHeadline, STATIC_HEADLINE_MILLIS);
         }
-        return tv;
     }
 
-    void removeNonAnimatedViews() {
-        for (int i=0; i < getChildCount(); i++) {
-           View view = getChildAt(i) ;
-            if (! animatedViews.contains(view)) {
-                removeView(view);
-            }
+    private void stop() {
+        if (frameCallbackPosted) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            frameCallbackPosted = false;
         }
+        handler.removeCallbacks(showNextHeadline);
+    }
 
+    private void doFrame(long frameTimeNanos) {
+        frameCallbackPosted = false;
+        if (!running || paused || lines == null || lines.isEmpty()) {
+            return;
+        }
+        if (lastFrameTimeNanos > 0) {
+            float millis = (frameTimeNanos - lastFrameTimeNanos) / 1000000.f;
+            advance(millis / animationSpeed);
+        } else {
+            advance(0);
+        }
+        lastFrameTimeNanos = frameTimeNanos;
+        invalidate();
+        frameCallbackPosted = true;
+        Choreographer.getInstance().postFrameCallback(frameCallback);
     }
-    private void animationStart(final TextView tv) {
-        if (animatedViews.contains(tv)) {
+
+    /**
+     * Moves the visible headlines to the left. A headline enters the screen at the right edge as
+     * soon as the end of its predecessor is visible.
+     */
+    private void advance(float distance) {
+        int width = getWidth();
+        if (width <= 0) {
             return;
         }
+        for (Slot slot : slots) {
+            slot.x -= distance;
+        }
+        while (!slots.isEmpty()) {
+            Slot first = slots.peekFirst();
+            if (first.x + lines.get(first.line).width > 0) break;
+            freeSlots.push(slots.pollFirst());
+        }
+        Slot last = slots.peekLast();
+        float next = (last != null) ? last.x + lines.get(last.line).width : width;
+        while (next <= width) {
+            Slot slot = (freeSlots.isEmpty()) ? new Slot() : freeSlots.pop();
+            index = (index + 1) % lines.size();
+            slot.line = index;
+            slot.x = next;
+            slots.add(slot);
+            next += lines.get(index).width;
+        }
+    }
 
-        //move view out off screen.
-        tv.setTranslationX(getWidth());
-        int distance = (int) tv.getPaint().measureText(tv.getText().toString());
-        tv.animate()
-                .translationXBy(-distance)
-                .setDuration(distance * animationSpeed)
-                .setInterpolator(new LinearInterpolator())
-                .setListener(new Animator.AnimatorListener() {
-                    @Override
-                    public void onAnimationStart(@NonNull Animator animation) {
-                        Log.d(TAG, "start animation");
-                        animators.add(animation);
-                        animatedViews.add(tv);
-                    }
-
-                    @Override
-                    public void onAnimationEnd(@NonNull Animator animation) {
-                        animators.remove(animation);
-                        if (tv.getParent() != null) {
-                            animationEnd(tv);
-                            launchNext();
-                        }
-                    }
-
-                    @Override
-                    public void onAnimationCancel(@NonNull Animator animation) {
-                        animators.remove(animation);
-                        animatedViews.remove(tv);
-                    }
-
-                    @Override
-                    public void onAnimationRepeat(@NonNull Animator animation) {
-                    }
-                }).start();
+    private void recycleSlots() {
+        while (!slots.isEmpty()) {
+            freeSlots.push(slots.pollFirst());
+        }
     }
 
-    private void animationEnd(final TextView tv) {
-        int distance = getWidth();
-        tv.animate()
-                .translationXBy(-distance)
-                .setDuration(distance * animationSpeed)
-                .setInterpolator(new LinearInterpolator())
-                .setListener(new Animator.AnimatorListener() {
-                    @Override
-                    public void onAnimationStart(@NonNull Animator animation) {
-                        animators.add(animation);
-                    }
-
-                    @Override
-                    public void onAnimationEnd(@NonNull Animator animation) {
-                        removeView(tv);
-                        animators.remove(animation);
-                        animatedViews.remove(tv);
-                    }
-
-                    @Override
-                    public void onAnimationCancel(@NonNull Animator animation) {
-                        //Remove view from set
-                        animatedViews.remove(tv);
-                        animators.remove(animation);
-                    }
-
-                    @Override
-                    public void onAnimationRepeat(@NonNull Animator animation) {
-                    }
-                })
-                .start();
+    /**
+     * Without animations the headlines are shown one after another.
+     */
+    private void showNextHeadline() {
+        if (lines == null || lines.isEmpty()) {
+            return;
+        }
+        index = (index + 1) % lines.size();
+        Line line = lines.get(index);
+        staticText = line.text;
+        staticTextWidth = line.width;
+        int available = getWidth() - getPaddingLeft() - getPaddingRight();
+        if (available > 0 && line.width > available) {
+            staticText = TextUtils.ellipsize(
+                    line.text, paint, available, TextUtils.TruncateAt.END
+            ).toString();
+            staticTextWidth = paint.measureText(staticText);
+        }
+        invalidate();
+        handler.removeCallbacks(showNextHeadline);
+        handler.postDelayed(showNextHeadline, STATIC_HEADLINE_MILLIS);
     }
 }
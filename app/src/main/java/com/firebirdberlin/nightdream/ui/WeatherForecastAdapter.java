@@ -0,0 +1,223 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.ui;
+
+import android.content.Context;
+import android.graphics.Typeface;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.firebirdberlin.nightdream.R;
+import com.firebirdberlin.openweathermapapi.models.WeatherEntry;
+
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Shows the hourly forecast grouped by day. Only the visible rows are inflated, a
+ * WeatherForecastLayout is rebound when it scrolls back into view.
+ */
+public class WeatherForecastAdapter extends ListAdapter<WeatherForecastAdapter.Item, RecyclerView.ViewHolder> {
+    private static final int TYPE_DAY = 0;
+    private static final int TYPE_ENTRY = 1;
+    // entries which are older are not shown
+    private static final long MAX_AGE_MILLIS = 600000;
+
+    private static final DiffUtil.ItemCallback<Item> DIFF_CALLBACK = new DiffUtil.ItemCallback<Item>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+            return oldItem.id == newItem.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+            if (oldItem.type != newItem.type) {
+                return false;
+            }
+            if (oldItem.type == TYPE_DAY) {
+                return oldItem.day == newItem.day;
+            }
+            return showsTheSame(oldItem.entry, newItem.entry);
+        }
+    };
+
+    private String timeFormat = "HH:mm";
+    private int temperatureUnit = WeatherEntry.CELSIUS;
+    private int speedUnit = WeatherEntry.METERS_PER_SECOND;
+
+    public WeatherForecastAdapter() {
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
+    }
+
+    /**
+     * Flattens the entries into day headers and forecast rows.
+     */
+    public static List<Item> buildItems(List<WeatherEntry> entries, long now) {
+        List<Item> items = new ArrayList<>();
+        if (entries == null) {
+            return items;
+        }
+        Calendar calendar = Calendar.getInstance();
+        long day = -1;
+        for (WeatherEntry entry : entries) {
+            if (entry.timestamp * 1000 < now - MAX_AGE_MILLIS) {
+                continue;
+            }
+            calendar.setTimeInMillis(entry.timestamp * 1000);
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            calendar.set(Calendar.MINUTE, 0);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            long startOfDay = calendar.getTimeInMillis();
+            if (startOfDay != day) {
+                day = startOfDay;
+                items.add(new Item(TYPE_DAY, -(startOfDay / 1000) - 1, startOfDay, null));
+            }
+            items.add(new Item(TYPE_ENTRY, entry.timestamp, startOfDay, entry));
+        }
+        return items;
+    }
+
+    /**
+     * Compares the values which a WeatherForecastLayout shows. The units are the same for all
+     * rows, see setFormat().
+     */
+    static boolean showsTheSame(WeatherEntry a, WeatherEntry b) {
+        return a.timestamp == b.timestamp
+                && Objects.equals(a.weatherIconMeteoconsSymbol, b.weatherIconMeteoconsSymbol)
+                && a.temperature == b.temperature
+                && a.apparentTemperature == b.apparentTemperature
+                && a.humidity == b.humidity
+                && a.windSpeed == b.windSpeed
+                && a.windDirection == b.windDirection
+                && a.rain1h == b.rain1h
+                && a.rain3h == b.rain3h
+                && a.clouds == b.clouds;
+    }
+
+    /**
+     * Changes of the units rebind all rows.
+     */
+    public void setFormat(String timeFormat, int temperatureUnit, int speedUnit) {
+        if (timeFormat.equals(this.timeFormat)
+                && temperatureUnit == this.temperatureUnit
+                && speedUnit == this.speedUnit) {
+            return;
+        }
+        this.timeFormat = timeFormat;
+        this.temperatureUnit = temperatureUnit;
+        this.speedUnit = speedUnit;
+        notifyItemRangeChanged(0, getItemCount());
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return getItem(position).type;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).id;
+    }
+
+    @NonNull
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        Context context = parent.getContext();
+        if (viewType == TYPE_DAY) {
+            TextView dateView = new TextView(context);
+            dateView.setTextAppearance(android.R.style.TextAppearance_Medium);
+            dateView.setTextColor(context.getResources().getColor(R.color.blue, null));
+            dateView.setTypeface(null, Typeface.BOLD);
+            dateView.setLayoutParams(
+                    new RecyclerView.LayoutParams(
+                            ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT
+                    )
+            );
+            return new DayViewHolder(dateView);
+        }
+        WeatherForecastLayout layout = new WeatherForecastLayout(context);
+        layout.setLayoutParams(
+                new RecyclerView.LayoutParams(
+                        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT
+                )
+        );
+        return new EntryViewHolder(layout);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        Item item = getItem(position);
+        if (holder instanceof DayViewHolder) {
+            ((DayViewHolder) holder).bind(item);
+        } else if (holder instanceof EntryViewHolder) {
+            WeatherForecastLayout layout = ((EntryViewHolder) holder).layout;
+            layout.setTimeFormat(timeFormat);
+            layout.setTemperature(true, temperatureUnit);
+            layout.setWindSpeed(true, speedUnit);
+            layout.update(item.entry);
+        }
+    }
+
+    public static class Item {
+        final int type;
+        final long id;
+        final long day;
+        final WeatherEntry entry;
+
+        Item(int type, long id, long day, WeatherEntry entry) {
+            this.type = type;
+            this.id = id;
+            this.day = day;
+            this.entry = entry;
+        }
+    }
+
+    static class DayViewHolder extends RecyclerView.ViewHolder {
+        private final TextView dateView;
+
+        DayViewHolder(TextView dateView) {
+            super(dateView);
+            this.dateView = dateView;
+        }
+
+        void bind(Item item) {
+            DateFormat sdf = DateFormat.getDateInstance(DateFormat.FULL);
+            dateView.setText(sdf.format(item.day));
+        }
+    }
+
+    static class EntryViewHolder extends RecyclerView.ViewHolder {
+        final WeatherForecastLayout layout;
+
+        EntryViewHolder(WeatherForecastLayout layout) {
+            super(layout);
+            this.layout = layout;
+        }
+    }
+}
@@ -190,6 +190,7 @@ public class WeatherForecastLayout extends LinearLayout {
         temperatureText.setText(entry.formatTemperatureText(temperatureUnit));
         if (!entry.formatHumidityText().isEmpty()) {
             humidityText.setText(entry.formatHumidityText());
+            humidityText.setVisibility(View.VISIBLE);
         } else {
             humidityText.setVisibility(View.GONE);
         }
@@ -201,9 +202,11 @@ public class WeatherForecastLayout extends LinearLayout {
         if (entry != null && entry.rain3h >= 0.) {
             iconRain3h.setText("R");
             rainText.setText(formatRainText(entry.rain3h));
+            setRainVisible();
         } else if (entry != null && entry.rain1h > 0.) {
             iconRain3h.setText("R");
             rainText.setText(formatRainText(entry.rain1h));
+            setRainVisible();
         } else {
             iconRain3h.setText("");
             iconRain3h.setVisibility(View.GONE);
@@ -226,6 +229,12 @@ public class WeatherForecastLayout extends LinearLayout {
         fixIconWindDirectionSize();
     }
 
+    // the layout may be reused for another entry
+    private void setRainVisible() {
+        iconRain3h.setVisibility(View.VISIBLE);
+        rainText.setVisibility(View.VISIBLE);
+    }
+
     private String formatRainText(double rainValue) {
         return String.format(Locale.getDefault(), "%.1f mm", rainValue);
     }
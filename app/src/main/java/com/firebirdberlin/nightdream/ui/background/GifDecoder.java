@@ -22,8 +22,13 @@ import android.graphics.Bitmap;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Vector;
+import java.util.Arrays;
 
+/**
+ * Streaming GIF decoder. Frames are decoded one after another into a single reused pixel
+ * buffer which holds the fully composed frame. Only the current frame is kept in memory, plus
+ * one snapshot of the pixel buffer if a frame uses the dispose method "restore to previous".
+ */
 public class GifDecoder {
     public static final int STATUS_OK = 0;
     /**
@@ -58,14 +63,15 @@ public class GifDecoder {
     protected int lctSize; // local color table size
     protected int ix, iy, iw, ih; // current image rectangle
     protected int lrx, lry, lrw, lrh;
-    protected Bitmap image; // current frame
-    protected Bitmap lastBitmap; // previous frame
+    protected int[] canvas; // pixels of the composed current frame
+    protected int[] restoreCanvas; // pixels to be restored if the last frame used dispose = 3
     protected byte[] block = new byte[256]; // current data block
     protected int blockSize = 0; // block size last graphic control extension info
     protected int dispose = 0; // 0=no action; 1=leave in place; 2=restore to bg; 3=restore to prev
     protected int lastDispose = 0;
     protected boolean transparency = false; // use transparent color
     protected int delay = 0; // delay in milliseconds
+    protected int frameDelay = 0; // delay of the last decoded frame in milliseconds
     protected int transIndex; // transparent color index
     // LZW decoder working arrays
 
@@ -73,32 +79,22 @@ public class GifDecoder {
     protected byte[] suffix;
     protected byte[] pixelStack;
     protected byte[] pixels;
-    protected Vector<GifFrame> frames;
     protected int frameCount;
-    private boolean readComplete;
-
-    public GifDecoder() {
-        readComplete = false;
-    }
 
     /**
-     * Gets display duration for specified frame.
+     * Gets display duration of the last decoded frame.
      *
-     * @param n int index of frame
      * @return delay in milliseconds
      */
-    public int getDelay(int n) {
-        delay = -1;
-        if ((n >= 0) && (n < frameCount)) {
-            delay = frames.elementAt(n).delay;
-            //meets browser compatibility standards
-            if (delay < MIN_DELAY_ENFORCE_THRESHOLD) delay = MIN_DELAY;
-        }
+    public int getDelay() {
+        int delay = frameDelay;
+        //meets browser compatibility standards
+        if (delay < MIN_DELAY_ENFORCE_THRESHOLD) delay = MIN_DELAY;
         return delay;
     }
 
     /**
-     * Gets the number of frames read from file.
+     * Gets the number of frames decoded since the stream was opened.
      *
      * @return frame count
      */
@@ -106,13 +102,12 @@ public class GifDecoder {
         return frameCount;
     }
 
-    /**
-     * Gets the first (or only) image read.
-     *
-     * @return BufferedBitmap containing first frame, or null if none.
-     */
-    public Bitmap getBitmap() {
-        return getFrame(0);
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
     }
 
     /**
@@ -125,41 +120,36 @@ public class GifDecoder {
     }
 
     /**
-     * Creates new frame image from current data (and previous frames as specified by their disposition codes).
+     * Composes the current frame into the pixel buffer, taking into account the dispose code of
+     * the previous frame.
      */
     protected void setPixels() {
-        // expose destination image's pixels as int array
-        int[] dest = new int[width * height];
-        // fill in starting image contents based on last image's dispose code
-        if (lastDispose > 0) {
-            if (lastDispose == 3) {
-                // use image before last
-                int n = frameCount - 2;
-                if (n > 0) {
-                    lastBitmap = getFrame(n - 1);
-                } else {
-                    lastBitmap = null;
-                }
+        int[] dest = canvas;
+        // prepare the starting image contents based on the last image's dispose code
+        if (lastDispose == 2) {
+            // fill last image rect area with background color
+            int c = 0;
+            if (!transparency) {
+                c = lastBgColor;
             }
-            if (lastBitmap != null) {
-                lastBitmap.getPixels(dest, 0, width, 0, 0, width, height);
-                // copy pixels
-                if (lastDispose == 2) {
-                    // fill last image rect area with background color
-                    int c = 0;
-                    if (!transparency) {
-                        c = lastBgColor;
-                    }
-                    for (int i = 0; i < lrh; i++) {
-                        int n1 = (lry + i) * width + lrx;
-                        int n2 = n1 + lrw;
-                        for (int k = n1; k < n2; k++) {
-                            dest[k] = c;
-                        }
-                    }
-                }
+            int right = Math.min(lrx + lrw, width);
+            int bottom = Math.min(lry + lrh, height);
+            for (int line = lry; line < bottom && lrx < right; line++) {
+                Arrays.fill(dest, line * width + lrx, line * width + right, c);
             }
+        } else if (lastDispose == 3 && restoreCanvas != null) {
+            // restore the image before the last frame
+            System.arraycopy(restoreCanvas, 0, dest, 0, dest.length);
         }
+
+        if (dispose == 3) {
+            // the next frame needs the current state before this frame is drawn
+            if (restoreCanvas == null) {
+                restoreCanvas = new int[width * height];
+            }
+            System.arraycopy(dest, 0, restoreCanvas, 0, dest.length);
+        }
+
         // copy each source line to the appropriate place in the destination
         int pass = 1;
         int inc = 8;
@@ -208,51 +198,106 @@ public class GifDecoder {
                 }
             }
         }
-        image = Bitmap.createBitmap(dest, width, height, Bitmap.Config.ARGB_4444);
     }
 
     /**
-     * Gets the image contents of frame n.
+     * Copies the pixels of the last decoded frame into the bitmap.
      *
-     * @return BufferedBitmap representation of frame, or null if n is invalid.
+     * @param bitmap a mutable bitmap of size getWidth() x getHeight()
      */
-    public Bitmap getFrame(int n) {
-        if (frameCount <= 0)
-            return null;
-        n = n % frameCount;
-        return frames.elementAt(n).image;
+    public void writeFrame(Bitmap bitmap) {
+        bitmap.setPixels(canvas, 0, width, 0, 0, width, height);
     }
 
     /**
-     * Reads GIF image from stream
+     * Opens a GIF stream and reads its header. The frames are decoded by readNextFrame().
      *
      * @param is containing GIF file.
      * @return read status code (0 = no errors)
      */
-    public int read(InputStream is) {
+    public int open(InputStream is) {
         init();
         if (is != null) {
             in = is;
             readHeader();
             if (!err()) {
-                readContents();
-                if (frameCount < 0) {
+                int size = width * height;
+                if (size <= 0) {
                     status = STATUS_FORMAT_ERROR;
+                } else if (canvas == null || canvas.length != size) {
+                    canvas = new int[size];
+                    restoreCanvas = null;
+                } else {
+                    Arrays.fill(canvas, 0);
                 }
             }
         } else {
             status = STATUS_OPEN_ERROR;
         }
-        readComplete = true;
         return status;
     }
 
-    public void complete() {
-        readContents();
+    /**
+     * Decodes the next frame.
+     *
+     * @return true if a frame was decoded, false at the end of the stream or on errors
+     */
+    public boolean readNextFrame() {
+        if (in == null) {
+            return false;
+        }
+        // read GIF file content blocks
+        while (!err()) {
+            int code = read();
+            switch (code) {
+                case 0x2C: // image separator
+                    if (readBitmap()) {
+                        return true;
+                    }
+                    break;
+                case 0x21: // extension
+                    code = read();
+                    switch (code) {
+                        case 0xf9: // graphics control extension
+                            readGraphicControlExt();
+                            break;
+                        case 0xff: // application extension
+                            readBlock();
+                            StringBuilder app = new StringBuilder();
+                            for (int i = 0; i < 11; i++) {
+                                app.append((char) block[i]);
+                            }
+                            if (app.toString().equals("NETSCAPE2.0")) {
+                                readNetscapeExt();
+                            } else {
+                                skip(); // don't care
+                            }
+                            break;
+                        // comment extension
+                        // plain text extension
+                        default: // uninteresting extension
+                            skip();
+                    }
+                    break;
+                case 0x3b: // terminator
+                    return false;
+                case 0x00: // bad byte, but keep going and see what happens break;
+                default:
+                    status = STATUS_FORMAT_ERROR;
+            }
+        }
+        return false;
+    }
+
+    public void close() {
+        if (in == null) {
+            return;
+        }
         try {
             in.close();
         } catch (IOException ignored) {
         }
+        in = null;
     }
 
     /**
@@ -375,9 +420,12 @@ public class GifDecoder {
     protected void init() {
         status = STATUS_OK;
         frameCount = 0;
-        frames = new Vector<>();
         gct = null;
         lct = null;
+        dispose = 0;
+        lastDispose = 0;
+        transparency = false;
+        delay = 0;
     }
 
     /**
@@ -453,53 +501,6 @@ public class GifDecoder {
         return tab;
     }
 
-    /**
-     * Main file parser. Reads GIF content blocks.
-     */
-    protected void readContents() {
-        // read GIF file content blocks
-        boolean done = false;
-        while (!(done || err())) {
-            int code = read();
-            switch (code) {
-                case 0x2C: // image separator
-                    readBitmap();
-                    if (!readComplete) return;
-                    break;
-                case 0x21: // extension
-                    code = read();
-                    switch (code) {
-                        case 0xf9: // graphics control extension
-                            readGraphicControlExt();
-                            break;
-                        case 0xff: // application extension
-                            readBlock();
-                            StringBuilder app = new StringBuilder();
-                            for (int i = 0; i < 11; i++) {
-                                app.append((char) block[i]);
-                            }
-                            if (app.toString().equals("NETSCAPE2.0")) {
-                                readNetscapeExt();
-                            } else {
-                                skip(); // don't care
-                            }
-                            break;
-                        // comment extension
-                        // plain text extension
-                        default: // uninteresting extension
-                            skip();
-                    }
-                    break;
-                case 0x3b: // terminator
-                    done = true;
-                    break;
-                case 0x00: // bad byte, but keep going and see what happens break;
-                default:
-                    status = STATUS_FORMAT_ERROR;
-            }
-        }
-    }
-
     /**
      * Reads Graphics Control Extension values
      */
@@ -537,8 +538,10 @@ public class GifDecoder {
 
     /**
      * Reads next frame image
+     *
+     * @return true if the frame was decoded
      */
-    protected void readBitmap() {
+    protected boolean readBitmap() {
         ix = readShort(); // (sub)image position & size
         iy = readShort();
         iw = readShort();
@@ -568,23 +571,21 @@ public class GifDecoder {
             status = STATUS_FORMAT_ERROR; // no color table defined
         }
         if (err()) {
-            return;
+            return false;
         }
         decodeBitmapData(); // decode pixel data
         skip();
         if (err()) {
-            return;
+            return false;
         }
         frameCount++;
-        // create new image to receive frame data
-        image = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_4444);
-        setPixels(); // transfer pixel data to image
-        frames.addElement(new GifFrame(image, delay)); // add image to frame
-        // list
+        setPixels(); // transfer pixel data to the pixel buffer
+        frameDelay = delay;
         if (transparency) {
             act[transIndex] = save;
         }
         resetFrame();
+        return true;
     }
 
     /**
@@ -636,7 +637,6 @@ public class GifDecoder {
         lry = iy;
         lrw = iw;
         lrh = ih;
-        lastBitmap = image;
         lastBgColor = bgColor;
         dispose = 0;
         transparency = false;
@@ -652,14 +652,4 @@ public class GifDecoder {
             readBlock();
         } while ((blockSize > 0) && !err());
     }
-
-    private static class GifFrame {
-        public Bitmap image;
-        public int delay;
-
-        public GifFrame(Bitmap im, int del) {
-            image = im;
-            delay = del;
-        }
-    }
-}
\ No newline at end of file
+}
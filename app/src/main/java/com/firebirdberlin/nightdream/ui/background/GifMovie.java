@@ -19,58 +19,290 @@
 package com.firebirdberlin.nightdream.ui.background;
 
 import android.graphics.Bitmap;
-import android.graphics.drawable.AnimationDrawable;
-import android.graphics.drawable.BitmapDrawable;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.drawable.Animatable;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
 
 import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Plays a GIF animation while it is decoded.
+ * <p>
+ * Only a small ring of decoded frames ahead of the playback cursor is kept in memory. The
+ * bitmaps of the ring are allocated once and reused, so the peak memory depends on the ring size
+ * and not on the number of frames. Frames are decoded on a shared background thread. At the end
+ * of the stream the source is opened again to loop the animation.
+ */
+public class GifMovie extends Drawable implements Animatable, Runnable {
+    private static final String TAG = "GifMovie";
+    private static final int DEFAULT_RING_SIZE = 3;
+    private static final long FRAME_NOT_READY_DELAY_MILLIS = 16;
+    private static final ExecutorService decoderExecutor = Executors.newSingleThreadExecutor();
 
-public class GifMovie extends AnimationDrawable {
+    private final InputStreamProvider source;
+    private final GifDecoder decoder = new GifDecoder();
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Object lock = new Object();
+    private final Bitmap[] ring;
+    private final int[] delays;
     private final int height;
     private final int width;
-    private boolean decoded;
-    private GifDecoder mGifDecoder;
-    private Bitmap mTmpBitmap;
+    // guarded by lock
+    private int readIndex = 0;
+    private int available = 0;
+    private boolean decodePending = false;
+    private boolean endOfStream = false;
+    private volatile boolean released = false;
+    private volatile boolean decoded = false;
+    private volatile boolean oneShot = false;
+    private boolean running = false;
+
+    private final Runnable decodeTask = this::decodeAhead;
 
-    public GifMovie(InputStream is) {
-        this(is, false);
+    /**
+     * The animation loops as specified by the GIF.
+     */
+    public GifMovie(InputStreamProvider source) throws IOException {
+        this(source, DEFAULT_RING_SIZE, null);
     }
 
-    public GifMovie(InputStream is, boolean inline) {
+    /**
+     * @param oneShot whether the animation stops at the end instead of looping
+     */
+    public GifMovie(InputStreamProvider source, boolean oneShot) throws IOException {
+        this(source, DEFAULT_RING_SIZE, oneShot);
+    }
+
+    /**
+     * Reads the first frame synchronously, the remaining frames are decoded in the background.
+     *
+     * @param ringSize number of frames which are kept in memory, at least 2
+     * @param oneShot  whether the animation stops at the end or null to use the loop count of
+     *                 the GIF. It is set before the first frame is decoded in the background.
+     */
+    public GifMovie(InputStreamProvider source, int ringSize, Boolean oneShot) throws IOException {
         super();
-        InputStream bis = is;
-        if (!(bis instanceof BufferedInputStream)) bis = new BufferedInputStream(is, 32768);
-        decoded = false;
-        mGifDecoder = new GifDecoder();
-        mGifDecoder.read(bis);
-        mTmpBitmap = mGifDecoder.getFrame(0);
-        height = mTmpBitmap.getHeight();
-        width = mTmpBitmap.getWidth();
-        addFrame(new BitmapDrawable(mTmpBitmap), mGifDecoder.getDelay(0));
-        setOneShot(mGifDecoder.getLoopCount() != 0);
-        setVisible(true, true);
-        Runnable loader = () -> {
-            mGifDecoder.complete();
-            int i, n = mGifDecoder.getFrameCount(), t;
-            for (i = 1; i < n; i++) {
-                mTmpBitmap = mGifDecoder.getFrame(i);
-                t = mGifDecoder.getDelay(i);
-                addFrame(new BitmapDrawable(mTmpBitmap), t);
+        this.source = source;
+        if (decoder.open(openStream()) != GifDecoder.STATUS_OK || !decoder.readNextFrame()) {
+            decoder.close();
+            throw new IOException("Cannot decode GIF");
+        }
+        width = decoder.getWidth();
+        height = decoder.getHeight();
+
+        ringSize = Math.max(2, ringSize);
+        ring = new Bitmap[ringSize];
+        delays = new int[ringSize];
+        for (int i = 0; i < ringSize; i++) {
+            ring[i] = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        }
+        decoder.writeFrame(ring[0]);
+        delays[0] = decoder.getDelay();
+        available = 1;
+        this.oneShot = (oneShot != null) ? oneShot : decoder.getLoopCount() != 0;
+        requestDecode();
+    }
+
+    private InputStream openStream() throws IOException {
+        InputStream is = source.open();
+        if (is == null) {
+            throw new IOException("Cannot open GIF");
+        }
+        if (!(is instanceof BufferedInputStream)) is = new BufferedInputStream(is, 32768);
+        return is;
+    }
+
+    private void requestDecode() {
+        synchronized (lock) {
+            if (decodePending || endOfStream || released || available >= ring.length) {
+                return;
+            }
+            decodePending = true;
+        }
+        decoderExecutor.execute(decodeTask);
+    }
+
+    /**
+     * Fills the free slots of the ring. The slot of the frame on screen is never written.
+     */
+    private void decodeAhead() {
+        while (true) {
+            int slot;
+            synchronized (lock) {
+                if (released || available >= ring.length) {
+                    decodePending = false;
+                    break;
+                }
+                slot = (readIndex + available) % ring.length;
+            }
+
+            boolean hasFrame = decoder.readNextFrame();
+            if (!hasFrame) {
+                decoded = true;
+                boolean stop = oneShot;
+                hasFrame = !stop && restartDecoder();
+                if (!hasFrame) {
+                    synchronized (lock) {
+                        if (stop != oneShot) {
+                            // the loop mode changed meanwhile
+                            continue;
+                        }
+                        endOfStream = true;
+                        decodePending = false;
+                    }
+                    break;
+                }
+            }
+
+            decoder.writeFrame(ring[slot]);
+            synchronized (lock) {
+                delays[slot] = decoder.getDelay();
+                available++;
             }
-            decoded = true;
-            mGifDecoder = null;
-        };
-        if (inline) {
-            loader.run();
-        } else {
-            new Thread(loader).start();
+        }
+        if (released) {
+            decoder.close();
         }
     }
 
+    private boolean restartDecoder() {
+        decoder.close();
+        try {
+            return decoder.open(openStream()) == GifDecoder.STATUS_OK && decoder.readNextFrame();
+        } catch (IOException | SecurityException e) {
+            Log.e(TAG, "Cannot reopen GIF: " + e);
+            return false;
+        }
+    }
+
+    @Override
+    public void run() {
+        if (!running) return;
+        long delay = FRAME_NOT_READY_DELAY_MILLIS;
+        boolean advanced = false;
+        synchronized (lock) {
+            if (available >= 2) {
+                // release the slot of the current frame and show the next one
+                readIndex = (readIndex + 1) % ring.length;
+                available--;
+                delay = delays[readIndex];
+                advanced = true;
+            } else if (endOfStream) {
+                running = false;
+                return;
+            }
+        }
+        if (advanced) {
+            invalidateSelf();
+            requestDecode();
+        }
+        scheduleSelf(this, SystemClock.uptimeMillis() + delay);
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        Bitmap frame;
+        synchronized (lock) {
+            frame = ring[readIndex];
+        }
+        canvas.drawBitmap(frame, null, getBounds(), paint);
+    }
+
+    @Override
+    public void start() {
+        if (running || released) return;
+        running = true;
+        int delay;
+        synchronized (lock) {
+            delay = delays[readIndex];
+        }
+        scheduleSelf(this, SystemClock.uptimeMillis() + delay);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        unscheduleSelf(this);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean setVisible(boolean visible, boolean restart) {
+        boolean changed = super.setVisible(visible, restart);
+        if (!visible) {
+            stop();
+        } else if (restart || changed) {
+            start();
+        }
+        return changed;
+    }
+
+    /**
+     * Stops the playback and the background decoding. The drawable cannot be restarted.
+     */
+    public void release() {
+        stop();
+        released = true;
+        synchronized (lock) {
+            if (decodePending) {
+                // the decode task closes the decoder
+                return;
+            }
+        }
+        decoderExecutor.execute(decoder::close);
+    }
+
+    /**
+     * A looping animation which already reached the end of the stream continues to decode.
+     */
+    public void setOneShot(boolean oneShot) {
+        synchronized (lock) {
+            if (this.oneShot == oneShot) return;
+            this.oneShot = oneShot;
+            endOfStream = false;
+        }
+        requestDecode();
+    }
+
+    /**
+     * @return true if the stream was decoded completely at least once
+     */
     public boolean isDecoded() {
         return decoded;
     }
 
+    @Override
+    public void setAlpha(int alpha) {
+        paint.setAlpha(alpha);
+        invalidateSelf();
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        paint.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
     public int getMinimumHeight() {
         return height;
     }
@@ -86,4 +318,8 @@ public class GifMovie extends AnimationDrawable {
     public int getIntrinsicWidth() {
         return width;
     }
+
+    public interface InputStreamProvider {
+        InputStream open() throws IOException;
+    }
 }
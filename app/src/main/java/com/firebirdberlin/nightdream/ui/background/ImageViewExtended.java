@@ -167,11 +167,13 @@ public class ImageViewExtended extends AppCompatImageView {
 
     public void setImage(Drawable image) {
         Log.d(TAG, "setImage(Drawable)");
+        releaseGif();
         setImageDrawable(image);
     }
 
     public void setImage(Uri uri) {
         Log.d(TAG, "setImage(uri)");
+        releaseGif();
         String mimeType = context.getContentResolver().getType(uri);
         Log.d(TAG, "mimeType: " + ((mimeType != null) ? mimeType : "null"));
         if ("image/gif".equals(mimeType)) {
@@ -189,13 +191,14 @@ public class ImageViewExtended extends AppCompatImageView {
                 }
             } else {
                 try {
-                    gif = new GifMovie(context.getContentResolver().openInputStream(uri));
+                    gif = new GifMovie(
+                            () -> context.getContentResolver().openInputStream(uri), false
+                    );
                     setBitmap(uri);
                 } catch (Exception e) {
                     Log.e(TAG, e.toString());
                 }
                 if (gif != null) {
-                    gif.setOneShot(false);
                     setImageDrawable(gif);
                     gif.setVisible(true, true);
                     gif.start();
@@ -208,6 +211,13 @@ public class ImageViewExtended extends AppCompatImageView {
         }
     }
 
+    private void releaseGif() {
+        if (gif != null) {
+            gif.release();
+            gif = null;
+        }
+    }
+
     private Drawable loadBackgroundImage(Uri uri) {
         Log.d(TAG, "loadBackgroundImage()");
         try {
@@ -0,0 +1,313 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.ui.background;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Persistent index of the slideshow images.
+ * <p>
+ * Entries are keyed by path and remain valid as long as the size and the modification time of
+ * the file do not change. An entry caches the image dimensions, the EXIF orientation, the
+ * capture metadata and the palette colors, so that an image which was shown before costs a
+ * single decode. A rescan only stats the files, changed files lose their cached data. Entries
+ * are immutable and may be read on any thread.
+ */
+public class SlideshowIndex {
+    private static final int MAGIC = 0x4e44534c;
+    private static final int VERSION = 1;
+
+    private final File indexFile;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private boolean loaded = false;
+    private boolean dirty = false;
+
+    public SlideshowIndex(File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Walks the directory tree below root and updates the index.
+     *
+     * @param fileEndings lower case file endings of the images or null for all files
+     * @return the image files
+     */
+    public synchronized ArrayList<File> scan(File root, String[] fileEndings) {
+        if (!loaded) {
+            load();
+        }
+        ArrayList<File> results = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        Deque<File> dirs = new ArrayDeque<>();
+        if (root.isDirectory()) dirs.push(root);
+        while (!dirs.isEmpty()) {
+            File[] files = dirs.pop().listFiles();
+            if (files == null) continue;
+            for (File file : files) {
+                String name = file.getName();
+                if (file.isDirectory()) {
+                    if (!name.startsWith(".")) dirs.push(file);
+                    continue;
+                }
+                if (!file.isFile() || !hasEnding(name, fileEndings)) continue;
+
+                String path = file.getAbsolutePath();
+                long size = file.length();
+                long lastModified = file.lastModified();
+                Entry entry = entries.get(path);
+                if (entry == null || entry.size != size || entry.lastModified != lastModified) {
+                    entries.put(path, new Entry(path, size, lastModified));
+                    dirty = true;
+                }
+                seen.add(path);
+                results.add(file);
+            }
+        }
+        if (entries.keySet().retainAll(seen)) {
+            dirty = true;
+        }
+        return results;
+    }
+
+    private static boolean hasEnding(String name, String[] fileEndings) {
+        if (fileEndings == null) return true;
+        String lowerCaseName = name.toLowerCase(Locale.ROOT);
+        for (String ending : fileEndings) {
+            if (lowerCaseName.endsWith(ending)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the entry of the file or null if the file is not indexed
+     */
+    public synchronized Entry get(File file) {
+        if (file == null) return null;
+        return entries.get(file.getAbsolutePath());
+    }
+
+    /**
+     * Entries are immutable. The update is applied to the current entry of the file, so that
+     * concurrent updates, e.g. of the metadata and the colors, do not overwrite each other. If
+     * the file changed meanwhile, the update is not stored.
+     *
+     * @return the updated entry
+     */
+    public synchronized Entry update(Entry entry, UnaryOperator<Entry> update) {
+        Entry current = entries.get(entry.path);
+        if (current == null || current.size != entry.size
+                || current.lastModified != entry.lastModified) {
+            return update.apply(entry);
+        }
+        Entry updated = update.apply(current);
+        entries.put(updated.path, updated);
+        dirty = true;
+        return updated;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void load() {
+        loaded = true;
+        entries.clear();
+        if (!indexFile.exists()) return;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Entry entry = Entry.read(in);
+                entries.put(entry.path, entry);
+            }
+        } catch (IOException e) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Writes the index if it was modified.
+     */
+    public synchronized void save() {
+        if (!dirty) return;
+        File tmpFile = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Entry entry : entries.values()) {
+                entry.write(out);
+            }
+        } catch (IOException e) {
+            tmpFile.delete();
+            return;
+        }
+        if (tmpFile.renameTo(indexFile)) {
+            dirty = false;
+        } else {
+            tmpFile.delete();
+        }
+    }
+
+    public static class Entry {
+        public static final int NO_COLOR_FILTER = -1;
+
+        public final String path;
+        public final long size;
+        public final long lastModified;
+
+        // dimensions of the file and the EXIF data, valid if hasMetadata is set
+        public final boolean hasMetadata;
+        public final int width;
+        public final int height;
+        public final int rotation;
+        public final String dateTime;
+        public final double latitude;
+        public final double longitude;
+
+        // palette colors of the image with the given filter applied
+        public final int colorFilter;
+        public final boolean hasVibrantColor;
+        public final int vibrantColor;
+        public final boolean hasDarkMutedColor;
+        public final int darkMutedColor;
+
+        public Entry(String path, long size, long lastModified) {
+            this(path, size, lastModified, false, 0, 0, 0, null, Double.NaN, Double.NaN,
+                    NO_COLOR_FILTER, false, 0, false, 0);
+        }
+
+        private Entry(String path, long size, long lastModified,
+                      boolean hasMetadata, int width, int height, int rotation,
+                      String dateTime, double latitude, double longitude,
+                      int colorFilter, boolean hasVibrantColor, int vibrantColor,
+                      boolean hasDarkMutedColor, int darkMutedColor) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hasMetadata = hasMetadata;
+            this.width = width;
+            this.height = height;
+            this.rotation = rotation;
+            this.dateTime = dateTime;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.colorFilter = colorFilter;
+            this.hasVibrantColor = hasVibrantColor;
+            this.vibrantColor = vibrantColor;
+            this.hasDarkMutedColor = hasDarkMutedColor;
+            this.darkMutedColor = darkMutedColor;
+        }
+
+        /**
+         * @return a copy with the dimensions and the rotation of the image
+         */
+        public Entry withMetadata(int width, int height, int rotation) {
+            return new Entry(path, size, lastModified, true, width, height, rotation,
+                    dateTime, latitude, longitude, colorFilter, hasVibrantColor, vibrantColor,
+                    hasDarkMutedColor, darkMutedColor);
+        }
+
+        /**
+         * @return a copy with the capture date and location
+         */
+        public Entry withExifData(String dateTime, double latitude, double longitude) {
+            return new Entry(path, size, lastModified, hasMetadata, width, height, rotation,
+                    dateTime, latitude, longitude, colorFilter, hasVibrantColor, vibrantColor,
+                    hasDarkMutedColor, darkMutedColor);
+        }
+
+        /**
+         * @return a copy with the palette colors of the image with the given filter applied
+         */
+        public Entry withColors(int colorFilter, boolean hasVibrantColor, int vibrantColor,
+                                boolean hasDarkMutedColor, int darkMutedColor) {
+            return new Entry(path, size, lastModified, hasMetadata, width, height, rotation,
+                    dateTime, latitude, longitude, colorFilter, hasVibrantColor, vibrantColor,
+                    hasDarkMutedColor, darkMutedColor);
+        }
+
+        public boolean hasColors(int filter) {
+            return colorFilter != NO_COLOR_FILTER && colorFilter == filter;
+        }
+
+        public boolean hasLocation() {
+            return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(path);
+            out.writeLong(size);
+            out.writeLong(lastModified);
+            out.writeBoolean(hasMetadata);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeInt(rotation);
+            out.writeUTF(dateTime != null ? dateTime : "");
+            out.writeDouble(latitude);
+            out.writeDouble(longitude);
+            out.writeInt(colorFilter);
+            out.writeBoolean(hasVibrantColor);
+            out.writeInt(vibrantColor);
+            out.writeBoolean(hasDarkMutedColor);
+            out.writeInt(darkMutedColor);
+        }
+
+        static Entry read(DataInputStream in) throws IOException {
+            String path = in.readUTF();
+            long size = in.readLong();
+            long lastModified = in.readLong();
+            boolean hasMetadata = in.readBoolean();
+            int width = in.readInt();
+            int height = in.readInt();
+            int rotation = in.readInt();
+            String dateTime = in.readUTF();
+            double latitude = in.readDouble();
+            double longitude = in.readDouble();
+            int colorFilter = in.readInt();
+            boolean hasVibrantColor = in.readBoolean();
+            int vibrantColor = in.readInt();
+            boolean hasDarkMutedColor = in.readBoolean();
+            int darkMutedColor = in.readInt();
+            return new Entry(path, size, lastModified, hasMetadata, width, height, rotation,
+                    dateTime.isEmpty() ? null : dateTime, latitude, longitude,
+                    colorFilter, hasVibrantColor, vibrantColor, hasDarkMutedColor, darkMutedColor);
+        }
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.ui.background;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.Log;
+
+import androidx.exifinterface.media.ExifInterface;
+
+import com.firebirdberlin.nightdream.Graphics;
+import com.firebirdberlin.nightdream.Utility;
+import com.firebirdberlin.nightdream.ui.ExifView;
+import com.firebirdberlin.nightdream.util.PixelKernels;
+import com.firebirdberlin.nightdream.util.TaskScheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Prepares the next slideshow images on a background thread.
+ * <p>
+ * Each image is decoded into a reused buffer, then rotated, scaled to the screen size in
+ * a single draw into a bitmap from a small pool and color filtered in place. Up to lookahead frames are
+ * kept ready, so that a slide transition neither decodes on the main thread nor allocates.
+ * Bitmaps which are no longer shown are handed back with recycle().
+ */
+public class SlideshowPrefetcher {
+    private static final String TAG = "SlideshowPrefetcher";
+
+    private final SlideshowIndex index;
+    private final Random random = new Random();
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+    private final ArrayDeque<Bitmap> pool = new ArrayDeque<>();
+    private final Set<Bitmap> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private List<File> files = new ArrayList<>();
+    private OnFrameDecodedListener listener = null;
+    private int lookahead;
+    private int width = 0;
+    private int height = 0;
+    private PixelKernels.Kernel filter = null;
+    private Bitmap.Config config = Bitmap.Config.RGB_565;
+    private boolean running = false;
+    private int generation = 0;
+
+    // a cancelled task may still be decoding when the next one starts, the buffers are only
+    // accessed while holding the decode lock
+    private final Object decodeLock = new Object();
+    private Bitmap decodeBuffer = null;
+    private int[] pixelBuffer = null;
+
+    public SlideshowPrefetcher(SlideshowIndex index, int lookahead) {
+        this.index = index;
+        this.lookahead = Math.max(1, lookahead);
+    }
+
+    public interface OnFrameDecodedListener {
+        /**
+         * Called on the background thread after a frame was prepared.
+         */
+        void onFrameDecoded(Frame frame);
+    }
+
+    public static class Frame {
+        public final File file;
+        public final SlideshowIndex.Entry entry;
+        public final Bitmap bitmap;
+
+        Frame(File file, SlideshowIndex.Entry entry, Bitmap bitmap) {
+            this.file = file;
+            this.entry = entry;
+            this.bitmap = bitmap;
+        }
+    }
+
+    public synchronized void setOnFrameDecodedListener(OnFrameDecodedListener listener) {
+        this.listener = listener;
+    }
+
+    public synchronized void setLookahead(int lookahead) {
+        this.lookahead = Math.max(1, lookahead);
+    }
+
+    public synchronized void setFiles(List<File> files) {
+        this.files = (files != null) ? new ArrayList<>(files) : new ArrayList<>();
+    }
+
+    /**
+     * Images are scaled down to fit into the target size.
+     */
+    public synchronized void setTargetSize(int width, int height) {
+        if (width != this.width || height != this.height) {
+            // pooled bitmaps are sized for the old target
+            pool.clear();
+            owned.clear();
+        }
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * @param filter kernel which is applied in place after drawing or null
+     */
+    public synchronized void setFilter(PixelKernels.Kernel filter) {
+        this.filter = filter;
+        this.config = (filter != null) ? Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565;
+    }
+
+    /**
+     * Starts to prepare frames until the lookahead is filled.
+     */
+    public synchronized void start() {
+        if (running || files.isEmpty() || width <= 0 || height <= 0) return;
+        if (frames.size() >= lookahead) return;
+
+        running = true;
+        final int gen = generation;
+        final File file = files.get(random.nextInt(files.size()));
+        try {
+            TaskScheduler.getInstance().submit(
+                    TaskScheduler.Lane.CPU, null, this, () -> prepare(file, gen)
+            );
+        } catch (RejectedExecutionException e) {
+            running = false;
+        }
+    }
+
+    public synchronized boolean hasFrame() {
+        return !frames.isEmpty();
+    }
+
+    /**
+     * @return the next ready frame or null, the next frame is prepared in the background
+     */
+    public synchronized Frame poll() {
+        Frame frame = frames.poll();
+        start();
+        return frame;
+    }
+
+    /**
+     * Returns a bitmap which is no longer displayed to the pool.
+     */
+    public synchronized void recycle(Bitmap bitmap) {
+        if (bitmap == null || !owned.contains(bitmap)) return;
+        if (pool.size() < lookahead + 1 && !pool.contains(bitmap)) {
+            pool.push(bitmap);
+        } else {
+            owned.remove(bitmap);
+        }
+    }
+
+    /**
+     * Drops the ready frames and cancels frames in progress, e.g. after the settings changed.
+     */
+    public synchronized void clear() {
+        TaskScheduler.getInstance().cancel(this);
+        generation++;
+        running = false;
+        for (Frame frame : frames) {
+            recycle(frame.bitmap);
+        }
+        frames.clear();
+    }
+
+    private void prepare(File file, int gen) {
+        Bitmap bitmap = null;
+        synchronized (decodeLock) {
+            if (isCurrent(gen)) {
+                try {
+                    bitmap = load(file);
+                } catch (RuntimeException | OutOfMemoryError e) {
+                    Log.e(TAG, "could not load " + file, e);
+                }
+            }
+        }
+
+        Frame frame = (bitmap != null) ? new Frame(file, index.get(file), bitmap) : null;
+        OnFrameDecodedListener l;
+        synchronized (this) {
+            l = listener;
+        }
+        if (frame != null && l != null) {
+            l.onFrameDecoded(frame);
+        }
+
+        synchronized (this) {
+            if (gen != generation) {
+                if (frame != null) recycle(frame.bitmap);
+                return;
+            }
+            if (frame != null) {
+                frames.add(frame);
+            } else {
+                // do not retry the broken file forever
+                files.remove(file);
+            }
+            running = false;
+            start();
+        }
+    }
+
+    private synchronized boolean isCurrent(int gen) {
+        return gen == generation;
+    }
+
+    private Bitmap load(File file) {
+        int targetWidth;
+        int targetHeight;
+        PixelKernels.Kernel filter;
+        synchronized (this) {
+            targetWidth = width;
+            targetHeight = height;
+            filter = this.filter;
+        }
+        String path = file.getAbsolutePath();
+        SlideshowIndex.Entry entry = index.get(file);
+
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        int rotation;
+        if (entry != null && entry.hasMetadata) {
+            options.outWidth = entry.width;
+            options.outHeight = entry.height;
+            rotation = entry.rotation;
+        } else {
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(path, options);
+            rotation = readMetadata(file, options, entry);
+        }
+
+        boolean rotated = (rotation == 90 || rotation == 270);
+        options.inSampleSize = Graphics.calculateInSampleSize(
+                options,
+                rotated ? targetHeight : targetWidth,
+                rotated ? targetWidth : targetHeight
+        );
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        options.inJustDecodeBounds = false;
+        options.inMutable = true;
+        options.inBitmap = decodeBuffer;
+
+        Bitmap decoded;
+        try {
+            decoded = BitmapFactory.decodeFile(path, options);
+        } catch (IllegalArgumentException e) {
+            // the buffer is too small or has an incompatible format
+            options.inBitmap = null;
+            decoded = BitmapFactory.decodeFile(path, options);
+        }
+        if (decoded == null) {
+            return null;
+        }
+        if (decodeBuffer == null
+                || decoded.getAllocationByteCount() > decodeBuffer.getAllocationByteCount()) {
+            decodeBuffer = decoded;
+        }
+
+        Bitmap output = draw(decoded, rotation, targetWidth, targetHeight);
+        if (filter != null) {
+            pixelBuffer = Graphics.filter(output, output, filter, pixelBuffer);
+        }
+        return output;
+    }
+
+    /**
+     * Rotates and scales the decoded image in one pass into a pooled bitmap.
+     */
+    private Bitmap draw(Bitmap decoded, int rotation, int targetWidth, int targetHeight) {
+        Matrix matrix = new Matrix();
+        matrix.setRotate(rotation);
+        RectF bounds = new RectF(0, 0, decoded.getWidth(), decoded.getHeight());
+        matrix.mapRect(bounds);
+        matrix.postTranslate(-bounds.left, -bounds.top);
+
+        float scale = Math.min(
+                1.f,
+                Math.min(targetWidth / bounds.width(), targetHeight / bounds.height())
+        );
+        matrix.postScale(scale, scale);
+        int w = Math.max(1, Math.round(bounds.width() * scale));
+        int h = Math.max(1, Math.round(bounds.height() * scale));
+
+        Bitmap output;
+        synchronized (this) {
+            output = obtain(w, h, targetWidth, targetHeight);
+        }
+        Canvas canvas = new Canvas(output);
+        canvas.drawBitmap(decoded, matrix, paint);
+        return output;
+    }
+
+    private Bitmap obtain(int w, int h, int targetWidth, int targetHeight) {
+        int bytes = w * h * ((config == Bitmap.Config.ARGB_8888) ? 4 : 2);
+        while (!pool.isEmpty()) {
+            Bitmap bitmap = pool.pop();
+            if (bitmap.getAllocationByteCount() >= bytes) {
+                bitmap.reconfigure(w, h, config);
+                bitmap.eraseColor(0);
+                return bitmap;
+            }
+            owned.remove(bitmap);
+        }
+
+        // allocate for the full target size, so that the bitmap fits every frame
+        Bitmap bitmap = Bitmap.createBitmap(
+                Math.max(w, targetWidth), Math.max(h, targetHeight), Bitmap.Config.ARGB_8888
+        );
+        bitmap.reconfigure(w, h, config);
+        owned.add(bitmap);
+        return bitmap;
+    }
+
+    /**
+     * Reads the EXIF data of the image once and stores it together with its dimensions in the
+     * slideshow index.
+     *
+     * @return the rotation of the image in degrees
+     */
+    private int readMetadata(File file, BitmapFactory.Options options, SlideshowIndex.Entry entry) {
+        int rotation = 0;
+        ExifInterface exif = null;
+        try {
+            exif = new ExifInterface(file.getAbsolutePath());
+            rotation = Utility.getCameraPhotoOrientation(exif);
+        } catch (IOException e) {
+            Log.e(TAG, "exception: ", e);
+        }
+
+        if (entry != null && options.outWidth > 0 && options.outHeight > 0) {
+            final ExifInterface exifData = exif;
+            final int width = options.outWidth;
+            final int height = options.outHeight;
+            final int degrees = rotation;
+            index.update(entry, current -> {
+                SlideshowIndex.Entry updated = current.withMetadata(width, height, degrees);
+                return (exifData != null) ? ExifView.readExifData(exifData, updated) : updated;
+            });
+        }
+        return rotation;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.util;
+
+/**
+ * Computes the peak and the RMS amplitude of 16 bit PCM samples without allocating.
+ * <p>
+ * Samples are accumulated into windows of a fixed number of samples. The peak of each completed
+ * window is smoothed by an exponential moving average. Peak values use the scale of
+ * MediaRecorder.getMaxAmplitude(), i.e. 0 ... 32767.
+ */
+public class AmplitudeMeter {
+    public static final int MAX_AMPLITUDE = Short.MAX_VALUE;
+
+    private final int windowSize;
+    private final double emaFilter;
+
+    // the current window
+    private int windowCount = 0;
+    private int windowPeak = 0;
+    private long windowSumOfSquares = 0L;
+
+    // all samples since the last reset()
+    private long count = 0L;
+    private int peak = 0;
+    private double sumOfSquares = 0.;
+
+    private int lastWindowPeak = 0;
+    private double lastWindowRms = 0.;
+    private double ema = 0.;
+
+    /**
+     * @param windowSize number of samples per window
+     * @param emaFilter  weight of the newest window in the moving average, 0 ... 1
+     */
+    public AmplitudeMeter(int windowSize, double emaFilter) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive");
+        }
+        this.windowSize = windowSize;
+        this.emaFilter = emaFilter;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Clears all values including the moving average.
+     */
+    public void reset() {
+        resetPeak();
+        windowCount = 0;
+        windowPeak = 0;
+        windowSumOfSquares = 0L;
+        lastWindowPeak = 0;
+        lastWindowRms = 0.;
+        ema = 0.;
+    }
+
+    /**
+     * Clears the peak and the RMS amplitude, the current window and the average are kept.
+     */
+    public void resetPeak() {
+        count = 0L;
+        peak = 0;
+        sumOfSquares = 0.;
+    }
+
+    /**
+     * @return the number of windows which were completed by the samples
+     */
+    public int process(short[] samples, int offset, int length) {
+        int completed = 0;
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            int value = samples[i];
+            int abs = (value < 0) ? -value : value;
+            if (abs > MAX_AMPLITUDE) abs = MAX_AMPLITUDE;
+            if (abs > windowPeak) windowPeak = abs;
+            windowSumOfSquares += value * value;
+            if (++windowCount == windowSize) {
+                completeWindow();
+                completed++;
+            }
+        }
+        return completed;
+    }
+
+    private void completeWindow() {
+        lastWindowPeak = windowPeak;
+        lastWindowRms = Math.sqrt((double) windowSumOfSquares / windowCount);
+        ema = emaFilter * windowPeak + (1.0 - emaFilter) * ema;
+
+        if (windowPeak > peak) peak = windowPeak;
+        sumOfSquares += windowSumOfSquares;
+        count += windowCount;
+
+        windowCount = 0;
+        windowPeak = 0;
+        windowSumOfSquares = 0L;
+    }
+
+    /**
+     * @return the max. amplitude of the completed windows since the last reset
+     */
+    public int getPeak() {
+        return peak;
+    }
+
+    /**
+     * @return the RMS amplitude of the completed windows since the last reset
+     */
+    public double getRms() {
+        return (count > 0) ? Math.sqrt(sumOfSquares / count) : 0.;
+    }
+
+    public int getLastWindowPeak() {
+        return lastWindowPeak;
+    }
+
+    public double getLastWindowRms() {
+        return lastWindowRms;
+    }
+
+    /**
+     * @return the moving average of the window peaks
+     */
+    public double getPeakEMA() {
+        return ema;
+    }
+}
@@ -1,11 +1,10 @@
 package com.firebirdberlin.nightdream.util;
 
 import android.content.ContentResolver;
-import android.content.ContentUris;
 import android.content.Context;
 import android.content.pm.PackageManager;
+import android.database.ContentObserver;
 import android.database.Cursor;
-import android.net.Uri;
 import android.provider.CalendarContract;
 import android.util.Log;
 
@@ -14,22 +13,51 @@ import androidx.core.content.ContextCompat;
 import com.prolificinteractive.materialcalendarview.CalendarDay;
 
 import java.util.Calendar;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
  * A utility class to load calendar events.
+ * <p>
+ * Events are cached per month. Whether an instance belongs to a recurring event is read from the
+ * RRULE column of the Instances table, so that loading a month costs a single query. The cache
+ * is invalidated by a ContentObserver on the calendar provider. Only if the observer cannot be
+ * registered, the cache expires after 30 minutes.
  */
 public class CalendarEventLoader {
 
     private static final String TAG = "CalendarEventLoader";
     private static final long CACHE_DURATION_MS = TimeUnit.MINUTES.toMillis(30);
-
-    private static CalendarEvents cachedEvents;
+    // the month which is shown and its neighbours
+    private static final int WINDOW_MONTHS = 1;
+    private static final int MAX_CACHED_MONTHS = 15;
+
+    private static final String[] INSTANCE_PROJECTION = new String[]{
+            CalendarContract.Instances.BEGIN,          // 0: The start time of the instance
+            CalendarContract.Instances.RRULE           // 1: The recurrence rule of the event
+    };
+
+    private static final Map<Integer, MonthEvents> cachedMonths =
+            new LinkedHashMap<Integer, MonthEvents>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, MonthEvents> eldest) {
+                    return size() > MAX_CACHED_MONTHS;
+                }
+            };
+    private static CalendarObserver observer = null;
+    // returned while the calendar permission is missing
+    private static final CalendarEvents NO_EVENTS =
+            new CalendarEvents(new HashSet<>(), new HashSet<>());
+    private static CalendarEvents cachedWindow = null;
+    private static int cachedWindowMonth = -1;
     private static long lastCacheTimeMillis = 0;
 
 
+    /**
+     * The sets are shared with the cache and must not be modified.
+     */
     public static class CalendarEvents {
         public final HashSet<CalendarDay> oneTimeEvents;
         public final HashSet<CalendarDay> recurringEvents;
@@ -40,104 +68,167 @@ public class CalendarEventLoader {
         }
     }
 
+    private static class MonthEvents {
+        final HashSet<CalendarDay> oneTimeEvents = new HashSet<>();
+        final HashSet<CalendarDay> recurringEvents = new HashSet<>();
+    }
+
+    private static class CalendarObserver extends ContentObserver {
+        CalendarObserver() {
+            super(null);
+        }
+
+        @Override
+        public void onChange(boolean selfChange) {
+            invalidateCache();
+        }
+    }
+
     /**
-     * Loads one-time and recurring calendar events within a specified time range, using a cache.
-     * The cache is invalidated every 30 minutes.
+     * Loads the events around the current month.
+     */
+    public static CalendarEvents loadEvents(Context context) {
+        return loadEvents(context, CalendarDay.today());
+    }
+
+    /**
+     * Loads one-time and recurring calendar events of the given month and its neighbours. Months
+     * which are cached cost no query, the missing months are fetched with a single query.
      *
      * @param context The context.
+     * @param month   Any day of the month which is shown.
      * @return A CalendarEvents object containing sets of days for one-time and recurring events.
+     * The same object is returned until the events or the month change, or always the same
+     * empty object without the permission.
      */
-    public static synchronized CalendarEvents loadEvents(Context context) {
-        long currentTimeMillis = System.currentTimeMillis();
-        if (cachedEvents != null && (currentTimeMillis - lastCacheTimeMillis) < CACHE_DURATION_MS) {
-            Log.d(TAG, "Returning cached calendar events.");
-            return cachedEvents;
-        }
-
+    public static synchronized CalendarEvents loadEvents(Context context, CalendarDay month) {
         if (ContextCompat.checkSelfPermission(context, android.Manifest.permission.READ_CALENDAR)
                 != PackageManager.PERMISSION_GRANTED) {
             Log.w(TAG, "READ_CALENDAR permission not granted. Cannot load events.");
-            return new CalendarEvents(new HashSet<>(), new HashSet<>());
+            return NO_EVENTS;
+        }
+
+        registerObserver(context);
+        long currentTimeMillis = System.currentTimeMillis();
+        if (observer == null && currentTimeMillis - lastCacheTimeMillis >= CACHE_DURATION_MS) {
+            clear();
+        }
+
+        int center = monthIndex(month.getYear(), month.getMonth());
+        if (cachedWindow != null && cachedWindowMonth == center) {
+            Log.d(TAG, "Returning cached calendar events.");
+            return cachedWindow;
         }
 
-        Log.d(TAG, "Cache expired or permission granted. Fetching real calendar events.");
+        int first = center - WINDOW_MONTHS;
+        int last = center + WINDOW_MONTHS;
+        int firstMissing = Integer.MAX_VALUE;
+        int lastMissing = Integer.MIN_VALUE;
+        for (int i = first; i <= last; i++) {
+            if (!cachedMonths.containsKey(i)) {
+                firstMissing = Math.min(firstMissing, i);
+                lastMissing = Math.max(lastMissing, i);
+            }
+        }
+        if (firstMissing <= lastMissing) {
+            queryMonths(context.getContentResolver(), firstMissing, lastMissing);
+            lastCacheTimeMillis = currentTimeMillis;
+        }
 
         HashSet<CalendarDay> eventDays = new HashSet<>();
         HashSet<CalendarDay> recurringEventDays = new HashSet<>();
+        for (int i = first; i <= last; i++) {
+            MonthEvents events = cachedMonths.get(i);
+            if (events != null) {
+                eventDays.addAll(events.oneTimeEvents);
+                recurringEventDays.addAll(events.recurringEvents);
+            }
+        }
+        cachedWindow = new CalendarEvents(eventDays, recurringEventDays);
+        cachedWindowMonth = center;
+        return cachedWindow;
+    }
 
-        // 1. Define the time range for which you want to load events.
-        // Let's load events for the next 365 days and the past year.
-        Calendar beginTime = Calendar.getInstance();
-        beginTime.add(Calendar.MONTH, -3);
-        long startMillis = beginTime.getTimeInMillis();
-
-        Calendar endTime = Calendar.getInstance();
-        endTime.add(Calendar.YEAR, 1);
-        long endMillis = endTime.getTimeInMillis();
-
-        ContentResolver cr = context.getContentResolver();
-
-        // 2. Define the columns you need from the Instances table.
-        final String[] INSTANCE_PROJECTION = new String[]{
-                CalendarContract.Instances.BEGIN,          // 0: The start time of the instance
-                CalendarContract.Instances.EVENT_ID        // 1: The original event's ID
-        };
-
-        // 3. Query the Instances table for the specified time range.
-        Cursor cursor = CalendarContract.Instances.query(cr, INSTANCE_PROJECTION, startMillis, endMillis);
-
-        // Use a map to cache the recurrence status of each event ID to avoid redundant queries.
-        HashMap<Long, Boolean> recurrenceStatusCache = new HashMap<>();
-
-        if (cursor != null) {
-            try {
-                while (cursor.moveToNext()) {
-                    long beginVal = cursor.getLong(0);
-                    long eventId = cursor.getLong(1);
-
-                    boolean isRecurring;
-
-                    // Check cache first
-                    if (recurrenceStatusCache.containsKey(eventId)) {
-                        isRecurring = recurrenceStatusCache.get(eventId);
-                    } else {
-                        // If not in cache, query the Events table for this specific event's RRULE.
-                        Uri eventUri = ContentUris.withAppendedId(CalendarContract.Events.CONTENT_URI, eventId);
-                        try (Cursor eventCursor = cr.query(eventUri, new String[]{CalendarContract.Events.RRULE}, null, null, null)) {
-                            isRecurring = false;
-                            if (eventCursor != null && eventCursor.moveToFirst()) {
-                                String rrule = eventCursor.getString(0);
-                                isRecurring = (rrule != null && !rrule.isEmpty());
-                            }
-                        }
-                        recurrenceStatusCache.put(eventId, isRecurring);
-                    }
-
-                    Calendar calendar = Calendar.getInstance();
-                    calendar.setTimeInMillis(beginVal);
-                    CalendarDay day = CalendarDay.from(calendar);
-
-                    if (isRecurring) {
-                        recurringEventDays.add(day);
-                    } else {
-                        eventDays.add(day);
-                    }
+    /**
+     * Fetches the instances of the months first to last with one query.
+     */
+    private static void queryMonths(ContentResolver cr, int first, int last) {
+        Log.d(TAG, "Fetching calendar events of " + (last - first + 1) + " months.");
+        MonthEvents[] months = new MonthEvents[last - first + 1];
+        for (int i = 0; i < months.length; i++) {
+            months[i] = new MonthEvents();
+        }
+
+        long startMillis = startOfMonth(first);
+        long endMillis = startOfMonth(last + 1);
+        Calendar calendar = Calendar.getInstance();
+        try (Cursor cursor = CalendarContract.Instances.query(cr, INSTANCE_PROJECTION, startMillis, endMillis)) {
+            while (cursor != null && cursor.moveToNext()) {
+                long beginVal = cursor.getLong(0);
+                String rrule = cursor.getString(1);
+                boolean isRecurring = (rrule != null && !rrule.isEmpty());
+
+                calendar.setTimeInMillis(beginVal);
+                int index = monthIndex(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH)) - first;
+                if (index < 0 || index >= months.length) {
+                    // instances which started before the window
+                    continue;
+                }
+                CalendarDay day = CalendarDay.from(calendar);
+                if (isRecurring) {
+                    months[index].recurringEvents.add(day);
+                } else {
+                    months[index].oneTimeEvents.add(day);
                 }
-            } finally {
-                cursor.close();
             }
+        } catch (SecurityException e) {
+            Log.w(TAG, "Cannot query calendar events.", e);
+            return;
+        }
+
+        for (int i = 0; i < months.length; i++) {
+            cachedMonths.put(first + i, months[i]);
         }
-        cachedEvents = new CalendarEvents(eventDays, recurringEventDays);
-        lastCacheTimeMillis = currentTimeMillis;
-        return cachedEvents;
+    }
+
+    private static void registerObserver(Context context) {
+        if (observer != null) {
+            return;
+        }
+        CalendarObserver calendarObserver = new CalendarObserver();
+        try {
+            context.getApplicationContext().getContentResolver().registerContentObserver(
+                    CalendarContract.CONTENT_URI, true, calendarObserver
+            );
+            observer = calendarObserver;
+        } catch (SecurityException e) {
+            Log.w(TAG, "Cannot observe the calendar provider.", e);
+        }
+    }
+
+    private static int monthIndex(int year, int month) {
+        return year * 12 + month;
+    }
+
+    private static long startOfMonth(int monthIndex) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(monthIndex / 12, monthIndex % 12, 1);
+        return calendar.getTimeInMillis();
+    }
+
+    private static void clear() {
+        cachedMonths.clear();
+        cachedWindow = null;
+        cachedWindowMonth = -1;
+        lastCacheTimeMillis = 0;
     }
 
     /**
      * Invalidates the cache, forcing a reload of events on the next call to loadEvents.
      */
     public static synchronized void invalidateCache() {
-        cachedEvents = null;
-        lastCacheTimeMillis = 0;
+        clear();
         Log.d(TAG, "Calendar events cache invalidated.");
     }
 }
@@ -0,0 +1,253 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.util;
+
+import java.text.DateFormatSymbols;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A time format which writes into a caller supplied char buffer without allocating.
+ * <p>
+ * Only the time fields of SimpleDateFormat are supported: H, k, K, h, m, s, a and literal text.
+ * For any other pattern compile() returns null and SimpleDateFormat has to be used instead.
+ * The output equals the output of SimpleDateFormat for the same pattern and locale.
+ */
+public class CompiledTimeFormat {
+
+    private static final int LITERAL = 0;
+    private static final int AM_PM = 1;
+
+    private final int[] fields;
+    private final int[] widths;
+    private final char[][] literals;
+    private final char[][] amPm;
+    private final char[] digits;
+    private final int maxLength;
+
+    private CompiledTimeFormat(List<Integer> fields, List<Integer> widths, List<char[]> literals,
+                               Locale locale) {
+        int n = fields.size();
+        this.fields = new int[n];
+        this.widths = new int[n];
+        this.literals = new char[n][];
+        for (int i = 0; i < n; i++) {
+            this.fields[i] = fields.get(i);
+            this.widths[i] = widths.get(i);
+            this.literals[i] = literals.get(i);
+        }
+
+        String[] amPmStrings = DateFormatSymbols.getInstance(locale).getAmPmStrings();
+        this.amPm = new char[][]{amPmStrings[0].toCharArray(), amPmStrings[1].toCharArray()};
+
+        char zero = DecimalFormatSymbols.getInstance(locale).getZeroDigit();
+        this.digits = new char[10];
+        for (int i = 0; i < 10; i++) {
+            this.digits[i] = (char) (zero + i);
+        }
+
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            switch (this.fields[i]) {
+                case LITERAL:
+                    length += this.literals[i].length;
+                    break;
+                case AM_PM:
+                    length += Math.max(amPm[0].length, amPm[1].length);
+                    break;
+                default:
+                    length += Math.max(2, this.widths[i]);
+                    break;
+            }
+        }
+        this.maxLength = length;
+    }
+
+    public static CompiledTimeFormat compile(String pattern) {
+        return compile(pattern, Locale.getDefault());
+    }
+
+    /**
+     * @return the compiled format or null if the pattern contains unsupported fields
+     */
+    public static CompiledTimeFormat compile(String pattern, Locale locale) {
+        if (pattern == null) {
+            return null;
+        }
+        List<Integer> fields = new ArrayList<>();
+        List<Integer> widths = new ArrayList<>();
+        List<char[]> literals = new ArrayList<>();
+
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        final int length = pattern.length();
+        while (i < length) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                if (i + 1 < length && pattern.charAt(i + 1) == '\'') {
+                    literal.append('\'');
+                    i += 2;
+                    continue;
+                }
+                // quoted text
+                int end = i + 1;
+                while (end < length) {
+                    if (pattern.charAt(end) == '\'') {
+                        if (end + 1 < length && pattern.charAt(end + 1) == '\'') {
+                            literal.append('\'');
+                            end += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    literal.append(pattern.charAt(end));
+                    end++;
+                }
+                if (end >= length) {
+                    // unterminated quote, SimpleDateFormat throws
+                    return null;
+                }
+                i = end + 1;
+                continue;
+            }
+
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                int count = 1;
+                while (i + count < length && pattern.charAt(i + count) == c) {
+                    count++;
+                }
+                int field = toCalendarField(c);
+                if (field < 0) {
+                    return null;
+                }
+                if (literal.length() > 0) {
+                    fields.add(LITERAL);
+                    widths.add(0);
+                    literals.add(literal.toString().toCharArray());
+                    literal.setLength(0);
+                }
+                fields.add(field);
+                widths.add(count);
+                literals.add(null);
+                i += count;
+                continue;
+            }
+
+            literal.append(c);
+            i++;
+        }
+        if (literal.length() > 0) {
+            fields.add(LITERAL);
+            widths.add(0);
+            literals.add(literal.toString().toCharArray());
+        }
+        return new CompiledTimeFormat(fields, widths, literals, locale);
+    }
+
+    /**
+     * Pattern letters are mapped to ids which are never equal to LITERAL or AM_PM.
+     */
+    private static int toCalendarField(char c) {
+        switch (c) {
+            case 'H':
+            case 'k':
+            case 'K':
+            case 'h':
+            case 'm':
+            case 's':
+                return c;
+            case 'a':
+                return AM_PM;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * @return the minimum size of a buffer passed to format()
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Writes the formatted time into dest.
+     *
+     * @return the number of chars written
+     */
+    public int format(Calendar calendar, char[] dest) {
+        int pos = 0;
+        for (int i = 0; i < fields.length; i++) {
+            switch (fields[i]) {
+                case LITERAL:
+                    char[] literal = literals[i];
+                    System.arraycopy(literal, 0, dest, pos, literal.length);
+                    pos += literal.length;
+                    break;
+                case AM_PM:
+                    char[] text = amPm[calendar.get(Calendar.AM_PM)];
+                    System.arraycopy(text, 0, dest, pos, text.length);
+                    pos += text.length;
+                    break;
+                default:
+                    pos = appendNumber(dest, pos, valueOf(fields[i], calendar), widths[i]);
+                    break;
+            }
+        }
+        return pos;
+    }
+
+    private static int valueOf(int field, Calendar calendar) {
+        switch (field) {
+            case 'H':
+                return calendar.get(Calendar.HOUR_OF_DAY);
+            case 'k': {
+                int hour = calendar.get(Calendar.HOUR_OF_DAY);
+                return (hour == 0) ? 24 : hour;
+            }
+            case 'K':
+                return calendar.get(Calendar.HOUR);
+            case 'h': {
+                int hour = calendar.get(Calendar.HOUR);
+                return (hour == 0) ? 12 : hour;
+            }
+            case 'm':
+                return calendar.get(Calendar.MINUTE);
+            case 's':
+            default:
+                return calendar.get(Calendar.SECOND);
+        }
+    }
+
+    private int appendNumber(char[] dest, int pos, int value, int minDigits) {
+        // all supported values are in the range 0..60
+        int numDigits = (value >= 10) ? 2 : 1;
+        for (int i = numDigits; i < minDigits; i++) {
+            dest[pos++] = digits[0];
+        }
+        if (numDigits == 2) {
+            dest[pos++] = digits[value / 10];
+        }
+        dest[pos++] = digits[value % 10];
+        return pos;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.util;
+
+/**
+ * Geohash encoding of coordinates.
+ * <p>
+ * A geohash names a rectangular cell; every additional character splits the cell into 32 smaller
+ * ones, e.g. 5 characters are about 5 x 5 km and 6 characters about 1.2 x 0.6 km. Points in the
+ * same cell share the hash.
+ */
+public final class Geohash {
+    public static final int MAX_PRECISION = 12;
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private Geohash() {
+    }
+
+    /**
+     * @param precision number of characters, 1 ... MAX_PRECISION
+     */
+    public static String encode(double lat, double lon, int precision) {
+        precision = Math.max(1, Math.min(MAX_PRECISION, precision));
+        lat = Math.max(-90., Math.min(90., lat));
+        lon = wrapLongitude(lon);
+        double minLat = -90.;
+        double maxLat = 90.;
+        double minLon = -180.;
+        double maxLon = 180.;
+
+        char[] hash = new char[precision];
+        boolean even = true;
+        int bit = 0;
+        int value = 0;
+        int length = 0;
+        while (length < precision) {
+            if (even) {
+                double mid = (minLon + maxLon) / 2.;
+                if (lon >= mid) {
+                    value = (value << 1) | 1;
+                    minLon = mid;
+                } else {
+                    value <<= 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2.;
+                if (lat >= mid) {
+                    value = (value << 1) | 1;
+                    minLat = mid;
+                } else {
+                    value <<= 1;
+                    maxLat = mid;
+                }
+            }
+            even = !even;
+            if (++bit == 5) {
+                hash[length++] = BASE32[value];
+                bit = 0;
+                value = 0;
+            }
+        }
+        return new String(hash);
+    }
+
+    /**
+     * @return the height of a cell in degrees latitude
+     */
+    public static double cellHeight(int precision) {
+        int bits = 5 * Math.max(1, Math.min(MAX_PRECISION, precision));
+        return 180. / (1L << (bits / 2));
+    }
+
+    /**
+     * @return the width of a cell in degrees longitude
+     */
+    public static double cellWidth(int precision) {
+        int bits = 5 * Math.max(1, Math.min(MAX_PRECISION, precision));
+        return 360. / (1L << ((bits + 1) / 2));
+    }
+
+    static double wrapLongitude(double lon) {
+        if (lon >= -180. && lon < 180.) return lon;
+        lon = ((lon + 180.) % 360. + 360.) % 360. - 180.;
+        return lon;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.util;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+/**
+ * Cancels the scheduled tasks of a lifecycle owner when it is destroyed.
+ */
+public class LifecycleTasks implements DefaultLifecycleObserver {
+    private static final LifecycleTasks observer = new LifecycleTasks();
+
+    /**
+     * Tasks which are submitted with the owner as owner are cancelled in onDestroy().
+     */
+    public static void cancelOnDestroy(LifecycleOwner owner) {
+        owner.getLifecycle().addObserver(observer);
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        owner.getLifecycle().removeObserver(this);
+        TaskScheduler.getInstance().cancel(owner);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.util;
+
+/**
+ * Averages light sensor values and reports a new level only if it differs noticeably from the
+ * last reported one.
+ * <p>
+ * Values are collected in a fixed size ring buffer, so that only the newest values of a
+ * batch are averaged if the sensor delivers more values than the buffer holds. A new mean is
+ * reported if it differs from the last reported mean by more than a relative or an absolute
+ * threshold, whichever is larger.
+ */
+public class LightLevelFilter {
+    private final float[] values;
+    private final float relativeThreshold;
+    private final float absoluteThreshold;
+    private int head = 0;
+    private int size = 0;
+    private float mean = Float.NaN;
+    private int count = 0;
+    private float reported = Float.NaN;
+
+    /**
+     * @param capacity          max. number of values which are averaged
+     * @param relativeThreshold min. relative change of the mean, e.g. 0.05 for 5%
+     * @param absoluteThreshold min. absolute change of the mean in lux
+     */
+    public LightLevelFilter(int capacity, float relativeThreshold, float absoluteThreshold) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.values = new float[capacity];
+        this.relativeThreshold = relativeThreshold;
+        this.absoluteThreshold = absoluteThreshold;
+    }
+
+    public void add(float value) {
+        values[head] = value;
+        head = (head + 1) % values.length;
+        if (size < values.length) size++;
+    }
+
+    /**
+     * @return the number of values which were added since the last call of evaluate()
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Averages the values which were added since the last call and clears the buffer.
+     *
+     * @return true if the mean crossed the hysteresis threshold and shall be reported
+     */
+    public boolean evaluate() {
+        if (size == 0) {
+            return false;
+        }
+        float sum = 0.f;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+        }
+        mean = sum / size;
+        count = size;
+        size = 0;
+        head = 0;
+
+        if (Float.isNaN(reported)
+                || Math.abs(mean - reported)
+                >= Math.max(absoluteThreshold, relativeThreshold * Math.abs(reported))) {
+            reported = mean;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the mean computed by the last call of evaluate()
+     */
+    public float getMean() {
+        return mean;
+    }
+
+    /**
+     * @return the number of values the last mean was computed from
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the last reported mean or NaN
+     */
+    public float getReportedValue() {
+        return reported;
+    }
+
+    /**
+     * Sets the value which was last reported by other means, e.g. a timeout.
+     */
+    public void setReportedValue(float value) {
+        reported = value;
+    }
+
+    public void reset() {
+        head = 0;
+        size = 0;
+        count = 0;
+        mean = Float.NaN;
+        reported = Float.NaN;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Image filters over ARGB pixel arrays.
+ * <p>
+ * Color matrices use the layout of android.graphics.ColorMatrix: 4 rows of 5 values, the last
+ * column is an offset in the range 0 ... 255. Kernels are applied per pixel, so the source and
+ * the destination array may be the same. apply() splits the pixels into tiles which are
+ * processed in parallel in the CPU lane of the TaskScheduler.
+ */
+public class PixelKernels {
+    public static final float[] IDENTITY = {
+            1f, 0f, 0f, 0f, 0f,
+            0f, 1f, 0f, 0f, 0f,
+            0f, 0f, 1f, 0f, 0f,
+            0f, 0f, 0f, 1f, 0f
+    };
+    // luminance weights of ColorMatrix.setSaturation()
+    public static final float[] DESATURATE = {
+            0.213f, 0.715f, 0.072f, 0f, 0f,
+            0.213f, 0.715f, 0.072f, 0f, 0f,
+            0.213f, 0.715f, 0.072f, 0f, 0f,
+            0f, 0f, 0f, 1f, 0f
+    };
+    public static final float[] SEPIA = concat(DESATURATE, new float[]{
+            1f, 0f, 0f, 0f, 0f,
+            0f, .80f, 0f, 0f, 0f,
+            0f, 0f, .52f, 0f, 0f,
+            0f, 0f, 0f, 1f, 0f
+    });
+    public static final float[] INVERT = {
+            -1f, 0f, 0f, 0f, 255f,
+            0f, -1f, 0f, 0f, 255f,
+            0f, 0f, -1f, 0f, 255f,
+            0f, 0f, 0f, 1f, 0f
+    };
+    public static final float[] CONTRAST = {
+            3f, 0f, 0f, 0f, -255f,
+            0f, 3f, 0f, 0f, -255f,
+            0f, 0f, 3f, 0f, -255f,
+            0f, 0f, 0f, 1f, 0f
+    };
+
+    /**
+     * Reduces the image to white, grey and black depending on the mean of the color channels.
+     */
+    public static final Kernel SKETCH = (src, dst, from, to) -> {
+        for (int i = from; i < to; i++) {
+            int pixel = src[i];
+            int mean = (((pixel >> 16) & 0xff) + ((pixel >> 8) & 0xff) + (pixel & 0xff)) / 3;
+            int value = (mean > 150) ? 255 : (mean > 100) ? 150 : 0;
+            dst[i] = (pixel & 0xff000000) | (value << 16) | (value << 8) | value;
+        }
+    };
+
+    private static final int MIN_TILE_SIZE = 1 << 16;
+    private static final int FIXED_POINT_SHIFT = 12;
+    private static final int FIXED_POINT_ONE = 1 << FIXED_POINT_SHIFT;
+    private static final int PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    public interface Kernel {
+        /**
+         * Filters the pixels from ... to-1 of src into dst.
+         */
+        void apply(int[] src, int[] dst, int from, int to);
+    }
+
+    /**
+     * @return the matrix which applies first and then second
+     */
+    public static float[] concat(float[] first, float[] second) {
+        float[] result = new float[20];
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 5; col++) {
+                float value = (col == 4) ? second[row * 5 + 4] : 0f;
+                for (int k = 0; k < 4; k++) {
+                    value += second[row * 5 + k] * first[k * 5 + col];
+                }
+                result[row * 5 + col] = value;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Fuses a chain of color matrices into a single pass.
+     *
+     * @param matrices the matrices in the order in which they are applied
+     */
+    public static Kernel colorMatrix(float[]... matrices) {
+        float[] m = IDENTITY;
+        for (float[] matrix : matrices) {
+            m = concat(m, matrix);
+        }
+        final int[] c = new int[20];
+        for (int i = 0; i < 20; i++) {
+            c[i] = Math.round(m[i] * FIXED_POINT_ONE);
+        }
+        final int round = FIXED_POINT_ONE / 2;
+        return (src, dst, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int pixel = src[i];
+                int a = pixel >>> 24;
+                int r = (pixel >> 16) & 0xff;
+                int g = (pixel >> 8) & 0xff;
+                int b = pixel & 0xff;
+                int nr = clamp((c[0] * r + c[1] * g + c[2] * b + c[3] * a + c[4] + round) >> FIXED_POINT_SHIFT);
+                int ng = clamp((c[5] * r + c[6] * g + c[7] * b + c[8] * a + c[9] + round) >> FIXED_POINT_SHIFT);
+                int nb = clamp((c[10] * r + c[11] * g + c[12] * b + c[13] * a + c[14] + round) >> FIXED_POINT_SHIFT);
+                int na = clamp((c[15] * r + c[16] * g + c[17] * b + c[18] * a + c[19] + round) >> FIXED_POINT_SHIFT);
+                dst[i] = (na << 24) | (nr << 16) | (ng << 8) | nb;
+            }
+        };
+    }
+
+    private static int clamp(int value) {
+        return (value < 0) ? 0 : (value > 255) ? 255 : value;
+    }
+
+    /**
+     * Applies the kernel to the first length pixels. Large images are split into tiles. Helper
+     * tasks in the CPU lane of the TaskScheduler pick up tiles, while the calling thread
+     * processes every tile which is not taken yet. So apply() makes progress even when it is
+     * called from a task in a full CPU lane. The method returns after all tiles are done. If the
+     * calling thread is interrupted, tiles which did not start yet are skipped and the interrupt
+     * flag is restored.
+     */
+    public static void apply(Kernel kernel, int[] src, int[] dst, int length) {
+        int count = Math.min(PARALLELISM, (length + MIN_TILE_SIZE - 1) / MIN_TILE_SIZE);
+        if (count <= 1) {
+            kernel.apply(src, dst, 0, length);
+            return;
+        }
+
+        Tiles tiles = new Tiles(kernel, src, dst, length, count);
+        TaskScheduler scheduler = TaskScheduler.getInstance();
+        try {
+            for (int i = 1; i < tiles.count; i++) {
+                scheduler.submit(TaskScheduler.Lane.CPU, null, tiles, tiles);
+            }
+        } catch (RejectedExecutionException e) {
+            // the calling thread processes the remaining tiles
+        }
+        try {
+            tiles.process(true);
+        } finally {
+            // running tiles still write into dst
+            tiles.await();
+            // helpers which did not start have nothing left to do
+            scheduler.cancel(tiles);
+        }
+
+        Throwable t = tiles.failure.get();
+        if (t != null) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    private static final class Tiles implements Runnable {
+        final Kernel kernel;
+        final int[] src;
+        final int[] dst;
+        final int length;
+        final int tileSize;
+        final int count;
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicBoolean cancelled = new AtomicBoolean(false);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CountDownLatch done;
+
+        Tiles(Kernel kernel, int[] src, int[] dst, int length, int tiles) {
+            this.kernel = kernel;
+            this.src = src;
+            this.dst = dst;
+            this.length = length;
+            this.tileSize = (length + tiles - 1) / tiles;
+            this.count = (length + tileSize - 1) / tileSize;
+            this.done = new CountDownLatch(count);
+        }
+
+        @Override
+        public void run() {
+            process(false);
+        }
+
+        /**
+         * Processes tiles until none is left.
+         *
+         * @param caller whether this is the thread which called apply()
+         */
+        void process(boolean caller) {
+            int tile;
+            while ((tile = next.getAndIncrement()) < count) {
+                if (caller && Thread.currentThread().isInterrupted()) {
+                    cancelled.set(true);
+                }
+                try {
+                    if (!cancelled.get()) {
+                        int from = tile * tileSize;
+                        kernel.apply(src, dst, from, Math.min(length, from + tileSize));
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    done.countDown();
+                }
+            }
+        }
+
+        void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    cancelled.set(true);
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
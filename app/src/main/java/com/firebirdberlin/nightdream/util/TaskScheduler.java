@@ -0,0 +1,327 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * App-wide scheduler for background work.
+ * <p>
+ * Work is split into lanes, each with a fixed number of threads and a bounded queue, so that
+ * network requests cannot starve image decoding and vice versa. Idle threads time out. Tasks
+ * can be
+ * <ul>
+ *     <li>coalesced: a task whose key is already queued or running is not scheduled again,</li>
+ *     <li>cancelled by owner, e.g. when an activity is destroyed.</li>
+ * </ul>
+ * Each lane counts its tasks and measures queue and run times.
+ */
+public class TaskScheduler {
+    public enum Lane {
+        /** network and file access */
+        IO,
+        /** decoding and image processing */
+        CPU,
+        /** short tasks whose results are shown in the UI */
+        UI,
+        /** resolving the stream of an alarm or radio, it must not wait behind other IO */
+        STREAM
+    }
+
+    private static final long KEEP_ALIVE_SECONDS = 30L;
+    private static TaskScheduler instance = null;
+
+    private final Map<Lane, ThreadPoolExecutor> executors = new EnumMap<>(Lane.class);
+    private final Map<Lane, Stats> stats = new EnumMap<>(Lane.class);
+    private final Map<String, Task> tasksByKey = new HashMap<>();
+    private final Map<Object, Set<Task>> tasksByOwner = new IdentityHashMap<>();
+
+    public static synchronized TaskScheduler getInstance() {
+        if (instance == null) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            instance = new TaskScheduler(4, Math.max(1, Math.min(4, cores / 2)), 1, 2, 64);
+        }
+        return instance;
+    }
+
+    public TaskScheduler(int ioThreads, int cpuThreads, int uiThreads, int queueCapacity) {
+        this(ioThreads, cpuThreads, uiThreads, 1, queueCapacity);
+    }
+
+    public TaskScheduler(int ioThreads, int cpuThreads, int uiThreads, int streamThreads,
+                         int queueCapacity) {
+        createLane(Lane.IO, ioThreads, queueCapacity);
+        createLane(Lane.CPU, cpuThreads, queueCapacity);
+        createLane(Lane.UI, uiThreads, queueCapacity);
+        createLane(Lane.STREAM, streamThreads, queueCapacity);
+    }
+
+    private void createLane(Lane lane, int threads, int queueCapacity) {
+        final String name = "TaskScheduler-" + lane.name().toLowerCase();
+        final AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        executor.allowCoreThreadTimeOut(true);
+        executors.put(lane, executor);
+        stats.put(lane, new Stats());
+    }
+
+    public Task submit(Lane lane, Runnable runnable) {
+        return submit(lane, null, null, runnable);
+    }
+
+    /**
+     * @param key   tasks with the same key are coalesced or null
+     * @param owner the task is cancelled by cancel(owner) or null
+     * @return the new task or the queued or running task with the same key
+     * @throws RejectedExecutionException if the queue of the lane is full
+     */
+    public Task submit(Lane lane, String key, Object owner, Runnable runnable) {
+        Stats laneStats = stats.get(lane);
+        Task task;
+        synchronized (this) {
+            if (key != null) {
+                Task existing = tasksByKey.get(key);
+                if (existing != null) {
+                    laneStats.coalesced.incrementAndGet();
+                    return existing;
+                }
+            }
+            task = new Task(lane, key, owner, runnable);
+            register(task);
+        }
+
+        try {
+            executors.get(lane).execute(task);
+        } catch (RejectedExecutionException e) {
+            laneStats.rejected.incrementAndGet();
+            synchronized (this) {
+                unregister(task);
+            }
+            throw e;
+        }
+        laneStats.submitted.incrementAndGet();
+        return task;
+    }
+
+    /**
+     * Cancels all queued and running tasks of the owner.
+     */
+    public void cancel(Object owner) {
+        if (owner == null) return;
+        List<Task> tasks;
+        synchronized (this) {
+            Set<Task> owned = tasksByOwner.remove(owner);
+            if (owned == null) return;
+            tasks = new ArrayList<>(owned);
+        }
+        for (Task task : tasks) {
+            task.cancel(true);
+            // drop it from the queue right away
+            executors.get(task.lane).remove(task);
+        }
+    }
+
+    /**
+     * @return the number of queued tasks of the lane
+     */
+    public int getQueueDepth(Lane lane) {
+        return executors.get(lane).getQueue().size();
+    }
+
+    /**
+     * @return the number of tasks which are running in the lane
+     */
+    public int getActiveCount(Lane lane) {
+        return executors.get(lane).getActiveCount();
+    }
+
+    public Stats getStats(Lane lane) {
+        return stats.get(lane);
+    }
+
+    private void register(Task task) {
+        if (task.key != null) {
+            tasksByKey.put(task.key, task);
+        }
+        if (task.owner != null) {
+            Set<Task> owned = tasksByOwner.get(task.owner);
+            if (owned == null) {
+                owned = Collections.newSetFromMap(new IdentityHashMap<>());
+                tasksByOwner.put(task.owner, owned);
+            }
+            owned.add(task);
+        }
+    }
+
+    private void unregister(Task task) {
+        if (task.key != null && tasksByKey.get(task.key) == task) {
+            tasksByKey.remove(task.key);
+        }
+        if (task.owner != null) {
+            Set<Task> owned = tasksByOwner.get(task.owner);
+            if (owned != null) {
+                owned.remove(task);
+                if (owned.isEmpty()) {
+                    tasksByOwner.remove(task.owner);
+                }
+            }
+        }
+    }
+
+    public class Task extends FutureTask<Void> {
+        private final Lane lane;
+        private final String key;
+        private final Object owner;
+        private final long submitTime = System.nanoTime();
+        private long startTime = 0L;
+        private volatile boolean finished = false;
+
+        Task(Lane lane, String key, Object owner, Runnable runnable) {
+            super(runnable, null);
+            this.lane = lane;
+            this.key = key;
+            this.owner = owner;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public void run() {
+            startTime = System.nanoTime();
+            stats.get(lane).waitNanos.addAndGet(startTime - submitTime);
+            super.run();
+        }
+
+        // called before waiting threads are released, so get() sees the updated state
+        @Override
+        protected void set(Void result) {
+            finish();
+            super.set(result);
+        }
+
+        @Override
+        protected void setException(Throwable t) {
+            finish();
+            super.setException(t);
+        }
+
+        private void finish() {
+            synchronized (TaskScheduler.this) {
+                unregister(this);
+            }
+            finished = true;
+            Stats laneStats = stats.get(lane);
+            laneStats.completed.incrementAndGet();
+            laneStats.runNanos.addAndGet(System.nanoTime() - startTime);
+        }
+
+        @Override
+        protected void done() {
+            if (finished || !isCancelled()) return;
+            synchronized (TaskScheduler.this) {
+                unregister(this);
+            }
+            stats.get(lane).cancelled.incrementAndGet();
+        }
+    }
+
+    /**
+     * Counters of a lane since the start of the app.
+     */
+    public static class Stats {
+        final AtomicLong submitted = new AtomicLong();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong cancelled = new AtomicLong();
+        final AtomicLong coalesced = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong waitNanos = new AtomicLong();
+        final AtomicLong runNanos = new AtomicLong();
+
+        public long getSubmitted() {
+            return submitted.get();
+        }
+
+        public long getCompleted() {
+            return completed.get();
+        }
+
+        public long getCancelled() {
+            return cancelled.get();
+        }
+
+        public long getCoalesced() {
+            return coalesced.get();
+        }
+
+        public long getRejected() {
+            return rejected.get();
+        }
+
+        /**
+         * @return the mean time in ms the completed tasks waited in the queue
+         */
+        public double getMeanWaitMillis() {
+            long n = completed.get();
+            return (n > 0) ? waitNanos.get() / 1e6 / n : 0.;
+        }
+
+        /**
+         * @return the mean run time of the completed tasks in ms
+         */
+        public double getMeanRunMillis() {
+            long n = completed.get();
+            return (n > 0) ? runNanos.get() / 1e6 / n : 0.;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    Locale.ROOT,
+                    "submitted=%d completed=%d cancelled=%d coalesced=%d rejected=%d wait=%.1fms run=%.1fms",
+                    getSubmitted(), getCompleted(), getCancelled(), getCoalesced(), getRejected(),
+                    getMeanWaitMillis(), getMeanRunMillis()
+            );
+        }
+    }
+}
@@ -32,10 +32,10 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.drawable.GradientDrawable;
 import android.location.Location;
-import android.os.AsyncTask;
 import android.os.Build;
 import android.os.Bundle;
 import android.util.Log;
+import android.util.LruCache;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -53,10 +53,18 @@ import com.firebirdberlin.nightdream.Utility;
 import com.firebirdberlin.nightdream.models.SimpleTime;
 import com.firebirdberlin.nightdream.services.DownloadWeatherService;
 import com.firebirdberlin.nightdream.ui.ClockLayout;
+import com.firebirdberlin.nightdream.util.TaskScheduler;
 import com.firebirdberlin.openweathermapapi.models.WeatherEntry;
 
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 public class ClockWidgetProvider extends AppWidgetProvider {
 
@@ -65,78 +73,157 @@ public class ClockWidgetProvider extends AppWidgetProvider {
     private AlarmManager mAlarmManager;
     private static final int RC_UPDATE = 0x13;
 
-    private static ViewInfo prepareSourceView(Context context, WidgetDimension dimension, int appWidgetId) {
-
-        final Dimension widgetSize = actualWidgetSize(context, dimension);
-
-        // convert width/height from dip to pixels, otherwise widgetBitmap is blurry
-        int widthPixel = Utility.dpToPx(context, widgetSize.width);
-        int heightPixel = Utility.dpToPx(context, widgetSize.height);
-
-        // load a view from resource
-        LayoutInflater inflater = LayoutInflater.from(context);
-        View container = inflater.inflate(R.layout.clock_widget_clock_layout, null);
-
-        ClockLayout clockLayout = container.findViewById(R.id.clockLayout);
+    // the last bitmap per render configuration
+    private static final LruCache<String, Bitmap> lastRenders = new LruCache<>(8);
+    // the content signature of the last update per widget id
+    private static final Map<Integer, String> lastSignatures = new ConcurrentHashMap<>();
+    // the inflated views per layout and size, reused across updates
+    private static final LruCache<String, WidgetView> widgetViews = new LruCache<>(4);
+
+    private static ViewInfo prepareSourceView(Context context, WidgetConfig config, TickInputs inputs) {
+        WidgetView widgetView = widgetViews.get(config.viewKey);
+        if (widgetView == null) {
+            // load a view from resource
+            LayoutInflater inflater = LayoutInflater.from(context);
+            widgetView = new WidgetView(inflater.inflate(R.layout.clock_widget_clock_layout, null));
+            widgetViews.put(config.viewKey, widgetView);
+        }
+        View container = widgetView.container;
+        ClockLayout clockLayout = widgetView.clockLayout;
 
-        updateClockLayoutSettings(context, appWidgetId, clockLayout, widgetSize);
+        updateClockLayoutSettings(context, config, widgetView, inputs);
 
-        Configuration config = context.getResources().getConfiguration();
-        clockLayout.updateLayoutForWidget(widthPixel, heightPixel, config);
+        Configuration configuration = context.getResources().getConfiguration();
+        clockLayout.updateLayoutForWidget(config.widthPixel, config.heightPixel, configuration);
 
         container.measure(
-                View.MeasureSpec.makeMeasureSpec(widthPixel, View.MeasureSpec.EXACTLY),
-                View.MeasureSpec.makeMeasureSpec(heightPixel, View.MeasureSpec.EXACTLY)
+                View.MeasureSpec.makeMeasureSpec(config.widthPixel, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(config.heightPixel, View.MeasureSpec.EXACTLY)
         );
-        container.layout(0, 0, widthPixel, heightPixel);
+        container.layout(0, 0, config.widthPixel, config.heightPixel);
 
-        return new ViewInfo(container, widthPixel, heightPixel);
+        return new ViewInfo(container, config.widthPixel, config.heightPixel);
     }
 
     private static String getAlarmClockEmoji(){
         return new String(Character.toChars(0x1F514));
     }
 
-    private static TextView getNextAlarm(Context context, Settings settings){
+    private static String getNextAlarmString(Context context) {
         DataSource db = new DataSource(context);
         db.open();
         SimpleTime nextAlarm = db.getNextAlarmToSchedule();
         db.close();
 
         if (nextAlarm != null) {
-            String nextAlarmString = String.format(
+            return String.format(
                     "%s %s",
                     getAlarmClockEmoji(),
                     Utility.getTimeFormatted(context, nextAlarm.getCalendar())
             );
+        }
+        return null;
+    }
 
-            TextView alarmTime = new TextView(context);
-            alarmTime.setTextColor(settings.secondaryColor);
+    private static void updateNextAlarm(
+            Context context, WidgetView widgetView, Settings settings, String nextAlarmString
+    ) {
+        ClockLayout clockLayout = widgetView.clockLayout;
+        TextView alarmTime = widgetView.alarmTime;
+        if (nextAlarmString == null) {
+            if (alarmTime != null && alarmTime.getParent() == clockLayout) {
+                clockLayout.removeView(alarmTime);
+            }
+            return;
+        }
+        if (alarmTime == null) {
+            alarmTime = new TextView(context);
             alarmTime.setGravity(Gravity.END);
-            alarmTime.setText(nextAlarmString);
-            return alarmTime;
+            widgetView.alarmTime = alarmTime;
+        }
+        alarmTime.setTextColor(settings.secondaryColor);
+        alarmTime.setText(nextAlarmString);
+        // setLayout() removes all children
+        if (alarmTime.getParent() == null) {
+            clockLayout.addView(alarmTime, 0);
         }
-        return null;
     }
 
+    /**
+     * Reads the values which are shared by all widgets once per update.
+     */
+    private static TickInputs fetchTickInputs(Context context) {
+        Settings settings = Settings.getSnapshot(context);
+        if (settings.shallShowWeather()) {
+            if (settings.getWeatherAutoLocationEnabled()) {
+                Location location = Utility.getLastKnownLocation(context);
+                if (location != null && location.getTime() != settings.location_time) {
+                    // the snapshot is read-only, it picks the location up before the next tick
+                    Settings.saveLocation(context, location);
+                }
+            }
 
-    private static void updateClockLayoutSettings(
-            Context context, int appWidgetId, ClockLayout clockLayout, Dimension widgetDimension
+            DownloadWeatherService.start(context, settings);
+        }
+        return new TickInputs(settings, settings.getWeatherEntry(), getNextAlarmString(context));
+    }
+
+    private static WidgetConfig getWidgetConfig(
+            Context context, int appWidgetId, WidgetDimension dimension, TickInputs inputs
     ) {
+        final Dimension widgetSize = actualWidgetSize(context, dimension);
         SharedPreferences widgetPrefs = context.getSharedPreferences(
                 String.format(Locale.ENGLISH, "preferences_widget_%d", appWidgetId),
                 Context.MODE_PRIVATE
         );
-        Settings settings = new Settings(context);
+        Settings settings = inputs.settings;
         int clockLayoutId = settings.getClockLayoutID(false);
         if (widgetPrefs.contains("clockLayout")) {
             clockLayoutId = Integer.parseInt(widgetPrefs.getString("clockLayout", "0"));
             clockLayoutId = settings.getValidatedClockLayoutID(clockLayoutId, false);
         }
+        return new WidgetConfig(
+                context,
+                clockLayoutId,
+                widgetSize,
+                widgetPrefs.getBoolean("showAlarm", false),
+                widgetPrefs.getBoolean("showDate", true),
+                widgetPrefs.getInt("clockBackgroundTransparency", 100),
+                getStyleSignature(settings, clockLayoutId)
+        );
+    }
+
+    /**
+     * @return the values of all settings which are applied in updateClockLayoutSettings()
+     */
+    private static String getStyleSignature(Settings settings, int clockLayoutId) {
+        return settings.getFontUri(clockLayoutId)
+                + "," + settings.getGlowRadius(clockLayoutId)
+                + "," + settings.getTextureId(clockLayoutId)
+                + "," + settings.getColorHours(clockLayoutId)
+                + "," + settings.getColorMinutes(clockLayoutId)
+                + "," + settings.getColorSeconds(clockLayoutId)
+                + "," + settings.getShowDivider(clockLayoutId)
+                + "," + settings.getWeatherIconSizeFactor(clockLayoutId)
+                + "," + settings.clockColor + "," + settings.secondaryColor
+                + "," + settings.dateFormat + "," + settings.getTimeFormat()
+                + "," + settings.shallShowWeather() + "," + settings.weather_icon
+                + "," + settings.showTemperature + "," + settings.showApparentTemperature
+                + "," + settings.temperatureUnit
+                + "," + settings.showWindSpeed + "," + settings.speedUnit;
+    }
+
+    private static void updateClockLayoutSettings(
+            Context context, WidgetConfig config, WidgetView widgetView, TickInputs inputs
+    ) {
+        Settings settings = inputs.settings;
+        ClockLayout clockLayout = widgetView.clockLayout;
+        WeatherEntry weatherEntry = inputs.weatherEntry;
+        Dimension widgetDimension = config.size;
+        int clockLayoutId = config.clockLayoutId;
 
         int glowRadius = settings.getGlowRadius(clockLayoutId);
         int textureId = settings.getTextureResId(clockLayoutId);
-        boolean showAlarm = widgetPrefs.getBoolean("showAlarm", false);
         boolean showWeather = widgetDimension.height >= 130 && widgetDimension.width >= 130;
         boolean showDate = widgetDimension.height >= 130 && widgetDimension.width >= 130;
         if (clockLayoutId == ClockLayout.LAYOUT_ID_DIGITAL3) {
@@ -144,7 +231,14 @@ public class ClockWidgetProvider extends AppWidgetProvider {
         }
 
         clockLayout.setBackgroundColor(Color.TRANSPARENT);
-        clockLayout.setLayout(clockLayoutId);
+        // the clock face is only re-created for another layout or to drop the weather it showed
+        if (widgetView.clockLayoutId != clockLayoutId
+                || (widgetView.showsWeather && !weatherEntry.isValid())) {
+            clockLayout.setLayout(clockLayoutId);
+            widgetView.clockLayoutId = clockLayoutId;
+        }
+        widgetView.showsWeather = weatherEntry.isValid();
+        // setting the formats also refreshes the time of a reused clock face
         clockLayout.setTypeface(settings.loadTypeface(clockLayoutId));
         clockLayout.setPrimaryColor(settings.clockColor, glowRadius, settings.clockColor, textureId, false);
         clockLayout.setSecondaryColor(settings.secondaryColor);
@@ -154,23 +248,13 @@ public class ClockWidgetProvider extends AppWidgetProvider {
         clockLayout.setDateFormat(settings.dateFormat);
         clockLayout.setTimeFormat(settings.getTimeFormat(), settings.is24HourFormat());
         clockLayout.setShowDivider(settings.getShowDivider(clockLayoutId));
-        clockLayout.showDate(showDate && widgetPrefs.getBoolean("showDate", true));
+        clockLayout.showDate(showDate && config.showDate);
 
         clockLayout.setShowNotifications(false);
         clockLayout.showPollenExposure(false);
         clockLayout.setWeatherIconSizeFactor(settings.getWeatherIconSizeFactor(clockLayoutId));
 
-        if (settings.shallShowWeather()) {
-            if (settings.getWeatherAutoLocationEnabled()) {
-                Location location = Utility.getLastKnownLocation(context);
-                settings.setLocation(location);
-            }
-
-            DownloadWeatherService.start(context, settings);
-        }
-
         // update weather date if not outdated
-        WeatherEntry weatherEntry = settings.getWeatherEntry();
         if (weatherEntry.isValid()) {
             clockLayout.setTemperature(
                     settings.showTemperature,
@@ -186,13 +270,10 @@ public class ClockWidgetProvider extends AppWidgetProvider {
             clockLayout.clearWeather();
         }
 
-        TextView alarmTime = getNextAlarm(context, settings);
-        if (showAlarm && alarmTime != null) {
-            clockLayout.addView(alarmTime, 0);
-        }
+        updateNextAlarm(context, widgetView, settings, config.showAlarm ? inputs.nextAlarm : null);
 
         {   // draw background
-            int transparency = 255 - widgetPrefs.getInt("clockBackgroundTransparency", 100);
+            int transparency = 255 - config.backgroundTransparency;
 
             GradientDrawable shape = new GradientDrawable();
             shape.setCornerRadius(30);
@@ -270,6 +351,14 @@ public class ClockWidgetProvider extends AppWidgetProvider {
         scheduleUpdateClock(context, AppWidgetManager.getInstance(context).getAppWidgetIds(getComponentName(context)));
     }
 
+    @Override
+    public void onDeleted(Context context, int[] appWidgetIds) {
+        super.onDeleted(context, appWidgetIds);
+        for (int id : appWidgetIds) {
+            lastSignatures.remove(id);
+        }
+    }
+
     @Override
     public void onDisabled(Context context) {
         // when last instance was removed
@@ -296,20 +385,20 @@ public class ClockWidgetProvider extends AppWidgetProvider {
         }
         scheduleUpdateClock(context, appWidgetIds);
 
-        for (int widgetId : appWidgetIds) {
-            Bundle bundle = appWidgetManager.getAppWidgetOptions(widgetId);
-
-            WidgetDimension w = widgetDimensionFromBundle(bundle);
-            updateWidget(context, appWidgetManager, widgetId, w);
+        WidgetDimension[] dimensions = new WidgetDimension[appWidgetIds.length];
+        for (int i = 0; i < appWidgetIds.length; i++) {
+            Bundle bundle = appWidgetManager.getAppWidgetOptions(appWidgetIds[i]);
+            dimensions[i] = widgetDimensionFromBundle(bundle);
         }
+        updateWidgets(context, appWidgetManager, appWidgetIds, dimensions);
     }
 
-    private void updateWidget(Context context, AppWidgetManager appWidgetManager,
-                              int appWidgetId, WidgetDimension dimension) {
+    private void updateWidgets(Context context, AppWidgetManager appWidgetManager,
+                               int[] appWidgetIds, WidgetDimension[] dimensions) {
 
         //Utility.logToFile(context, LOG_FILE_WEATHER_UPDATE, "updated widget");
-        final PrepareBitmapTask task = new PrepareBitmapTask(context, appWidgetManager, appWidgetId, dimension);
-        task.execute(context);
+        final PrepareBitmapTask task = new PrepareBitmapTask(context, appWidgetManager, appWidgetIds, dimensions);
+        task.execute();
     }
 
     private void scheduleUpdateClock(Context context, int[] widgetIds) {
@@ -333,7 +422,8 @@ public class ClockWidgetProvider extends AppWidgetProvider {
         WidgetDimension w = widgetDimensionFromBundle(bundle);
         Log.d(TAG, String.format("onUpdate: widgetId=%d min width=%d max width=%d min height=%d max height=%d", appWidgetId, w.minWidth, w.maxWidth, w.minHeight, w.maxHeight));
 
-        updateWidget(context, appWidgetManager, appWidgetId, w);
+        // the size is part of the signature, so a resize is never skipped
+        updateWidgets(context, appWidgetManager, new int[]{appWidgetId}, new WidgetDimension[]{w});
     }
 
     private static final class ViewInfo {
@@ -348,41 +438,187 @@ public class ClockWidgetProvider extends AppWidgetProvider {
         }
     }
 
-    private static class PrepareBitmapTask extends AsyncTask<Context, Void, PrepareBitmapTask.TaskResult> {
+    /**
+     * An inflated widget view and the state that was applied to it.
+     */
+    private static final class WidgetView {
+        final View container;
+        final ClockLayout clockLayout;
+        int clockLayoutId = -1;
+        boolean showsWeather = false;
+        TextView alarmTime = null;
+
+        WidgetView(View container) {
+            this.container = container;
+            this.clockLayout = container.findViewById(R.id.clockLayout);
+        }
+    }
+
+    /**
+     * The values shared by all widgets in one update.
+     */
+    private static final class TickInputs {
+        final Settings settings;
+        final WeatherEntry weatherEntry;
+        final String nextAlarm;
+
+        TickInputs(Settings settings, WeatherEntry weatherEntry, String nextAlarm) {
+            this.settings = settings;
+            this.weatherEntry = weatherEntry;
+            this.nextAlarm = nextAlarm;
+        }
+
+        /**
+         * @return a string which changes whenever the rendered content changes
+         */
+        String getContentSignature() {
+            long now = System.currentTimeMillis();
+            // the settings are part of the WidgetConfig key
+            return (now / 60000) + "|" + TimeZone.getDefault().getOffset(now)
+                    + "|" + weatherEntry.timestamp + "|" + nextAlarm;
+        }
+    }
+
+    /**
+     * Everything that determines how a widget looks apart from the time dependent content.
+     * Widgets with equal keys show identical images.
+     */
+    private static final class WidgetConfig {
+        final int clockLayoutId;
+        final Dimension size;
+        final int widthPixel;
+        final int heightPixel;
+        final boolean showAlarm;
+        final boolean showDate;
+        final int backgroundTransparency;
+        final String layoutKey;
+        final String viewKey;
+        final String key;
+
+        WidgetConfig(Context context, int clockLayoutId, Dimension size, boolean showAlarm,
+                     boolean showDate, int backgroundTransparency, String style) {
+            this.clockLayoutId = clockLayoutId;
+            this.size = size;
+            // convert width/height from dip to pixels, otherwise widgetBitmap is blurry
+            this.widthPixel = Utility.dpToPx(context, size.width);
+            this.heightPixel = Utility.dpToPx(context, size.height);
+            this.showAlarm = showAlarm;
+            this.showDate = showDate;
+            this.backgroundTransparency = backgroundTransparency;
+            this.layoutKey = String.format(
+                    Locale.ENGLISH, "%d:%dx%d", clockLayoutId, widthPixel, heightPixel
+            );
+            // views inflated for another configuration (e.g. locale, night mode) are stale
+            this.viewKey = String.format(
+                    Locale.ENGLISH, "%s:%x",
+                    layoutKey, context.getResources().getConfiguration().hashCode()
+            );
+            this.key = String.format(
+                    Locale.ENGLISH, "%s:%b:%b:%d:%s",
+                    viewKey, showAlarm, showDate, backgroundTransparency, style
+            );
+        }
+    }
+
+    /**
+     * Widgets with the same configuration, rendered once.
+     */
+    private static final class RenderGroup {
+        final WidgetConfig config;
+        final List<Integer> appWidgetIds = new ArrayList<>();
+        Bitmap bitmap;
+
+        RenderGroup(WidgetConfig config) {
+            this.config = config;
+        }
+
+        int[] getAppWidgetIds() {
+            int[] ids = new int[appWidgetIds.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = appWidgetIds.get(i);
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Renders the widgets in the UI lane. The views are detached, so they are measured, drawn
+     * and published off the main thread.
+     */
+    private static class PrepareBitmapTask {
 
         private final AppWidgetManager appWidgetManager;
-        private final int appWidgetId;
-        private final WidgetDimension dimension;
+        private final int[] appWidgetIds;
+        private final WidgetDimension[] dimensions;
         private final Context applicationContext;
 
         static class TaskResult {
-            final ViewInfo viewInfo;
-            final RemoteViews remoteViews;
+            final List<RenderGroup> groups;
+            final String contentSignature;
 
-            TaskResult(ViewInfo viewInfo, RemoteViews remoteViews) {
-                this.viewInfo = viewInfo;
-                this.remoteViews = remoteViews;
+            TaskResult(List<RenderGroup> groups, String contentSignature) {
+                this.groups = groups;
+                this.contentSignature = contentSignature;
             }
         }
 
-        PrepareBitmapTask(Context context, AppWidgetManager appWidgetManager, int appWidgetId, WidgetDimension dimension) {
-            super();
+        PrepareBitmapTask(Context context, AppWidgetManager appWidgetManager,
+                          int[] appWidgetIds, WidgetDimension[] dimensions) {
             this.applicationContext = context.getApplicationContext();
             this.appWidgetManager = appWidgetManager;
-            this.appWidgetId = appWidgetId;
-            this.dimension = dimension;
+            this.appWidgetIds = appWidgetIds;
+            this.dimensions = dimensions;
+        }
+
+        void execute() {
+            try {
+                TaskScheduler.getInstance().submit(TaskScheduler.Lane.UI, () -> publish(render()));
+            } catch (RejectedExecutionException e) {
+                Log.w(TAG, "Task rejected: the UI queue is full. Skipping widget update.");
+            }
         }
 
-        @Override
-        protected TaskResult doInBackground(Context... contexts) {
-            final ViewInfo sourceView = prepareSourceView(applicationContext, dimension, appWidgetId);
+        private TaskResult render() {
+            if (appWidgetIds.length == 0) {
+                return null;
+            }
+            final TickInputs inputs = fetchTickInputs(applicationContext);
+            final String content = inputs.getContentSignature();
+
+            Map<String, RenderGroup> groups = new LinkedHashMap<>();
+            for (int i = 0; i < appWidgetIds.length; i++) {
+                WidgetConfig config = getWidgetConfig(
+                        applicationContext, appWidgetIds[i], dimensions[i], inputs
+                );
+                if ((config.key + "|" + content).equals(lastSignatures.get(appWidgetIds[i]))) {
+                    Log.d(TAG, "widget " + appWidgetIds[i] + " is up to date");
+                    continue;
+                }
+                RenderGroup group = groups.get(config.key);
+                if (group == null) {
+                    group = new RenderGroup(config);
+                    groups.put(config.key, group);
+                }
+                group.appWidgetIds.add(appWidgetIds[i]);
+            }
+
+            // groups may share a view, so each one is drawn before the next is prepared
+            synchronized (widgetViews) {
+                for (RenderGroup group : groups.values()) {
+                    ViewInfo viewInfo = prepareSourceView(applicationContext, group.config, inputs);
+                    group.bitmap = loadBitmapFromView(viewInfo);
+                }
+            }
+            return new TaskResult(new ArrayList<>(groups.values()), content);
+        }
 
+        private RemoteViews getRemoteViews(Bitmap widgetBitmap) {
             RemoteViews updateViews = new RemoteViews(applicationContext.getPackageName(), R.layout.clock_widget);
             Intent intent = new Intent(applicationContext, NightDreamActivity.class);
             PendingIntent pendingIntent = Utility.getImmutableActivity(applicationContext, 0, intent);
             updateViews.setOnClickPendingIntent(R.id.clockWidgetImageView, pendingIntent);
-
-            return new TaskResult(sourceView, updateViews);
+            updateViews.setImageViewBitmap(R.id.clockWidgetImageView, widgetBitmap);
+            return updateViews;
         }
 
         private static Bitmap loadBitmapFromView(ViewInfo viewInfo) {
@@ -408,31 +644,47 @@ public class ClockWidgetProvider extends AppWidgetProvider {
             return bitmap;
         }
 
-        @Override
-        protected void onPostExecute(TaskResult result) {
-            if (result == null || result.viewInfo == null || result.remoteViews == null) {
+        private void publish(TaskResult result) {
+            if (result == null) {
                 return;
             }
 
-            Bitmap widgetBitmap = loadBitmapFromView(result.viewInfo);
+            for (RenderGroup group : result.groups) {
+                Bitmap widgetBitmap = group.bitmap;
+                if (widgetBitmap == null) {
+                    continue;
+                }
 
-            if (widgetBitmap == null) {
-                return;
-            }
+                int[] ids = group.getAppWidgetIds();
+                Bitmap lastBitmap = lastRenders.get(group.config.key);
+                boolean unchanged = lastBitmap != null && lastBitmap.sameAs(widgetBitmap);
+                lastRenders.put(group.config.key, widgetBitmap);
+                for (int id : ids) {
+                    // widgets which did not show this configuration before must be updated
+                    String last = lastSignatures.get(id);
+                    if (last == null || !last.startsWith(group.config.key + "|")) {
+                        unchanged = false;
+                    }
+                    lastSignatures.put(id, group.config.key + "|" + result.contentSignature);
+                }
+                if (unchanged) {
+                    Log.d(TAG, "widget image unchanged, skipping update");
+                    continue;
+                }
 
-            try {
-                result.remoteViews.setImageViewBitmap(R.id.clockWidgetImageView, widgetBitmap);
-            } catch (IllegalArgumentException e) {
-                Log.e(TAG, "Failed to set bitmap to RemoteViews", e);
-                return;
-            }
+                RemoteViews remoteViews;
+                try {
+                    remoteViews = getRemoteViews(widgetBitmap);
+                } catch (IllegalArgumentException e) {
+                    Log.e(TAG, "Failed to set bitmap to RemoteViews", e);
+                    continue;
+                }
 
-            try {
-                appWidgetManager.updateAppWidget(appWidgetId, result.remoteViews);
-            } catch (IllegalArgumentException ignore) {
+                try {
+                    appWidgetManager.updateAppWidget(ids, remoteViews);
+                } catch (IllegalArgumentException ignore) {
+                }
             }
-
-            System.gc(); //optional
         }
     }
 
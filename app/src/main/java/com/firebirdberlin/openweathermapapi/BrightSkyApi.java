@@ -26,14 +26,17 @@ import android.util.Log;
 import com.firebirdberlin.HttpReader;
 import com.firebirdberlin.openweathermapapi.models.City;
 import com.firebirdberlin.openweathermapapi.models.WeatherEntry;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.ref.WeakReference;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.text.DateFormat;
-import java.text.ParseException;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -51,18 +54,22 @@ public class BrightSkyApi {
 
     public static WeatherEntry fetchCurrentWeatherData(Context context, City city) {
         mContext = new WeakReference<>(context);
-        String responseText = fetchWeatherData(context, city);
-        if (responseText == null || responseText.isEmpty()) {
+        File file = fetchWeatherData(context, city);
+        if (file == null) {
             return new WeatherEntry();
         }
-        Data data = new Gson().fromJson(responseText, Data.class);
         long now = System.currentTimeMillis();
-        Weather weather = data.getLatestWeather(now);
-        if (weather != null) {
-            Source source = data.getSourceById(weather.source_id);
-            return weather.toWeatherEntry(source, city, requestTimestamp);
+        WeatherEntry entry = null;
+        try (Reader reader = openReader(file)) {
+            entry = BrightSkyParser.parseCurrent(reader, city, requestTimestamp, now);
+        } catch (IOException e) {
+            Log.e(TAG, "could not parse the response", e);
+        }
+        if (entry != null) {
+            translateDescription(entry);
+            return entry;
         } else {
-            WeatherEntry entry = new WeatherEntry();
+            entry = new WeatherEntry();
             entry.lat = (float) city.lat;
             entry.lon = (float) city.lon;
             entry.cityName = city.name;
@@ -72,29 +79,41 @@ public class BrightSkyApi {
 
     public static List<WeatherEntry> fetchHourlyWeatherData(Context context, City city) {
         mContext = new WeakReference<>(context);
-        String responseText = fetchWeatherData(context, city);
-        if (responseText == null || responseText.isEmpty()) {
+        File file = fetchWeatherData(context, city);
+        if (file == null) {
             return new ArrayList<>();
         }
-        responseText = responseText.replaceAll("\"relative_humidity\": null", "\"relative_humidity\": -1");
-        // Log.i(TAG, responseText);
-        Gson gson = new GsonBuilder().create();
-        Data data = gson.fromJson(responseText, Data.class);
-        // data.log();
-
-        List<WeatherEntry> entries = new ArrayList<>();
-        if (data != null && data.isValid()) {
-            for (Weather weather : data.weather) {
-                Source source = data.getSourceById(weather.source_id);
-                entries.add(weather.toWeatherEntry(source, city, requestTimestamp));
-            }
+        List<WeatherEntry> entries;
+        try (Reader reader = openReader(file)) {
+            entries = BrightSkyParser.parseHourly(reader, city, requestTimestamp);
+        } catch (IOException e) {
+            Log.e(TAG, "could not parse the response", e);
+            return new ArrayList<>();
+        }
+        for (WeatherEntry entry : entries) {
+            translateDescription(entry);
         }
         return entries;
     }
 
-    private static String fetchWeatherData(Context context, City city) {
-        String responseText;
+    private static Reader openReader(File file) throws IOException {
+        return new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)
+        );
+    }
+
+    private static void translateDescription(WeatherEntry entry) {
+        Context context = (mContext != null) ? mContext.get() : null;
+        if (context == null || entry.description == null) {
+            return;
+        }
+        Resources res = context.getResources();
+        String text = "brightsky_conditions_" + entry.description;
+        int resID = res.getIdentifier(text, "string", context.getPackageName());
+        if (resID != 0) entry.description = res.getString(resID);
+    }
 
+    private static File fetchWeatherData(Context context, City city) {
         Log.d(TAG, "fetchWeatherData(" + city.lat + "," + city.lon + ")");
         String cacheFileName = String.format(
                 java.util.Locale.getDefault(), "%s_%3.2f_%3.2f.txt", CACHE_FILE, city.lat, city.lon
@@ -105,23 +124,15 @@ public class BrightSkyApi {
         URL url;
         try {
             url = getUrlForecast(city);
-            responseText = httpReader.readUrl(url.toString(), false);
+            File file = httpReader.readUrlToFile(url.toString(), false);
             requestTimestamp = httpReader.getRequestTimestamp();
-            return responseText;
+            return file;
         } catch (MalformedURLException e) {
             e.printStackTrace();
             return null;
         }
     }
 
-    private static double toKelvin(double celsius) {
-        return celsius + 273.15;
-    }
-
-    private static double toMetersPerSecond(double kilometersPerHour) {
-        return kilometersPerHour * 1000. / 3600.;
-    }
-
     private static URL getUrlForecast(City city) throws MalformedURLException {
         Calendar now = Calendar.getInstance();
         Date todayDate = now.getTime();
@@ -144,146 +155,4 @@ public class BrightSkyApi {
         String url = builder.build().toString();
         return new URL(url);
     }
-
-    public class Data {
-        List<Source> sources;
-        List<Weather> weather;
-
-        boolean isValid() {
-            return (
-                    weather != null
-                            && sources != null
-                            && weather.size() > 0
-                            && sources.size() > 0
-            );
-        }
-
-        Source getSourceById(int id) {
-            if (sources == null) {
-                return null;
-            }
-            for (Source source : sources) {
-                if (source.id == id) {
-                    return source;
-                }
-            }
-            return null;
-        }
-
-        Weather getLatestWeather(long now) {
-            Weather latestWeather = null;
-            if (weather != null) {
-                for (Weather weather : weather) {
-                    if (weather.timestampToMillis() > now) {
-                        break;
-                    }
-                    latestWeather = weather;
-                }
-            }
-            return latestWeather;
-        }
-
-        // keep it for convenience, Logs all data.
-        void log() {
-            if (!isValid()) return;
-            for (Source source : sources) {
-                Log.i(TAG, new Gson().toJson(source));
-            }
-            for (Weather weather : weather) {
-                Log.i(TAG, new Gson().toJson(weather));
-            }
-        }
-    }
-
-    class Source {
-        // commented fields are currently not in use
-        int id;
-        // String dwd_station_id;
-        // String wmo_station_id;
-        String station_name;
-        // String observation_type;
-        float lat;
-        float lon;
-        // float height;
-        // int distance;
-    }
-
-    class Weather {
-        // commented fields are currently not in use
-        String timestamp;
-        int source_id;
-        int cloud_cover;
-        String condition;
-        // float dew_point;
-        String icon;
-        float precipitation;
-        // float pressure_msl;
-        int relative_humidity = -1;
-        // int sunshine;
-        float temperature;
-        // int visibility;
-        int wind_direction;
-        float wind_speed;
-        // int wind_gust_direction;
-        // float wind_gust_speed;
-
-        long timestampToMillis() {
-            try {
-                DateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ", java.util.Locale.getDefault());
-                Date result = df.parse(timestamp);
-//                Log.w(TAG, timestamp + " => " + result.getTime());
-                return result.getTime();
-            } catch (ParseException e) {
-                return -1L;
-            }
-        }
-
-        WeatherEntry toWeatherEntry(Source source, City city, long requestTimestamp) {
-            WeatherEntry entry = new WeatherEntry();
-            entry.cityID = (source != null) ? source.id : -1;
-            entry.cityName = city.name;
-
-            entry.clouds = cloud_cover;
-            entry.description = condition;
-            if (mContext != null && mContext.get() != null) {
-                Resources res = mContext.get().getResources();
-                String text = "brightsky_conditions_" + entry.description;
-                int resID = res.getIdentifier(text, "string", mContext.get().getPackageName());
-                if (resID != 0) entry.description = mContext.get().getResources().getString(resID);
-            }
-            entry.lat = (float) city.lat;
-            entry.lon = (float) city.lon;
-            entry.rain1h = precipitation;
-            entry.rain3h = -1f;
-            entry.request_timestamp = requestTimestamp;
-            entry.sunriseTime = 0L;
-            entry.sunsetTime = 0L;
-            entry.temperature = toKelvin(temperature);
-            entry.apparentTemperature = -273.15;
-            entry.humidity = relative_humidity;
-            entry.weatherIcon = icon;
-            entry.weatherIconMeteoconsSymbol = iconToMeteoconsSymbol(icon);
-            entry.windDirection = wind_direction;
-            entry.windSpeed = toMetersPerSecond(wind_speed);
-            entry.timestamp = timestampToMillis() / 1000;
-            return entry;
-        }
-
-        String iconToMeteoconsSymbol(String code) {
-            if (code.equals("clear-day")) return "B";
-            if (code.equals("clear-night")) return "C";
-            if (code.equals("rain")) return "R";
-            if (code.equals("snow")) return "W";
-            if (code.equals("sleet")) return "X";
-            if (code.equals("wind")) return "F";
-            if (code.equals("fog")) return "M";
-            if (code.equals("cloudy")) return "N";
-            if (code.equals("partly-cloudy-day")) return "H";
-            if (code.equals("partly-cloudy-night")) return "I";
-            if (code.equals("thunderstorm")) return "0";
-            if (code.equals("tornado")) return "0";
-            if (code.equals("hail")) return "X";
-            return "";
-        }
-    }
 }
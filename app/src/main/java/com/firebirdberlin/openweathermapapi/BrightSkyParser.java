@@ -0,0 +1,202 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.openweathermapapi;
+
+import com.firebirdberlin.openweathermapapi.models.City;
+import com.firebirdberlin.openweathermapapi.models.WeatherEntry;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser for the /weather responses of api.brightsky.dev.
+ * <p>
+ * The weather records are converted to WeatherEntry objects while reading. The sources block is
+ * not needed: the source id of a record is used as city id. Descriptions are the raw condition
+ * values of the API.
+ */
+public class BrightSkyParser {
+
+    interface EntryHandler {
+        void onEntry(WeatherEntry entry);
+    }
+
+    /**
+     * @return the last record which is not in the future or null
+     */
+    public static WeatherEntry parseCurrent(
+            Reader reader, City city, long requestTimestamp, long now
+    ) throws IOException {
+        final WeatherEntry[] result = {null};
+        parse(reader, city, requestTimestamp, now, entry -> result[0] = entry);
+        return result[0];
+    }
+
+    public static List<WeatherEntry> parseHourly(
+            Reader reader, City city, long requestTimestamp
+    ) throws IOException {
+        final List<WeatherEntry> entries = new ArrayList<>();
+        parse(reader, city, requestTimestamp, Long.MAX_VALUE, entries::add);
+        return entries;
+    }
+
+    /**
+     * Passes the entries up to the time until to the handler. Parsing stops at the first later
+     * entry.
+     */
+    static void parse(
+            Reader reader, City city, long requestTimestamp, long until, EntryHandler handler
+    ) throws IOException {
+        JsonReader json = new JsonReader(reader);
+        try {
+            json.beginObject();
+            while (json.hasNext()) {
+                if (!"weather".equals(json.nextName()) || json.peek() != JsonToken.BEGIN_ARRAY) {
+                    json.skipValue();
+                    continue;
+                }
+                json.beginArray();
+                while (json.hasNext()) {
+                    Record record = readRecord(json, until);
+                    if (record.time > until) return;
+                    handler.onEntry(record.toWeatherEntry(city, requestTimestamp));
+                }
+                json.endArray();
+                // the sources are not needed
+                return;
+            }
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("malformed response", e);
+        } finally {
+            json.close();
+        }
+    }
+
+    /**
+     * Reads a record. It is incomplete if its timestamp is later than until.
+     */
+    private static Record readRecord(JsonReader json, long until) throws IOException {
+        Record record = new Record();
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (json.peek() == JsonToken.NULL) {
+                json.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "timestamp":
+                    record.time = IsoTimestamp.parse(json.nextString());
+                    if (record.time > until) return record;
+                    break;
+                case "source_id":
+                    record.sourceId = json.nextInt();
+                    break;
+                case "cloud_cover":
+                    record.cloudCover = (int) Math.round(json.nextDouble());
+                    break;
+                case "condition":
+                    record.condition = json.nextString();
+                    break;
+                case "icon":
+                    record.icon = json.nextString();
+                    break;
+                case "precipitation":
+                    record.precipitation = (float) json.nextDouble();
+                    break;
+                case "relative_humidity":
+                    record.relativeHumidity = (int) Math.round(json.nextDouble());
+                    break;
+                case "temperature":
+                    record.temperature = (float) json.nextDouble();
+                    break;
+                case "wind_direction":
+                    record.windDirection = (int) Math.round(json.nextDouble());
+                    break;
+                case "wind_speed":
+                    record.windSpeed = (float) json.nextDouble();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return record;
+    }
+
+    static String iconToMeteoconsSymbol(String code) {
+        if (code == null) return "";
+        if (code.equals("clear-day")) return "B";
+        if (code.equals("clear-night")) return "C";
+        if (code.equals("rain")) return "R";
+        if (code.equals("snow")) return "W";
+        if (code.equals("sleet")) return "X";
+        if (code.equals("wind")) return "F";
+        if (code.equals("fog")) return "M";
+        if (code.equals("cloudy")) return "N";
+        if (code.equals("partly-cloudy-day")) return "H";
+        if (code.equals("partly-cloudy-night")) return "I";
+        if (code.equals("thunderstorm")) return "0";
+        if (code.equals("tornado")) return "0";
+        if (code.equals("hail")) return "X";
+        return "";
+    }
+
+    static class Record {
+        long time = IsoTimestamp.INVALID;
+        int sourceId = -1;
+        int cloudCover = 0;
+        String condition = null;
+        String icon = null;
+        float precipitation = 0f;
+        int relativeHumidity = -1;
+        float temperature = 0f;
+        int windDirection = 0;
+        float windSpeed = 0f;
+
+        WeatherEntry toWeatherEntry(City city, long requestTimestamp) {
+            WeatherEntry entry = new WeatherEntry();
+            entry.cityID = sourceId;
+            entry.cityName = city.name;
+            entry.clouds = cloudCover;
+            entry.description = condition;
+            entry.lat = (float) city.lat;
+            entry.lon = (float) city.lon;
+            entry.rain1h = precipitation;
+            entry.rain3h = -1f;
+            entry.request_timestamp = requestTimestamp;
+            entry.sunriseTime = 0L;
+            entry.sunsetTime = 0L;
+            entry.temperature = temperature + 273.15;
+            entry.apparentTemperature = -273.15;
+            entry.humidity = relativeHumidity;
+            entry.weatherIcon = icon;
+            entry.weatherIconMeteoconsSymbol = iconToMeteoconsSymbol(icon);
+            entry.windDirection = windDirection;
+            // km/h to m/s
+            entry.windSpeed = windSpeed * 1000. / 3600.;
+            entry.timestamp = time / 1000;
+            return entry;
+        }
+    }
+}
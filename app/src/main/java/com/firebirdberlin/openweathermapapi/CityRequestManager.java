@@ -24,19 +24,15 @@ import android.os.Looper;
 import android.util.Log;
 
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 
+import com.firebirdberlin.nightdream.util.TaskScheduler;
 import com.firebirdberlin.openweathermapapi.OpenWeatherMapApi; // Assuming your API class is here
 import com.firebirdberlin.openweathermapapi.models.City; // Your City model
 
 public class CityRequestManager {
 
     private static final String TAG = "CityRequestManager";
-    // Use a fixed thread pool for network operations. The size can be adjusted based on expected load.
-    // A pool size of 4 is generally a good starting point for I/O bound tasks.
-    private static final ExecutorService executorService = Executors.newFixedThreadPool(4);
 
     // Handler to post results back to the main thread
     private static final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
@@ -79,8 +75,7 @@ public class CityRequestManager {
 
         try {
             // Submit the task to the thread pool
-            executorService.execute(() -> {
-                // This code runs on a background thread managed by the executorService
+            TaskScheduler.getInstance().submit(TaskScheduler.Lane.IO, () -> {
                 Log.d(TAG, "Executing findCityApi in background thread: " + Thread.currentThread().getName());
                 List<City> cities = null;
                 Exception error = null;
@@ -111,31 +106,9 @@ public class CityRequestManager {
                 });
             });
         } catch (RejectedExecutionException e) {
-            // This exception is thrown if the executor service is shutting down or has rejected the task.
-            Log.e(TAG, "Task rejected: Executor service may be shutting down or overloaded.", e);
+            Log.e(TAG, "Task rejected: the IO queue is full.", e);
             // Inform the listener about this specific failure
             mainThreadHandler.post(() -> responseListener.onRequestError(new Exception("Search task rejected. The service may be unavailable.")));
         }
     }
-
-    /**
-     * Shuts down the thread pool. This should be called when your application is
-     * no longer running or the manager is no longer needed to release resources.
-     * Typically called in your Application's `onTerminate()` or `onDestroy()`.
-     */
-    public static void shutdownExecutor() {
-        Log.i(TAG, "Shutting down ExecutorService...");
-        executorService.shutdown(); // Initiates an orderly shutdown in which previously submitted tasks are executed, but no new tasks will be accepted.
-        // Consider adding executorService.awaitTermination(...) if you need to ensure
-        // all tasks complete before exiting.
-    }
-
-
-    // Remember to call shutdownExecutor() when your application exits:
-    // In your Application class:
-    // @Override
-    // public void onTerminate() {
-    //     super.onTerminate();
-    //     CityRequestManager.shutdownExecutor();
-    // }
 }
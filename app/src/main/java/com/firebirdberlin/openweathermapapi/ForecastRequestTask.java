@@ -24,18 +24,16 @@ import android.os.Looper;
 import android.util.Log;
 
 import com.firebirdberlin.nightdream.Settings;
+import com.firebirdberlin.nightdream.util.TaskScheduler;
 import com.firebirdberlin.openweathermapapi.models.City;
 import com.firebirdberlin.openweathermapapi.models.WeatherEntry;
 
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 
 public class ForecastRequestTask {
 
     private static final String TAG = "ForecastRequestTask";
-    private static final ExecutorService executorService = Executors.newFixedThreadPool(4);
     private static final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
 
     private final AsyncResponse delegate;
@@ -55,7 +53,7 @@ public class ForecastRequestTask {
         }
 
         try {
-            executorService.execute(() -> {
+            TaskScheduler.getInstance().submit(TaskScheduler.Lane.IO, () -> {
                 City city = City.fromJson(cityJson);
                 if (city == null) {
                     mainThreadHandler.post(() -> delegate.onRequestFinished(null)); // Or handle error appropriately
@@ -86,7 +84,7 @@ public class ForecastRequestTask {
                 mainThreadHandler.post(() -> delegate.onRequestFinished(finalWeatherEntries));
             });
         } catch (RejectedExecutionException e) {
-            Log.e(TAG, "Task rejected: Executor service may be shutting down or overloaded.", e);
+            Log.e(TAG, "Task rejected: the IO queue is full.", e);
             // Handle rejection, maybe by posting an error to the delegate
             mainThreadHandler.post(() -> delegate.onRequestError(new Exception("Search task rejected. The service may be unavailable.")));
         }
@@ -96,9 +94,4 @@ public class ForecastRequestTask {
         void onRequestFinished(List<WeatherEntry> entries);
         void onRequestError(Exception exception);
     }
-
-    public static void shutdownExecutor() {
-        Log.i(TAG, "Shutting down ExecutorService...");
-        executorService.shutdown();
-    }
 }
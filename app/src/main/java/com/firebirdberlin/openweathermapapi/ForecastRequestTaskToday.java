@@ -23,18 +23,16 @@ import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 
 import com.firebirdberlin.nightdream.Settings;
+import com.firebirdberlin.nightdream.util.TaskScheduler;
 import com.firebirdberlin.openweathermapapi.models.City;
 import com.firebirdberlin.openweathermapapi.models.WeatherEntry;
 
 public class ForecastRequestTaskToday {
 
     private static final String TAG = "ForecastRequestTask";
-    private static final ExecutorService executorService = Executors.newFixedThreadPool(4);
     private static final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
 
     private final AsyncResponse delegate;
@@ -54,7 +52,7 @@ public class ForecastRequestTaskToday {
         }
 
         try {
-            executorService.execute(() -> {
+            TaskScheduler.getInstance().submit(TaskScheduler.Lane.IO, () -> {
                 City city = City.fromJson(cityJson);
                 if (city == null) {
                     mainThreadHandler.post(() -> delegate.onRequestError(new Exception("Failed to parse City JSON.")));
@@ -85,7 +83,7 @@ public class ForecastRequestTaskToday {
                 mainThreadHandler.post(() -> delegate.onRequestFinished(finalWeatherEntry));
             });
         } catch (RejectedExecutionException e) {
-            Log.e(TAG, "Task rejected: Executor service may be shutting down or overloaded.", e);
+            Log.e(TAG, "Task rejected: the IO queue is full.", e);
             mainThreadHandler.post(() -> delegate.onRequestError(new Exception("Search task rejected. The service may be unavailable.")));
         }
     }
@@ -94,9 +92,4 @@ public class ForecastRequestTaskToday {
         void onRequestFinished(WeatherEntry entries);
         void onRequestError(Exception exception);
     }
-
-    public static void shutdownExecutor() {
-        Log.i(TAG, "Shutting down ExecutorService...");
-        executorService.shutdown();
-    }
 }
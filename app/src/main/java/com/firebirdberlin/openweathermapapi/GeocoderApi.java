@@ -31,6 +31,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
@@ -41,6 +42,10 @@ public class GeocoderApi {
 
     private static final String TAG = "GeocoderApi";
     private static final long CACHE_EXPIRATION_30_DAYS = 1000L * 60 * 60 * 24 * 30; // 30 days
+    // cells of about 1.2 x 0.6 km
+    private static final int REVERSE_GEOCODE_PRECISION = 6;
+    private static final int REVERSE_GEOCODE_CACHE_SIZE = 64;
+    private static ReverseGeocodeCache reverseGeocodeCache = null;
 
     /**
      * Wrapper function to find cities based on the current build flavor.
@@ -202,7 +207,8 @@ public class GeocoderApi {
     }
 
     /**
-     * Finds city details based on latitude and longitude using Android's Geocoder.
+     * Finds city details based on latitude and longitude. Results are cached per geohash cell,
+     * so that nearby points do not cause a new lookup.
      *
      * @param context The application context.
      * @param lat     Latitude of the location.
@@ -210,6 +216,39 @@ public class GeocoderApi {
      * @return A City object with available details, or null if no address is found or an error occurs.
      */
     public static City findCityByCoordinates(Context context, double lat, double lon) {
+        ReverseGeocodeCache cache = getReverseGeocodeCache(context);
+        long now = System.currentTimeMillis();
+        City city = cache.get(lat, lon, now);
+        if (city == null) {
+            city = lookupCityByCoordinates(context, lat, lon);
+            cache.put(lat, lon, city, now);
+            cache.save();
+        }
+        Log.d(TAG, "reverse geocode cache: " + cache);
+        return city;
+    }
+
+    private static ReverseGeocodeCache getReverseGeocodeCache(Context context) {
+        synchronized (GeocoderApi.class) {
+            if (reverseGeocodeCache == null) {
+                reverseGeocodeCache = new ReverseGeocodeCache(
+                        new File(context.getApplicationContext().getFilesDir(), "reverseGeocodeCache.bin"),
+                        REVERSE_GEOCODE_PRECISION, CACHE_EXPIRATION_30_DAYS, REVERSE_GEOCODE_CACHE_SIZE
+                );
+            }
+            return reverseGeocodeCache;
+        }
+    }
+
+    /**
+     * Finds city details based on latitude and longitude using Android's Geocoder.
+     *
+     * @param context The application context.
+     * @param lat     Latitude of the location.
+     * @param lon     Longitude of the location.
+     * @return A City object with available details, or null if no address is found or an error occurs.
+     */
+    static City lookupCityByCoordinates(Context context, double lat, double lon) {
         if ("noGms".equals(BuildConfig.FLAVOR)) {
             return findCityByCoordinatesOSM(context, lat, lon);
         } else {
@@ -0,0 +1,117 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.openweathermapapi;
+
+/**
+ * Parses ISO 8601 timestamps of the form yyyy-MM-ddTHH:mm:ss[.SSS](Z|+HH:mm|+HHmm) as they are
+ * used by the weather APIs.
+ * <p>
+ * Unlike SimpleDateFormat the parser has no state, so it can be shared between threads, and it
+ * does not allocate.
+ */
+public final class IsoTimestamp {
+    public static final long INVALID = -1L;
+
+    private IsoTimestamp() {
+    }
+
+    /**
+     * @return the time in milliseconds since the epoch or INVALID
+     */
+    public static long parse(CharSequence s) {
+        if (s == null || s.length() < 19) return INVALID;
+        if (s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != 'T'
+                || s.charAt(13) != ':' || s.charAt(16) != ':') {
+            return INVALID;
+        }
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        int second = digits(s, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            return INVALID;
+        }
+
+        int pos = 19;
+        int millis = 0;
+        if (pos < s.length() && s.charAt(pos) == '.') {
+            pos++;
+            int scale = 100;
+            while (pos < s.length() && Character.isDigit(s.charAt(pos))) {
+                millis += (s.charAt(pos) - '0') * scale;
+                scale /= 10;
+                pos++;
+            }
+        }
+
+        int offsetSeconds;
+        if (pos == s.length()) {
+            // no zone designator, the APIs report UTC
+            offsetSeconds = 0;
+        } else if (s.charAt(pos) == 'Z' && pos + 1 == s.length()) {
+            offsetSeconds = 0;
+        } else if (s.charAt(pos) == '+' || s.charAt(pos) == '-') {
+            int sign = (s.charAt(pos) == '-') ? -1 : 1;
+            int length = s.length() - pos - 1;
+            int offsetHours = digits(s, pos + 1, 2);
+            int offsetMinutes;
+            if (length == 5 && s.charAt(pos + 3) == ':') {
+                offsetMinutes = digits(s, pos + 4, 2);
+            } else if (length == 4) {
+                offsetMinutes = digits(s, pos + 3, 2);
+            } else if (length == 2) {
+                offsetMinutes = 0;
+            } else {
+                return INVALID;
+            }
+            if (offsetHours < 0 || offsetMinutes < 0) return INVALID;
+            offsetSeconds = sign * (offsetHours * 3600 + offsetMinutes * 60);
+        } else {
+            return INVALID;
+        }
+
+        long seconds = daysFromCivil(year, month, day) * 86400L
+                + hour * 3600L + minute * 60L + second - offsetSeconds;
+        return seconds * 1000L + millis;
+    }
+
+    private static int digits(CharSequence s, int start, int count) {
+        if (start + count > s.length()) return -1;
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // days since 1970-01-01 in the proleptic Gregorian calendar
+    private static long daysFromCivil(int year, int month, int day) {
+        year -= (month <= 2) ? 1 : 0;
+        int era = year / 400;
+        int yearOfEra = year - era * 400;
+        int dayOfYear = (153 * (month + ((month > 2) ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468L;
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.openweathermapapi;
+
+import com.firebirdberlin.nightdream.Utility;
+import com.firebirdberlin.openweathermapapi.models.City;
+import com.firebirdberlin.openweathermapapi.models.WeatherEntry;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser for the locationforecast responses of api.met.no.
+ * <p>
+ * The timeseries is read entry by entry and converted to WeatherEntry objects right away. The
+ * current weather is found without reading the rest of the forecast.
+ */
+public class MetNoParser {
+
+    interface EntryHandler {
+        void onEntry(WeatherEntry entry);
+    }
+
+    /**
+     * @return the last entry which is not in the future or null
+     */
+    public static WeatherEntry parseCurrent(
+            Reader reader, City city, long requestTimestamp, long now
+    ) throws IOException {
+        final WeatherEntry[] result = {null};
+        parse(reader, city, requestTimestamp, now, entry -> result[0] = entry);
+        return result[0];
+    }
+
+    public static List<WeatherEntry> parseHourly(
+            Reader reader, City city, long requestTimestamp
+    ) throws IOException {
+        final List<WeatherEntry> entries = new ArrayList<>();
+        parse(reader, city, requestTimestamp, Long.MAX_VALUE, entries::add);
+        return entries;
+    }
+
+    /**
+     * Passes the entries up to the time until to the handler. Parsing stops at the first later
+     * entry.
+     */
+    static void parse(
+            Reader reader, City city, long requestTimestamp, long until, EntryHandler handler
+    ) throws IOException {
+        JsonReader json = new JsonReader(reader);
+        try {
+            json.beginObject();
+            while (json.hasNext()) {
+                if ("properties".equals(json.nextName()) && json.peek() == JsonToken.BEGIN_OBJECT) {
+                    json.beginObject();
+                    while (json.hasNext()) {
+                        if ("timeseries".equals(json.nextName())
+                                && json.peek() == JsonToken.BEGIN_ARRAY) {
+                            if (!parseTimeSeries(json, city, requestTimestamp, until, handler)) {
+                                return;
+                            }
+                        } else {
+                            json.skipValue();
+                        }
+                    }
+                    json.endObject();
+                } else {
+                    json.skipValue();
+                }
+            }
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("malformed response", e);
+        } finally {
+            json.close();
+        }
+    }
+
+    private static boolean parseTimeSeries(
+            JsonReader json, City city, long requestTimestamp, long until, EntryHandler handler
+    ) throws IOException {
+        json.beginArray();
+        while (json.hasNext()) {
+            Sample sample = new Sample();
+            json.beginObject();
+            while (json.hasNext()) {
+                String name = json.nextName();
+                if ("time".equals(name) && json.peek() == JsonToken.STRING) {
+                    sample.time = IsoTimestamp.parse(json.nextString());
+                    // the time precedes the data, so later entries are not read at all
+                    if (sample.time > until) return false;
+                } else if ("data".equals(name) && json.peek() == JsonToken.BEGIN_OBJECT) {
+                    readData(json, sample);
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+
+            if (sample.time > until) return false;
+            handler.onEntry(sample.toWeatherEntry(city, requestTimestamp));
+        }
+        json.endArray();
+        return true;
+    }
+
+    private static void readData(JsonReader json, Sample sample) throws IOException {
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (json.peek() != JsonToken.BEGIN_OBJECT) {
+                json.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "instant":
+                    readInstant(json, sample);
+                    break;
+                case "next_1_hours":
+                    sample.next1Hours = readPeriod(json);
+                    break;
+                case "next_6_hours":
+                    sample.next6Hours = readPeriod(json);
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+    }
+
+    private static void readInstant(JsonReader json, Sample sample) throws IOException {
+        json.beginObject();
+        while (json.hasNext()) {
+            if (!"details".equals(json.nextName()) || json.peek() != JsonToken.BEGIN_OBJECT) {
+                json.skipValue();
+                continue;
+            }
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "air_temperature":
+                        sample.airTemperature = nextFloat(json);
+                        break;
+                    case "cloud_area_fraction":
+                        sample.cloudAreaFraction = nextFloat(json);
+                        break;
+                    case "relative_humidity":
+                        sample.relativeHumidity = nextFloat(json);
+                        break;
+                    case "wind_from_direction":
+                        sample.windFromDirection = nextFloat(json);
+                        break;
+                    case "wind_speed":
+                        sample.windSpeed = nextFloat(json);
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+        }
+        json.endObject();
+    }
+
+    private static Period readPeriod(JsonReader json) throws IOException {
+        Period period = new Period();
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (json.peek() != JsonToken.BEGIN_OBJECT) {
+                json.skipValue();
+                continue;
+            }
+            json.beginObject();
+            while (json.hasNext()) {
+                String key = json.nextName();
+                if ("summary".equals(name) && "symbol_code".equals(key)
+                        && json.peek() == JsonToken.STRING) {
+                    period.symbolCode = json.nextString();
+                } else if ("details".equals(name) && "precipitation_amount".equals(key)) {
+                    period.precipitationAmount = nextFloat(json);
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+            if ("details".equals(name)) {
+                period.hasDetails = true;
+            }
+        }
+        json.endObject();
+        return period;
+    }
+
+    private static float nextFloat(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return 0f;
+        }
+        return (float) json.nextDouble();
+    }
+
+    public static String symbolCodeToMeteoconsChar(String code) {
+        // map polar twilight to day
+        code = code.replace("_polartwilight", "");
+        if (Utility.equalsAny(code, "clearsky", "clearsky_day")) return "B";
+        if (Utility.equalsAny(code, "fair", "fair_day")) return "H";
+        if (Utility.equalsAny(code, "heavyrain", "heavyrain_day", "heavyrain_night")) return "R";
+        if (Utility.equalsAny(code, "heavyrainandthunder", "heavyrainandthunder_day", "heavyrainandthunder_night")) return "T";
+        if (Utility.equalsAny(code, "heavyrainshowers", "heavyrainshowers_day", "heavyrainshowers_night")) return "R";
+        if (Utility.equalsAny(code, "heavyrainshowersandthunder", "heavyrainshowersandthunder_day", "heavyrainshowersandthunder_night")) return "T";
+        if (Utility.equalsAny(code, "heavysleet", "heavysleet_day", "heavysleet_night")) return "U";
+        if (Utility.equalsAny(code, "heavysleetandthunder", "heavysleetandthunder_day", "heavysleetandthunder_night")) return "0";
+        if (Utility.equalsAny(code, "heavysleetshowers", "heavysleetshowers_day", "heavysleetshowers_night")) return "W";
+        if (Utility.equalsAny(code, "heavysleetshowersandthunder", "heavysleetshowersandthunder_day", "heavysleetshowersandthunder_night")) return "0";
+        if (Utility.equalsAny(code, "heavysnow", "heavysnow_day", "heavysnow_night")) return "W";
+        if (Utility.equalsAny(code, "heavysnowandthunder", "heavysnowandthunder_day", "heavysnowandthunder_night")) return "0";
+        if (Utility.equalsAny(code, "heavysnowshowers", "heavysnowshowers_day", "heavysnowshowers_night")) return "W";
+        if (Utility.equalsAny(code, "heavysnowshowersandthunder", "heavysnowshowersandthunder_day", "heavysnowshowersandthunder_night")) return "0";
+        if (Utility.equalsAny(code, "lightrain", "lightrain_day", "lightrain_night")) return "Q";
+        if (Utility.equalsAny(code, "lightrainandthunder", "lightrainandthunder_day", "lightrainandthunder_night")) return "O";
+        if (Utility.equalsAny(code, "lightrainshowers", "lightrainshowers_day", "lightrainshowers_night")) return "Q";
+        if (Utility.equalsAny(code, "lightrainshowersandthunder", "lightrainshowersandthunder_day", "lightrainshowersandthunder_night")) return "O";
+        if (Utility.equalsAny(code, "lightsleet", "lightsleet_day", "lightsleet_night")) return "V";
+        if (Utility.equalsAny(code, "lightsleetandthunder", "lightsleetandthunder_day", "lightsleetandthunder_night")) return "O";
+        if (Utility.equalsAny(code, "lightsleetshowers", "lightsleetshowers_day", "lightsleetshowers_night")) return "V";
+        if (Utility.equalsAny(code, "lightsnow", "lightsnow_day", "lightsnow_night")) return "V";
+        if (Utility.equalsAny(code, "lightsnowandthunder", "lightsnowandthunder_day", "lightsnowandthunder_night")) return "O";
+        if (Utility.equalsAny(code, "lightsnowshowers", "lightsnowshowers_day", "lightsnowshowers_night")) return "V";
+        if (Utility.equalsAny(code, "lightssleetshowersandthunder", "lightssleetshowersandthunder_day", "lightssleetshowersandthunder_night")) return "O";
+        if (Utility.equalsAny(code, "lightssnowshowersandthunder", "lightssnowshowersandthunder_day", "lightssnowshowersandthunder_night")) return "O";
+        if (Utility.equalsAny(code, "partlycloudy", "partlycloudy_day")) return "H";
+        if (Utility.equalsAny(code, "rainandthunder", "rainandthunder_day", "rainandthunder_night")) return "O";
+        if (Utility.equalsAny(code, "rainshowers", "rainshowers_day", "rainshowers_night")) return "R";
+        if (Utility.equalsAny(code, "rainshowersandthunder", "rainshowersandthunder_day", "rainshowersandthunder_night")) return "O";
+        if (Utility.equalsAny(code, "sleetandthunder", "sleetandthunder_day", "sleetandthunder_night")) return "O";
+        if (Utility.equalsAny(code, "sleetshowers", "sleetshowers_day", "sleetshowers_night")) return "X";
+        if (Utility.equalsAny(code, "sleetshowersandthunder", "sleetshowersandthunder_day", "sleetshowersandthunder_night")) return "O";
+        if (Utility.equalsAny(code, "snowandthunder", "snowandthunder_day", "snowandthunder_night")) return "O";
+        if (Utility.equalsAny(code, "snowshowers", "snowshowers_day")) return "U";
+        if (Utility.equalsAny(code, "snowshowersandthunder", "snowshowersandthunder_day", "snowshowersandthunder_night")) return "O";
+
+        switch (code) {
+            case "clearsky_night":
+                return "C";
+            case "cloudy":
+                return "N";
+            case "fair_night":
+                return "I";
+            case "fog":
+                return "M";
+            case "partlycloudy_night":
+                return "I";
+            case "rain":
+                return "R";
+            case "sleet":
+                return "X";
+            case "snow":
+                return "W";
+        }
+        return "";
+    }
+
+    static class Period {
+        String symbolCode = null;
+        boolean hasDetails = false;
+        float precipitationAmount = 0f;
+    }
+
+    static class Sample {
+        long time = IsoTimestamp.INVALID;
+        float airTemperature = 0f;
+        float cloudAreaFraction = 0f;
+        float relativeHumidity = 0f;
+        float windFromDirection = 0f;
+        float windSpeed = 0f;
+        Period next1Hours = null;
+        Period next6Hours = null;
+
+        WeatherEntry toWeatherEntry(City city, long requestTimestamp) {
+            WeatherEntry entry = new WeatherEntry();
+            entry.cityID = -1;
+            entry.cityName = city.name;
+            entry.lat = (float) city.lat;
+            entry.lon = (float) city.lon;
+
+            if (next1Hours != null && next1Hours.hasDetails) {
+                entry.rain1h = next1Hours.precipitationAmount;
+            } else if (next6Hours != null && next6Hours.hasDetails) {
+                entry.rain1h = next6Hours.precipitationAmount;
+            } else {
+                entry.rain1h = -1f;
+            }
+
+            entry.rain3h = -1f;
+            entry.request_timestamp = requestTimestamp;
+            entry.sunriseTime = 0L;
+            entry.sunsetTime = 0L;
+            entry.apparentTemperature = -273.15;
+
+            entry.clouds = Math.round(cloudAreaFraction);
+            if (next1Hours != null && next1Hours.symbolCode != null) {
+                entry.weatherIcon = next1Hours.symbolCode;
+                entry.weatherIconMeteoconsSymbol = symbolCodeToMeteoconsChar(next1Hours.symbolCode);
+            } else if (next6Hours != null && next6Hours.symbolCode != null) {
+                entry.weatherIcon = next6Hours.symbolCode;
+                entry.weatherIconMeteoconsSymbol = symbolCodeToMeteoconsChar(next6Hours.symbolCode);
+            } else {
+                entry.weatherIcon = "";
+            }
+
+            entry.description = null;
+            entry.humidity = Math.round(relativeHumidity);
+            entry.temperature = airTemperature + 273.15;
+            entry.timestamp = time / 1000;
+            entry.windDirection = Math.round(windFromDirection);
+            entry.windSpeed = windSpeed;
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.openweathermapapi;
+
+import com.firebirdberlin.nightdream.util.Geohash;
+import com.firebirdberlin.openweathermapapi.models.City;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Spatial cache of reverse geocoding results.
+ * <p>
+ * Results are stored per geohash cell, so that any point in the same cell reuses the city
+ * instead of a new lookup. A point close to the border of its cell also matches the result of
+ * a neighbouring cell if it is within half a cell of the point which was looked up. The cache
+ * keeps the most recently used cells and is persisted together with its hit and miss counters
+ * whenever the cells change.
+ */
+public class ReverseGeocodeCache {
+    private static final int MAGIC = 0x4e445247;
+    private static final int VERSION = 1;
+
+    private final File cacheFile;
+    private final int precision;
+    private final long maxAgeMillis;
+    private final int capacity;
+    private final Map<String, Entry> entries;
+    private long hits = 0L;
+    private long misses = 0L;
+    private boolean loaded = false;
+    private boolean dirty = false;
+
+    /**
+     * @param precision    geohash length of the cells
+     * @param maxAgeMillis results older than this are looked up again
+     * @param capacity     maximum number of cells
+     */
+    public ReverseGeocodeCache(File cacheFile, int precision, long maxAgeMillis, int capacity) {
+        this.cacheFile = cacheFile;
+        this.precision = Math.max(1, Math.min(Geohash.MAX_PRECISION, precision));
+        this.maxAgeMillis = maxAgeMillis;
+        this.capacity = Math.max(1, capacity);
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ReverseGeocodeCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * @return a copy of the cached city for the point or null
+     */
+    public synchronized City get(double lat, double lon, long now) {
+        if (!loaded) load();
+        // the counters alone do not make the cache dirty, they are written with the next change
+        Entry entry = find(lat, lon, now);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.toCity();
+    }
+
+    public synchronized void put(double lat, double lon, City city, long now) {
+        if (city == null) return;
+        if (!loaded) load();
+        entries.put(Geohash.encode(lat, lon, precision), new Entry(lat, lon, now, city));
+        dirty = true;
+    }
+
+    private Entry find(double lat, double lon, long now) {
+        Entry entry = valid(Geohash.encode(lat, lon, precision), now);
+        if (entry != null) {
+            return entry;
+        }
+
+        double height = Geohash.cellHeight(precision);
+        double width = Geohash.cellWidth(precision);
+        for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+                if (i == 0 && j == 0) continue;
+                entry = valid(Geohash.encode(lat + i * height, lon + j * width, precision), now);
+                if (entry != null
+                        && Math.abs(entry.lat - lat) <= height / 2.
+                        && Math.abs(entry.lon - lon) <= width / 2.) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    private Entry valid(String key, long now) {
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.timestamp > maxAgeMillis) {
+            entries.remove(key);
+            dirty = true;
+            return null;
+        }
+        return entry;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        if (!loaded) load();
+        return entries.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+                Locale.ROOT, "cells=%d hits=%d misses=%d", entries.size(), hits, misses
+        );
+    }
+
+    private void load() {
+        loaded = true;
+        entries.clear();
+        if (!cacheFile.exists()) return;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            long storedHits = in.readLong();
+            long storedMisses = in.readLong();
+            // cells of another precision do not match
+            if (in.readInt() == precision) {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String key = in.readUTF();
+                    entries.put(key, Entry.read(in));
+                }
+            }
+            hits += storedHits;
+            misses += storedMisses;
+        } catch (IOException e) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Writes the cache if it was modified.
+     */
+    public synchronized void save() {
+        if (!dirty) return;
+        File tmpFile = new File(cacheFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(hits);
+            out.writeLong(misses);
+            out.writeInt(precision);
+            out.writeInt(entries.size());
+            // least recently used first, so that the order survives a reload
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                out.writeUTF(e.getKey());
+                e.getValue().write(out);
+            }
+        } catch (IOException e) {
+            tmpFile.delete();
+            return;
+        }
+        if (tmpFile.renameTo(cacheFile)) {
+            dirty = false;
+        } else {
+            tmpFile.delete();
+        }
+    }
+
+    static class Entry {
+        // the point which was looked up
+        final double lat;
+        final double lon;
+        final long timestamp;
+        final int id;
+        final String name;
+        final String countryCode;
+        final String countryName;
+        final String postalCode;
+        final double cityLat;
+        final double cityLon;
+
+        Entry(double lat, double lon, long timestamp, City city) {
+            this(lat, lon, timestamp, city.id, city.name, city.countryCode, city.countryName,
+                    city.postalCode, city.lat, city.lon);
+        }
+
+        Entry(double lat, double lon, long timestamp, int id, String name, String countryCode,
+              String countryName, String postalCode, double cityLat, double cityLon) {
+            this.lat = lat;
+            this.lon = lon;
+            this.timestamp = timestamp;
+            this.id = id;
+            this.name = name;
+            this.countryCode = countryCode;
+            this.countryName = countryName;
+            this.postalCode = postalCode;
+            this.cityLat = cityLat;
+            this.cityLon = cityLon;
+        }
+
+        City toCity() {
+            City city = new City();
+            city.id = id;
+            city.name = name;
+            city.countryCode = countryCode;
+            city.countryName = countryName;
+            city.postalCode = postalCode;
+            city.lat = cityLat;
+            city.lon = cityLon;
+            return city;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeDouble(lat);
+            out.writeDouble(lon);
+            out.writeLong(timestamp);
+            out.writeInt(id);
+            writeString(out, name);
+            writeString(out, countryCode);
+            writeString(out, countryName);
+            writeString(out, postalCode);
+            out.writeDouble(cityLat);
+            out.writeDouble(cityLon);
+        }
+
+        static Entry read(DataInputStream in) throws IOException {
+            return new Entry(
+                    in.readDouble(), in.readDouble(), in.readLong(), in.readInt(),
+                    readString(in), readString(in), readString(in), readString(in),
+                    in.readDouble(), in.readDouble()
+            );
+        }
+
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) out.writeUTF(value);
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            return in.readBoolean() ? in.readUTF() : null;
+        }
+    }
+}
@@ -19,13 +19,20 @@
 package com.firebirdberlin.radiostreamapi;
 
 import android.content.Context;
-import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
+import com.firebirdberlin.nightdream.util.TaskScheduler;
 import com.firebirdberlin.radiostreamapi.models.Country;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
-public class CountryRequestTask extends AsyncTask<Void, Void, List<Country> > {
+public class CountryRequestTask {
+    private static final String TAG = "CountryRequestTask";
+    private static final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
 
     public interface AsyncResponse {
         public void onCountryRequestFinished(List<Country> countries);
@@ -39,15 +46,17 @@ public class CountryRequestTask extends AsyncTask<Void, Void, List<Country> > {
         this.context = context;
     }
 
-    @Override
-    protected List<Country> doInBackground(Void... params) {
-        //return DirbleApi.fetchCountries(context.getCacheDir());
-        return RadioBrowserApi.fetchCountries(context.getCacheDir());
-    }
-
-    @Override
-    protected void onPostExecute(List<Country> countries) {
-        delegate.onCountryRequestFinished(countries);
+    public void execute() {
+        try {
+            TaskScheduler.getInstance().submit(TaskScheduler.Lane.IO, () -> {
+                //List<Country> countries = DirbleApi.fetchCountries(context.getCacheDir());
+                List<Country> countries = RadioBrowserApi.fetchCountries(context.getCacheDir());
+                mainThreadHandler.post(() -> delegate.onCountryRequestFinished(countries));
+            });
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Task rejected", e);
+            mainThreadHandler.post(() -> delegate.onCountryRequestFinished(new ArrayList<>()));
+        }
     }
 
 }
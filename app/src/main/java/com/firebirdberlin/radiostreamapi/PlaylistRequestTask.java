@@ -18,11 +18,18 @@
 
 package com.firebirdberlin.radiostreamapi;
 
-import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
+import com.firebirdberlin.nightdream.util.TaskScheduler;
 import com.firebirdberlin.radiostreamapi.models.PlaylistInfo;
 
-public class PlaylistRequestTask extends AsyncTask<String, Void, PlaylistInfo> {
+import java.util.concurrent.RejectedExecutionException;
+
+public class PlaylistRequestTask {
+    private static final String TAG = "PlaylistRequestTask";
+    private static final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
 
     private AsyncResponse delegate;
 
@@ -34,15 +41,17 @@ public class PlaylistRequestTask extends AsyncTask<String, Void, PlaylistInfo> {
         this.delegate = listener;
     }
 
-    @Override
-    protected PlaylistInfo doInBackground(String... query) {
+    public void execute(String... query) {
         String playlistUrl = query[0];
-        PlaylistParser parser = new PlaylistParser();
-        return parser.parsePlaylistUrl(playlistUrl);
-    }
-
-    @Override
-    protected void onPostExecute(PlaylistInfo result) {
-        delegate.onPlaylistRequestFinished(result);
+        try {
+            TaskScheduler.getInstance().submit(TaskScheduler.Lane.IO, () -> {
+                PlaylistParser parser = new PlaylistParser();
+                PlaylistInfo result = parser.parsePlaylistUrl(playlistUrl);
+                mainThreadHandler.post(() -> delegate.onPlaylistRequestFinished(result));
+            });
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Task rejected", e);
+            mainThreadHandler.post(() -> delegate.onPlaylistRequestFinished(null));
+        }
     }
 }
@@ -18,14 +18,20 @@
 
 package com.firebirdberlin.radiostreamapi;
 
-import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
-import com.firebirdberlin.radiostreamapi.DirbleApi;
+import com.firebirdberlin.nightdream.util.TaskScheduler;
 import com.firebirdberlin.radiostreamapi.models.RadioStation;
 
-public class StationRequestTask extends AsyncTask<String, Void, List<RadioStation> > {
+public class StationRequestTask {
+    private static final String TAG = "StationRequestTask";
+    private static final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
 
     public interface AsyncResponse {
         public void onRequestFinished(List<RadioStation> stations);
@@ -37,17 +43,19 @@ public class StationRequestTask extends AsyncTask<String, Void, List<RadioStatio
         this.delegate = listener;
     }
 
-    @Override
-    protected List<RadioStation> doInBackground(String... query) {
+    public void execute(String... query) {
         String q = query[0];
         String countryCode = query.length > 1 ? query[1] : null;
 
-        return RadioBrowserApi.fetchStations(q, countryCode);
-        //return DirbleApi.fetchStations(q, countryCode);
-    }
-
-    @Override
-    protected void onPostExecute(List<RadioStation> stations) {
-        delegate.onRequestFinished(stations);
+        try {
+            TaskScheduler.getInstance().submit(TaskScheduler.Lane.IO, () -> {
+                List<RadioStation> stations = RadioBrowserApi.fetchStations(q, countryCode);
+                //List<RadioStation> stations = DirbleApi.fetchStations(q, countryCode);
+                mainThreadHandler.post(() -> delegate.onRequestFinished(stations));
+            });
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Task rejected", e);
+            mainThreadHandler.post(() -> delegate.onRequestFinished(new ArrayList<>()));
+        }
     }
 }
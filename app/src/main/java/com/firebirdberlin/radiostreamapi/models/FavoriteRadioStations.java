@@ -43,6 +43,15 @@ public class FavoriteRadioStations {
         radioStations[index] = station;
     }
 
+    /**
+     * @return a new list with the same stations
+     */
+    public FavoriteRadioStations copy() {
+        FavoriteRadioStations copy = new FavoriteRadioStations();
+        System.arraycopy(radioStations, 0, copy.radioStations, 0, radioStations.length);
+        return copy;
+    }
+
     public RadioStation get(int index) {
         if (index < 0 || index >= radioStations.length) {
             return null;
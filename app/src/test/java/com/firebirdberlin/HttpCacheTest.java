@@ -0,0 +1,195 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+public class HttpCacheTest {
+    private static final String BODY = "{\"temp\": 21.5}\r\n{\"temp\": 22.0}\n";
+    private static final String ETAG = "\"v1\"";
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger notModifiedCount = new AtomicInteger();
+    private volatile CountDownLatch release = null;
+    private HttpServer server;
+    private File cacheDir;
+
+    @Before
+    public void setUp() throws IOException {
+        cacheDir = Files.createTempDirectory("http-cache").toFile();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(java.util.concurrent.Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            requestCount.incrementAndGet();
+            try {
+                if (release != null) {
+                    release.await(5, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException ignored) {
+            }
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedCount.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                    gzip.write(body);
+                }
+                body = bytes.toByteArray();
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().add("ETag", ETAG);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        cacheDir.delete();
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testGzipBodyIsStoredUnchanged() throws IOException {
+        HttpCache cache = new HttpCache(cacheDir, "test");
+        File file = cache.get(url("/gzip"), false);
+        Assert.assertNotNull(file);
+        Assert.assertEquals(BODY, read(file));
+        Assert.assertEquals(1, requestCount.get());
+    }
+
+    @Test
+    public void testFreshEntryIsServedFromCache() throws IOException {
+        HttpCache cache = new HttpCache(cacheDir, "test");
+        Assert.assertNotNull(cache.get(url("/fresh"), false));
+        File file = cache.get(url("/fresh"), false);
+        Assert.assertNotNull(file);
+        Assert.assertEquals(BODY, read(file));
+        Assert.assertEquals(1, requestCount.get());
+    }
+
+    @Test
+    public void testExpiredEntryIsRevalidated() throws IOException {
+        HttpCache cache = new HttpCache(cacheDir, "test");
+        Assert.assertNotNull(cache.get(url("/revalidate"), false));
+
+        cache.setCacheExpirationTimeMillis(0);
+        File file = cache.get(url("/revalidate"), false);
+        Assert.assertNotNull(file);
+        Assert.assertEquals(BODY, read(file));
+        Assert.assertEquals(2, requestCount.get());
+        Assert.assertEquals(1, notModifiedCount.get());
+    }
+
+    @Test
+    public void testRevalidationKeepsContentTimestamp() throws IOException {
+        HttpCache cache = new HttpCache(cacheDir, "test");
+        Assert.assertEquals(0L, cache.getContentTimestamp(url("/version")));
+        Assert.assertNotNull(cache.get(url("/version"), false));
+        long contentTimestamp = cache.getContentTimestamp(url("/version"));
+        Assert.assertTrue(contentTimestamp > 0L);
+
+        Assert.assertNotNull(cache.get(url("/version"), true));
+        Assert.assertEquals(1, notModifiedCount.get());
+        Assert.assertEquals(contentTimestamp, cache.getContentTimestamp(url("/version")));
+    }
+
+    @Test
+    public void testConcurrentRequestsAreCoalesced() throws Exception {
+        release = new CountDownLatch(1);
+        final HttpCache cache = new HttpCache(cacheDir, "test");
+        final String url = url("/coalesce");
+        final int numThreads = 4;
+        final File[] results = new File[numThreads];
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+            final int index = i;
+            Thread thread = new Thread(() -> results[index] = cache.get(url, true));
+            threads.add(thread);
+            thread.start();
+        }
+        // wait until the first request reached the server, then let the others join it
+        long deadline = System.currentTimeMillis() + 5000;
+        while (requestCount.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+
+        Assert.assertEquals(1, requestCount.get());
+        for (File result : results) {
+            Assert.assertNotNull(result);
+            Assert.assertEquals(BODY, read(result));
+        }
+    }
+
+    @Test
+    public void testFailedRequestReturnsNull() {
+        HttpCache cache = new HttpCache(cacheDir, "test");
+        cache.setConnectivityCheck(() -> false);
+        Assert.assertNull(cache.get(url("/offline"), false));
+        Assert.assertEquals(0, requestCount.get());
+    }
+}
@@ -24,6 +24,8 @@ import org.junit.Test;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 
 public class SimpleTimeTest {
 
@@ -190,6 +192,48 @@ public class SimpleTimeTest {
         Assert.assertEquals(1507893900000L, next.getTimeInMillis());
     }
 
+    @Test
+    public void testGetNextAlarmMillis__DaylightSavingTimeStarts() {
+        TimeZone timeZone = TimeZone.getTimeZone("Europe/Berlin");
+        Calendar reference = Calendar.getInstance(timeZone);
+        reference.clear();
+        reference.set(2024, Calendar.MARCH, 30, 22, 0);
+
+        // 02:30 does not exist on that day, the alarm is moved forward
+        SimpleTime time = new SimpleTime(2, 30);
+        Calendar result = Calendar.getInstance(timeZone);
+        result.setTimeInMillis(time.getNextAlarmMillis(reference.getTimeInMillis(), timeZone));
+        Assert.assertEquals(31, result.get(Calendar.DAY_OF_MONTH));
+        Assert.assertEquals(3, result.get(Calendar.HOUR_OF_DAY));
+        Assert.assertEquals(30, result.get(Calendar.MINUTE));
+
+        // the wall clock time is kept on the following days
+        SimpleTime recurring = new SimpleTime(2, 30, SimpleTime.SUNDAY | SimpleTime.MONDAY);
+        recurring.nextEventAfter = result.getTimeInMillis();
+        result.setTimeInMillis(recurring.getNextAlarmMillis(reference.getTimeInMillis(), timeZone));
+        Assert.assertEquals(Calendar.APRIL, result.get(Calendar.MONTH));
+        Assert.assertEquals(1, result.get(Calendar.DAY_OF_MONTH));
+        Assert.assertEquals(2, result.get(Calendar.HOUR_OF_DAY));
+        Assert.assertEquals(30, result.get(Calendar.MINUTE));
+    }
+
+    @Test
+    public void testGetNextAlarmMillis__DaylightSavingTimeEnds() {
+        TimeZone timeZone = TimeZone.getTimeZone("Europe/Berlin");
+        Calendar reference = Calendar.getInstance(timeZone);
+        reference.clear();
+        reference.set(2024, Calendar.OCTOBER, 26, 22, 0);
+
+        // 02:30 exists twice, the first occurrence is used
+        SimpleTime time = new SimpleTime(2, 30);
+        long result = time.getNextAlarmMillis(reference.getTimeInMillis(), timeZone);
+        Assert.assertEquals(TimeUnit.HOURS.toMillis(2), timeZone.getOffset(result));
+
+        // unless it has already passed
+        long second = time.getNextAlarmMillis(result + 1, timeZone);
+        Assert.assertEquals(TimeUnit.HOURS.toMillis(1), second - result);
+    }
+
     @Test
     public void testGetNextFromList() {
         List<SimpleTime> times = Arrays.asList(
@@ -0,0 +1,101 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.services;
+
+import com.firebirdberlin.nightdream.models.RssFeedItem;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class RssFeedStoreTest {
+    private static final String URL = "https://example.com/feed.xml";
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("rss-store").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private static List<RssFeedItem> items() {
+        return Arrays.asList(
+                new RssFeedItem("1", "First", "https://example.com/1", "Mon, 06 Jan 2025 10:00:00 GMT"),
+                new RssFeedItem(null, "Second", "https://example.com/2", null)
+        );
+    }
+
+    @Test
+    public void testItemsArePersisted() {
+        new RssFeedStore(directory).put(URL, 42L, items());
+
+        RssFeedStore store = new RssFeedStore(directory);
+        Assert.assertEquals(items(), store.get(URL, 42L));
+    }
+
+    @Test
+    public void testOtherVersionIsNotReturned() {
+        RssFeedStore store = new RssFeedStore(directory);
+        store.put(URL, 42L, items());
+        Assert.assertNull(store.get(URL, 43L));
+        Assert.assertEquals(items(), store.getLast(URL));
+        Assert.assertNull(store.getLast("https://example.com/other.xml"));
+    }
+
+    @Test
+    public void testCorruptFileIsIgnored() throws IOException {
+        RssFeedStore store = new RssFeedStore(directory);
+        Files.write(store.getFile(URL).toPath(), new byte[]{1, 2, 3});
+        Assert.assertNull(store.get(URL, 42L));
+        Assert.assertFalse(store.getFile(URL).exists());
+    }
+
+    @Test
+    public void testMergeRemovesDuplicates() {
+        List<RssFeedItem> other = Arrays.asList(
+                new RssFeedItem("1", "First (copy)", "https://other.com/1", null),
+                new RssFeedItem(null, "Second (copy)", "https://example.com/2", null),
+                new RssFeedItem("3", "Third", "https://other.com/3", null)
+        );
+        List<RssFeedItem> merged = RssFeedStore.merge(Arrays.asList(items(), null, other));
+        Assert.assertEquals(3, merged.size());
+        Assert.assertEquals("First", merged.get(0).getTitle());
+        Assert.assertEquals("Second", merged.get(1).getTitle());
+        Assert.assertEquals("Third", merged.get(2).getTitle());
+        Assert.assertTrue(RssFeedStore.merge(Collections.emptyList()).isEmpty());
+    }
+}
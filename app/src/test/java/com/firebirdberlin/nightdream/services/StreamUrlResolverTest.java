@@ -0,0 +1,120 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.services;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class StreamUrlResolverTest {
+    private final AtomicInteger redirectCount = new AtomicInteger();
+    private final AtomicInteger streamCount = new AtomicInteger();
+    private HttpServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        StreamUrlResolver.clear();
+        StreamUrlResolver.setTtlMillis(TimeUnit.MINUTES.toMillis(10));
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/station", exchange -> {
+            redirectCount.incrementAndGet();
+            exchange.getResponseHeaders().add("Location", url("/stream"));
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        server.createContext("/stream", exchange -> {
+            streamCount.incrementAndGet();
+            exchange.getResponseHeaders().add("Content-Type", "audio/mpeg");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(new byte[1024]);
+            } catch (IOException ignored) {
+                // the client disconnects after the status check
+            }
+        });
+        server.createContext("/offline", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        StreamUrlResolver.clear();
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    @Test
+    public void testRedirectsAreFollowed() {
+        Assert.assertEquals(url("/stream"), StreamUrlResolver.resolve(url("/station")));
+        Assert.assertEquals(1, redirectCount.get());
+        Assert.assertEquals(1, streamCount.get());
+    }
+
+    @Test
+    public void testResolvedUrlIsCached() {
+        StreamUrlResolver.resolve(url("/station"));
+        Assert.assertEquals(url("/stream"), StreamUrlResolver.getCached(url("/station")));
+        Assert.assertEquals(url("/stream"), StreamUrlResolver.resolve(url("/station")));
+        Assert.assertEquals(1, redirectCount.get());
+    }
+
+    @Test
+    public void testExpiredEntryIsResolvedAgain() {
+        StreamUrlResolver.setTtlMillis(0);
+        StreamUrlResolver.resolve(url("/station"));
+        Assert.assertNull(StreamUrlResolver.getCached(url("/station")));
+        StreamUrlResolver.resolve(url("/station"));
+        Assert.assertEquals(2, redirectCount.get());
+    }
+
+    @Test
+    public void testPrefetchFillsTheCache() throws InterruptedException {
+        StreamUrlResolver.prefetch(url("/station"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (StreamUrlResolver.getCached(url("/station")) == null
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(url("/stream"), StreamUrlResolver.getCached(url("/station")));
+    }
+
+    @Test
+    public void testFailuresAreNotCached() {
+        Assert.assertNull(StreamUrlResolver.resolve(url("/offline")));
+        Assert.assertNull(StreamUrlResolver.getCached(url("/offline")));
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.ui.background;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+public class SlideshowIndexTest {
+    private File dir;
+    private File images;
+    private File indexFile;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("slideshow").toFile();
+        images = new File(dir, "backgroundImages");
+        images.mkdirs();
+        indexFile = new File(dir, "index.bin");
+    }
+
+    @After
+    public void tearDown() {
+        deleteRecursively(dir);
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) deleteRecursively(child);
+        }
+        file.delete();
+    }
+
+    private static File write(File dir, String name, int length) throws IOException {
+        File file = new File(dir, name);
+        file.getParentFile().mkdirs();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[length]);
+        }
+        return file;
+    }
+
+    @Test
+    public void testScanFiltersFileEndings() throws IOException {
+        write(images, "a.jpg", 10);
+        write(images, "b.PNG", 10);
+        write(images, "c.txt", 10);
+        write(images, "sub/d.jpeg", 10);
+        write(images, ".hidden/e.jpg", 10);
+
+        SlideshowIndex index = new SlideshowIndex(indexFile);
+        ArrayList<File> files = index.scan(images, new String[]{".png", ".jpg", ".jpeg"});
+        Assert.assertEquals(3, files.size());
+        Assert.assertEquals(3, index.size());
+
+        files = index.scan(images, null);
+        Assert.assertEquals(4, files.size());
+    }
+
+    @Test
+    public void testChangedFileLosesItsMetadata() throws IOException {
+        File file = write(images, "a.jpg", 10);
+        SlideshowIndex index = new SlideshowIndex(indexFile);
+        index.scan(images, null);
+
+        SlideshowIndex.Entry entry = index.update(
+                index.get(file), current -> current.withMetadata(640, 480, 0)
+        );
+        index.scan(images, null);
+        Assert.assertSame(entry, index.get(file));
+
+        write(images, "a.jpg", 20);
+        index.scan(images, null);
+        Assert.assertNotSame(entry, index.get(file));
+        Assert.assertFalse(index.get(file).hasMetadata);
+    }
+
+    @Test
+    public void testRemovedFilesAreDropped() throws IOException {
+        File a = write(images, "a.jpg", 10);
+        File b = write(images, "b.jpg", 10);
+        SlideshowIndex index = new SlideshowIndex(indexFile);
+        index.scan(images, null);
+        Assert.assertEquals(2, index.size());
+
+        b.delete();
+        Assert.assertEquals(1, index.scan(images, null).size());
+        Assert.assertEquals(1, index.size());
+        Assert.assertNotNull(index.get(a));
+        Assert.assertNull(index.get(b));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        File file = write(images, "a.jpg", 10);
+        SlideshowIndex index = new SlideshowIndex(indexFile);
+        index.scan(images, null);
+        index.update(index.get(file), current -> current
+                .withMetadata(640, 480, 90)
+                .withExifData("2024:05:01 12:30:00", 52.5, 13.4)
+                .withColors(2, true, 0xffff8800, false, 0));
+        index.save();
+        Assert.assertTrue(indexFile.exists());
+
+        SlideshowIndex loaded = new SlideshowIndex(indexFile);
+        loaded.scan(images, null);
+        SlideshowIndex.Entry copy = loaded.get(file);
+        Assert.assertTrue(copy.hasMetadata);
+        Assert.assertEquals(640, copy.width);
+        Assert.assertEquals(480, copy.height);
+        Assert.assertEquals(90, copy.rotation);
+        Assert.assertEquals("2024:05:01 12:30:00", copy.dateTime);
+        Assert.assertTrue(copy.hasLocation());
+        Assert.assertEquals(13.4, copy.longitude, 1e-9);
+        Assert.assertTrue(copy.hasColors(2));
+        Assert.assertFalse(copy.hasColors(1));
+        Assert.assertEquals(0xffff8800, copy.vibrantColor);
+        Assert.assertFalse(copy.hasDarkMutedColor);
+    }
+
+    @Test
+    public void testUpdatesAreApplied() throws IOException {
+        File file = write(images, "a.jpg", 10);
+        SlideshowIndex index = new SlideshowIndex(indexFile);
+        index.scan(images, null);
+        SlideshowIndex.Entry entry = index.get(file);
+
+        // both updates start from the same entry
+        index.update(entry, current -> current.withMetadata(640, 480, 90));
+        index.update(entry, current -> current.withColors(2, true, 0xffff8800, false, 0));
+        SlideshowIndex.Entry updated = index.get(file);
+        Assert.assertTrue(updated.hasMetadata);
+        Assert.assertEquals(640, updated.width);
+        Assert.assertTrue(updated.hasColors(2));
+        Assert.assertFalse(entry.hasMetadata);
+
+        // an update of an older version of the file is not stored
+        write(images, "a.jpg", 20);
+        index.scan(images, null);
+        SlideshowIndex.Entry stale = index.update(updated, current -> current.withMetadata(1, 1, 0));
+        Assert.assertEquals(1, stale.width);
+        Assert.assertFalse(index.get(file).hasMetadata);
+    }
+
+    @Test
+    public void testCorruptIndexIsIgnored() throws IOException {
+        write(dir, "index.bin", 3);
+        write(images, "a.jpg", 10);
+        SlideshowIndex index = new SlideshowIndex(indexFile);
+        Assert.assertEquals(1, index.scan(images, null).size());
+        Assert.assertFalse(index.get(new File(images, "a.jpg")).hasMetadata);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AmplitudeMeterTest {
+    private static final int SAMPLE_RATE = 8000;
+
+    private static short[] sine(int amplitude, double frequency, int numSamples) {
+        short[] samples = new short[numSamples];
+        for (int i = 0; i < numSamples; i++) {
+            samples[i] = (short) Math.round(amplitude * Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE));
+        }
+        return samples;
+    }
+
+    @Test
+    public void testSilence() {
+        AmplitudeMeter meter = new AmplitudeMeter(800, 0.6);
+        Assert.assertEquals(10, meter.process(new short[8000], 0, 8000));
+        Assert.assertEquals(0, meter.getPeak());
+        Assert.assertEquals(0., meter.getRms(), 1e-9);
+        Assert.assertEquals(0., meter.getPeakEMA(), 1e-9);
+    }
+
+    @Test
+    public void testSineWave() {
+        AmplitudeMeter meter = new AmplitudeMeter(800, 0.6);
+        // 1 kHz completes full periods in each window
+        meter.process(sine(10000, 1000., 8000), 0, 8000);
+        Assert.assertEquals(10000, meter.getPeak());
+        Assert.assertEquals(10000 / Math.sqrt(2), meter.getRms(), 1.);
+        Assert.assertEquals(10000 / Math.sqrt(2), meter.getLastWindowRms(), 1.);
+    }
+
+    @Test
+    public void testIncompleteWindowIsNotCounted() {
+        AmplitudeMeter meter = new AmplitudeMeter(800, 0.6);
+        short[] samples = sine(10000, 1000., 799);
+        Assert.assertEquals(0, meter.process(samples, 0, samples.length));
+        Assert.assertEquals(0, meter.getPeak());
+        Assert.assertEquals(1, meter.process(new short[]{0}, 0, 1));
+        Assert.assertEquals(10000, meter.getPeak());
+    }
+
+    @Test
+    public void testFullScale() {
+        AmplitudeMeter meter = new AmplitudeMeter(2, 0.6);
+        meter.process(new short[]{Short.MIN_VALUE, Short.MAX_VALUE}, 0, 2);
+        Assert.assertEquals(AmplitudeMeter.MAX_AMPLITUDE, meter.getPeak());
+    }
+
+    @Test
+    public void testPeakEMA() {
+        AmplitudeMeter meter = new AmplitudeMeter(1, 0.6);
+        meter.process(new short[]{1000, 0, 0}, 0, 3);
+        Assert.assertEquals(600. * 0.4 * 0.4, meter.getPeakEMA(), 1e-9);
+        Assert.assertEquals(0, meter.getLastWindowPeak());
+    }
+
+    @Test
+    public void testResetPeakKeepsTheAverage() {
+        AmplitudeMeter meter = new AmplitudeMeter(4, 0.5);
+        meter.process(new short[]{100, -200, 300, -400}, 0, 4);
+        Assert.assertEquals(400, meter.getPeak());
+        meter.resetPeak();
+        Assert.assertEquals(0, meter.getPeak());
+        Assert.assertEquals(0., meter.getRms(), 1e-9);
+        Assert.assertEquals(200., meter.getPeakEMA(), 1e-9);
+
+        meter.reset();
+        Assert.assertEquals(0., meter.getPeakEMA(), 1e-9);
+    }
+
+    @Test
+    public void testOffsetAndLength() {
+        AmplitudeMeter meter = new AmplitudeMeter(2, 0.6);
+        short[] samples = {30000, 5, -7, 30000};
+        Assert.assertEquals(1, meter.process(samples, 1, 2));
+        Assert.assertEquals(7, meter.getPeak());
+    }
+}
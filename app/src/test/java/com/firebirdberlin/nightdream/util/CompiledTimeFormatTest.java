@@ -0,0 +1,67 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Locale;
+
+public class CompiledTimeFormatTest {
+
+    private void assertSameAsSimpleDateFormat(String pattern, Locale locale) {
+        CompiledTimeFormat format = CompiledTimeFormat.compile(pattern, locale);
+        Assert.assertNotNull(pattern, format);
+        SimpleDateFormat reference = new SimpleDateFormat(pattern, locale);
+        char[] buffer = new char[format.getMaxLength()];
+
+        Calendar cal = Calendar.getInstance();
+        cal.set(2025, Calendar.MARCH, 1, 0, 0, 0);
+        for (int i = 0; i < 24 * 60; i++) {
+            cal.set(Calendar.SECOND, i % 60);
+            int length = format.format(cal, buffer);
+            Assert.assertEquals(
+                    reference.format(cal.getTime()), new String(buffer, 0, length)
+            );
+            cal.add(Calendar.MINUTE, 1);
+        }
+    }
+
+    @Test
+    public void testTimeFormats() {
+        String[] patterns = {
+                "HH:mm", "H:mm", "h:mm aa", "hh:mm:ss", "HH:mm:ss", "kk:mm", "K:mm a",
+                "a", "h:mm 'Uhr'", "HH'h'mm", "HH:mm ''ss''"
+        };
+        for (String pattern : patterns) {
+            assertSameAsSimpleDateFormat(pattern, Locale.US);
+            assertSameAsSimpleDateFormat(pattern, Locale.GERMANY);
+        }
+    }
+
+    @Test
+    public void testUnsupportedFormats() {
+        Assert.assertNull(CompiledTimeFormat.compile("EEE, d. MMM"));
+        Assert.assertNull(CompiledTimeFormat.compile("HH:mm z"));
+        Assert.assertNull(CompiledTimeFormat.compile("HH 'mm"));
+        Assert.assertNull(CompiledTimeFormat.compile(null));
+    }
+}
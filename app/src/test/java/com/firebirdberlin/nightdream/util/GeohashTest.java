@@ -0,0 +1,63 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GeohashTest {
+
+    @Test
+    public void testKnownHashes() {
+        Assert.assertEquals("ezs42", Geohash.encode(42.605, -5.603, 5));
+        Assert.assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        Assert.assertEquals("u33dc0", Geohash.encode(52.5200, 13.4050, 6));
+    }
+
+    @Test
+    public void testPrecision() {
+        Assert.assertEquals(1, Geohash.encode(0., 0., 0).length());
+        Assert.assertEquals(Geohash.MAX_PRECISION, Geohash.encode(0., 0., 20).length());
+        Assert.assertTrue(Geohash.encode(52.52, 13.405, 8).startsWith(Geohash.encode(52.52, 13.405, 5)));
+    }
+
+    @Test
+    public void testCellSize() {
+        Assert.assertEquals(45., Geohash.cellHeight(1), 1e-9);
+        Assert.assertEquals(45., Geohash.cellWidth(1), 1e-9);
+        Assert.assertEquals(180. / 32768., Geohash.cellHeight(6), 1e-12);
+        Assert.assertEquals(360. / 32768., Geohash.cellWidth(6), 1e-12);
+    }
+
+    @Test
+    public void testPointsInTheSameCell() {
+        double height = Geohash.cellHeight(6);
+        double width = Geohash.cellWidth(6);
+        String hash = Geohash.encode(52.52, 13.405, 6);
+        // move to the cell neighbours
+        Assert.assertNotEquals(hash, Geohash.encode(52.52 + height, 13.405, 6));
+        Assert.assertNotEquals(hash, Geohash.encode(52.52, 13.405 + width, 6));
+    }
+
+    @Test
+    public void testLongitudeIsWrapped() {
+        Assert.assertEquals(Geohash.encode(10., -170., 7), Geohash.encode(10., 190., 7));
+        Assert.assertEquals(Geohash.encode(-90., -180., 4), Geohash.encode(-100., 180., 4));
+    }
+}
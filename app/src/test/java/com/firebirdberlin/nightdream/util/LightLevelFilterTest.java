@@ -0,0 +1,92 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LightLevelFilterTest {
+
+    @Test
+    public void testFirstMeanIsReported() {
+        LightLevelFilter filter = new LightLevelFilter(8, 0.05f, 0.2f);
+        filter.add(10.f);
+        filter.add(20.f);
+        Assert.assertTrue(filter.evaluate());
+        Assert.assertEquals(15.f, filter.getMean(), 1e-6f);
+        Assert.assertEquals(2, filter.getCount());
+        Assert.assertEquals(0, filter.size());
+    }
+
+    @Test
+    public void testNoValuesNoReport() {
+        LightLevelFilter filter = new LightLevelFilter(8, 0.05f, 0.2f);
+        Assert.assertFalse(filter.evaluate());
+        Assert.assertTrue(Float.isNaN(filter.getReportedValue()));
+    }
+
+    @Test
+    public void testSmallChangesAreSuppressed() {
+        LightLevelFilter filter = new LightLevelFilter(8, 0.05f, 0.2f);
+        filter.add(100.f);
+        Assert.assertTrue(filter.evaluate());
+
+        // 4% change
+        filter.add(104.f);
+        Assert.assertFalse(filter.evaluate());
+        Assert.assertEquals(100.f, filter.getReportedValue(), 1e-6f);
+
+        // 6% change
+        filter.add(106.f);
+        Assert.assertTrue(filter.evaluate());
+        Assert.assertEquals(106.f, filter.getReportedValue(), 1e-6f);
+    }
+
+    @Test
+    public void testAbsoluteThresholdInTheDark() {
+        LightLevelFilter filter = new LightLevelFilter(8, 0.05f, 0.2f);
+        filter.add(1.f);
+        Assert.assertTrue(filter.evaluate());
+        filter.add(1.1f);
+        Assert.assertFalse(filter.evaluate());
+        filter.add(1.3f);
+        Assert.assertTrue(filter.evaluate());
+    }
+
+    @Test
+    public void testOnlyTheNewestValuesAreAveraged() {
+        LightLevelFilter filter = new LightLevelFilter(4, 0.05f, 0.2f);
+        for (int i = 0; i < 4; i++) filter.add(1000.f);
+        for (int i = 0; i < 4; i++) filter.add(10.f);
+        Assert.assertTrue(filter.evaluate());
+        Assert.assertEquals(10.f, filter.getMean(), 1e-6f);
+        Assert.assertEquals(4, filter.getCount());
+    }
+
+    @Test
+    public void testReportedValueCanBeSet() {
+        LightLevelFilter filter = new LightLevelFilter(4, 0.05f, 0.2f);
+        filter.setReportedValue(50.f);
+        filter.add(51.f);
+        Assert.assertFalse(filter.evaluate());
+        filter.reset();
+        filter.add(51.f);
+        Assert.assertTrue(filter.evaluate());
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PixelKernelsTest {
+
+    private static int argb(int a, int r, int g, int b) {
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    private static int[] randomPixels(int length) {
+        Random random = new Random(42);
+        int[] pixels = new int[length];
+        for (int i = 0; i < length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        return pixels;
+    }
+
+    // floating point reference of ColorMatrixColorFilter
+    private static int reference(float[] m, int pixel) {
+        float[] in = {
+                (pixel >> 16) & 0xff, (pixel >> 8) & 0xff, pixel & 0xff, pixel >>> 24
+        };
+        int[] out = new int[4];
+        for (int row = 0; row < 4; row++) {
+            float value = m[row * 5 + 4];
+            for (int k = 0; k < 4; k++) {
+                value += m[row * 5 + k] * in[k];
+            }
+            out[row] = Math.max(0, Math.min(255, Math.round(value)));
+        }
+        return argb(out[3], out[0], out[1], out[2]);
+    }
+
+    private static void assertPixelEquals(int expected, int actual, int tolerance) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            int e = (expected >>> shift) & 0xff;
+            int a = (actual >>> shift) & 0xff;
+            Assert.assertTrue(
+                    String.format("%08x != %08x", expected, actual),
+                    Math.abs(e - a) <= tolerance
+            );
+        }
+    }
+
+    @Test
+    public void testColorMatrixMatchesReference() {
+        float[][] matrices = {
+                PixelKernels.DESATURATE, PixelKernels.SEPIA,
+                PixelKernels.INVERT, PixelKernels.CONTRAST
+        };
+        int[] src = randomPixels(1000);
+        int[] dst = new int[src.length];
+        for (float[] m : matrices) {
+            PixelKernels.colorMatrix(m).apply(src, dst, 0, src.length);
+            for (int i = 0; i < src.length; i++) {
+                assertPixelEquals(reference(m, src[i]), dst[i], 1);
+            }
+        }
+    }
+
+    @Test
+    public void testInvert() {
+        int[] pixels = {argb(255, 0, 128, 255), argb(10, 255, 255, 255)};
+        PixelKernels.colorMatrix(PixelKernels.INVERT).apply(pixels, pixels, 0, 2);
+        Assert.assertEquals(argb(255, 255, 127, 0), pixels[0]);
+        Assert.assertEquals(argb(10, 0, 0, 0), pixels[1]);
+    }
+
+    @Test
+    public void testFusedChainEqualsSequentialPasses() {
+        int[] src = randomPixels(1000);
+        int[] fused = new int[src.length];
+        PixelKernels.colorMatrix(PixelKernels.INVERT, PixelKernels.SEPIA)
+                .apply(src, fused, 0, src.length);
+
+        for (int i = 0; i < src.length; i++) {
+            int expected = reference(PixelKernels.SEPIA, reference(PixelKernels.INVERT, src[i]));
+            assertPixelEquals(expected, fused[i], 1);
+        }
+    }
+
+    @Test
+    public void testConcatWithIdentity() {
+        float[] m = PixelKernels.concat(PixelKernels.IDENTITY, PixelKernels.CONTRAST);
+        Assert.assertArrayEquals(PixelKernels.CONTRAST, m, 1e-6f);
+        m = PixelKernels.concat(PixelKernels.CONTRAST, PixelKernels.IDENTITY);
+        Assert.assertArrayEquals(PixelKernels.CONTRAST, m, 1e-6f);
+    }
+
+    @Test
+    public void testSketch() {
+        int[] pixels = {
+                argb(255, 200, 200, 200),
+                argb(128, 120, 120, 120),
+                argb(255, 100, 100, 100),
+        };
+        PixelKernels.SKETCH.apply(pixels, pixels, 0, pixels.length);
+        Assert.assertEquals(argb(255, 255, 255, 255), pixels[0]);
+        Assert.assertEquals(argb(128, 150, 150, 150), pixels[1]);
+        Assert.assertEquals(argb(255, 0, 0, 0), pixels[2]);
+    }
+
+    @Test
+    public void testTiledEqualsSerial() {
+        int[] src = randomPixels(1_000_003);
+        int[] serial = new int[src.length];
+        int[] tiled = src.clone();
+        PixelKernels.Kernel kernel = PixelKernels.colorMatrix(PixelKernels.SEPIA);
+        kernel.apply(src, serial, 0, src.length);
+        PixelKernels.apply(kernel, tiled, tiled, tiled.length);
+        Assert.assertArrayEquals(serial, tiled);
+    }
+
+    @Test
+    public void testApplyOnlyTouchesLength() {
+        int[] pixels = randomPixels(10);
+        int last = pixels[9];
+        PixelKernels.apply(PixelKernels.SKETCH, pixels, pixels, 9);
+        Assert.assertEquals(last, pixels[9]);
+    }
+
+    @Test
+    public void testApplyFromTheCpuLaneDoesNotWaitForTheLane() throws InterruptedException {
+        int[] src = randomPixels(1_000_003);
+        int[] serial = new int[src.length];
+        int[] tiled = src.clone();
+        PixelKernels.Kernel kernel = PixelKernels.colorMatrix(PixelKernels.INVERT);
+        kernel.apply(src, serial, 0, src.length);
+
+        // occupy every thread of the CPU lane with a task which calls apply()
+        TaskScheduler scheduler = TaskScheduler.getInstance();
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        CountDownLatch started = new CountDownLatch(threads);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        for (int i = 1; i < threads; i++) {
+            scheduler.submit(TaskScheduler.Lane.CPU, () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            });
+        }
+        scheduler.submit(TaskScheduler.Lane.CPU, () -> {
+            started.countDown();
+            PixelKernels.apply(kernel, tiled, tiled, tiled.length);
+            done.countDown();
+        });
+        try {
+            Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+        Assert.assertArrayEquals(serial, tiled);
+    }
+
+    @Test
+    public void testInterruptedApplyWaitsForRunningTiles() {
+        AtomicInteger running = new AtomicInteger();
+        PixelKernels.Kernel kernel = (src, dst, from, to) -> {
+            running.incrementAndGet();
+            // busy, like a real kernel, which does not check the interrupt flag
+            long end = System.nanoTime() + 50_000_000L;
+            while (System.nanoTime() < end) {
+                Thread.yield();
+            }
+            running.decrementAndGet();
+        };
+        int[] pixels = new int[4 << 16];
+        Thread.currentThread().interrupt();
+        PixelKernels.apply(kernel, pixels, pixels, pixels.length);
+        Assert.assertEquals(0, running.get());
+        Assert.assertTrue(Thread.interrupted());
+    }
+}
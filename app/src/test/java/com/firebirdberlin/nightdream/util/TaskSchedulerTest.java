@@ -0,0 +1,164 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.nightdream.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TaskSchedulerTest {
+
+    private static Runnable await(CountDownLatch latch) {
+        return () -> {
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+            }
+        };
+    }
+
+    @Test
+    public void testTasksRun() throws Exception {
+        TaskScheduler scheduler = new TaskScheduler(2, 1, 1, 8);
+        AtomicInteger count = new AtomicInteger();
+        TaskScheduler.Task a = scheduler.submit(TaskScheduler.Lane.IO, count::incrementAndGet);
+        TaskScheduler.Task b = scheduler.submit(TaskScheduler.Lane.CPU, count::incrementAndGet);
+        a.get(5, TimeUnit.SECONDS);
+        b.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(2, count.get());
+        Assert.assertEquals(1, scheduler.getStats(TaskScheduler.Lane.IO).getCompleted());
+        Assert.assertEquals(1, scheduler.getStats(TaskScheduler.Lane.CPU).getCompleted());
+        Assert.assertEquals(0, scheduler.getStats(TaskScheduler.Lane.UI).getSubmitted());
+    }
+
+    @Test
+    public void testTasksWithTheSameKeyAreCoalesced() throws Exception {
+        TaskScheduler scheduler = new TaskScheduler(1, 1, 1, 8);
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger count = new AtomicInteger();
+
+        TaskScheduler.Task blocker = scheduler.submit(TaskScheduler.Lane.IO, await(latch));
+        TaskScheduler.Task first = scheduler.submit(
+                TaskScheduler.Lane.IO, "key", null, count::incrementAndGet
+        );
+        TaskScheduler.Task second = scheduler.submit(
+                TaskScheduler.Lane.IO, "key", null, count::incrementAndGet
+        );
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, scheduler.getQueueDepth(TaskScheduler.Lane.IO));
+        Assert.assertEquals(1, scheduler.getStats(TaskScheduler.Lane.IO).getCoalesced());
+
+        latch.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+        first.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(1, count.get());
+
+        // the key is released when the task is done
+        TaskScheduler.Task third = scheduler.submit(
+                TaskScheduler.Lane.IO, "key", null, count::incrementAndGet
+        );
+        Assert.assertNotSame(first, third);
+        third.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(2, count.get());
+    }
+
+    @Test
+    public void testCancelByOwner() throws Exception {
+        TaskScheduler scheduler = new TaskScheduler(1, 1, 1, 8);
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger count = new AtomicInteger();
+        Object owner = new Object();
+        Object other = new Object();
+
+        TaskScheduler.Task blocker = scheduler.submit(TaskScheduler.Lane.UI, await(latch));
+        TaskScheduler.Task owned = scheduler.submit(
+                TaskScheduler.Lane.UI, null, owner, count::incrementAndGet
+        );
+        TaskScheduler.Task foreign = scheduler.submit(
+                TaskScheduler.Lane.UI, null, other, count::incrementAndGet
+        );
+        scheduler.cancel(owner);
+        Assert.assertTrue(owned.isCancelled());
+        Assert.assertEquals(1, scheduler.getQueueDepth(TaskScheduler.Lane.UI));
+
+        latch.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+        foreign.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(1, count.get());
+        Assert.assertEquals(1, scheduler.getStats(TaskScheduler.Lane.UI).getCancelled());
+    }
+
+    @Test
+    public void testRunningTaskIsInterrupted() throws Exception {
+        TaskScheduler scheduler = new TaskScheduler(1, 1, 1, 8);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Object owner = new Object();
+        scheduler.submit(TaskScheduler.Lane.IO, null, owner, () -> {
+            started.countDown();
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        scheduler.cancel(owner);
+        Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testQueueIsBounded() {
+        TaskScheduler scheduler = new TaskScheduler(1, 1, 1, 2);
+        CountDownLatch latch = new CountDownLatch(1);
+        scheduler.submit(TaskScheduler.Lane.CPU, await(latch));
+        scheduler.submit(TaskScheduler.Lane.CPU, await(latch));
+        scheduler.submit(TaskScheduler.Lane.CPU, await(latch));
+        try {
+            scheduler.submit(TaskScheduler.Lane.CPU, "key", null, await(latch));
+            Assert.fail("the queue should be full");
+        } catch (RejectedExecutionException expected) {
+        } finally {
+            latch.countDown();
+        }
+        Assert.assertEquals(1, scheduler.getStats(TaskScheduler.Lane.CPU).getRejected());
+        Assert.assertEquals(3, scheduler.getStats(TaskScheduler.Lane.CPU).getSubmitted());
+    }
+
+    @Test
+    public void testStreamLaneRunsWhileIoIsFull() throws Exception {
+        TaskScheduler scheduler = new TaskScheduler(1, 1, 1, 1, 1);
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger count = new AtomicInteger();
+        try {
+            scheduler.submit(TaskScheduler.Lane.IO, await(latch));
+            scheduler.submit(TaskScheduler.Lane.IO, await(latch));
+            TaskScheduler.Task stream =
+                    scheduler.submit(TaskScheduler.Lane.STREAM, count::incrementAndGet);
+            stream.get(5, TimeUnit.SECONDS);
+            Assert.assertEquals(1, count.get());
+        } finally {
+            latch.countDown();
+        }
+    }
+}
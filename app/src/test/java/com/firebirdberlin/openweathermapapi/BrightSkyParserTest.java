@@ -0,0 +1,92 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.openweathermapapi;
+
+import com.firebirdberlin.openweathermapapi.models.City;
+import com.firebirdberlin.openweathermapapi.models.WeatherEntry;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class BrightSkyParserTest {
+    private static final long REQUEST_TIMESTAMP = 1234L;
+
+    private static City city() {
+        City city = new City();
+        city.name = "Berlin";
+        city.lat = 52.52;
+        city.lon = 13.41;
+        return city;
+    }
+
+    private static Reader fixture() {
+        InputStream stream = BrightSkyParserTest.class.getResourceAsStream("/weather/brightsky_weather.json");
+        Assert.assertNotNull(stream);
+        return new InputStreamReader(stream, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testParseHourly() throws IOException {
+        List<WeatherEntry> entries = BrightSkyParser.parseHourly(fixture(), city(), REQUEST_TIMESTAMP);
+        Assert.assertEquals(3, entries.size());
+
+        WeatherEntry first = entries.get(0);
+        Assert.assertEquals(IsoTimestamp.parse("2025-06-01T10:00:00Z") / 1000, first.timestamp);
+        Assert.assertEquals(REQUEST_TIMESTAMP, first.request_timestamp);
+        Assert.assertEquals(6007, first.cityID);
+        Assert.assertEquals("Berlin", first.cityName);
+        Assert.assertEquals(25, first.clouds);
+        Assert.assertEquals("dry", first.description);
+        Assert.assertEquals(18.4 + 273.15, first.temperature, 1e-4);
+        Assert.assertEquals(55, first.humidity);
+        Assert.assertEquals(270, first.windDirection);
+        Assert.assertEquals(5., first.windSpeed, 1e-4);
+        Assert.assertEquals("partly-cloudy-day", first.weatherIcon);
+        Assert.assertEquals("H", first.weatherIconMeteoconsSymbol);
+
+        // null values
+        Assert.assertEquals(-1, entries.get(1).humidity);
+        Assert.assertEquals(0, entries.get(2).clouds);
+        Assert.assertEquals(6008, entries.get(2).cityID);
+    }
+
+    @Test
+    public void testParseCurrent() throws IOException {
+        long now = IsoTimestamp.parse("2025-06-01T11:30:00Z");
+        WeatherEntry entry = BrightSkyParser.parseCurrent(fixture(), city(), REQUEST_TIMESTAMP, now);
+        Assert.assertNotNull(entry);
+        Assert.assertEquals(IsoTimestamp.parse("2025-06-01T13:00:00+02:00") / 1000, entry.timestamp);
+        Assert.assertEquals("rain", entry.description);
+        Assert.assertEquals(0.7, entry.rain1h, 1e-4);
+        Assert.assertEquals(6., entry.windSpeed, 1e-4);
+    }
+
+    @Test
+    public void testParseCurrentBeforeTheFirstRecord() throws IOException {
+        long now = IsoTimestamp.parse("2025-06-01T09:00:00Z");
+        Assert.assertNull(BrightSkyParser.parseCurrent(fixture(), city(), REQUEST_TIMESTAMP, now));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.openweathermapapi;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+
+public class IsoTimestampTest {
+
+    private static long reference(String timestamp) {
+        return OffsetDateTime.parse(timestamp).toInstant().toEpochMilli();
+    }
+
+    @Test
+    public void testZoneDesignators() {
+        Assert.assertEquals(0L, IsoTimestamp.parse("1970-01-01T00:00:00Z"));
+        Assert.assertEquals(
+                reference("2025-06-01T12:00:00Z"), IsoTimestamp.parse("2025-06-01T12:00:00Z")
+        );
+        Assert.assertEquals(
+                reference("2025-06-01T12:00:00+02:00"),
+                IsoTimestamp.parse("2025-06-01T12:00:00+02:00")
+        );
+        Assert.assertEquals(
+                reference("2025-06-01T12:00:00-05:30"),
+                IsoTimestamp.parse("2025-06-01T12:00:00-0530")
+        );
+        Assert.assertEquals(
+                reference("2025-06-01T12:00:00Z"), IsoTimestamp.parse("2025-06-01T12:00:00")
+        );
+    }
+
+    @Test
+    public void testFractionalSeconds() {
+        Assert.assertEquals(
+                reference("2024-02-29T23:59:59.250Z"),
+                IsoTimestamp.parse("2024-02-29T23:59:59.25Z")
+        );
+    }
+
+    @Test
+    public void testMatchesReferenceForManyDates() {
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssXXX");
+        OffsetDateTime time = OffsetDateTime.parse("1999-12-31T22:30:00+01:00");
+        for (int i = 0; i < 2000; i++) {
+            time = time.plusHours(37);
+            String timestamp = time.format(format);
+            Assert.assertEquals(timestamp, reference(timestamp), IsoTimestamp.parse(timestamp));
+        }
+    }
+
+    @Test
+    public void testInvalidInput() {
+        Assert.assertEquals(IsoTimestamp.INVALID, IsoTimestamp.parse(null));
+        Assert.assertEquals(IsoTimestamp.INVALID, IsoTimestamp.parse(""));
+        Assert.assertEquals(IsoTimestamp.INVALID, IsoTimestamp.parse("2025-06-01 12:00:00Z"));
+        Assert.assertEquals(IsoTimestamp.INVALID, IsoTimestamp.parse("2025-13-01T12:00:00Z"));
+        Assert.assertEquals(IsoTimestamp.INVALID, IsoTimestamp.parse("2025-06-01T12:00:00+2"));
+        Assert.assertEquals(IsoTimestamp.INVALID, IsoTimestamp.parse("2025-06-01T12:00:00Zulu"));
+    }
+}
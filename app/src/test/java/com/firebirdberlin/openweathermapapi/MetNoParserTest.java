@@ -0,0 +1,120 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.openweathermapapi;
+
+import com.firebirdberlin.openweathermapapi.models.City;
+import com.firebirdberlin.openweathermapapi.models.WeatherEntry;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Scanner;
+
+public class MetNoParserTest {
+    private static final long REQUEST_TIMESTAMP = 1234L;
+
+    private static City city() {
+        City city = new City();
+        city.name = "Berlin";
+        city.lat = 52.52;
+        city.lon = 13.41;
+        return city;
+    }
+
+    private static Reader fixture() {
+        InputStream stream = MetNoParserTest.class.getResourceAsStream("/weather/metno_complete.json");
+        Assert.assertNotNull(stream);
+        return new InputStreamReader(stream, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testParseHourly() throws IOException {
+        List<WeatherEntry> entries = MetNoParser.parseHourly(fixture(), city(), REQUEST_TIMESTAMP);
+        Assert.assertEquals(4, entries.size());
+
+        WeatherEntry first = entries.get(0);
+        Assert.assertEquals(IsoTimestamp.parse("2025-06-01T10:00:00Z") / 1000, first.timestamp);
+        Assert.assertEquals(REQUEST_TIMESTAMP, first.request_timestamp);
+        Assert.assertEquals("Berlin", first.cityName);
+        Assert.assertEquals(18.4 + 273.15, first.temperature, 1e-4);
+        Assert.assertEquals(13, first.clouds);
+        Assert.assertEquals(55, first.humidity);
+        Assert.assertEquals(270, first.windDirection);
+        Assert.assertEquals(3.2, first.windSpeed, 1e-4);
+        Assert.assertEquals(0., first.rain1h, 1e-4);
+        Assert.assertEquals("clearsky_day", first.weatherIcon);
+        Assert.assertEquals("B", first.weatherIconMeteoconsSymbol);
+
+        // falls back to the 6 hour period
+        WeatherEntry third = entries.get(2);
+        Assert.assertEquals(1.2, third.rain1h, 1e-4);
+        Assert.assertEquals("cloudy", third.weatherIcon);
+        Assert.assertEquals("N", third.weatherIconMeteoconsSymbol);
+
+        WeatherEntry last = entries.get(3);
+        Assert.assertEquals(-1., last.rain1h, 1e-4);
+        Assert.assertEquals("", last.weatherIcon);
+    }
+
+    @Test
+    public void testParseCurrent() throws IOException {
+        long now = IsoTimestamp.parse("2025-06-01T11:30:00Z");
+        WeatherEntry entry = MetNoParser.parseCurrent(fixture(), city(), REQUEST_TIMESTAMP, now);
+        Assert.assertNotNull(entry);
+        Assert.assertEquals(IsoTimestamp.parse("2025-06-01T11:00:00Z") / 1000, entry.timestamp);
+        Assert.assertEquals(0.4, entry.rain1h, 1e-4);
+        Assert.assertEquals("Q", entry.weatherIconMeteoconsSymbol);
+    }
+
+    @Test
+    public void testParseCurrentBeforeTheFirstEntry() throws IOException {
+        long now = IsoTimestamp.parse("2025-06-01T09:00:00Z");
+        Assert.assertNull(MetNoParser.parseCurrent(fixture(), city(), REQUEST_TIMESTAMP, now));
+    }
+
+    @Test
+    public void testParseCurrentStopsAfterTheWindow() throws IOException {
+        String json;
+        try (Scanner scanner = new Scanner(fixture()).useDelimiter("\\A")) {
+            json = scanner.next();
+        }
+        // the document is cut off in the entry after the current one
+        int cut = json.indexOf("2025-06-01T12:00:00Z");
+        String truncated = json.substring(0, cut + 30);
+
+        long now = IsoTimestamp.parse("2025-06-01T11:30:00Z");
+        WeatherEntry entry = MetNoParser.parseCurrent(
+                new StringReader(truncated), city(), REQUEST_TIMESTAMP, now
+        );
+        Assert.assertNotNull(entry);
+        Assert.assertEquals(IsoTimestamp.parse("2025-06-01T11:00:00Z") / 1000, entry.timestamp);
+    }
+
+    @Test(expected = IOException.class)
+    public void testMalformedResponse() throws IOException {
+        MetNoParser.parseHourly(new StringReader("{\"properties\": "), city(), 0L);
+    }
+}
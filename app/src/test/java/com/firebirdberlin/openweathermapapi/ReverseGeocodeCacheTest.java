@@ -0,0 +1,154 @@
+/*
+ * NightDream
+ * Copyright (C) 2025 Stefan Fruhner
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.firebirdberlin.openweathermapapi;
+
+import com.firebirdberlin.nightdream.util.Geohash;
+import com.firebirdberlin.openweathermapapi.models.City;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+public class ReverseGeocodeCacheTest {
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final int PRECISION = 6;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("reverseGeocodeCache", ".bin");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private ReverseGeocodeCache newCache() {
+        return new ReverseGeocodeCache(file, PRECISION, 30 * DAY, 4);
+    }
+
+    private static City city(String name) {
+        City city = new City();
+        city.name = name;
+        city.countryCode = "DE";
+        city.postalCode = "10178";
+        city.lat = 52.52;
+        city.lon = 13.405;
+        return city;
+    }
+
+    @Test
+    public void testNearbyPointsHit() {
+        ReverseGeocodeCache cache = newCache();
+        Assert.assertNull(cache.get(52.5200, 13.4050, 0L));
+        cache.put(52.5200, 13.4050, city("Berlin"), 0L);
+
+        // a few meters of jitter
+        City city = cache.get(52.5201, 13.4049, 1000L);
+        Assert.assertNotNull(city);
+        Assert.assertEquals("Berlin", city.name);
+        Assert.assertEquals("10178", city.postalCode);
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+
+        // far away
+        Assert.assertNull(cache.get(48.137, 11.575, 1000L));
+        Assert.assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testNeighbourCellHitsNearTheBorder() {
+        double height = Geohash.cellHeight(PRECISION);
+        // two points on either side of a cell border
+        double lat = Math.floor(52.52 / height) * height;
+        double lon = 13.405;
+        ReverseGeocodeCache cache = newCache();
+        cache.put(lat + height / 10., lon, city("Berlin"), 0L);
+        Assert.assertNotEquals(
+                Geohash.encode(lat + height / 10., lon, PRECISION),
+                Geohash.encode(lat - height / 10., lon, PRECISION)
+        );
+        Assert.assertNotNull(cache.get(lat - height / 10., lon, 0L));
+        // more than half a cell away from the point which was looked up
+        Assert.assertNull(cache.get(lat - height * 0.6, lon, 0L));
+    }
+
+    @Test
+    public void testEntriesExpire() {
+        ReverseGeocodeCache cache = newCache();
+        cache.put(52.52, 13.405, city("Berlin"), 0L);
+        Assert.assertNotNull(cache.get(52.52, 13.405, 30 * DAY));
+        Assert.assertNull(cache.get(52.52, 13.405, 31 * DAY));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedCellIsEvicted() {
+        ReverseGeocodeCache cache = newCache();
+        for (int i = 0; i < 5; i++) {
+            cache.put(10. * i, 10. * i, city("City" + i), 0L);
+        }
+        Assert.assertEquals(4, cache.size());
+        Assert.assertNull(cache.get(0., 0., 0L));
+        Assert.assertNotNull(cache.get(40., 40., 0L));
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        ReverseGeocodeCache cache = newCache();
+        City berlin = city("Berlin");
+        berlin.countryName = null;
+        cache.put(52.52, 13.405, berlin, 0L);
+        cache.get(52.52, 13.405, 0L);
+        cache.get(0., 0., 0L);
+        cache.save();
+
+        ReverseGeocodeCache loaded = newCache();
+        City city = loaded.get(52.52, 13.405, 0L);
+        Assert.assertNotNull(city);
+        Assert.assertEquals("Berlin", city.name);
+        Assert.assertNull(city.countryName);
+        Assert.assertEquals(52.52, city.lat, 1e-9);
+        Assert.assertEquals(2, loaded.getHits());
+        Assert.assertEquals(1, loaded.getMisses());
+
+        // another precision does not reuse the cells
+        ReverseGeocodeCache other = new ReverseGeocodeCache(file, 5, 30 * DAY, 4);
+        Assert.assertEquals(0, other.size());
+    }
+
+    @Test
+    public void testHitDoesNotRewriteTheFile() {
+        ReverseGeocodeCache cache = newCache();
+        cache.put(52.52, 13.405, city("Berlin"), 0L);
+        cache.save();
+        Assert.assertTrue(file.delete());
+
+        Assert.assertNotNull(cache.get(52.52, 13.405, 0L));
+        Assert.assertNull(cache.get(0., 0., 0L));
+        cache.save();
+        Assert.assertFalse(file.exists());
+    }
+}